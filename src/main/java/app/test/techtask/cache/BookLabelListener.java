@@ -0,0 +1,28 @@
+package app.test.techtask.cache;
+
+import app.test.techtask.data.Book;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+public class BookLabelListener {
+
+    private final BookLabels bookLabels;
+
+    public BookLabelListener(BookLabels bookLabels) {
+        this.bookLabels = bookLabels;
+    }
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    public void remember(Book book) {
+        bookLabels.put(book);
+    }
+
+    @PostRemove
+    public void forget(Book book) {
+        bookLabels.evict(book.getId());
+    }
+}
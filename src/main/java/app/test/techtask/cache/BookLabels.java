@@ -0,0 +1,206 @@
+package app.test.techtask.cache;
+
+import app.test.techtask.data.Book;
+import app.test.techtask.stats.LongLongMap;
+import app.test.techtask.stats.StringDictionary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Title and author of every loaded or written book as ids into one shared
+ * {@link StringDictionary}, so in-memory reports and aggregations can group on {@code int}s and
+ * turn ids back into strings only for the response. Each book costs one packed {@code long}
+ * instead of its own title and author strings.
+ *
+ * Entries are written by {@link BookLabelListener}. Like {@link EntityVersionCache}, a change
+ * that gets rolled back stays visible until the book is loaded again, and so does a change made
+ * by another instance. All labels are therefore dropped every {@code library.labels.refresh-interval}
+ * and reloaded as reports need them; reports that read titles with their counts {@link #intern}
+ * them instead. Strings are never removed from the dictionary. Once {@code library.labels.max-books} books are labeled, no new book is
+ * kept; reports resolve such books through the {@link Lookup} returned by {@link #loadMissing}.
+ */
+@Component
+public class BookLabels {
+
+    private static final long MISSING = -1L;
+
+    private final StringDictionary dictionary = new StringDictionary(1024);
+    private final LongLongMap labels = new LongLongMap(1024);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int maxBooks;
+
+    public BookLabels(@Value("${library.labels.max-books:5000000}") int maxBooks) {
+        this.maxBooks = maxBooks;
+    }
+
+    /**
+     * @return {@code false} if the book has no title or author, or is new and the labels are full
+     */
+    public boolean put(Book book) {
+        if (book.getId() == null || book.getTitle() == null || book.getAuthor() == null) {
+            return false;
+        }
+        long packed = pack(dictionary.idOf(book.getTitle()), dictionary.idOf(book.getAuthor()));
+        lock.writeLock().lock();
+        try {
+            if (labels.size() < maxBooks || labels.containsKey(book.getId())) {
+                labels.put(book.getId(), packed);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void evict(Long bookId) {
+        if (bookId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            labels.remove(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the dictionary id of the book's title, or {@link StringDictionary#NONE} if the
+     * book is unknown.
+     */
+    public int titleId(long bookId) {
+        long packed = packed(bookId);
+        return packed == MISSING ? StringDictionary.NONE : (int) (packed >>> 32);
+    }
+
+    /**
+     * Returns the dictionary id of the book's author, or {@link StringDictionary#NONE} if the
+     * book is unknown.
+     */
+    public int authorId(long bookId) {
+        long packed = packed(bookId);
+        return packed == MISSING ? StringDictionary.NONE : (int) packed;
+    }
+
+    public String string(int id) {
+        return dictionary.get(id);
+    }
+
+    /**
+     * Returns the dictionary id of {@code value}, adding it if it is new.
+     */
+    public int intern(String value) {
+        return dictionary.idOf(value);
+    }
+
+    @Scheduled(fixedDelayString = "${library.labels.refresh-interval:PT10M}",
+            initialDelayString = "${library.labels.refresh-interval:PT10M}")
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            labels.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids among {@code bookIds} that have no labels yet, for the caller to load.
+     */
+    public List<Long> missing(Collection<Long> bookIds) {
+        List<Long> missing = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long bookId : bookIds) {
+                if (!labels.containsKey(bookId)) {
+                    missing.add(bookId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return missing;
+    }
+
+    /**
+     * Loads the books among {@code bookIds} that have no labels yet through {@code loader},
+     * typically {@code bookRepository::findAllById}.
+     *
+     * @return labels of {@code bookIds}, including loaded books that could not be kept
+     */
+    public Lookup loadMissing(Collection<Long> bookIds, Function<List<Long>, ? extends Iterable<Book>> loader) {
+        List<Long> missing = missing(bookIds);
+        LongLongMap overflow = new LongLongMap();
+        if (!missing.isEmpty()) {
+            for (Book book : loader.apply(missing)) {
+                if (!put(book) && book.getId() != null && book.getTitle() != null && book.getAuthor() != null) {
+                    overflow.put(book.getId(), pack(dictionary.idOf(book.getTitle()), dictionary.idOf(book.getAuthor())));
+                }
+            }
+        }
+        return new Lookup(overflow);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return labels.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int dictionarySize() {
+        return dictionary.size();
+    }
+
+    private long packed(long bookId) {
+        lock.readLock().lock();
+        try {
+            return labels.get(bookId, MISSING);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Labels of the books passed to {@link #loadMissing}: the shared ones, and those loaded for
+     * that call only because the labels were full.
+     */
+    public final class Lookup {
+
+        private final LongLongMap overflow;
+
+        private Lookup(LongLongMap overflow) {
+            this.overflow = overflow;
+        }
+
+        public int titleId(long bookId) {
+            long packed = packed(bookId);
+            return packed == MISSING ? StringDictionary.NONE : (int) (packed >>> 32);
+        }
+
+        public int authorId(long bookId) {
+            long packed = packed(bookId);
+            return packed == MISSING ? StringDictionary.NONE : (int) packed;
+        }
+
+        private long packed(long bookId) {
+            long packed = BookLabels.this.packed(bookId);
+            return packed != MISSING || overflow.isEmpty() ? packed : overflow.get(bookId, MISSING);
+        }
+    }
+
+    private static long pack(int titleId, int authorId) {
+        return ((long) titleId << 32) | (authorId & 0xFFFFFFFFL);
+    }
+}
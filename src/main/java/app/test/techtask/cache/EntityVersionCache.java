@@ -0,0 +1,71 @@
+package app.test.techtask.cache;
+
+import app.test.techtask.data.Versioned;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the last known {@code @Version} of every loaded or written entity so that
+ * conditional GETs can be answered with 304 without going to the database.
+ *
+ * Entries are written by {@link EntityVersionListener}. A version that never got
+ * committed only causes a cache miss, because clients never saw an ETag for it. Versions only
+ * move forward: an entity loaded from an older snapshot, e.g. on a lagging replica, cannot
+ * replace a newer version, which would turn a stale ETag into a false 304. Evictions inside a
+ * transaction take effect after it commits, so a concurrent read cannot cache the old version again.
+ */
+@Component
+public class EntityVersionCache {
+
+    private final Map<Class<?>, Map<Long, Long>> versions = new ConcurrentHashMap<>();
+    private final int maxEntriesPerType;
+
+    public EntityVersionCache(@Value("${library.etag.cache-size:100000}") int maxEntriesPerType) {
+        this.maxEntriesPerType = maxEntriesPerType;
+    }
+
+    public Long get(Class<? extends Versioned> type, Long id) {
+        Map<Long, Long> byId = versions.get(type);
+        return byId == null || id == null ? null : byId.get(id);
+    }
+
+    public void put(Versioned entity) {
+        put(entity.getClass(), entity.getId(), entity.getVersion());
+    }
+
+    public void put(Class<? extends Versioned> type, Long id, Long version) {
+        if (id == null || version == null) {
+            return;
+        }
+        Map<Long, Long> byId = versions.computeIfAbsent(type, key -> new ConcurrentHashMap<>());
+        if (byId.size() >= maxEntriesPerType && !byId.containsKey(id)) {
+            return;
+        }
+        byId.merge(id, version, Math::max);
+    }
+
+    public void evict(Class<? extends Versioned> type, Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(type, id);
+                }
+            });
+        } else {
+            remove(type, id);
+        }
+    }
+
+    private void remove(Class<? extends Versioned> type, Long id) {
+        Map<Long, Long> byId = versions.get(type);
+        if (byId != null && id != null) {
+            byId.remove(id);
+        }
+    }
+}
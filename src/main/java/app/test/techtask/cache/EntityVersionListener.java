@@ -0,0 +1,28 @@
+package app.test.techtask.cache;
+
+import app.test.techtask.data.Versioned;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+public class EntityVersionListener {
+
+    private final EntityVersionCache versionCache;
+
+    public EntityVersionListener(EntityVersionCache versionCache) {
+        this.versionCache = versionCache;
+    }
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    public void remember(Versioned entity) {
+        versionCache.put(entity);
+    }
+
+    @PostRemove
+    public void forget(Versioned entity) {
+        versionCache.evict(entity.getClass(), entity.getId());
+    }
+}
@@ -0,0 +1,25 @@
+package app.test.techtask.cache;
+
+import app.test.techtask.data.Book;
+import app.test.techtask.data.Member;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+
+public class ExistenceFilterListener {
+
+    private final ExistenceFilters existenceFilters;
+
+    public ExistenceFilterListener(ExistenceFilters existenceFilters) {
+        this.existenceFilters = existenceFilters;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void remember(Object entity) {
+        if (entity instanceof Book book) {
+            existenceFilters.addBook(book.getId());
+        } else if (entity instanceof Member member) {
+            existenceFilters.addMember(member.getId(), member.getMemberName());
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package app.test.techtask.cache;
+
+import app.test.techtask.stats.BloomFilter;
+import app.test.techtask.stats.ScalableBloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Scalable Bloom filters over existing book ids, member ids and member names, so lookups of
+ * things that were never created can be answered without a query. A {@code false} from a
+ * {@code mightHave} method is definite; {@code true} may be a false positive.
+ *
+ * Creates are added by {@link ExistenceFilterListener}. Deletions are only dropped by
+ * {@link #rebuild}, which reloads everything; creates that arrive while a rebuild runs, or whose
+ * transaction has not committed when it reads, are replayed into the new filters. Until the first
+ * rebuild finishes, or when disabled, every lookup is answered with {@code true}.
+ *
+ * The filters only know the rows of this instance and those loaded by the last rebuild. Ids are
+ * assigned in ascending order, so ids above the highest one that rebuild saw, which other
+ * instances may have created since, are always answered with {@code true}. So are the
+ * {@code library.bloom.id-grace} ids just below it: an id handed out before the rebuild read the
+ * table can commit after it, and would otherwise be a false miss until the next rebuild.
+ * Members created or renamed on other instances would be missed by name, so names are only
+ * checked when {@code library.bloom.single-instance} says there are no other instances.
+ */
+@Component
+public class ExistenceFilters {
+
+    /**
+     * Receives every existing book and member during a {@link #rebuild}.
+     */
+    public interface Seed {
+        void addBook(long bookId);
+
+        void addMember(long memberId, String memberName);
+    }
+
+    private record Filters(ScalableBloomFilter bookIds, ScalableBloomFilter memberIds,
+                           ScalableBloomFilter memberNames) implements Seed {
+
+        @Override
+        public void addBook(long bookId) {
+            bookIds.put(BloomFilter.hash(bookId));
+        }
+
+        @Override
+        public void addMember(long memberId, String memberName) {
+            memberIds.put(BloomFilter.hash(memberId));
+            if (memberName != null) {
+                memberNames.put(BloomFilter.hash(memberName));
+            }
+        }
+    }
+
+    private record Built(Filters filters, long maxBookId, long maxMemberId) {
+    }
+
+    private final boolean enabled;
+    private final boolean singleInstance;
+    private final long idGrace;
+    private final long initialCapacity;
+    private final double falsePositiveRate;
+
+    private volatile Built current;
+    private volatile Filters next;
+    private volatile Set<Long> pendingBooks = ConcurrentHashMap.newKeySet();
+    private volatile Map<Long, String> pendingMembers = new ConcurrentHashMap<>();
+    private volatile long lastBookCount;
+    private volatile long lastMemberCount;
+
+    public ExistenceFilters(@Value("${library.bloom.enabled:true}") boolean enabled,
+                            @Value("${library.bloom.single-instance:false}") boolean singleInstance,
+                            @Value("${library.bloom.id-grace:1000}") long idGrace,
+                            @Value("${library.bloom.initial-capacity:100000}") long initialCapacity,
+                            @Value("${library.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.enabled = enabled;
+        this.singleInstance = singleInstance;
+        this.idGrace = idGrace;
+        this.initialCapacity = initialCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public boolean mightHaveBook(Long bookId) {
+        Built built = current;
+        return built == null || bookId == null || bookId > built.maxBookId() - idGrace
+                || built.filters().bookIds().mightContain(BloomFilter.hash(bookId));
+    }
+
+    public boolean mightHaveMember(Long memberId) {
+        Built built = current;
+        return built == null || memberId == null || memberId > built.maxMemberId() - idGrace
+                || built.filters().memberIds().mightContain(BloomFilter.hash(memberId));
+    }
+
+    public boolean mightHaveMemberName(String memberName) {
+        Built built = current;
+        return !singleInstance || built == null || memberName == null
+                || built.filters().memberNames().mightContain(BloomFilter.hash(memberName));
+    }
+
+    public void addBook(Long bookId) {
+        if (!enabled || bookId == null) {
+            return;
+        }
+        pendingBooks.add(bookId);
+        Filters building = next;
+        if (building != null) {
+            building.addBook(bookId);
+        }
+        Built built = current;
+        if (built != null) {
+            built.filters().addBook(bookId);
+        }
+    }
+
+    public void addMember(Long memberId, String memberName) {
+        if (!enabled || memberId == null) {
+            return;
+        }
+        pendingMembers.put(memberId, memberName != null ? memberName : "");
+        Filters building = next;
+        if (building != null) {
+            building.addMember(memberId, memberName);
+        }
+        Built built = current;
+        if (built != null) {
+            built.filters().addMember(memberId, memberName);
+        }
+    }
+
+    /**
+     * Builds fresh filters from everything {@code loader} passes to the seed and swaps them in.
+     * Filters are sized from the previous build, growing on their own if that was too small.
+     */
+    public synchronized void rebuild(Consumer<Seed> loader) {
+        if (!enabled) {
+            return;
+        }
+        long[] counts = new long[2];
+        long[] maxIds = new long[2];
+        Filters fresh = new Filters(
+                new ScalableBloomFilter(capacity(lastBookCount), falsePositiveRate),
+                new ScalableBloomFilter(capacity(lastMemberCount), falsePositiveRate),
+                new ScalableBloomFilter(capacity(lastMemberCount), falsePositiveRate));
+        next = fresh;
+        Set<Long> replayBooks = pendingBooks;
+        Map<Long, String> replayMembers = pendingMembers;
+        pendingBooks = ConcurrentHashMap.newKeySet();
+        pendingMembers = new ConcurrentHashMap<>();
+        try {
+            loader.accept(new Seed() {
+                @Override
+                public void addBook(long bookId) {
+                    fresh.addBook(bookId);
+                    counts[0]++;
+                    maxIds[0] = Math.max(maxIds[0], bookId);
+                }
+
+                @Override
+                public void addMember(long memberId, String memberName) {
+                    fresh.addMember(memberId, memberName);
+                    counts[1]++;
+                    maxIds[1] = Math.max(maxIds[1], memberId);
+                }
+            });
+        } catch (RuntimeException e) {
+            replayBooks.addAll(pendingBooks);
+            replayMembers.putAll(pendingMembers);
+            pendingBooks = replayBooks;
+            pendingMembers = replayMembers;
+            next = null;
+            throw e;
+        }
+        replayBooks.forEach(fresh::addBook);
+        replayMembers.forEach(fresh::addMember);
+        current = new Built(fresh, maxIds[0], maxIds[1]);
+        next = null;
+        lastBookCount = counts[0];
+        lastMemberCount = counts[1];
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    private long capacity(long lastCount) {
+        return Math.max(initialCapacity, lastCount + lastCount / 4);
+    }
+}
@@ -0,0 +1,16 @@
+package app.test.techtask.config;
+
+import io.swagger.v3.oas.annotations.OpenAPIDefinition;
+import io.swagger.v3.oas.annotations.info.Info;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@OpenAPIDefinition(
+        info = @Info(
+                title = "Book Management API",
+                description = "API documentation for the Book Management System",
+                version = "1.0.0"
+        )
+)
+public class OpenApiConfig {
+}
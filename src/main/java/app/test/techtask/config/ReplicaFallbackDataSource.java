@@ -0,0 +1,108 @@
+package app.test.techtask.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Hands out replica connections while the replica is reachable and its replication lag stays
+ * below {@code maxLag}, and primary connections otherwise.
+ *
+ * {@link #checkHealth()} runs the optional {@code lagQuery}, which must return the lag in
+ * seconds, and marks the replica up or down. A failed replica connection marks it down right
+ * away, so reads fall back to the primary until the next successful check.
+ */
+public class ReplicaFallbackDataSource extends AbstractDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaFallbackDataSource.class);
+
+    private final DataSource replica;
+    private final DataSource primary;
+    private final String lagQuery;
+    private final Duration maxLag;
+
+    private volatile boolean replicaHealthy = true;
+
+    public ReplicaFallbackDataSource(DataSource replica, DataSource primary, String lagQuery, Duration maxLag) {
+        this.replica = replica;
+        this.primary = primary;
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+        this.maxLag = maxLag;
+    }
+
+    public boolean isReplicaHealthy() {
+        return replicaHealthy;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicaHealthy) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                markDown("connection failed: " + e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (replicaHealthy) {
+            try {
+                return replica.getConnection(username, password);
+            } catch (SQLException e) {
+                markDown("connection failed: " + e.getMessage());
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Probes the replica and updates its state.
+     */
+    @Scheduled(fixedDelayString = "${library.datasource.replica.health-interval:PT2S}")
+    public void checkHealth() {
+        try (Connection connection = replica.getConnection()) {
+            if (!connection.isValid(1)) {
+                markDown("connection is not valid");
+                return;
+            }
+            if (lagQuery != null) {
+                double lagSeconds = queryLag(connection);
+                if (lagSeconds * 1000 > maxLag.toMillis()) {
+                    markDown("lagging " + lagSeconds + "s behind");
+                    return;
+                }
+            }
+            if (!replicaHealthy) {
+                replicaHealthy = true;
+                log.info("Read replica is back, routing read-only transactions to it");
+            }
+        } catch (SQLException e) {
+            markDown("health check failed: " + e.getMessage());
+        }
+    }
+
+    private double queryLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            return resultSet.next() ? resultSet.getDouble(1) : 0;
+        }
+    }
+
+    private void markDown(String reason) {
+        if (replicaHealthy) {
+            replicaHealthy = false;
+            log.warn("Read replica unavailable ({}), routing read-only transactions to the primary", reason);
+        }
+    }
+}
@@ -1,29 +0,0 @@
-package app.test.techtask.config;
-
-import io.swagger.v3.oas.annotations.OpenAPIDefinition;
-import io.swagger.v3.oas.annotations.info.Info;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import springfox.documentation.builders.PathSelectors;
-import springfox.documentation.builders.RequestHandlerSelectors;
-import springfox.documentation.spi.DocumentationType;
-import springfox.documentation.spring.web.plugins.Docket;
-
-@Configuration
-@OpenAPIDefinition(
-        info = @Info(
-                title = "Book Management API",
-                description = "API documentation for the Book Management System",
-                version = "1.0.0"
-        )
-)
-public class SpringFoxConfig {
-    @Bean
-    public Docket api() {
-        return new Docket(DocumentationType.SWAGGER_2)
-                .select()
-                .apis(RequestHandlerSelectors.basePackage("app.test.techtask.controller"))
-                .paths(PathSelectors.any())
-                .build();
-    }
-}
@@ -0,0 +1,97 @@
+package app.test.techtask.config;
+
+import app.test.techtask.data.Book;
+import app.test.techtask.data.BookView;
+import app.test.techtask.data.Member;
+import app.test.techtask.data.MemberView;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.repositories.MemberRepository;
+import app.test.techtask.resilience.DatabaseUnavailableException;
+import app.test.techtask.services.BookService;
+import app.test.techtask.services.MemberService;
+import app.test.techtask.services.PopularBooksService;
+import app.test.techtask.services.RelatedBooksService;
+import app.test.techtask.stats.TumblingWindow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Runs the hot read paths a few times before the application reports ready: it loads the first
+ * books and members through the services, which fills the version and last known good caches,
+ * and serializes the same views the controllers return, so the JIT has compiled the request path
+ * before real traffic arrives.
+ * Only active when {@code library.warmup.enabled} is set, as in the {@code prod} profile.
+ */
+@Component
+@ConditionalOnProperty(prefix = "library.warmup", name = "enabled", havingValue = "true")
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final BookService bookService;
+    private final MemberService memberService;
+    private final PopularBooksService popularBooksService;
+    private final RelatedBooksService relatedBooksService;
+    private final ObjectMapper objectMapper;
+    private final int entityCount;
+    private final int iterations;
+
+    public StartupWarmup(BookRepository bookRepository,
+                         MemberRepository memberRepository,
+                         BookService bookService,
+                         MemberService memberService,
+                         PopularBooksService popularBooksService,
+                         RelatedBooksService relatedBooksService,
+                         ObjectMapper objectMapper,
+                         @Value("${library.warmup.entities:50}") int entityCount,
+                         @Value("${library.warmup.iterations:10}") int iterations) {
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.bookService = bookService;
+        this.memberService = memberService;
+        this.popularBooksService = popularBooksService;
+        this.relatedBooksService = relatedBooksService;
+        this.objectMapper = objectMapper;
+        this.entityCount = entityCount;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        try {
+            List<Long> bookIds = bookRepository.findAll(PageRequest.of(0, entityCount)).map(Book::getId).getContent();
+            List<Long> memberIds = memberRepository.findAll(PageRequest.of(0, entityCount)).map(Member::getId).getContent();
+            for (int i = 0; i < iterations; i++) {
+                for (Long id : bookIds) {
+                    Book book = bookService.getBookById(id);
+                    if (book != null) {
+                        objectMapper.writeValueAsBytes(BookView.of(book));
+                    }
+                    objectMapper.writeValueAsBytes(relatedBooksService.getRelated(id, 10));
+                }
+                for (Long id : memberIds) {
+                    objectMapper.writeValueAsBytes(memberService.getMember(id).map(MemberView::of).orElse(null));
+                }
+                objectMapper.writeValueAsBytes(popularBooksService.getPopularBooks(TumblingWindow.DAY, 10));
+            }
+            log.info("Warmed up {} books and {} members in {} ms", bookIds.size(), memberIds.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (DataAccessException | DatabaseUnavailableException | JsonProcessingException e) {
+            log.warn("Startup warmup stopped early", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package app.test.techtask.config;
+
+import app.test.techtask.profiling.SqlProfilingInterceptor;
+import app.test.techtask.ratelimit.RateLimitInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final SqlProfilingInterceptor sqlProfilingInterceptor;
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    public WebConfig(SqlProfilingInterceptor sqlProfilingInterceptor, RateLimitInterceptor rateLimitInterceptor) {
+        this.sqlProfilingInterceptor = sqlProfilingInterceptor;
+        this.rateLimitInterceptor = rateLimitInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlProfilingInterceptor);
+        registry.addInterceptor(rateLimitInterceptor);
+    }
+}
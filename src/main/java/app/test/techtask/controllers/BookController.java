@@ -1,23 +1,42 @@
 package app.test.techtask.controllers;
 
+import app.test.techtask.cache.ExistenceFilters;
 import app.test.techtask.data.Book;
+import app.test.techtask.data.BookView;
 import app.test.techtask.services.BookService;
-import io.swagger.annotations.ApiParam;
+import app.test.techtask.services.BulkAdjustmentResult;
+import app.test.techtask.services.BulkDeleteResult;
+import app.test.techtask.services.StockAdjustment;
+import app.test.techtask.services.StockAdjustmentService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/books")
 @Tag(name = "Book Controller", description = "API for managing books in the library")
 public class BookController {
 
+    static final int MAX_BULK_DELETE_IDS = 1000;
+    static final int MAX_ADJUSTMENTS = 100_000;
+
     private final BookService bookService;
+    private final StockAdjustmentService stockAdjustmentService;
+    private final ExistenceFilters existenceFilters;
 
-    public BookController(final BookService bookService) {
+    public BookController(final BookService bookService,
+                          final StockAdjustmentService stockAdjustmentService,
+                          final ExistenceFilters existenceFilters) {
         this.bookService = bookService;
+        this.stockAdjustmentService = stockAdjustmentService;
+        this.existenceFilters = existenceFilters;
     }
 
     @Operation(
@@ -29,10 +48,10 @@ public class BookController {
             }
     )
     @PostMapping
-    public ResponseEntity<Book> saveBook(@ApiParam(value = "Book object to be created or updated", required = true)
+    public ResponseEntity<BookView> saveBook(@Parameter(description = "Book object to be created or updated", required = true)
                                          @RequestBody Book book) {
         Book savedBook = bookService.saveBook(book);
-        return ResponseEntity.ok(savedBook);
+        return ResponseEntity.ok(BookView.of(savedBook));
     }
 
     @Operation(
@@ -40,14 +59,34 @@ public class BookController {
             description = "Retrieve a book from the database by its ID.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully retrieved book"),
-                    @ApiResponse(responseCode = "404", description = "Book not found")
+                    @ApiResponse(responseCode = "304", description = "Book not modified since the given ETag"),
+                    @ApiResponse(responseCode = "404", description = "Book not found"),
+                    @ApiResponse(responseCode = "503", description = "Database unavailable and no last known good data")
             }
     )
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@ApiParam(value = "ID of the book to be retrieved", required = true)
-                                            @PathVariable Long id) {
+    public ResponseEntity<BookView> getBookById(@Parameter(description = "ID of the book to be retrieved", required = true)
+                                            @PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                            String ifNoneMatch) {
+        if (!existenceFilters.mightHaveBook(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (ifNoneMatch != null) {
+            Long cachedVersion = bookService.getCachedVersion(id);
+            if (cachedVersion != null && ETags.matches(ifNoneMatch, ETags.of(id, cachedVersion))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ETags.of(id, cachedVersion)).build();
+            }
+        }
         Book book = bookService.getBookById(id);
-        return book != null ? ResponseEntity.ok(book) : ResponseEntity.notFound().build();
+        if (book == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = ETags.of(book);
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(BookView.of(book));
     }
 
     @Operation(
@@ -56,30 +95,75 @@ public class BookController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully updated book"),
                     @ApiResponse(responseCode = "404", description = "Book not found"),
-                    @ApiResponse(responseCode = "400", description = "Invalid input")
+                    @ApiResponse(responseCode = "400", description = "Invalid input"),
+                    @ApiResponse(responseCode = "412", description = "Book was modified since the given ETag")
             }
     )
     @PutMapping("/{id}")
-    public ResponseEntity<Book> updateBook(@ApiParam(value = "ID of the book to be updated", required = true)
+    public ResponseEntity<BookView> updateBook(@Parameter(description = "ID of the book to be updated", required = true)
                                            @PathVariable Long id,
-                                           @ApiParam(value = "Updated book object", required = true)
-                                           @RequestBody Book bookDetails) {
-        Book updatedBook = bookService.updateBook(id, bookDetails);
-        return updatedBook != null ? ResponseEntity.ok(updatedBook) : ResponseEntity.notFound().build();
+                                           @Parameter(description = "Updated book object", required = true)
+                                           @RequestBody Book bookDetails,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                           String ifMatch) {
+        Book updatedBook = bookService.updateBook(id, bookDetails, ETags.expectedVersion(ifMatch, id));
+        return updatedBook != null
+                ? ResponseEntity.ok().eTag(ETags.of(updatedBook)).body(BookView.of(updatedBook))
+                : ResponseEntity.notFound().build();
     }
 
     @Operation(
             summary = "Delete a book by ID",
-            description = "Delete a book from the database by its ID.",
+            description = "Delete a book from the database by its ID. The book cannot be borrowed or reserved.",
             responses = {
                     @ApiResponse(responseCode = "204", description = "Successfully deleted book"),
-                    @ApiResponse(responseCode = "400", description = "Cannot delete book, invalid request")
+                    @ApiResponse(responseCode = "400", description = "Cannot delete book, invalid request"),
+                    @ApiResponse(responseCode = "412", description = "Book was modified since the given ETag")
             }
     )
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteBook(@ApiParam(value = "ID of the book to be deleted", required = true)
-                                           @PathVariable Long id) {
-        boolean deleted = bookService.deleteBook(id);
+    public ResponseEntity<Void> deleteBook(@Parameter(description = "ID of the book to be deleted", required = true)
+                                           @PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                           String ifMatch) {
+        boolean deleted = bookService.deleteBook(id, ETags.expectedVersion(ifMatch, id));
         return deleted ? ResponseEntity.noContent().build() : ResponseEntity.status(400).build();
     }
-}
\ No newline at end of file
+
+    @Operation(
+            summary = "Delete books by IDs",
+            description = "Delete every listed book that is neither borrowed nor reserved, in a single statement.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Deleted and retained book IDs"),
+                    @ApiResponse(responseCode = "400", description = "No IDs or too many IDs given")
+            }
+    )
+    @DeleteMapping
+    public ResponseEntity<BulkDeleteResult> deleteBooks(@Parameter(description = "IDs of the books to be deleted", required = true)
+                                                        @RequestParam List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_BULK_DELETE_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bookService.deleteBooks(ids));
+    }
+
+    @Operation(
+            summary = "Adjust stock of many books",
+            description = "Apply stock adjustments in chunked batches. Each adjustment gives either a delta of copies "
+                    + "to add or remove, or the amount to set. Adjustments are applied in order and each gets a "
+                    + "result; one that would leave a negative amount is rejected.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Per-adjustment results"),
+                    @ApiResponse(responseCode = "400", description = "No adjustments or too many adjustments given")
+            }
+    )
+    @PostMapping("/adjustments")
+    public ResponseEntity<BulkAdjustmentResult> adjustStock(
+            @Parameter(description = "Adjustments to apply, at most 100000", required = true)
+            @RequestBody List<StockAdjustment> adjustments) {
+        if (adjustments.isEmpty() || adjustments.size() > MAX_ADJUSTMENTS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(stockAdjustmentService.adjust(adjustments));
+    }
+}
@@ -0,0 +1,70 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.services.BorrowRollupService;
+import app.test.techtask.services.BorrowVolume;
+import app.test.techtask.stats.RollupGranularity;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/books/borrows")
+@Tag(name = "Borrow Volume Controller", description = "Borrow volumes per day, week or month")
+public class BorrowVolumeController {
+
+    static final int MAX_BUCKETS = 400;
+
+    private final BorrowRollupService borrowRollupService;
+
+    public BorrowVolumeController(final BorrowRollupService borrowRollupService) {
+        this.borrowRollupService = borrowRollupService;
+    }
+
+    @Operation(
+            summary = "Get borrow volumes",
+            description = "Retrieve the number of borrows per day, week or month for every bucket overlapping "
+                    + "[from, to], grouped by book, title or author. Served from precomputed rollups.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Borrow volumes retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Unknown granularity or grouping, or invalid range")
+            }
+    )
+    @GetMapping
+    public ResponseEntity<List<BorrowVolume>> getBorrowVolumes(
+            @Parameter(description = "Bucket size: day, week or month")
+            @RequestParam(defaultValue = "day") String granularity,
+            @Parameter(description = "First day, ISO format") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day, ISO format") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Grouping: book, title or author")
+            @RequestParam(defaultValue = "book") String groupBy) {
+        RollupGranularity rollupGranularity;
+        BorrowRollupService.GroupBy grouping;
+        try {
+            rollupGranularity = RollupGranularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+            grouping = BorrowRollupService.GroupBy.valueOf(groupBy.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (from.isAfter(to) || countBuckets(rollupGranularity, from, to) > MAX_BUCKETS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(borrowRollupService.getBorrowVolumes(rollupGranularity, from, to, grouping));
+    }
+
+    private static int countBuckets(RollupGranularity granularity, LocalDate from, LocalDate to) {
+        int buckets = 0;
+        for (LocalDate start = granularity.start(from); !start.isAfter(to) && buckets <= MAX_BUCKETS;
+             start = granularity.next(start)) {
+            buckets++;
+        }
+        return buckets;
+    }
+}
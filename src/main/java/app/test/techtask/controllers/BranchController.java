@@ -0,0 +1,105 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.data.Branch;
+import app.test.techtask.data.BranchView;
+import app.test.techtask.services.BookBranches;
+import app.test.techtask.services.BranchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@Tag(name = "Branch Controller", description = "Library branches and the copies on their shelves")
+public class BranchController {
+
+    static final int MAX_LIMIT = 100;
+
+    private final BranchService branchService;
+
+    public BranchController(final BranchService branchService) {
+        this.branchService = branchService;
+    }
+
+    @Operation(
+            summary = "Create a branch",
+            description = "Create a library branch with a unique name and optional coordinates.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Branch created successfully"),
+                    @ApiResponse(responseCode = "409", description = "A branch with the name already exists")
+            }
+    )
+    @PostMapping("/branches")
+    public ResponseEntity<BranchView> createBranch(
+            @Parameter(description = "Branch object to be created", required = true)
+            @RequestBody Branch branch) {
+        return branchService.createBranch(branch)
+                .map(created -> ResponseEntity.ok(BranchView.of(created)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @Operation(
+            summary = "Get all branches",
+            description = "Retrieve a list of all library branches.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Branches retrieved successfully")
+            }
+    )
+    @GetMapping("/branches")
+    public ResponseEntity<List<BranchView>> getBranches() {
+        return ResponseEntity.ok(branchService.getBranches().stream().map(BranchView::of).toList());
+    }
+
+    @Operation(
+            summary = "Move copies to or from a branch",
+            description = "Move copies of a book from the copies not assigned to any branch to the shelf of the "
+                    + "branch, or back when copies is negative. Returns the copies on the branch shelf afterwards.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Copies moved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Unknown branch or book, or not enough copies")
+            }
+    )
+    @PostMapping("/branches/{branchId}/stock/{bookId}")
+    public ResponseEntity<Long> transfer(
+            @Parameter(description = "ID of the branch", required = true)
+            @PathVariable Long branchId,
+            @Parameter(description = "ID of the book", required = true)
+            @PathVariable Long bookId,
+            @Parameter(description = "Number of copies to move to the branch, negative to move them back", required = true)
+            @RequestParam long copies) {
+        return branchService.transfer(branchId, bookId, copies)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.badRequest().build());
+    }
+
+    @Operation(
+            summary = "Get branches with a book",
+            description = "Retrieve the branches with the book on the shelf and their copies, nearest first when a "
+                    + "location is given and otherwise most copies first. Served from memory, so it can lag "
+                    + "committed changes by a moment.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Branches retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid limit")
+            }
+    )
+    @GetMapping("/books/{bookId}/branches")
+    public ResponseEntity<BookBranches> getBookBranches(
+            @Parameter(description = "ID of the book", required = true)
+            @PathVariable Long bookId,
+            @Parameter(description = "Latitude of the member, to sort by distance")
+            @RequestParam(required = false) Double latitude,
+            @Parameter(description = "Longitude of the member, to sort by distance")
+            @RequestParam(required = false) Double longitude,
+            @Parameter(description = "Maximum number of branches to return, at most 100")
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(branchService.findBranches(bookId, latitude, longitude, limit));
+    }
+}
@@ -0,0 +1,59 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.data.Versioned;
+
+/**
+ * Strong ETags of the form {@code "<id>-<version>"} built from the entity {@code @Version} column.
+ */
+final class ETags {
+
+    private static final long UNMATCHABLE_VERSION = -1L;
+
+    private ETags() {
+    }
+
+    static String of(Versioned entity) {
+        return of(entity.getId(), entity.getVersion());
+    }
+
+    static String of(Long id, Long version) {
+        return "\"" + id + "-" + (version == null ? 0L : version) + "\"";
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extracts the version a client expects from an {@code If-Match} header.
+     * Returns {@code null} when the header is absent or {@code *}; a tag that does not
+     * belong to the resource yields a version that never matches.
+     */
+    static Long expectedVersion(String ifMatch, Long id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        String prefix = "\"" + id + "-";
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+            return UNMATCHABLE_VERSION;
+        }
+        try {
+            return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return UNMATCHABLE_VERSION;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.events.EventRing;
+import app.test.techtask.services.DomainEventBus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/events")
+@Tag(name = "Event Bus Controller", description = "Domain event bus metrics")
+public class EventBusController {
+
+    private final DomainEventBus domainEventBus;
+
+    public EventBusController(final DomainEventBus domainEventBus) {
+        this.domainEventBus = domainEventBus;
+    }
+
+    @Operation(
+            summary = "Get event bus metrics",
+            description = "Retrieve the number of published events and, per consumer, processed and dropped "
+                    + "events, current lag and batch sizes.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Metrics retrieved successfully")
+            }
+    )
+    @GetMapping
+    public ResponseEntity<EventRing.Stats> getStats() {
+        return ResponseEntity.ok(domainEventBus.getStats());
+    }
+}
@@ -1,9 +1,13 @@
 package app.test.techtask.controllers;
 
+import app.test.techtask.resilience.DatabaseUnavailableException;
+import app.test.techtask.services.PreconditionFailedException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
@@ -14,9 +18,13 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
  * from the validation failures and returns them as a plain text response with
  * a 400 Bad Request status.
  *
- * Method:
+ * Methods:
  * - handleConstraintViolationException(ConstraintViolationException ex):
  *   Collects and formats error messages, then returns them with a 400 status.
+ * - handlePreconditionFailed(RuntimeException ex):
+ *   Reports a stale If-Match ETag or a concurrent version bump with a 412 status.
+ * - handleDatabaseUnavailable(DatabaseUnavailableException ex):
+ *   Fails fast with a 503 status and a Retry-After header while the database is unavailable.
  */
 @ControllerAdvice
 public class GlobalExceptionHandler {
@@ -34,4 +42,17 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(messages.toString().trim(), HttpStatus.BAD_REQUEST);
     }
 
-}
\ No newline at end of file
+    @ExceptionHandler({PreconditionFailedException.class, ObjectOptimisticLockingFailureException.class})
+    public ResponseEntity<String> handlePreconditionFailed(RuntimeException ex) {
+        return new ResponseEntity<>("ERROR Message='Resource was modified, reload it and retry'",
+                HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(DatabaseUnavailableException.class)
+    public ResponseEntity<String> handleDatabaseUnavailable(DatabaseUnavailableException ex) {
+        long retryAfter = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter))
+                .body("ERROR Message='Database is temporarily unavailable, retry later'");
+    }
+}
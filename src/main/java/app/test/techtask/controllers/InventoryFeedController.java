@@ -0,0 +1,41 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.services.InventoryFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/books/changes")
+@Tag(name = "Inventory Feed", description = "Server-sent stream of book stock changes")
+public class InventoryFeedController {
+
+    private final InventoryFeedService inventoryFeedService;
+
+    public InventoryFeedController(final InventoryFeedService inventoryFeedService) {
+        this.inventoryFeedService = inventoryFeedService;
+    }
+
+    @Operation(
+            summary = "Subscribe to stock changes",
+            description = "Stream 'inventory' events for created, updated, deleted, borrowed and returned books. "
+                    + "Reconnect with Last-Event-ID to resume; a 'reset' event means the client must reload its state.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Event stream opened")
+            }
+    )
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @Parameter(description = "IDs of the books to follow, all books when omitted")
+            @RequestParam(required = false) Set<Long> bookIds,
+            @Parameter(description = "ID of the last event received before reconnecting")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return inventoryFeedService.subscribe(bookIds, lastEventId);
+    }
+}
@@ -0,0 +1,100 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.data.LoanView;
+import app.test.techtask.services.LoanHistoryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@Tag(name = "Loan History Controller", description = "Queries over returned loans")
+public class LoanHistoryController {
+
+    static final int DEFAULT_RANGE_DAYS = 90;
+    static final int MAX_RANGE_DAYS = 3660;
+
+    private final LoanHistoryService loanHistoryService;
+
+    public LoanHistoryController(final LoanHistoryService loanHistoryService) {
+        this.loanHistoryService = loanHistoryService;
+    }
+
+    @Operation(
+            summary = "Get a member's loan history",
+            description = "Retrieve returned loans of a member borrowed within [from, to], newest first. "
+                    + "Defaults to the last 90 days.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Loan history retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid date range")
+            }
+    )
+    @GetMapping("/members/{memberId}/history")
+    public ResponseEntity<List<LoanView>> getMemberHistory(
+            @Parameter(description = "ID of the member") @PathVariable Long memberId,
+            @Parameter(description = "First borrow date, ISO format") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last borrow date, ISO format") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Page number, starting at 0") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size, at most 500") @RequestParam(defaultValue = "50") int size) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS);
+        if (!isValidRange(start, end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(loanHistoryService.getMemberHistory(memberId, start, end, page, size));
+    }
+
+    @Operation(
+            summary = "Get a book's loan history",
+            description = "Retrieve returned loans of a book borrowed within [from, to], newest first. "
+                    + "Defaults to the last 90 days.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Loan history retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid date range")
+            }
+    )
+    @GetMapping("/books/{bookId}/history")
+    public ResponseEntity<List<LoanView>> getBookHistory(
+            @Parameter(description = "ID of the book") @PathVariable Long bookId,
+            @Parameter(description = "First borrow date, ISO format") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last borrow date, ISO format") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Page number, starting at 0") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size, at most 500") @RequestParam(defaultValue = "50") int size) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS);
+        if (!isValidRange(start, end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(loanHistoryService.getBookHistory(bookId, start, end, page, size));
+    }
+
+    @Operation(
+            summary = "Get loan history by date range",
+            description = "Retrieve all returned loans borrowed within [from, to], newest first.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Loan history retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid date range")
+            }
+    )
+    @GetMapping("/loans/history")
+    public ResponseEntity<List<LoanView>> getHistory(
+            @Parameter(description = "First borrow date, ISO format") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last borrow date, ISO format") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Page number, starting at 0") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size, at most 500") @RequestParam(defaultValue = "50") int size) {
+        if (!isValidRange(from, to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(loanHistoryService.getHistory(from, to, page, size));
+    }
+
+    private static boolean isValidRange(LocalDate from, LocalDate to) {
+        return !from.isAfter(to) && !from.plusDays(MAX_RANGE_DAYS).isBefore(to);
+    }
+}
@@ -1,12 +1,19 @@
 package app.test.techtask.controllers;
 
-import app.test.techtask.data.Book;
+import app.test.techtask.cache.ExistenceFilters;
+import app.test.techtask.data.BookView;
 import app.test.techtask.data.Member;
+import app.test.techtask.data.MemberView;
+import app.test.techtask.ratelimit.RateLimitGroup;
+import app.test.techtask.ratelimit.RateLimited;
+import app.test.techtask.services.BulkDeleteResult;
 import app.test.techtask.services.MemberService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,10 +27,14 @@ import java.util.Set;
 @Tag(name = "Member Controller", description = "Operations related to library members")
 public class MemberController {
 
+    static final int MAX_BULK_DELETE_IDS = 1000;
+
     private final MemberService memberService;
+    private final ExistenceFilters existenceFilters;
 
-    public MemberController(final MemberService memberService) {
+    public MemberController(final MemberService memberService, final ExistenceFilters existenceFilters) {
         this.memberService = memberService;
+        this.existenceFilters = existenceFilters;
     }
 
     @Operation(
@@ -35,11 +46,11 @@ public class MemberController {
             }
     )
     @PostMapping
-    public ResponseEntity<Member> createMember(
+    public ResponseEntity<MemberView> createMember(
             @Parameter(description = "Member object to be created", required = true)
             @RequestBody Member member) {
         Member createdMember = memberService.createMember(member);
-        return ResponseEntity.ok(createdMember);
+        return ResponseEntity.ok(MemberView.of(createdMember));
     }
 
     @Operation(
@@ -47,15 +58,32 @@ public class MemberController {
             description = "Retrieve a library member by their unique ID.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Member retrieved successfully"),
-                    @ApiResponse(responseCode = "404", description = "Member not found")
+                    @ApiResponse(responseCode = "304", description = "Member not modified since the given ETag"),
+                    @ApiResponse(responseCode = "404", description = "Member not found"),
+                    @ApiResponse(responseCode = "503", description = "Database unavailable and no last known good data")
             }
     )
     @GetMapping("/{id}")
-    public ResponseEntity<Member> getMember(
+    public ResponseEntity<MemberView> getMember(
             @Parameter(description = "ID of the member to be retrieved", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (!existenceFilters.mightHaveMember(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (ifNoneMatch != null) {
+            Long cachedVersion = memberService.getCachedVersion(id);
+            if (cachedVersion != null && ETags.matches(ifNoneMatch, ETags.of(id, cachedVersion))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ETags.of(id, cachedVersion)).build();
+            }
+        }
         return memberService.getMember(id)
-                .map(ResponseEntity::ok)
+                .map(member -> {
+                    String etag = ETags.of(member);
+                    return ETags.matches(ifNoneMatch, etag)
+                            ? ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<MemberView>build()
+                            : ResponseEntity.ok().eTag(etag).body(MemberView.of(member));
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -64,80 +92,117 @@ public class MemberController {
             description = "Update the name or membership date of an existing library member.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Member updated successfully"),
-                    @ApiResponse(responseCode = "404", description = "Member not found")
+                    @ApiResponse(responseCode = "404", description = "Member not found"),
+                    @ApiResponse(responseCode = "412", description = "Member was modified since the given ETag")
             }
     )
     @PutMapping("/{id}")
-    public ResponseEntity<Member> updateMember(
+    public ResponseEntity<MemberView> updateMember(
             @Parameter(description = "ID of the member to be updated", required = true)
             @PathVariable Long id,
             @Parameter(description = "Updated name of the member")
             @RequestParam(required = false) String memberName,
             @Parameter(description = "Updated membership date")
-            @RequestParam(required = false) LocalDate membershipDate) {
+            @RequestParam(required = false) LocalDate membershipDate,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
         Member existingMember = memberService.getMember(id)
                 .orElseThrow(() -> new RuntimeException("Member not found"));
 
-        if (memberName != null) {
-            existingMember.setMemberName(memberName);
-        }
-        if (membershipDate != null) {
-            existingMember.setMembershipDate(membershipDate);
-        }
+        Member changes = new Member(memberName != null ? memberName : existingMember.getMemberName(),
+                membershipDate != null ? membershipDate : existingMember.getMembershipDate());
+        changes.setVersion(existingMember.getVersion());
 
-        Member updatedMember = memberService.updateMember(id, existingMember);
-        return ResponseEntity.ok(updatedMember);
+        Member updatedMember = memberService.updateMember(id, changes, ETags.expectedVersion(ifMatch, id));
+        return ResponseEntity.ok().eTag(ETags.of(updatedMember)).body(MemberView.of(updatedMember));
     }
 
     @Operation(
             summary = "Delete a member",
-            description = "Delete a library member by their ID. The member cannot have any borrowed books.",
+            description = "Delete a library member by their ID. The member cannot have any borrowed books or reservations.",
             responses = {
                     @ApiResponse(responseCode = "204", description = "Member deleted successfully"),
-                    @ApiResponse(responseCode = "400", description = "Member cannot be deleted")
+                    @ApiResponse(responseCode = "400", description = "Member cannot be deleted"),
+                    @ApiResponse(responseCode = "412", description = "Member was modified since the given ETag")
             }
     )
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteMember(
             @Parameter(description = "ID of the member to be deleted", required = true)
-            @PathVariable Long id) {
-        return memberService.deleteMember(id) ? ResponseEntity.noContent().build() : ResponseEntity.badRequest().build();
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return memberService.deleteMember(id, ETags.expectedVersion(ifMatch, id))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.badRequest().build();
+    }
+
+    @Operation(
+            summary = "Delete members by IDs",
+            description = "Delete every listed member without borrowed books or reservations, in a single statement.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Deleted and retained member IDs"),
+                    @ApiResponse(responseCode = "400", description = "No IDs or too many IDs given")
+            }
+    )
+    @DeleteMapping
+    public ResponseEntity<BulkDeleteResult> deleteMembers(
+            @Parameter(description = "IDs of the members to be deleted", required = true)
+            @RequestParam List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_BULK_DELETE_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(memberService.deleteMembers(ids));
     }
 
     @Operation(
             summary = "Borrow a book",
-            description = "Allows a member to borrow a book from the library.",
+            description = "Allows a member to borrow a book from the library, from the shelf of a branch when "
+                    + "branchId is given.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Book borrowed successfully"),
-                    @ApiResponse(responseCode = "400", description = "Failed to borrow book")
+                    @ApiResponse(responseCode = "400", description = "Failed to borrow book"),
+                    @ApiResponse(responseCode = "429", description = "Rate limit of the member or client exceeded"),
+                    @ApiResponse(responseCode = "503", description = "Database unavailable, retry after the Retry-After delay")
             }
     )
     @PostMapping("/{memberId}/borrow/{bookId}")
+    @RateLimited(RateLimitGroup.LOANS)
     public ResponseEntity<String> borrowBook(
             @Parameter(description = "ID of the member borrowing the book", required = true)
             @PathVariable Long memberId,
             @Parameter(description = "ID of the book to be borrowed", required = true)
-            @PathVariable Long bookId) {
-        boolean success = memberService.borrowBook(memberId, bookId);
+            @PathVariable Long bookId,
+            @Parameter(description = "ID of the branch the copy is taken from")
+            @RequestParam(required = false) Long branchId) {
+        boolean success = branchId == null
+                ? memberService.borrowBook(memberId, bookId)
+                : memberService.borrowBook(memberId, bookId, branchId);
         return success ? ResponseEntity.ok("Book borrowed successfully") : ResponseEntity.badRequest().body("Failed to borrow book");
     }
 
     @Operation(
             summary = "Return a borrowed book",
-            description = "Allows a member to return a previously borrowed book to the library.",
+            description = "Allows a member to return a previously borrowed book to the library, to the shelf of a "
+                    + "branch when branchId is given.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Book returned successfully"),
-                    @ApiResponse(responseCode = "400", description = "Failed to return book")
+                    @ApiResponse(responseCode = "400", description = "Failed to return book"),
+                    @ApiResponse(responseCode = "429", description = "Rate limit of the member or client exceeded"),
+                    @ApiResponse(responseCode = "503", description = "Database unavailable, retry after the Retry-After delay")
             }
     )
     @PostMapping("/{memberId}/return/{bookId}")
+    @RateLimited(RateLimitGroup.LOANS)
     public ResponseEntity<String> returnBook(
             @Parameter(description = "ID of the member returning the book", required = true)
             @PathVariable Long memberId,
             @Parameter(description = "ID of the book to be returned", required = true)
-            @PathVariable Long bookId) {
-        boolean success = memberService.returnBook(memberId, bookId);
+            @PathVariable Long bookId,
+            @Parameter(description = "ID of the branch the copy is returned to")
+            @RequestParam(required = false) Long branchId) {
+        boolean success = branchId == null
+                ? memberService.returnBook(memberId, bookId)
+                : memberService.returnBook(memberId, bookId, branchId);
         return success ? ResponseEntity.ok("Book returned successfully") : ResponseEntity.badRequest().body("Failed to return book");
     }
 
@@ -145,14 +210,18 @@ public class MemberController {
             summary = "Get books borrowed by a member",
             description = "Retrieve a list of books borrowed by a member with a given name.",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Books retrieved successfully")
+                    @ApiResponse(responseCode = "200", description = "Books retrieved successfully"),
+                    @ApiResponse(responseCode = "503", description = "Database unavailable and no last known good data")
             }
     )
     @GetMapping("/books/borrowed")
-    public ResponseEntity<List<Book>> getBooksBorrowedByMemberName(
+    public ResponseEntity<List<BookView>> getBooksBorrowedByMemberName(
             @Parameter(description = "Name of the member", required = true)
             @RequestParam String memberName) {
-        List<Book> books = memberService.getBooksBorrowedByMemberName(memberName);
+        if (!existenceFilters.mightHaveMemberName(memberName)) {
+            return ResponseEntity.ok(List.of());
+        }
+        List<BookView> books = memberService.getBooksBorrowedByMemberName(memberName);
         return ResponseEntity.ok(books);
     }
 
@@ -160,7 +229,8 @@ public class MemberController {
             summary = "Get distinct borrowed book names",
             description = "Retrieve a list of distinct names of books that have been borrowed by any member.",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Distinct book names retrieved successfully")
+                    @ApiResponse(responseCode = "200", description = "Distinct book names retrieved successfully"),
+                    @ApiResponse(responseCode = "503", description = "Database unavailable and no last known good data")
             }
     )
     @GetMapping("/books/borrowed/distinct")
@@ -173,7 +243,8 @@ public class MemberController {
             summary = "Get borrowed book names with count",
             description = "Retrieve a map of book names and their corresponding borrowed counts.",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Book counts retrieved successfully")
+                    @ApiResponse(responseCode = "200", description = "Book counts retrieved successfully"),
+                    @ApiResponse(responseCode = "503", description = "Database unavailable and no last known good data")
             }
     )
     @GetMapping("/books/borrowed/count")
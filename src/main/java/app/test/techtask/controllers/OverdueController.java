@@ -0,0 +1,49 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.services.OverdueScanner;
+import app.test.techtask.services.OverdueSummary;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Tag(name = "Overdue Controller", description = "Overdue loans per member")
+public class OverdueController {
+
+    static final int MAX_LIMIT = 1000;
+
+    private final OverdueScanner overdueScanner;
+
+    public OverdueController(final OverdueScanner overdueScanner) {
+        this.overdueScanner = overdueScanner;
+    }
+
+    @Operation(
+            summary = "Get members with overdue loans",
+            description = "Retrieve the members with overdue loans as of the last completed scan, most overdue "
+                    + "loans first.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Overdue summary retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid limit"),
+                    @ApiResponse(responseCode = "404", description = "No scan has completed yet")
+            }
+    )
+    @GetMapping("/members/overdue")
+    public ResponseEntity<OverdueSummary> getOverdueMembers(
+            @Parameter(description = "Maximum number of members to return, at most 1000")
+            @RequestParam(defaultValue = "100") int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        OverdueSummary summary = overdueScanner.getSummary();
+        if (summary == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(summary.limit(limit));
+    }
+}
@@ -0,0 +1,54 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.services.PopularBooksReport;
+import app.test.techtask.services.PopularBooksService;
+import app.test.techtask.stats.TumblingWindow;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/books/popular")
+@Tag(name = "Popular Books Controller", description = "Most borrowed books per time window")
+public class PopularBooksController {
+
+    static final int MAX_LIMIT = 100;
+
+    private final PopularBooksService popularBooksService;
+
+    public PopularBooksController(final PopularBooksService popularBooksService) {
+        this.popularBooksService = popularBooksService;
+    }
+
+    @Operation(
+            summary = "Get the most borrowed books",
+            description = "Retrieve the top N borrowed books of the current hour, day or week (UTC). Counts come "
+                    + "from a bounded-memory sketch and may overestimate by at most the reported error.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Popular books retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Unknown window or invalid N")
+            }
+    )
+    @GetMapping
+    public ResponseEntity<PopularBooksReport> getPopularBooks(
+            @Parameter(description = "Time window: hour, day or week")
+            @RequestParam(defaultValue = "day") String window,
+            @Parameter(description = "Number of books to return, at most 100")
+            @RequestParam(defaultValue = "10") int n) {
+        TumblingWindow tumblingWindow;
+        try {
+            tumblingWindow = TumblingWindow.valueOf(window.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (n <= 0 || n > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(popularBooksService.getPopularBooks(tumblingWindow, n));
+    }
+}
@@ -0,0 +1,71 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.services.InventoryReconciler;
+import app.test.techtask.services.ReconciliationProgress;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/reconciliation")
+@Tag(name = "Reconciliation Controller", description = "Inventory reconciliation against open loans and holds")
+public class ReconciliationController {
+
+    private final InventoryReconciler inventoryReconciler;
+
+    public ReconciliationController(final InventoryReconciler inventoryReconciler) {
+        this.inventoryReconciler = inventoryReconciler;
+    }
+
+    @Operation(
+            summary = "Start a reconciliation run",
+            description = "Check every book's available amount against its copies minus open loans and held "
+                    + "reservations in the background, optionally repairing the books that drifted.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Run started"),
+                    @ApiResponse(responseCode = "409", description = "A run is already in progress")
+            }
+    )
+    @PostMapping
+    public ResponseEntity<ReconciliationProgress> start(
+            @Parameter(description = "Whether to correct drifted books and backfill untracked copies")
+            @RequestParam(defaultValue = "false") boolean repair) {
+        return inventoryReconciler.start(repair)
+                .map(progress -> ResponseEntity.status(HttpStatus.ACCEPTED).body(progress))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @Operation(
+            summary = "Get reconciliation progress",
+            description = "Retrieve the progress of the current or last run, with the first drifted books found.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Progress retrieved successfully"),
+                    @ApiResponse(responseCode = "404", description = "No run has been started")
+            }
+    )
+    @GetMapping
+    public ResponseEntity<ReconciliationProgress> getProgress() {
+        return inventoryReconciler.getProgress()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "Cancel the reconciliation run",
+            description = "Stop the run in progress once the ranges already being checked are done.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Run cancelled"),
+                    @ApiResponse(responseCode = "404", description = "No run is in progress")
+            }
+    )
+    @DeleteMapping
+    public ResponseEntity<ReconciliationProgress> cancel() {
+        return inventoryReconciler.cancel()
+                .map(progress -> ResponseEntity.status(HttpStatus.ACCEPTED).body(progress))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,46 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.services.RelatedBook;
+import app.test.techtask.services.RelatedBooksService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/books")
+@Tag(name = "Related Books Controller", description = "Books frequently borrowed together")
+public class RelatedBooksController {
+
+    static final int MAX_LIMIT = 50;
+
+    private final RelatedBooksService relatedBooksService;
+
+    public RelatedBooksController(final RelatedBooksService relatedBooksService) {
+        this.relatedBooksService = relatedBooksService;
+    }
+
+    @Operation(
+            summary = "Get related books",
+            description = "Retrieve the books most often on loan to the same member at the same time as the "
+                    + "given book, strongest first. An unknown or never co-borrowed book has no related books.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Related books retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid limit")
+            }
+    )
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<RelatedBook>> getRelatedBooks(
+            @Parameter(description = "ID of the book") @PathVariable Long id,
+            @Parameter(description = "Number of books to return, at most 50")
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(relatedBooksService.getRelated(id, limit));
+    }
+}
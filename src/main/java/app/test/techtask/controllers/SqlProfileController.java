@@ -0,0 +1,57 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.profiling.SqlProfileReport;
+import app.test.techtask.profiling.SqlProfiler;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/sql-profile")
+@Tag(name = "SQL Profile Controller", description = "Time spent in SQL per statement and per endpoint")
+public class SqlProfileController {
+
+    static final int MAX_LIMIT = 100;
+
+    private final SqlProfiler sqlProfiler;
+
+    public SqlProfileController(final SqlProfiler sqlProfiler) {
+        this.sqlProfiler = sqlProfiler;
+    }
+
+    @Operation(
+            summary = "Get the SQL profile",
+            description = "Retrieve the statements and endpoints with the most total SQL time since the last reset, "
+                    + "with count, total, max and p99 of recent executions, and the most recent slow statements. "
+                    + "Statements are normalized, so no values are shown.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Profile retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid limit")
+            }
+    )
+    @GetMapping
+    public ResponseEntity<SqlProfileReport> getProfile(
+            @Parameter(description = "Maximum number of statements and of endpoints to return, at most 100")
+            @RequestParam(defaultValue = "20") int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(sqlProfiler.report(limit));
+    }
+
+    @Operation(
+            summary = "Reset the SQL profile",
+            description = "Drop everything recorded so far and start profiling afresh.",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Profile reset")
+            }
+    )
+    @DeleteMapping
+    public ResponseEntity<Void> reset() {
+        sqlProfiler.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,102 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.services.WaitlistEntry;
+import app.test.techtask.services.WaitlistNotifier;
+import app.test.techtask.services.WaitlistService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/members")
+@Tag(name = "Waitlist Controller", description = "Reservations for books that are out of stock")
+public class WaitlistController {
+
+    private static final Duration MAX_POLL_TIMEOUT = Duration.ofSeconds(60);
+
+    private final WaitlistService waitlistService;
+    private final WaitlistNotifier waitlistNotifier;
+
+    public WaitlistController(final WaitlistService waitlistService, final WaitlistNotifier waitlistNotifier) {
+        this.waitlistService = waitlistService;
+        this.waitlistNotifier = waitlistNotifier;
+    }
+
+    @Operation(
+            summary = "Reserve a book",
+            description = "Join the waitlist of a book that has no copies available. Returned copies are held "
+                    + "for waiting members in order of reservation.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Member is on the waitlist"),
+                    @ApiResponse(responseCode = "400", description = "Failed to reserve book, it may be available")
+            }
+    )
+    @PostMapping("/{memberId}/reserve/{bookId}")
+    public ResponseEntity<WaitlistEntry> reserveBook(
+            @Parameter(description = "ID of the member reserving the book", required = true)
+            @PathVariable Long memberId,
+            @Parameter(description = "ID of the book to be reserved", required = true)
+            @PathVariable Long bookId) {
+        return waitlistService.reserve(memberId, bookId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.badRequest().build());
+    }
+
+    @Operation(
+            summary = "Cancel a reservation",
+            description = "Leave the waitlist of a book. A copy held for the member is passed on to the next one.",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Reservation cancelled"),
+                    @ApiResponse(responseCode = "404", description = "Reservation not found")
+            }
+    )
+    @DeleteMapping("/{memberId}/reserve/{bookId}")
+    public ResponseEntity<Void> cancelReservation(
+            @Parameter(description = "ID of the member", required = true)
+            @PathVariable Long memberId,
+            @Parameter(description = "ID of the reserved book", required = true)
+            @PathVariable Long bookId) {
+        return waitlistService.cancel(memberId, bookId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @Operation(
+            summary = "Get reservations of a member",
+            description = "Retrieve the reservations of a member with their waitlist positions.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Reservations retrieved successfully")
+            }
+    )
+    @GetMapping("/{memberId}/reservations")
+    public ResponseEntity<List<WaitlistEntry>> getReservations(
+            @Parameter(description = "ID of the member", required = true)
+            @PathVariable Long memberId) {
+        return ResponseEntity.ok(waitlistService.getReservations(memberId));
+    }
+
+    @Operation(
+            summary = "Wait for a held copy",
+            description = "Long-poll until a copy is held for the member. Returns the held reservations, "
+                    + "or an empty list when the timeout expires.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Held reservations, possibly empty")
+            }
+    )
+    @GetMapping("/{memberId}/notifications")
+    public DeferredResult<List<WaitlistEntry>> awaitNotifications(
+            @Parameter(description = "ID of the member", required = true)
+            @PathVariable Long memberId,
+            @Parameter(description = "Maximum time to wait in seconds, at most 60")
+            @RequestParam(defaultValue = "30") long timeoutSeconds) {
+        Duration timeout = Duration.ofSeconds(Math.max(1, timeoutSeconds));
+        return waitlistNotifier.awaitHolds(memberId, timeout.compareTo(MAX_POLL_TIMEOUT) > 0 ? MAX_POLL_TIMEOUT : timeout);
+    }
+}
@@ -1,5 +1,9 @@
 package app.test.techtask.data;
 
+import app.test.techtask.cache.BookLabelListener;
+import app.test.techtask.cache.EntityVersionListener;
+import app.test.techtask.cache.ExistenceFilterListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
@@ -8,21 +12,37 @@ import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 @Getter
 @Setter
 @Entity
 @NoArgsConstructor
 @Table(name = "books")
-public class Book {
+@EntityListeners({EntityVersionListener.class, BookLabelListener.class, ExistenceFilterListener.class})
+public class Book implements Versioned {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", nullable = false)
     private Long id;
 
+    @Version
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "amount", nullable = false)
     private Long amount;
 
+    /**
+     * Copies owned, on the shelf or not; {@code null} for books created before it was tracked
+     * until the reconciliation job backfills it.
+     */
+    @JsonIgnore
+    @Column(name = "total_copies")
+    private Long totalCopies;
+
     @NotBlank(message = "Author is required")
     @Pattern(regexp = "^[A-Z][a-zA-Z]+\\s[A-Z][a-zA-Z]+$", message = "Author must be in the format 'Name Surname' with capital letters")
     @Column(name = "author", nullable = false)
@@ -0,0 +1,12 @@
+package app.test.techtask.data;
+
+/**
+ * Response shape of a {@link Book}. Built from a loaded entity or straight from a query, so no
+ * lazy proxy or persistence detail reaches the serializer.
+ */
+public record BookView(Long id, Long amount, String author, String title) {
+
+    public static BookView of(Book book) {
+        return new BookView(book.getId(), book.getAmount(), book.getAuthor(), book.getTitle());
+    }
+}
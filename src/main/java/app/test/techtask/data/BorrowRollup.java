@@ -0,0 +1,45 @@
+package app.test.techtask.data;
+
+import app.test.techtask.stats.RollupGranularity;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Number of borrows of one book within one calendar bucket.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "borrow_rollups",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"granularity", "bucket_start", "book_id"}))
+public class BorrowRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false, length = 8)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDate bucketStart;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "borrows", nullable = false)
+    private long borrows;
+
+    public BorrowRollup(RollupGranularity granularity, LocalDate bucketStart, Long bookId, long borrows) {
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+        this.bookId = bookId;
+        this.borrows = borrows;
+    }
+}
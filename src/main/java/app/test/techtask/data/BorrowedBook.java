@@ -10,7 +10,11 @@ import java.time.LocalDate;
 @Getter
 @Setter
 @Entity
-@Table(name = "borrowed_books")
+@Table(name = "borrowed_books",
+        indexes = {
+                @Index(name = "idx_borrowed_books_borrowed_date", columnList = "borrowed_date, id"),
+                @Index(name = "idx_borrowed_books_book", columnList = "book_id")
+        })
 public class BorrowedBook {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
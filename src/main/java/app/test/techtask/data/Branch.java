@@ -0,0 +1,39 @@
+package app.test.techtask.data;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "branches", uniqueConstraints = @UniqueConstraint(columnNames = "name"))
+public class Branch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @NotBlank(message = "Name is required")
+    @Column(name = "name", nullable = false)
+    @Schema(example = "Riverside")
+    private String name;
+
+    @Column(name = "latitude")
+    @Schema(example = "50.4501")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    @Schema(example = "30.5234")
+    private Double longitude;
+
+    public Branch(String name, Double latitude, Double longitude) {
+        this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+}
@@ -0,0 +1,42 @@
+package app.test.techtask.data;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Copies of a book on the shelf of one branch. Borrows and returns at a branch change only its
+ * row, with a conditional update, so branches do not contend on {@code books.amount}, which
+ * holds the copies not assigned to any branch.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "branch_stock",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"branch_id", "book_id"}),
+        indexes = @Index(name = "idx_branch_stock_book", columnList = "book_id"))
+public class BranchStock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "branch_id", nullable = false)
+    private Branch branch;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    @Column(name = "amount", nullable = false)
+    private long amount;
+
+    public BranchStock(Branch branch, Book book, long amount) {
+        this.branch = branch;
+        this.book = book;
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,11 @@
+package app.test.techtask.data;
+
+/**
+ * Response shape of a {@link Branch}.
+ */
+public record BranchView(Long id, String name, Double latitude, Double longitude) {
+
+    public static BranchView of(Branch branch) {
+        return new BranchView(branch.getId(), branch.getName(), branch.getLatitude(), branch.getLongitude());
+    }
+}
@@ -0,0 +1,47 @@
+package app.test.techtask.data;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Outcome of a request made with an {@code Idempotency-Key}, kept until {@code expiresAt} so
+ * retries are answered the same way after a restart or on another instance.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "idempotency_records", indexes = @Index(name = "idx_idempotency_records_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "scoped_key", nullable = false, length = 512)
+    private String scopedKey;
+
+    @Column(name = "status", nullable = false)
+    private int status;
+
+    @Column(name = "content_type", length = 128)
+    private String contentType;
+
+    @Column(name = "etag", length = 128)
+    private String etag;
+
+    @Column(name = "body", nullable = false)
+    private byte[] body;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public IdempotencyRecord(String scopedKey, int status, String contentType, String etag, byte[] body, Instant expiresAt) {
+        this.scopedKey = scopedKey;
+        this.status = status;
+        this.contentType = contentType;
+        this.etag = etag;
+        this.body = body;
+        this.expiresAt = expiresAt;
+    }
+}
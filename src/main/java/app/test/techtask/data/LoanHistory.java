@@ -0,0 +1,41 @@
+package app.test.techtask.data;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * A finished loan. Rows are append-only and keep plain ids, so the archive outlives deleted
+ * books and members. On PostgreSQL the table is meant to be range-partitioned by
+ * {@code borrowed_date}, see {@code db/loan_history_partitioned.sql}.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "loan_history", indexes = {
+        @Index(name = "idx_loan_history_member", columnList = "member_id, borrowed_date"),
+        @Index(name = "idx_loan_history_book", columnList = "book_id, borrowed_date"),
+        @Index(name = "idx_loan_history_borrowed_date", columnList = "borrowed_date")
+})
+public class LoanHistory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "borrowed_date", nullable = false)
+    private LocalDate borrowedDate;
+
+    @Column(name = "returned_date", nullable = false)
+    private LocalDate returnedDate;
+}
@@ -0,0 +1,9 @@
+package app.test.techtask.data;
+
+import java.time.LocalDate;
+
+/**
+ * Projection of a {@link LoanHistory} row, read without materializing the entity.
+ */
+public record LoanView(Long id, Long memberId, Long bookId, LocalDate borrowedDate, LocalDate returnedDate) {
+}
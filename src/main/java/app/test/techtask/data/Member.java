@@ -1,11 +1,15 @@
 package app.test.techtask.data;
 
+import app.test.techtask.cache.EntityVersionListener;
+import app.test.techtask.cache.ExistenceFilterListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 
@@ -14,12 +18,19 @@ import java.time.LocalDate;
 @Entity
 @NoArgsConstructor
 @Table(name = "members")
-public class Member {
+@EntityListeners({EntityVersionListener.class, ExistenceFilterListener.class})
+public class Member implements Versioned {
     @Id
     @Column(name = "id", nullable = false)
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @NotBlank(message = "Name is required")
     @Column(name = "member_name", nullable = false)
     @Schema(example = "John")
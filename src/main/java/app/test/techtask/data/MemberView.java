@@ -0,0 +1,13 @@
+package app.test.techtask.data;
+
+import java.time.LocalDate;
+
+/**
+ * Response shape of a {@link Member}.
+ */
+public record MemberView(Long id, String memberName, LocalDate membershipDate) {
+
+    public static MemberView of(Member member) {
+        return new MemberView(member.getId(), member.getMemberName(), member.getMembershipDate());
+    }
+}
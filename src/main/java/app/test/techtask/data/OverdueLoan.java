@@ -0,0 +1,9 @@
+package app.test.techtask.data;
+
+import java.time.LocalDate;
+
+/**
+ * Projection of a {@link BorrowedBook} row read by the overdue scanner.
+ */
+public record OverdueLoan(Long loanId, Long memberId, Long bookId, LocalDate borrowedDate) {
+}
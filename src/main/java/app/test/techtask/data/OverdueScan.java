@@ -0,0 +1,39 @@
+package app.test.techtask.data;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One run of the overdue scanner. Loans borrowed before {@code cutoffDate} are overdue; a scan
+ * without {@code finishedAt} is resumed from its range checkpoints.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "overdue_scans")
+public class OverdueScan {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "cutoff_date", nullable = false)
+    private LocalDate cutoffDate;
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    public OverdueScan(LocalDate cutoffDate, Instant startedAt) {
+        this.cutoffDate = cutoffDate;
+        this.startedAt = startedAt;
+    }
+}
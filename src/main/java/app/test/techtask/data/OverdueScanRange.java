@@ -0,0 +1,50 @@
+package app.test.techtask.data;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * A slice {@code [fromDate, toDate)} of borrow dates scanned by one worker, with the keyset
+ * position {@code (lastDate, lastId)} of the last processed loan as checkpoint.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "overdue_scan_ranges", indexes = @Index(name = "idx_overdue_scan_ranges_scan", columnList = "scan_id"))
+public class OverdueScanRange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "scan_id", nullable = false)
+    private Long scanId;
+
+    @Column(name = "from_date", nullable = false)
+    private LocalDate fromDate;
+
+    @Column(name = "to_date", nullable = false)
+    private LocalDate toDate;
+
+    @Column(name = "last_date", nullable = false)
+    private LocalDate lastDate;
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    @Column(name = "done", nullable = false)
+    private boolean done;
+
+    public OverdueScanRange(Long scanId, LocalDate fromDate, LocalDate toDate) {
+        this.scanId = scanId;
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        this.lastDate = fromDate;
+        this.lastId = 0L;
+    }
+}
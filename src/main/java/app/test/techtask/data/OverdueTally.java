@@ -0,0 +1,48 @@
+package app.test.techtask.data;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Overdue loans of one member found within one scan range. Each range is owned by a single
+ * worker, so tallies are updated without contention and summed per member at the end.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "overdue_tallies",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"range_id", "member_id"}),
+        indexes = @Index(name = "idx_overdue_tallies_scan", columnList = "scan_id"))
+public class OverdueTally {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "scan_id", nullable = false)
+    private Long scanId;
+
+    @Column(name = "range_id", nullable = false)
+    private Long rangeId;
+
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    @Column(name = "overdue_loans", nullable = false)
+    private long overdueLoans;
+
+    @Column(name = "oldest_borrowed_date", nullable = false)
+    private LocalDate oldestBorrowedDate;
+
+    public OverdueTally(Long scanId, Long rangeId, Long memberId, LocalDate oldestBorrowedDate) {
+        this.scanId = scanId;
+        this.rangeId = rangeId;
+        this.memberId = memberId;
+        this.oldestBorrowedDate = oldestBorrowedDate;
+    }
+}
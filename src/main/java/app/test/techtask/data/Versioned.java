@@ -0,0 +1,7 @@
+package app.test.techtask.data;
+
+public interface Versioned {
+    Long getId();
+
+    Long getVersion();
+}
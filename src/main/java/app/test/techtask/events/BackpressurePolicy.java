@@ -0,0 +1,11 @@
+package app.test.techtask.events;
+
+/**
+ * What happens when a consumer falls a full ring behind the producers.
+ */
+public enum BackpressurePolicy {
+    /** New events wait in a bounded overflow queue until the consumer catches up. */
+    BLOCK,
+    /** Producers overwrite, the consumer skips what it missed and counts it as dropped. */
+    DROP
+}
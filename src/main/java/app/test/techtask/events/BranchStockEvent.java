@@ -0,0 +1,7 @@
+package app.test.techtask.events;
+
+/**
+ * Copies of a book on the shelf of a branch after a committed change.
+ */
+public record BranchStockEvent(Long branchId, Long bookId, long amount) implements DomainEvent {
+}
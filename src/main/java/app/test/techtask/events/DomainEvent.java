@@ -0,0 +1,8 @@
+package app.test.techtask.events;
+
+/**
+ * Marker for events that are handed to the {@code DomainEventBus} once the publishing
+ * transaction has committed.
+ */
+public interface DomainEvent {
+}
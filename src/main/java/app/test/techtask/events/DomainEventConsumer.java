@@ -0,0 +1,19 @@
+package app.test.techtask.events;
+
+import java.util.List;
+
+/**
+ * A consumer of the {@code DomainEventBus}. Each consumer runs on its own thread and receives
+ * events in publication order, in batches of whatever has accumulated since its last call.
+ */
+public interface DomainEventConsumer {
+
+    String consumerName();
+
+    BackpressurePolicy backpressurePolicy();
+
+    /**
+     * Handles a batch. The list is reused once this returns, so copy it to keep events around.
+     */
+    void onEvents(List<DomainEvent> batch);
+}
@@ -0,0 +1,294 @@
+package app.test.techtask.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free, Disruptor-style ring buffer with any number of producers and consumers.
+ *
+ * Producers claim a sequence number with a single atomic increment, write the slot and then
+ * publish the sequence number into that slot. Every consumer follows the published sequence
+ * on its own thread and hands contiguous runs of up to {@code maxBatch} events to its handler.
+ *
+ * Producers never wait. Only a slot that no {@link BackpressurePolicy#BLOCK} consumer still
+ * needs is claimed; while one is a full ring behind, events spill into a bounded overflow queue,
+ * which producers and blocking consumers move back into the ring in order as room frees up. An
+ * event that finds the overflow full is rejected and counted.
+ * {@link BackpressurePolicy#DROP} consumers never hold producers up; when they are overrun they
+ * jump to the oldest event still intact and count the skipped ones as dropped.
+ */
+public class EventRing<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(EventRing.class);
+    private static final int SPINS = 100;
+    private static final long MAX_IDLE_NANOS = 1_000_000;
+
+    private final String name;
+    private final int capacity;
+    private final int mask;
+    private final int maxBatch;
+    private final AtomicReferenceArray<T> entries;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final BlockingQueue<T> overflow;
+    private final ReentrantLock overflowLock = new ReentrantLock();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final List<RingConsumer> consumers = new CopyOnWriteArrayList<>();
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+    private volatile boolean halted;
+
+    public EventRing(String name, int capacity, int maxBatch, int overflowCapacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.maxBatch = maxBatch;
+        this.entries = new AtomicReferenceArray<>(capacity);
+        this.published = new AtomicLongArray(capacity);
+        this.overflow = new ArrayBlockingQueue<>(Math.max(overflowCapacity, 1));
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Registers a consumer and starts its thread. It receives the events published from now on.
+     */
+    public void addConsumer(String consumerName, BackpressurePolicy policy, Consumer<List<T>> handler) {
+        RingConsumer consumer = new RingConsumer(consumerName, policy, handler, claimed.get() - 1);
+        consumers.add(consumer);
+        Thread thread = new Thread(consumer, name + "-" + consumerName);
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * Publishes an event without waiting. While a blocking consumer is a full ring behind the
+     * event goes to the overflow queue. Returns {@code false} when the overflow is full too or the
+     * ring has been halted.
+     */
+    public boolean publish(T event) {
+        if (halted) {
+            return false;
+        }
+        if (overflow.isEmpty()) {
+            long seq = tryClaim();
+            if (seq >= 0) {
+                write(seq, event);
+                return true;
+            }
+        }
+        overflowLock.lock();
+        try {
+            drainOverflow();
+            if (overflow.isEmpty()) {
+                long seq = tryClaim();
+                if (seq >= 0) {
+                    write(seq, event);
+                    return true;
+                }
+            }
+            if (overflow.offer(event)) {
+                overflowed.incrementAndGet();
+                return true;
+            }
+            rejected.incrementAndGet();
+            return false;
+        } finally {
+            overflowLock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting events and waits up to {@code timeout} for every consumer to drain what
+     * was published before.
+     */
+    public void halt(Duration timeout) throws InterruptedException {
+        halted = true;
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (Thread thread : threads) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                thread.join(Math.max(1, remaining / 1_000_000));
+            }
+        }
+    }
+
+    public Stats getStats() {
+        long head = claimed.get() - 1;
+        List<ConsumerStats> consumerStats = new ArrayList<>(consumers.size());
+        for (RingConsumer consumer : consumers) {
+            consumerStats.add(new ConsumerStats(consumer.name, consumer.policy,
+                    consumer.processed.get(), consumer.dropped.get(), Math.max(0, head - consumer.sequence.get()),
+                    consumer.batches.get(), consumer.largestBatch, consumer.failures.get()));
+        }
+        return new Stats(name, capacity, head + 1, overflowed.get(), overflow.size(), rejected.get(), consumerStats);
+    }
+
+    /**
+     * Claims the next sequence unless its slot still holds an event a blocking consumer has not
+     * handled. Returns -1 in that case.
+     */
+    private long tryClaim() {
+        while (true) {
+            long seq = claimed.get();
+            if (seq - capacity > minBlockingSequence()) {
+                return -1;
+            }
+            if (claimed.compareAndSet(seq, seq + 1)) {
+                return seq;
+            }
+        }
+    }
+
+    private void write(long seq, T event) {
+        int index = (int) (seq & mask);
+        entries.set(index, event);
+        published.set(index, seq);
+    }
+
+    /**
+     * Moves overflowed events into the ring while there is room. The caller holds the overflow lock.
+     */
+    private void drainOverflow() {
+        while (!overflow.isEmpty()) {
+            long seq = tryClaim();
+            if (seq < 0) {
+                return;
+            }
+            write(seq, overflow.poll());
+        }
+    }
+
+    private void drainOverflowIfAny() {
+        if (overflow.isEmpty()) {
+            return;
+        }
+        overflowLock.lock();
+        try {
+            drainOverflow();
+        } finally {
+            overflowLock.unlock();
+        }
+    }
+
+    private long minBlockingSequence() {
+        long min = Long.MAX_VALUE;
+        for (RingConsumer consumer : consumers) {
+            if (consumer.policy == BackpressurePolicy.BLOCK) {
+                min = Math.min(min, consumer.sequence.get());
+            }
+        }
+        return min;
+    }
+
+    private static void idle(int idle) {
+        if (idle < SPINS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(Math.min(MAX_IDLE_NANOS, 1000L << Math.min(idle - SPINS, 10)));
+        }
+    }
+
+    /**
+     * @param overflowed events that found the ring full and waited in the overflow queue
+     * @param overflowSize events waiting in the overflow queue right now
+     * @param rejected    events that found the overflow queue full and were not published
+     */
+    public record Stats(String name, int capacity, long published, long overflowed, int overflowSize, long rejected,
+                        List<ConsumerStats> consumers) {
+    }
+
+    /**
+     * @param lag events published but not yet handled by this consumer
+     */
+    public record ConsumerStats(String name, BackpressurePolicy policy, long processed, long dropped, long lag,
+                                long batches, int largestBatch, long failures) {
+    }
+
+    private final class RingConsumer implements Runnable {
+        private final String name;
+        private final BackpressurePolicy policy;
+        private final Consumer<List<T>> handler;
+        private final AtomicLong sequence;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private volatile int largestBatch;
+
+        private RingConsumer(String name, BackpressurePolicy policy, Consumer<List<T>> handler, long sequence) {
+            this.name = name;
+            this.policy = policy;
+            this.handler = handler;
+            this.sequence = new AtomicLong(sequence);
+        }
+
+        @Override
+        public void run() {
+            List<T> batch = new ArrayList<>(maxBatch);
+            long next = sequence.get() + 1;
+            int idle = 0;
+            while (true) {
+                while (batch.size() < maxBatch) {
+                    int index = (int) (next & mask);
+                    long seq = published.get(index);
+                    if (seq < next) {
+                        break;
+                    }
+                    T event = entries.get(index);
+                    if (policy == BackpressurePolicy.DROP
+                            && (seq > next || published.get(index) != seq || claimed.get() > next + capacity)) {
+                        long resume = claimed.get() - capacity;
+                        dropped.addAndGet(resume - next);
+                        next = resume;
+                        continue;
+                    }
+                    batch.add(event);
+                    next++;
+                }
+                if (batch.isEmpty()) {
+                    drainOverflowIfAny();
+                    if (halted && overflow.isEmpty() && published.get((int) (next & mask)) < next) {
+                        return;
+                    }
+                    idle(idle++);
+                    continue;
+                }
+                try {
+                    handler.accept(batch);
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                    log.error("Consumer {} of {} failed on a batch of {} events", name, EventRing.this.name, batch.size(), e);
+                }
+                processed.addAndGet(batch.size());
+                batches.incrementAndGet();
+                largestBatch = Math.max(largestBatch, batch.size());
+                sequence.set(next - 1);
+                if (policy == BackpressurePolicy.BLOCK) {
+                    drainOverflowIfAny();
+                }
+                batch.clear();
+                idle = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package app.test.techtask.events;
+
+import java.time.Instant;
+
+public record InventoryChange(long sequence, InventoryEvent.Type type, Long bookId, Long amount, Instant occurredAt) {
+}
@@ -0,0 +1,24 @@
+package app.test.techtask.events;
+
+/**
+ * Published by the services whenever the stock of a book changes. After commit it is handed to
+ * every {@link DomainEventConsumer}.
+ *
+ * @param amount copies available after the change, in the unassigned pool and on branch shelves,
+ *               {@code null} for {@link Type#DELETED}
+ * @param memberId the borrowing member for {@link Type#BORROWED} and {@link Type#RETURNED}, otherwise {@code null}
+ */
+public record InventoryEvent(Type type, Long bookId, Long memberId, Long amount) implements DomainEvent {
+
+    public enum Type {
+        ADDED,
+        UPDATED,
+        DELETED,
+        BORROWED,
+        RETURNED
+    }
+
+    public static InventoryEvent of(Type type, Long bookId, Long amount) {
+        return new InventoryEvent(type, bookId, null, amount);
+    }
+}
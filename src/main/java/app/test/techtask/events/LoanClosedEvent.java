@@ -0,0 +1,7 @@
+package app.test.techtask.events;
+
+import java.time.LocalDate;
+
+public record LoanClosedEvent(Long memberId, Long bookId, LocalDate borrowedDate, LocalDate returnedDate)
+        implements DomainEvent {
+}
@@ -0,0 +1,9 @@
+package app.test.techtask.events;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a returned copy is put aside for the next member on a book's waitlist.
+ */
+public record ReservationHeldEvent(Long memberId, Long bookId, LocalDateTime heldUntil) {
+}
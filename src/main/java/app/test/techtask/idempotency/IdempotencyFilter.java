@@ -0,0 +1,188 @@
+package app.test.techtask.idempotency;
+
+import app.test.techtask.data.IdempotencyRecord;
+import app.test.techtask.repositories.IdempotencyRecordRepository;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Makes borrow, return and book creation safe to retry.
+ *
+ * The first request with a given {@code Idempotency-Key} runs and its response is kept for
+ * {@code library.idempotency.ttl}; a retry with the same key on the same endpoint gets that
+ * response back, marked with {@code Idempotent-Replayed: true}, without reaching the
+ * controller. A retry that arrives while the first request is still running gets 409.
+ * Outcomes that say nothing about the request itself, server errors, 409 and 429, are not
+ * kept, so those requests can be retried for real.
+ *
+ * With {@code library.idempotency.persistent=true} outcomes are also written to the
+ * {@code idempotency_records} table and looked up there on an in-memory miss, so they survive
+ * restarts and are shared between instances.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private static final Pattern GUARDED_PATH = Pattern.compile("/books|/members/\\d+/(borrow|return)/\\d+");
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    private final IdempotencyStore store;
+    private final IdempotencyRecordRepository recordRepository;
+    private final Duration ttl;
+    private final boolean persistent;
+
+    public IdempotencyFilter(IdempotencyRecordRepository recordRepository,
+                             @Value("${library.idempotency.ttl:PT24H}") Duration ttl,
+                             @Value("${library.idempotency.max-entries:100000}") int maxEntries,
+                             @Value("${library.idempotency.stripes:16}") int stripes,
+                             @Value("${library.idempotency.persistent:false}") boolean persistent) {
+        this.store = new IdempotencyStore(stripes, maxEntries, ttl.toMillis());
+        this.recordRepository = recordRepository;
+        this.ttl = ttl;
+        this.persistent = persistent;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || !GUARDED_PATH.matcher(request.getRequestURI().substring(request.getContextPath().length())).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        String scopedKey = request.getMethod() + " " + request.getRequestURI() + " " + key;
+        long now = System.currentTimeMillis();
+
+        IdempotencyStore.Slot existing = store.claim(scopedKey, now);
+        if (existing != null) {
+            StoredResponse stored = existing.response();
+            if (stored == null) {
+                writeError(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed");
+            } else {
+                replay(stored, response);
+            }
+            return;
+        }
+
+        StoredResponse persisted = persistent ? findPersisted(scopedKey, now) : null;
+        if (persisted != null) {
+            store.complete(scopedKey, persisted);
+            replay(persisted, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+        } catch (IOException | ServletException | RuntimeException e) {
+            store.release(scopedKey);
+            throw e;
+        }
+        if (!isKept(wrapper.getStatus())) {
+            store.release(scopedKey);
+        } else {
+            StoredResponse stored = new StoredResponse(wrapper.getStatus(), wrapper.getContentType(),
+                    wrapper.getHeader(HttpHeaders.ETAG), wrapper.getContentAsByteArray());
+            store.complete(scopedKey, stored);
+            if (persistent) {
+                persist(scopedKey, stored, now);
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    @Scheduled(fixedDelayString = "${library.idempotency.purge-interval:PT1M}")
+    public void purgeExpired() {
+        store.purgeExpired(System.currentTimeMillis());
+        if (persistent) {
+            try {
+                recordRepository.deleteExpired(Instant.now());
+            } catch (DataAccessException e) {
+                log.warn("Could not purge expired idempotency records", e);
+            }
+        }
+    }
+
+    /**
+     * Whether a retry with the same key should get {@code status} back instead of running again.
+     */
+    static boolean isKept(int status) {
+        return status < 500
+                && status != HttpStatus.CONFLICT.value()
+                && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private StoredResponse findPersisted(String scopedKey, long now) {
+        try {
+            Optional<IdempotencyRecord> record = recordRepository.findById(scopedKey);
+            if (record.isEmpty() || record.get().getExpiresAt().toEpochMilli() <= now) {
+                return null;
+            }
+            IdempotencyRecord found = record.get();
+            return new StoredResponse(found.getStatus(), found.getContentType(), found.getEtag(), found.getBody());
+        } catch (DataAccessException e) {
+            log.warn("Could not look up idempotency key, running the request", e);
+            return null;
+        }
+    }
+
+    private void persist(String scopedKey, StoredResponse stored, long now) {
+        try {
+            recordRepository.save(new IdempotencyRecord(scopedKey, stored.status(), stored.contentType(),
+                    stored.etag(), stored.body(), Instant.ofEpochMilli(now).plus(ttl)));
+        } catch (DataAccessException e) {
+            log.warn("Could not persist idempotency key, it is only remembered in memory", e);
+        }
+    }
+
+    private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.etag() != null) {
+            response.setHeader(HttpHeaders.ETAG, stored.etag());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private static void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        byte[] body = ("ERROR Message='" + message + "'").getBytes(StandardCharsets.UTF_8);
+        response.setStatus(status.value());
+        response.setContentType("text/plain;charset=UTF-8");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,144 @@
+package app.test.techtask.idempotency;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Bounded in-memory store of request outcomes per idempotency key.
+ *
+ * Keys are spread over a power-of-two number of stripes, each a {@link ConcurrentHashMap} plus a
+ * lock-free queue of its slots in claim order. All slots live for the same TTL, so the queue
+ * head is always the next one to expire: {@link #purgeExpired(long)} and the capacity bound
+ * both evict from the head. The capacity bound skips slots still in flight, whose owner has yet
+ * to complete or release them. A released or replaced slot leaves the queue as well, so the queue
+ * never holds more than the map. A key is claimed with a single {@code putIfAbsent}, so exactly
+ * one of several concurrent requests with the same key runs.
+ */
+public class IdempotencyStore {
+
+    /**
+     * A claimed key. {@link #response()} stays {@code null} while the first request is running.
+     */
+    public static final class Slot {
+        private final String key;
+        private final long expiresAt;
+        private volatile StoredResponse response;
+
+        private Slot(String key, long expiresAt) {
+            this.key = key;
+            this.expiresAt = expiresAt;
+        }
+
+        public StoredResponse response() {
+            return response;
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final long ttlMillis;
+    private final int capacityPerStripe;
+
+    public IdempotencyStore(int stripeCount, int maxEntries, long ttlMillis) {
+        int count = Integer.highestOneBit(Math.max(stripeCount, 1) * 2 - 1);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = count - 1;
+        this.ttlMillis = ttlMillis;
+        this.capacityPerStripe = Math.max(maxEntries / count, 1);
+    }
+
+    /**
+     * Claims {@code key} for a new request. Returns {@code null} when the caller now owns the
+     * key and must {@link #complete} or {@link #release} it, otherwise the existing slot: a
+     * finished outcome, or one still in flight.
+     */
+    public Slot claim(String key, long now) {
+        Stripe stripe = stripe(key);
+        Slot slot = new Slot(key, now + ttlMillis);
+        while (true) {
+            Slot existing = stripe.slots.putIfAbsent(key, slot);
+            if (existing == null) {
+                stripe.order.add(slot);
+                stripe.evictOverCapacity(capacityPerStripe);
+                return null;
+            }
+            if (existing.expiresAt > now) {
+                return existing;
+            }
+            if (stripe.slots.remove(key, existing)) {
+                stripe.order.remove(existing);
+            }
+        }
+    }
+
+    public void complete(String key, StoredResponse response) {
+        Slot slot = stripe(key).slots.get(key);
+        if (slot != null) {
+            slot.response = response;
+        }
+    }
+
+    /**
+     * Gives up a claimed key that has no outcome worth replaying, so a retry runs again.
+     */
+    public void release(String key) {
+        Stripe stripe = stripe(key);
+        Slot slot = stripe.slots.get(key);
+        if (slot != null && slot.response == null && stripe.slots.remove(key, slot)) {
+            stripe.order.remove(slot);
+        }
+    }
+
+    public void purgeExpired(long now) {
+        for (Stripe stripe : stripes) {
+            Slot head;
+            while ((head = stripe.order.peek()) != null && head.expiresAt <= now) {
+                if (stripe.order.remove(head)) {
+                    stripe.slots.remove(head.key, head);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.slots.size();
+        }
+        return size;
+    }
+
+    int queued() {
+        int queued = 0;
+        for (Stripe stripe : stripes) {
+            queued += stripe.order.size();
+        }
+        return queued;
+    }
+
+    private Stripe stripe(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    private static final class Stripe {
+        private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+        private final Queue<Slot> order = new ConcurrentLinkedQueue<>();
+
+        private void evictOverCapacity(int capacity) {
+            Iterator<Slot> oldestFirst = order.iterator();
+            while (slots.size() > capacity && oldestFirst.hasNext()) {
+                Slot oldest = oldestFirst.next();
+                if (oldest.response != null && order.remove(oldest)) {
+                    slots.remove(oldest.key, oldest);
+                }
+            }
+        }
+    }
+}
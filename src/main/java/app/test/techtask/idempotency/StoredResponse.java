@@ -0,0 +1,8 @@
+package app.test.techtask.idempotency;
+
+/**
+ * The outcome of a request, kept so that a retry with the same idempotency key can be answered
+ * without running the request again.
+ */
+public record StoredResponse(int status, String contentType, String etag, byte[] body) {
+}
@@ -0,0 +1,29 @@
+package app.test.techtask.outbox;
+
+import app.test.techtask.data.OutboxMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps delivered messages in memory, deduplicated by id. Meant for tests and local runs.
+ */
+@Component
+@ConditionalOnProperty(name = "library.outbox.sink", havingValue = "memory")
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final Map<Long, OutboxMessage> delivered = new LinkedHashMap<>();
+
+    @Override
+    public synchronized void deliver(List<OutboxMessage> messages) {
+        messages.forEach(message -> delivered.putIfAbsent(message.getId(), message));
+    }
+
+    public synchronized List<OutboxMessage> getDelivered() {
+        return new ArrayList<>(delivered.values());
+    }
+}
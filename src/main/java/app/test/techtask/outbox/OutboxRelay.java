@@ -0,0 +1,66 @@
+package app.test.techtask.outbox;
+
+import app.test.techtask.data.OutboxMessage;
+import app.test.techtask.repositories.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Delivers outbox messages in batches. Each batch is claimed with {@code FOR UPDATE SKIP LOCKED},
+ * handed to the {@link OutboxSink} and deleted with one statement, all in one transaction, so
+ * several instances can relay side by side and a failed delivery leaves the batch in place.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final OutboxSink outboxSink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerPoll;
+
+    public OutboxRelay(OutboxMessageRepository outboxMessageRepository,
+                       OutboxSink outboxSink,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${library.outbox.batch-size:500}") int batchSize,
+                       @Value("${library.outbox.max-batches-per-poll:20}") int maxBatchesPerPoll) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.outboxSink = outboxSink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+    }
+
+    @Scheduled(fixedDelayString = "${library.outbox.poll-interval:PT1S}")
+    public void poll() {
+        try {
+            for (int i = 0; i < maxBatchesPerPoll; i++) {
+                Integer relayed = transactionTemplate.execute(status -> relayBatch());
+                if (relayed == null || relayed < batchSize) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox delivery failed, retrying on next poll", e);
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxMessage> batch = outboxMessageRepository.claimBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        outboxSink.deliver(batch);
+        outboxMessageRepository.deleteAllByIdInBatch(batch.stream().map(OutboxMessage::getId).toList());
+        return batch.size();
+    }
+}
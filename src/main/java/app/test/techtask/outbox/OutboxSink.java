@@ -0,0 +1,15 @@
+package app.test.techtask.outbox;
+
+import app.test.techtask.data.OutboxMessage;
+
+import java.util.List;
+
+/**
+ * Destination of outbox messages. A batch counts as delivered when {@code deliver} returns;
+ * when it throws, the whole batch is retried later. Messages can therefore arrive more than
+ * once, and receivers deduplicate on {@link OutboxMessage#getId()}.
+ */
+public interface OutboxSink {
+
+    void deliver(List<OutboxMessage> messages);
+}
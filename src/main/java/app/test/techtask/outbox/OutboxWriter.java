@@ -0,0 +1,49 @@
+package app.test.techtask.outbox;
+
+import app.test.techtask.data.OutboxMessage;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.repositories.OutboxMessageRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Adds borrows and returns to the outbox right before their transaction commits, so the
+ * message exists if and only if the loan change does.
+ */
+@Component
+public class OutboxWriter {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxWriter(OutboxMessageRepository outboxMessageRepository, ObjectMapper objectMapper) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onInventoryEvent(InventoryEvent event) {
+        if (event.type() != InventoryEvent.Type.BORROWED && event.type() != InventoryEvent.Type.RETURNED) {
+            return;
+        }
+        Instant now = Instant.now();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("memberId", event.memberId());
+        payload.put("bookId", event.bookId());
+        payload.put("available", event.amount());
+        payload.put("occurredAt", now.toString());
+        try {
+            outboxMessageRepository.save(new OutboxMessage(event.type().name(), event.memberId(),
+                    objectMapper.writeValueAsString(payload), now));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize outbox payload", e);
+        }
+    }
+}
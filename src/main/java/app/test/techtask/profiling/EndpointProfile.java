@@ -0,0 +1,7 @@
+package app.test.techtask.profiling;
+
+/**
+ * SQL time spent on behalf of one endpoint, such as {@code GET /books/{id}}.
+ */
+public record EndpointProfile(String endpoint, long count, double totalMillis, double maxMillis, double p99Millis) {
+}
@@ -0,0 +1,76 @@
+package app.test.techtask.profiling;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count, total and maximum of a latency since the last reset, and the most recent samples in a
+ * ring for percentiles. Recording takes a slot with one atomic increment and never blocks;
+ * a percentile is computed from a copy of the ring when it is read.
+ */
+class LatencyStats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicLongArray samples;
+    private final int mask;
+
+    LatencyStats(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.samples = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+    }
+
+    void record(long nanos) {
+        samples.lazySet((int) (cursor.getAndIncrement() & mask), nanos);
+        count.increment();
+        totalNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // another thread raised the maximum, compare again
+        }
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    long maxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @param quantile between 0 and 1, e.g. 0.99
+     */
+    long percentileNanos(double quantile) {
+        int size = (int) Math.min(cursor.get(), samples.length());
+        if (size == 0) {
+            return 0;
+        }
+        long[] copy = new long[size];
+        for (int i = 0; i < size; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        return copy[Math.max((int) Math.ceil(quantile * size) - 1, 0)];
+    }
+
+    EndpointProfile toProfile(String endpoint) {
+        return new EndpointProfile(endpoint, count(), millis(totalNanos()), millis(maxNanos()),
+                millis(percentileNanos(0.99)));
+    }
+
+    static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
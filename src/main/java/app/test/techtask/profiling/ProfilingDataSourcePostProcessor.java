@@ -0,0 +1,35 @@
+package app.test.techtask.profiling;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application's {@code dataSource} bean in a {@link ProfilingDataSource}. With a read
+ * replica configured that bean is the routing proxy, so statements on both pools are profiled
+ * once. Turn off with {@code library.sql-profiler.enabled=false}.
+ */
+@Component
+@ConditionalOnProperty(name = "library.sql-profiler.enabled", havingValue = "true", matchIfMissing = true)
+public class ProfilingDataSourcePostProcessor implements BeanPostProcessor {
+
+    static final String DATA_SOURCE_BEAN = "dataSource";
+
+    private final ObjectProvider<SqlProfiler> profiler;
+
+    public ProfilingDataSourcePostProcessor(ObjectProvider<SqlProfiler> profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && DATA_SOURCE_BEAN.equals(beanName)
+                && !(bean instanceof ProfilingDataSource)) {
+            return new ProfilingDataSource(dataSource, profiler.getObject());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,9 @@
+package app.test.techtask.profiling;
+
+import java.time.Instant;
+
+/**
+ * @param sql normalized statement, without values
+ */
+public record SlowQuery(String sql, String endpoint, double millis, Instant at) {
+}
@@ -0,0 +1,15 @@
+package app.test.techtask.profiling;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @param since       when profiling started or was last reset
+ * @param executions  statements executed since then
+ * @param statements  statements with the most total time first
+ * @param endpoints   endpoints with the most total SQL time first
+ * @param slowQueries most recent slow statements first
+ */
+public record SqlProfileReport(Instant since, long executions, List<StatementProfile> statements,
+                               List<EndpointProfile> endpoints, List<SlowQuery> slowQueries) {
+}
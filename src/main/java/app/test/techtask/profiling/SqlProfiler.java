@@ -0,0 +1,186 @@
+package app.test.techtask.profiling;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates the time of every SQL statement run through {@link ProfilingDataSource}, per
+ * normalized statement, per statement and endpoint, and per endpoint. The endpoint is the
+ * handler mapping of the request on the current thread, set by {@link SqlProfilingInterceptor};
+ * statements run outside a request handler, by scheduled jobs or filters, count as {@link #NO_ENDPOINT}.
+ *
+ * Recording only touches concurrent maps and atomic counters. The number of distinct
+ * statements and endpoints per statement is bounded; once full, new ones are counted as
+ * {@link #OTHER}. Statements slower than {@code library.sql-profiler.slow-threshold} are kept,
+ * normalized and so without values, in a ring of recent slow queries.
+ */
+@Component
+public class SqlProfiler {
+
+    public static final String NO_ENDPOINT = "(none)";
+    public static final String OTHER = "(other)";
+
+    static final int MAX_ENDPOINTS_PER_STATEMENT = 32;
+    static final int SLOW_QUERIES = 64;
+
+    private static final ThreadLocal<String> currentEndpoint = new ThreadLocal<>();
+
+    private final Clock clock;
+    private final long slowThresholdNanos;
+    private final int maxStatements;
+    private final int samples;
+    private final Map<String, String> normalized = new ConcurrentHashMap<>();
+    private final Map<String, Statement> statements = new ConcurrentHashMap<>();
+    private final Map<String, LatencyStats> endpoints = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<SlowQuery> slowQueries = new AtomicReferenceArray<>(SLOW_QUERIES);
+    private final AtomicLong slowCursor = new AtomicLong();
+    private final LongAdder executions = new LongAdder();
+
+    private volatile Instant since;
+
+    @Autowired
+    public SqlProfiler(@Value("${library.sql-profiler.slow-threshold:PT0.1S}") Duration slowThreshold,
+                       @Value("${library.sql-profiler.max-statements:1000}") int maxStatements,
+                       @Value("${library.sql-profiler.samples:256}") int samples) {
+        this(Clock.systemUTC(), slowThreshold, maxStatements, samples);
+    }
+
+    SqlProfiler(Clock clock, Duration slowThreshold, int maxStatements, int samples) {
+        this.clock = clock;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxStatements = maxStatements;
+        this.samples = Integer.highestOneBit(Math.max(samples, 1));
+        this.since = clock.instant();
+    }
+
+    /**
+     * Attributes statements run on this thread to the endpoint until {@link #clearEndpoint}.
+     */
+    public static void setEndpoint(String endpoint) {
+        currentEndpoint.set(endpoint);
+    }
+
+    public static void clearEndpoint() {
+        currentEndpoint.remove();
+    }
+
+    public void record(String sql, long nanos) {
+        String endpoint = currentEndpoint.get();
+        if (endpoint == null) {
+            endpoint = NO_ENDPOINT;
+        }
+        String statementSql = normalize(sql);
+        Statement statement = statements.get(statementSql);
+        if (statement == null) {
+            statement = statements.size() < maxStatements
+                    ? statements.computeIfAbsent(statementSql, key -> new Statement(samples))
+                    : statements.computeIfAbsent(OTHER, key -> new Statement(samples));
+        }
+        executions.increment();
+        statement.total.record(nanos);
+        statement.byEndpoint(endpoint, samples).record(nanos);
+        LatencyStats endpointStats = endpoints.get(endpoint);
+        if (endpointStats == null) {
+            endpointStats = endpoints.computeIfAbsent(endpoint, key -> new LatencyStats(samples));
+        }
+        endpointStats.record(nanos);
+
+        if (nanos >= slowThresholdNanos) {
+            int slot = (int) (slowCursor.getAndIncrement() % SLOW_QUERIES);
+            slowQueries.set(slot, new SlowQuery(statementSql, endpoint, LatencyStats.millis(nanos), clock.instant()));
+        }
+    }
+
+    /**
+     * @param limit maximum number of statements and of endpoints in the report
+     */
+    public SqlProfileReport report(int limit) {
+        List<StatementProfile> topStatements = statements.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Statement> entry) -> entry.getValue().total.totalNanos())
+                        .reversed())
+                .limit(limit)
+                .map(entry -> entry.getValue().toProfile(entry.getKey()))
+                .toList();
+        List<EndpointProfile> topEndpoints = endpoints.entrySet().stream()
+                .map(entry -> entry.getValue().toProfile(entry.getKey()))
+                .sorted(Comparator.comparingDouble(EndpointProfile::totalMillis).reversed())
+                .limit(limit)
+                .toList();
+        List<SlowQuery> recentSlow = new ArrayList<>();
+        long last = slowCursor.get();
+        for (long i = last - 1; i >= Math.max(last - SLOW_QUERIES, 0); i--) {
+            SlowQuery slowQuery = slowQueries.get((int) (i % SLOW_QUERIES));
+            if (slowQuery != null) {
+                recentSlow.add(slowQuery);
+            }
+        }
+        return new SqlProfileReport(since, executions.sum(), topStatements, topEndpoints, recentSlow);
+    }
+
+    /**
+     * Drops everything recorded so far. Statements running during the reset may be counted in
+     * either period.
+     */
+    public void reset() {
+        statements.clear();
+        endpoints.clear();
+        for (int i = 0; i < SLOW_QUERIES; i++) {
+            slowQueries.set(i, null);
+        }
+        executions.reset();
+        since = clock.instant();
+    }
+
+    private String normalize(String sql) {
+        String statementSql = normalized.get(sql);
+        if (statementSql == null) {
+            statementSql = SqlNormalizer.normalize(sql);
+            if (normalized.size() < maxStatements * 4) {
+                normalized.put(sql, statementSql);
+            }
+        }
+        return statementSql;
+    }
+
+    private static final class Statement {
+
+        final LatencyStats total;
+        final Map<String, LatencyStats> endpoints = new ConcurrentHashMap<>();
+
+        Statement(int samples) {
+            this.total = new LatencyStats(samples);
+        }
+
+        LatencyStats byEndpoint(String endpoint, int samples) {
+            LatencyStats stats = endpoints.get(endpoint);
+            if (stats == null) {
+                stats = endpoints.computeIfAbsent(endpoints.size() < MAX_ENDPOINTS_PER_STATEMENT ? endpoint : OTHER,
+                        key -> new LatencyStats(samples));
+            }
+            return stats;
+        }
+
+        StatementProfile toProfile(String sql) {
+            EndpointProfile summary = total.toProfile(sql);
+            List<EndpointProfile> byEndpoint = endpoints.entrySet().stream()
+                    .map(entry -> entry.getValue().toProfile(entry.getKey()))
+                    .sorted(Comparator.comparingDouble(EndpointProfile::totalMillis).reversed())
+                    .toList();
+            return new StatementProfile(sql, summary.count(), summary.totalMillis(), summary.maxMillis(),
+                    summary.p99Millis(), byEndpoint);
+        }
+    }
+}
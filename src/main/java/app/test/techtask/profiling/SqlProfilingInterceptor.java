@@ -0,0 +1,32 @@
+package app.test.techtask.profiling;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Attributes SQL run while a request is handled to its method and mapping pattern, such as
+ * {@code GET /books/{id}}, so the endpoint count stays bounded by the number of mappings.
+ */
+@Component
+public class SqlProfilingInterceptor implements AsyncHandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        SqlProfiler.setEndpoint(request.getMethod() + " " + (pattern != null ? pattern : "(unmapped)"));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlProfiler.clearEndpoint();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        SqlProfiler.clearEndpoint();
+    }
+}
@@ -0,0 +1,11 @@
+package app.test.techtask.profiling;
+
+import java.util.List;
+
+/**
+ * @param sql       normalized statement, without values
+ * @param endpoints endpoints that ran the statement, most total time first
+ */
+public record StatementProfile(String sql, long count, double totalMillis, double maxMillis, double p99Millis,
+                               List<EndpointProfile> endpoints) {
+}
@@ -0,0 +1,15 @@
+package app.test.techtask.ratelimit;
+
+/**
+ * Endpoint groups with their own rate limits.
+ */
+public enum RateLimitGroup {
+    /**
+     * Borrow and return, limited per member and per client.
+     */
+    LOANS,
+    /**
+     * Every other write, limited per client.
+     */
+    WRITES
+}
@@ -0,0 +1,141 @@
+package app.test.techtask.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies token-bucket limits to write requests and reports them in {@code RateLimit-Limit},
+ * {@code RateLimit-Remaining} and {@code RateLimit-Reset} headers. When several limits apply,
+ * the headers describe the one with the fewest tokens left. A rejected request gets 429 with
+ * {@code Retry-After}.
+ *
+ * Clients are told apart by {@code library.ratelimit.client-header} when it is set and present,
+ * otherwise by remote address. The header is taken as is, so it must only be configured when a
+ * trusted proxy sets it and strips it from incoming requests; otherwise each client can pick a
+ * fresh id per request and escape the per-client limits.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    public static final String LIMIT_HEADER = "RateLimit-Limit";
+    public static final String REMAINING_HEADER = "RateLimit-Remaining";
+    public static final String RESET_HEADER = "RateLimit-Reset";
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final int STRIPES = 16;
+
+    private final RateLimiter loanMemberLimiter;
+    private final RateLimiter loanClientLimiter;
+    private final RateLimiter writeClientLimiter;
+    private final String clientHeader;
+
+    public RateLimitInterceptor(@Value("${library.ratelimit.loans.member-rate:1}") double loanMemberRate,
+                                @Value("${library.ratelimit.loans.member-burst:5}") long loanMemberBurst,
+                                @Value("${library.ratelimit.loans.client-rate:20}") double loanClientRate,
+                                @Value("${library.ratelimit.loans.client-burst:40}") long loanClientBurst,
+                                @Value("${library.ratelimit.writes.client-rate:10}") double writeClientRate,
+                                @Value("${library.ratelimit.writes.client-burst:20}") long writeClientBurst,
+                                @Value("${library.ratelimit.max-keys:100000}") int maxKeys,
+                                @Value("${library.ratelimit.client-header:}") String clientHeader) {
+        this.loanMemberLimiter = new RateLimiter(loanMemberRate, loanMemberBurst, STRIPES, maxKeys);
+        this.loanClientLimiter = new RateLimiter(loanClientRate, loanClientBurst, STRIPES, maxKeys);
+        this.writeClientLimiter = new RateLimiter(writeClientRate, writeClientBurst, STRIPES, maxKeys);
+        this.clientHeader = clientHeader.isBlank() ? null : clientHeader;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod handlerMethod) || READ_METHODS.contains(request.getMethod())) {
+            return true;
+        }
+        RateLimited rateLimited = handlerMethod.getMethodAnnotation(RateLimited.class);
+        RateLimitGroup group = rateLimited != null ? rateLimited.value() : RateLimitGroup.WRITES;
+        long now = System.nanoTime();
+        String client = clientId(request);
+
+        TokenBucket.Decision decision;
+        if (group == RateLimitGroup.LOANS) {
+            decision = null;
+            String memberId = pathVariable(request, "memberId");
+            if (memberId != null) {
+                decision = loanMemberLimiter.tryTake(memberId, now);
+            }
+            if (decision == null || decision.allowed()) {
+                TokenBucket.Decision clientDecision = loanClientLimiter.tryTake(client, now);
+                if (decision != null && !clientDecision.allowed()) {
+                    // the request is refused, so it must not use up the member's token either
+                    loanMemberLimiter.refund(memberId, now);
+                }
+                decision = tighter(decision, clientDecision);
+            }
+        } else {
+            decision = writeClientLimiter.tryTake(client, now);
+        }
+
+        writeHeaders(response, decision);
+        if (decision.allowed()) {
+            return true;
+        }
+        byte[] body = "ERROR Message='Too many requests, retry later'".getBytes(StandardCharsets.UTF_8);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds(decision.retryAfterNanos())));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${library.ratelimit.evict-interval:PT1M}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        loanMemberLimiter.evictIdle(now);
+        loanClientLimiter.evictIdle(now);
+        writeClientLimiter.evictIdle(now);
+    }
+
+    private String clientId(HttpServletRequest request) {
+        if (clientHeader != null) {
+            String value = request.getHeader(clientHeader);
+            if (value != null && !value.isBlank()) {
+                return value;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String pathVariable(HttpServletRequest request, String name) {
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        return variables != null ? variables.get(name) : null;
+    }
+
+    private static TokenBucket.Decision tighter(TokenBucket.Decision a, TokenBucket.Decision b) {
+        if (a == null || !b.allowed() || b.remaining() < a.remaining()) {
+            return b;
+        }
+        return a;
+    }
+
+    private static void writeHeaders(HttpServletResponse response, TokenBucket.Decision decision) {
+        response.setHeader(LIMIT_HEADER, Long.toString(decision.limit()));
+        response.setHeader(REMAINING_HEADER, Long.toString(decision.remaining()));
+        response.setHeader(RESET_HEADER, Long.toString(seconds(decision.resetNanos())));
+    }
+
+    private static long seconds(long nanos) {
+        return (nanos + 999_999_999L) / 1_000_000_000L;
+    }
+}
@@ -0,0 +1,17 @@
+package app.test.techtask.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a handler method in a {@link RateLimitGroup} other than the default
+ * {@link RateLimitGroup#WRITES} for writes. Handlers of {@link RateLimitGroup#LOANS} take the
+ * member from the {@code memberId} path variable.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+    RateLimitGroup value();
+}
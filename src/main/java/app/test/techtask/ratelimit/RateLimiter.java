@@ -0,0 +1,125 @@
+package app.test.techtask.ratelimit;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One {@link TokenBucket} per key, e.g. per member or per client, with the same rate and burst.
+ *
+ * Buckets are spread over a power-of-two number of {@link ConcurrentHashMap} stripes. A bucket
+ * that has refilled completely carries no state, so {@link #evictIdle(long)} drops it. A stripe
+ * that is full when a new key arrives is swept, at most once a second, and if it is still full
+ * the new key shares a single overflow bucket with every other key that did not fit. The number
+ * of buckets therefore never exceeds {@code maxKeys} by more than the keys being inserted at the
+ * same moment, and a flood of new keys neither grows the map nor sweeps it on every request.
+ */
+public class RateLimiter {
+
+    private static final long SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final double ratePerSecond;
+    private final long burst;
+    private final Map<String, TokenBucket>[] stripes;
+    private final AtomicLongArray lastSweep;
+    private final int mask;
+    private final int capacityPerStripe;
+    private final long sweepIntervalNanos;
+    private final AtomicReference<TokenBucket> overflow = new AtomicReference<>();
+
+    @SuppressWarnings("unchecked")
+    public RateLimiter(double ratePerSecond, long burst, int stripeCount, int maxKeys) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        int count = Integer.highestOneBit(Math.max(stripeCount, 1) * 2 - 1);
+        this.stripes = new Map[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        long[] never = new long[count];
+        Arrays.fill(never, Long.MIN_VALUE);
+        this.lastSweep = new AtomicLongArray(never);
+        this.mask = count - 1;
+        this.capacityPerStripe = Math.max(maxKeys / count, 1);
+        // a bucket becomes idle one refill period after its last take, so sweeping more often finds nothing new
+        this.sweepIntervalNanos = Math.min((long) (burst * 1e9 / ratePerSecond), SWEEP_INTERVAL_NANOS);
+    }
+
+    public TokenBucket.Decision tryTake(String key, long nowNanos) {
+        int index = index(key);
+        Map<String, TokenBucket> stripe = stripes[index];
+        TokenBucket bucket = stripe.get(key);
+        if (bucket == null) {
+            if (stripe.size() >= capacityPerStripe) {
+                sweep(index, nowNanos);
+                if (stripe.size() >= capacityPerStripe) {
+                    return overflow(nowNanos).tryTake(nowNanos);
+                }
+            }
+            bucket = stripe.computeIfAbsent(key, k -> new TokenBucket(ratePerSecond, burst, nowNanos));
+        }
+        return bucket.tryTake(nowNanos);
+    }
+
+    /**
+     * Gives back the token taken for the key, see {@link TokenBucket#refund(long)}.
+     */
+    public void refund(String key, long nowNanos) {
+        TokenBucket bucket = stripes[index(key)].get(key);
+        if (bucket == null) {
+            bucket = overflow.get();
+        }
+        if (bucket != null) {
+            bucket.refund(nowNanos);
+        }
+    }
+
+    public void evictIdle(long nowNanos) {
+        for (Map<String, TokenBucket> stripe : stripes) {
+            evictIdle(stripe, nowNanos);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, TokenBucket> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private void sweep(int index, long nowNanos) {
+        long last = lastSweep.get(index);
+        if (last != Long.MIN_VALUE && nowNanos - last < sweepIntervalNanos) {
+            return;
+        }
+        if (lastSweep.compareAndSet(index, last, nowNanos)) {
+            evictIdle(stripes[index], nowNanos);
+        }
+    }
+
+    private TokenBucket overflow(long nowNanos) {
+        TokenBucket bucket = overflow.get();
+        if (bucket == null) {
+            overflow.compareAndSet(null, new TokenBucket(ratePerSecond, burst, nowNanos));
+            bucket = overflow.get();
+        }
+        return bucket;
+    }
+
+    private static void evictIdle(Map<String, TokenBucket> stripe, long nowNanos) {
+        for (Iterator<TokenBucket> buckets = stripe.values().iterator(); buckets.hasNext(); ) {
+            if (buckets.next().isIdle(nowNanos)) {
+                buckets.remove();
+            }
+        }
+    }
+
+    private int index(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
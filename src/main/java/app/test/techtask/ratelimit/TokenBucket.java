@@ -0,0 +1,77 @@
+package app.test.techtask.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket holding up to {@code burst} tokens and refilling {@code rate} tokens
+ * per second.
+ *
+ * Implemented as the generic cell rate algorithm: instead of a token count the bucket keeps the
+ * theoretical arrival time ({@code tat}) at which it would be full again, in a single
+ * {@link AtomicLong}. Taking a token moves {@code tat} one emission interval into the future, and
+ * is allowed while {@code tat} stays within {@code burst} intervals of now. That makes a take one
+ * CAS, with no separate refill step.
+ */
+public class TokenBucket {
+
+    /**
+     * Outcome of {@link #tryTake(long)}. All durations are in nanoseconds.
+     *
+     * @param remaining tokens left after this take
+     * @param resetNanos time until the bucket is full again
+     * @param retryAfterNanos time until the next token, zero when allowed
+     */
+    public record Decision(boolean allowed, long limit, long remaining, long resetNanos, long retryAfterNanos) {
+    }
+
+    private final long intervalNanos;
+    private final long burst;
+    private final long capacityNanos;
+    private final AtomicLong tat;
+
+    public TokenBucket(double ratePerSecond, long burst, long nowNanos) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("rate and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.burst = burst;
+        this.capacityNanos = intervalNanos * burst;
+        this.tat = new AtomicLong(nowNanos);
+    }
+
+    public Decision tryTake(long nowNanos) {
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long ahead = next - nowNanos;
+            if (ahead > capacityNanos) {
+                long backlog = Math.max(current - nowNanos, 0);
+                return new Decision(false, burst, 0, backlog, ahead - capacityNanos);
+            }
+            if (tat.compareAndSet(current, next)) {
+                return new Decision(true, burst, (capacityNanos - ahead) / intervalNanos, ahead, 0);
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken for a request that was refused for another reason.
+     */
+    public void refund(long nowNanos) {
+        while (true) {
+            long current = tat.get();
+            if (current <= nowNanos
+                    || tat.compareAndSet(current, Math.max(current - intervalNanos, nowNanos))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Whether the bucket has been full since {@code nowNanos}, so dropping it is the same as
+     * starting over with a new one.
+     */
+    public boolean isIdle(long nowNanos) {
+        return tat.get() <= nowNanos;
+    }
+}
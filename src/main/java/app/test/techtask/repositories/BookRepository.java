@@ -1,8 +1,61 @@
 package app.test.techtask.repositories;
 
 import app.test.techtask.data.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
     Book findByTitleAndAuthor(String title, String author);
-}
\ No newline at end of file
+
+    @Query("SELECT b.version FROM Book b WHERE b.id = :id")
+    Long findVersionById(@Param("id") Long id);
+
+    @Query("SELECT MIN(b.id) FROM Book b")
+    Long findMinId();
+
+    @Query("SELECT MAX(b.id) FROM Book b")
+    Long findMaxId();
+
+    @Query("SELECT b.id, b.amount, b.totalCopies FROM Book b WHERE b.id >= :from AND b.id < :to")
+    List<Object[]> findStockInRange(@Param("from") Long from, @Param("to") Long to);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id FROM Book b")
+    Stream<Long> streamAllIds();
+
+    @Query("SELECT b.id FROM Book b WHERE b.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT b.id, b.amount, b.version FROM Book b WHERE b.id IN :ids")
+    List<Object[]> findStockByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Book b WHERE b.id = :id"
+            + " AND NOT EXISTS (SELECT 1 FROM BorrowedBook bb WHERE bb.book.id = b.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM Reservation r WHERE r.book.id = b.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM BranchStock s WHERE s.book.id = b.id)")
+    int deleteUnreferencedById(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM Book b WHERE b.id = :id AND b.version = :version"
+            + " AND NOT EXISTS (SELECT 1 FROM BorrowedBook bb WHERE bb.book.id = b.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM Reservation r WHERE r.book.id = b.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM BranchStock s WHERE s.book.id = b.id)")
+    int deleteUnreferencedByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+    @Modifying
+    @Query("DELETE FROM Book b WHERE b.id IN :ids"
+            + " AND NOT EXISTS (SELECT 1 FROM BorrowedBook bb WHERE bb.book.id = b.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM Reservation r WHERE r.book.id = b.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM BranchStock s WHERE s.book.id = b.id)")
+    int deleteUnreferencedByIdIn(@Param("ids") Collection<Long> ids);
+}
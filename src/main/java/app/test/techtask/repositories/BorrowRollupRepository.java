@@ -0,0 +1,19 @@
+package app.test.techtask.repositories;
+
+import app.test.techtask.data.BorrowRollup;
+import app.test.techtask.stats.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BorrowRollupRepository extends JpaRepository<BorrowRollup, Long> {
+    List<BorrowRollup> findByGranularityAndBucketStartBetween(RollupGranularity granularity, LocalDate from, LocalDate to);
+
+    boolean existsByGranularityAndBucketStart(RollupGranularity granularity, LocalDate bucketStart);
+
+    @Query("SELECT MIN(r.bucketStart) FROM BorrowRollup r WHERE r.granularity = :granularity")
+    LocalDate findMinBucketStart(@Param("granularity") RollupGranularity granularity);
+}
@@ -1,8 +1,14 @@
 package app.test.techtask.repositories;
 
+import app.test.techtask.data.BookView;
 import app.test.techtask.data.BorrowedBook;
+import app.test.techtask.data.OverdueLoan;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,5 +16,33 @@ public interface BorrowedBookRepository extends JpaRepository<BorrowedBook, Long
     int countByBookId(Long bookId);
     long countByMemberId(Long memberId);
     Optional<BorrowedBook> findByMemberIdAndBookId(Long memberId, Long bookId);
-    List<BorrowedBook> findByMemberMemberName(String memberName);
+
+    @Query("SELECT new app.test.techtask.data.BookView(b.id, b.amount, b.author, b.title)"
+            + " FROM BorrowedBook bb JOIN bb.book b WHERE bb.member.memberName = :memberName")
+    List<BookView> findBookViewsByMemberName(@Param("memberName") String memberName);
+
+    @Query("SELECT MIN(bb.borrowedDate) FROM BorrowedBook bb")
+    LocalDate findMinBorrowedDate();
+
+    /**
+     * Next keyset page of loans borrowed in {@code [from, to)} after position {@code (afterDate, afterId)}.
+     */
+    @Query("SELECT new app.test.techtask.data.OverdueLoan(bb.id, bb.member.id, bb.book.id, bb.borrowedDate)"
+            + " FROM BorrowedBook bb"
+            + " WHERE bb.borrowedDate >= :from AND bb.borrowedDate < :to"
+            + " AND (bb.borrowedDate > :afterDate OR (bb.borrowedDate = :afterDate AND bb.id > :afterId))"
+            + " ORDER BY bb.borrowedDate, bb.id")
+    List<OverdueLoan> findLoanPage(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                   @Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId,
+                                   Pageable pageable);
+
+    @Query("SELECT DISTINCT bb.book.id FROM BorrowedBook bb WHERE bb.member.id = :memberId")
+    List<Long> findBookIdsByMemberId(@Param("memberId") Long memberId);
+
+    @Query("SELECT bb.book.id, bb.book.title, COUNT(bb) FROM BorrowedBook bb GROUP BY bb.book.id, bb.book.title")
+    List<Object[]> countLoansPerBook();
+
+    @Query("SELECT bb.book.id, COUNT(bb) FROM BorrowedBook bb"
+            + " WHERE bb.book.id >= :from AND bb.book.id < :to GROUP BY bb.book.id")
+    List<Object[]> countLoansPerBookInRange(@Param("from") Long from, @Param("to") Long to);
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package app.test.techtask.repositories;
+
+import app.test.techtask.data.Branch;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BranchRepository extends JpaRepository<Branch, Long> {
+    boolean existsByName(String name);
+}
@@ -0,0 +1,66 @@
+package app.test.techtask.repositories;
+
+import app.test.techtask.data.BranchStock;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface BranchStockRepository extends JpaRepository<BranchStock, Long> {
+
+    /**
+     * Adds {@code copies} (negative to take) unless that would leave the shelf below zero.
+     *
+     * @return 1 if the stock was changed, 0 if the row is missing or has too few copies
+     */
+    @Modifying
+    @Query("UPDATE BranchStock s SET s.amount = s.amount + :copies"
+            + " WHERE s.branch.id = :branchId AND s.book.id = :bookId AND s.amount + :copies >= 0")
+    int addCopies(@Param("branchId") Long branchId, @Param("bookId") Long bookId, @Param("copies") long copies);
+
+    /**
+     * Creates the row for a book's first copy at a branch.
+     *
+     * @return 0 if the row already exists
+     */
+    @Modifying
+    @Query(value = "INSERT INTO branch_stock (branch_id, book_id, amount) VALUES (:branchId, :bookId, :copies)"
+            + " ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("branchId") Long branchId, @Param("bookId") Long bookId, @Param("copies") long copies);
+
+    @Query("SELECT s.amount FROM BranchStock s WHERE s.branch.id = :branchId AND s.book.id = :bookId")
+    Long findAmount(@Param("branchId") Long branchId, @Param("bookId") Long bookId);
+
+    @Query("SELECT COALESCE(SUM(s.amount), 0) FROM BranchStock s WHERE s.book.id = :bookId")
+    long sumByBookId(@Param("bookId") Long bookId);
+
+    @Query("SELECT s.book.id, SUM(s.amount) FROM BranchStock s WHERE s.book.id IN :bookIds GROUP BY s.book.id")
+    List<Object[]> sumPerBookIn(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query("SELECT s.book.id, SUM(s.amount) FROM BranchStock s"
+            + " WHERE s.book.id >= :from AND s.book.id < :to GROUP BY s.book.id")
+    List<Object[]> sumPerBookInRange(@Param("from") Long from, @Param("to") Long to);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT s.branch.id, s.book.id, s.amount FROM BranchStock s WHERE s.amount > 0")
+    Stream<Object[]> streamAllStocked();
+
+    /**
+     * Drops the empty shelves of books about to be deleted, which would otherwise keep them referenced.
+     * Only books that nothing else references lose their shelves, the same books the guarded
+     * delete of the book rows then removes.
+     */
+    @Modifying
+    @Query("DELETE FROM BranchStock s WHERE s.book.id IN :bookIds AND s.amount = 0"
+            + " AND NOT EXISTS (SELECT 1 FROM BranchStock o WHERE o.book.id = s.book.id AND o.amount > 0)"
+            + " AND NOT EXISTS (SELECT 1 FROM BorrowedBook bb WHERE bb.book.id = s.book.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM Reservation r WHERE r.book.id = s.book.id)")
+    int deleteEmptyByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
+}
@@ -0,0 +1,20 @@
+package app.test.techtask.repositories;
+
+import app.test.techtask.data.LoanHistory;
+import app.test.techtask.data.LoanView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LoanHistoryRepository extends JpaRepository<LoanHistory, Long> {
+    List<LoanView> findByMemberIdAndBorrowedDateBetweenOrderByBorrowedDateDescIdDesc(
+            Long memberId, LocalDate from, LocalDate to, Pageable pageable);
+
+    List<LoanView> findByBookIdAndBorrowedDateBetweenOrderByBorrowedDateDescIdDesc(
+            Long bookId, LocalDate from, LocalDate to, Pageable pageable);
+
+    List<LoanView> findByBorrowedDateBetweenOrderByBorrowedDateDescIdDesc(
+            LocalDate from, LocalDate to, Pageable pageable);
+}
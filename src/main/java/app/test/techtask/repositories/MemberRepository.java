@@ -1,7 +1,44 @@
 package app.test.techtask.repositories;
 
 import app.test.techtask.data.Member;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface MemberRepository extends JpaRepository<Member, Long> {
-}
\ No newline at end of file
+    @Query("SELECT m.version FROM Member m WHERE m.id = :id")
+    Long findVersionById(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT m.id, m.memberName FROM Member m")
+    Stream<Object[]> streamAllIdsAndNames();
+
+    @Query("SELECT m.id FROM Member m WHERE m.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Member m WHERE m.id = :id"
+            + " AND NOT EXISTS (SELECT 1 FROM BorrowedBook bb WHERE bb.member.id = m.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM Reservation r WHERE r.member.id = m.id)")
+    int deleteUnreferencedById(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM Member m WHERE m.id = :id AND m.version = :version"
+            + " AND NOT EXISTS (SELECT 1 FROM BorrowedBook bb WHERE bb.member.id = m.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM Reservation r WHERE r.member.id = m.id)")
+    int deleteUnreferencedByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+    @Modifying
+    @Query("DELETE FROM Member m WHERE m.id IN :ids"
+            + " AND NOT EXISTS (SELECT 1 FROM BorrowedBook bb WHERE bb.member.id = m.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM Reservation r WHERE r.member.id = m.id)")
+    int deleteUnreferencedByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,17 @@
+package app.test.techtask.repositories;
+
+import app.test.techtask.data.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    /**
+     * Locks the oldest undelivered messages for the current transaction, skipping rows another
+     * relay already holds.
+     */
+    @Query(value = "SELECT * FROM outbox_messages ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMessage> claimBatch(@Param("limit") int limit);
+}
@@ -0,0 +1,17 @@
+package app.test.techtask.repositories;
+
+import app.test.techtask.data.OverdueScanRange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OverdueScanRangeRepository extends JpaRepository<OverdueScanRange, Long> {
+    List<OverdueScanRange> findByScanIdAndDoneFalse(Long scanId);
+
+    @Modifying
+    @Query("DELETE FROM OverdueScanRange r WHERE r.scanId < :scanId")
+    int deleteOlderThan(@Param("scanId") Long scanId);
+}
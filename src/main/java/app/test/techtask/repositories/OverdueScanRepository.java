@@ -0,0 +1,19 @@
+package app.test.techtask.repositories;
+
+import app.test.techtask.data.OverdueScan;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface OverdueScanRepository extends JpaRepository<OverdueScan, Long> {
+    Optional<OverdueScan> findFirstByFinishedAtIsNullOrderByIdDesc();
+
+    Optional<OverdueScan> findFirstByFinishedAtIsNotNullOrderByIdDesc();
+
+    @Modifying
+    @Query("DELETE FROM OverdueScan s WHERE s.id < :scanId")
+    int deleteOlderThan(@Param("scanId") Long scanId);
+}
@@ -0,0 +1,22 @@
+package app.test.techtask.repositories;
+
+import app.test.techtask.data.OverdueTally;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OverdueTallyRepository extends JpaRepository<OverdueTally, Long> {
+    List<OverdueTally> findByRangeIdAndMemberIdIn(Long rangeId, Collection<Long> memberIds);
+
+    @Query("SELECT t.memberId, SUM(t.overdueLoans), MIN(t.oldestBorrowedDate) FROM OverdueTally t"
+            + " WHERE t.scanId = :scanId GROUP BY t.memberId")
+    List<Object[]> sumByMember(@Param("scanId") Long scanId);
+
+    @Modifying
+    @Query("DELETE FROM OverdueTally t WHERE t.scanId < :scanId")
+    int deleteOlderThan(@Param("scanId") Long scanId);
+}
@@ -0,0 +1,42 @@
+package app.test.techtask.repositories;
+
+import app.test.techtask.data.Reservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+    Optional<Reservation> findFirstByBookIdAndStatusOrderByIdAsc(Long bookId, Reservation.Status status);
+    Optional<Reservation> findByMemberIdAndBookId(Long memberId, Long bookId);
+    List<Reservation> findByMemberIdOrderByIdAsc(Long memberId);
+    List<Reservation> findByMemberIdAndStatus(Long memberId, Reservation.Status status);
+    List<Reservation> findByStatusAndHeldUntilBefore(Reservation.Status status, LocalDateTime time);
+    long countByBookIdAndStatusAndIdLessThan(Long bookId, Reservation.Status status, Long id);
+    long countByBookIdAndStatus(Long bookId, Reservation.Status status);
+
+    @Query("SELECT DISTINCT r.book.id FROM Reservation r WHERE r.book.id IN :bookIds AND r.status = :status")
+    List<Long> findBookIdsByStatus(@Param("bookIds") Collection<Long> bookIds,
+                                   @Param("status") Reservation.Status status);
+
+    @Query("SELECT r.book.id, COUNT(r) FROM Reservation r"
+            + " WHERE r.book.id >= :from AND r.book.id < :to AND r.status = :status GROUP BY r.book.id")
+    List<Object[]> countPerBookInRange(@Param("from") Long from, @Param("to") Long to,
+                                       @Param("status") Reservation.Status status);
+
+    /**
+     * Cancels the waiting reservations of members about to be deleted. Members with a loan or a
+     * held copy keep theirs, as the guarded delete of the member rows leaves those members in place.
+     */
+    @Modifying
+    @Query("DELETE FROM Reservation r WHERE r.member.id IN :memberIds AND r.status = :status"
+            + " AND NOT EXISTS (SELECT 1 FROM BorrowedBook bb WHERE bb.member.id = r.member.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM Reservation h WHERE h.member.id = r.member.id AND h.status <> :status)")
+    int deleteByStatusAndMemberIdIn(@Param("memberIds") Collection<Long> memberIds,
+                                    @Param("status") Reservation.Status status);
+}
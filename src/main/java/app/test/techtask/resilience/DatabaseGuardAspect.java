@@ -0,0 +1,176 @@
+package app.test.techtask.resilience;
+
+import jakarta.annotation.PreDestroy;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Puts {@link GuardedRead} and {@link GuardedWrite} methods behind the
+ * {@link DatabaseCircuitBreaker}. Runs outside the transaction, so a rejected call never waits
+ * for a connection.
+ *
+ * A guarded read remembers its last successful result. While the breaker is open, or when the
+ * call fails with an outage, that result is returned instead and marked stale for the response.
+ * While the breaker is open it is also refreshed in the background as soon as a probe is let
+ * through. Without a remembered result the call fails with {@link DatabaseUnavailableException},
+ * as does every guarded write that hits an outage or arrives while the breaker is open.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DatabaseGuardAspect {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseGuardAspect.class);
+
+    private final DatabaseCircuitBreaker circuitBreaker;
+    private final LastKnownGoodCache cache;
+    private final Executor refreshExecutor;
+    private final Clock clock;
+    private final Set<CacheKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public DatabaseGuardAspect(DatabaseCircuitBreaker circuitBreaker, LastKnownGoodCache cache) {
+        this(circuitBreaker, cache, Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "stale-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }), Clock.systemUTC());
+    }
+
+    DatabaseGuardAspect(DatabaseCircuitBreaker circuitBreaker, LastKnownGoodCache cache,
+                        Executor refreshExecutor, Clock clock) {
+        this.circuitBreaker = circuitBreaker;
+        this.cache = cache;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+    }
+
+    @Around("@annotation(app.test.techtask.resilience.GuardedRead)")
+    public Object guardRead(ProceedingJoinPoint joinPoint) throws Throwable {
+        CacheKey key = new CacheKey(joinPoint.getSignature().toLongString(), Arrays.asList(joinPoint.getArgs()));
+        if (!circuitBreaker.tryAcquire()) {
+            refreshInBackground(key, joinPoint);
+            return lastKnownGood(key, null);
+        }
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            if (!isOutage(e)) {
+                circuitBreaker.onSuccess();
+                throw e;
+            }
+            circuitBreaker.onFailure();
+            return lastKnownGood(key, e);
+        }
+        circuitBreaker.onSuccess();
+        cache.put(key, result, clock.instant());
+        return result;
+    }
+
+    @Around("@annotation(app.test.techtask.resilience.GuardedWrite)")
+    public Object guardWrite(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new DatabaseUnavailableException(circuitBreaker.retryAfter(), null);
+        }
+        try {
+            Object result = joinPoint.proceed();
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (Throwable e) {
+            if (!isOutage(e)) {
+                circuitBreaker.onSuccess();
+                throw e;
+            }
+            circuitBreaker.onFailure();
+            throw new DatabaseUnavailableException(circuitBreaker.retryAfter(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refreshExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Whether {@code e} means the database could not be reached or did not answer in time, as
+     * opposed to a failure of the call itself.
+     */
+    static boolean isOutage(Throwable e) {
+        return e instanceof DataAccessResourceFailureException
+                || e instanceof TransientDataAccessException && !(e instanceof ConcurrencyFailureException)
+                || e instanceof CannotCreateTransactionException
+                || e instanceof TransactionTimedOutException;
+    }
+
+    private Object lastKnownGood(CacheKey key, Throwable cause) {
+        LastKnownGoodCache.Entry entry = cache.get(key);
+        if (entry == null) {
+            throw new DatabaseUnavailableException(circuitBreaker.retryAfter(), cause);
+        }
+        StaleResponses.markStale(entry.fetchedAt());
+        return entry.value();
+    }
+
+    private void refreshInBackground(CacheKey key, ProceedingJoinPoint joinPoint) {
+        if (cache.get(key) == null || !refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh(key, joinPoint);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private void refresh(CacheKey key, ProceedingJoinPoint joinPoint) {
+        if (!circuitBreaker.tryAcquire()) {
+            return;
+        }
+        try {
+            Object result = joinPoint.proceed();
+            circuitBreaker.onSuccess();
+            cache.put(key, result, clock.instant());
+        } catch (Throwable e) {
+            if (isOutage(e)) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+                log.debug("Background refresh of {} failed", key.method(), e);
+            }
+        }
+    }
+
+    private record CacheKey(String method, List<Object> args) {
+    }
+}
@@ -0,0 +1,20 @@
+package app.test.techtask.resilience;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the database is unavailable and there is no last known good value to fall back to.
+ */
+public class DatabaseUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public DatabaseUnavailableException(Duration retryAfter, Throwable cause) {
+        super("Database is unavailable", cause);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,15 @@
+package app.test.techtask.resilience;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read that is served from the last known good result while the database is
+ * unavailable. See {@link DatabaseGuardAspect}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GuardedRead {
+}
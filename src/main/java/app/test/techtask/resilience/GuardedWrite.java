@@ -0,0 +1,15 @@
+package app.test.techtask.resilience;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a write that fails fast with {@link DatabaseUnavailableException} while the database
+ * circuit breaker is open. See {@link DatabaseGuardAspect}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GuardedWrite {
+}
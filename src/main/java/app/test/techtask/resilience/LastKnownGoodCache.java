@@ -0,0 +1,118 @@
+package app.test.techtask.resilience;
+
+import app.test.techtask.data.Book;
+import app.test.techtask.data.Member;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Last successful result of every {@link GuardedRead} call, keyed by method and arguments.
+ * Once full, the least recently used key makes room for a new one. Empty results, i.e. an empty
+ * {@link Optional} or collection, are not kept and remove what was cached for the key, so a
+ * deleted book is not served from before it was deleted.
+ *
+ * Results are kept as snapshots: collections are copied into unmodifiable ones, and entities
+ * are copied on the way in and again on every {@link #get}, so a caller that changes the entity
+ * it was served, e.g. to prepare an update that is then rejected, never changes the cached one.
+ */
+@Component
+public class LastKnownGoodCache {
+
+    public record Entry(Object value, Instant fetchedAt) {
+    }
+
+    private final Map<Object, Entry> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public LastKnownGoodCache(@Value("${library.breaker.cache-size:10000}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public Entry get(Object key) {
+        Entry entry;
+        lock.lock();
+        try {
+            entry = entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+        return entry == null ? null : new Entry(snapshot(entry.value()), entry.fetchedAt());
+    }
+
+    public void put(Object key, Object value, Instant fetchedAt) {
+        Entry entry = isEmpty(value) ? null : new Entry(snapshot(value), fetchedAt);
+        lock.lock();
+        try {
+            if (entry == null) {
+                entries.remove(key);
+            } else {
+                entries.put(key, entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean isEmpty(Object value) {
+        return value == null
+                || value instanceof Optional<?> optional && optional.isEmpty()
+                || value instanceof Collection<?> collection && collection.isEmpty()
+                || value instanceof Map<?, ?> map && map.isEmpty();
+    }
+
+    static Object snapshot(Object value) {
+        if (value instanceof Optional<?> optional) {
+            return optional.map(LastKnownGoodCache::snapshot);
+        }
+        if (value instanceof Book book) {
+            Book copy = new Book(book.getAuthor(), book.getTitle(), book.getAmount());
+            copy.setId(book.getId());
+            copy.setVersion(book.getVersion());
+            copy.setTotalCopies(book.getTotalCopies());
+            return copy;
+        }
+        if (value instanceof Member member) {
+            Member copy = new Member(member.getMemberName(), member.getMembershipDate());
+            copy.setId(member.getId());
+            copy.setVersion(member.getVersion());
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            return Collections.unmodifiableList(new ArrayList<>(list));
+        }
+        if (value instanceof Set<?> set) {
+            return Collections.unmodifiableSet(new HashSet<>(set));
+        }
+        if (value instanceof Map<?, ?> map) {
+            return Collections.unmodifiableMap(new HashMap<>(map));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,39 @@
+package app.test.techtask.resilience;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Instant;
+
+/**
+ * Remembers on the current request that a stale value was served, so the response can be
+ * marked as such.
+ */
+public final class StaleResponses {
+
+    public static final String STALE_HEADER = "X-Data-Stale";
+
+    private static final String FETCHED_AT_ATTRIBUTE = StaleResponses.class.getName() + ".fetchedAt";
+
+    private StaleResponses() {
+    }
+
+    static void markStale(Instant fetchedAt) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        Instant previous = staleSince(attributes);
+        if (previous == null || fetchedAt.isBefore(previous)) {
+            attributes.setAttribute(FETCHED_AT_ATTRIBUTE, fetchedAt, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * Returns when the oldest stale value served for the current request was fetched, or
+     * {@code null} if everything was fresh.
+     */
+    public static Instant staleSince(RequestAttributes attributes) {
+        return (Instant) attributes.getAttribute(FETCHED_AT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+}
@@ -0,0 +1,12 @@
+package app.test.techtask.services;
+
+import java.util.List;
+
+/**
+ * Branches with a book on the shelf, nearest first when a location was given and otherwise
+ * most copies first.
+ *
+ * @param copies copies on the shelves of all branches together
+ */
+public record BookBranches(Long bookId, long copies, List<BranchAvailability> branches) {
+}
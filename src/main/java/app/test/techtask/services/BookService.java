@@ -1,21 +1,44 @@
 package app.test.techtask.services;
 
+import app.test.techtask.cache.EntityVersionCache;
 import app.test.techtask.data.Book;
+import app.test.techtask.events.InventoryEvent;
 import app.test.techtask.repositories.BookRepository;
 import app.test.techtask.repositories.BorrowedBookRepository;
+import app.test.techtask.repositories.BranchStockRepository;
+import app.test.techtask.resilience.GuardedRead;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @Service
 public class BookService {
     private final BookRepository bookRepository;
     private final BorrowedBookRepository borrowedBookRepository;
+    private final BranchStockRepository branchStockRepository;
+    private final EntityVersionCache versionCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WaitlistService waitlistService;
 
     @Autowired
-    public BookService(BookRepository bookRepository, BorrowedBookRepository borrowedBookRepository) {
+    public BookService(BookRepository bookRepository,
+                       BorrowedBookRepository borrowedBookRepository,
+                       BranchStockRepository branchStockRepository,
+                       EntityVersionCache versionCache,
+                       ApplicationEventPublisher eventPublisher,
+                       WaitlistService waitlistService) {
         this.bookRepository = bookRepository;
         this.borrowedBookRepository = borrowedBookRepository;
+        this.branchStockRepository = branchStockRepository;
+        this.versionCache = versionCache;
+        this.eventPublisher = eventPublisher;
+        this.waitlistService = waitlistService;
     }
 
     @Transactional
@@ -23,36 +46,112 @@ public class BookService {
         Book existingBook = bookRepository.findByTitleAndAuthor(book.getTitle(), book.getAuthor());
         if (existingBook != null) {
             existingBook.setAmount(existingBook.getAmount() + 1);
-            return bookRepository.save(existingBook);
+            if (existingBook.getTotalCopies() != null) {
+                existingBook.setTotalCopies(existingBook.getTotalCopies() + 1);
+            }
+            Book savedBook = bookRepository.save(existingBook);
+            waitlistService.offerCopy(savedBook);
+            eventPublisher.publishEvent(InventoryEvent.of(InventoryEvent.Type.UPDATED, savedBook.getId(),
+                    savedBook.getAmount() + branchStockRepository.sumByBookId(savedBook.getId())));
+            return savedBook;
         }
-        return bookRepository.save(book);
+        book.setTotalCopies(book.getAmount());
+        Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(InventoryEvent.of(InventoryEvent.Type.ADDED, savedBook.getId(), savedBook.getAmount()));
+        return savedBook;
     }
 
+    @GuardedRead
+    @Transactional(readOnly = true, timeoutString = "${library.db.read-timeout:2}")
     public Book getBookById(Long id) {
         return bookRepository.findById(id).orElse(null);
     }
 
+    public Long getCachedVersion(Long id) {
+        return versionCache.get(Book.class, id);
+    }
+
+    @Transactional
     public Book updateBook(Long id, Book bookDetails) {
+        return updateBook(id, bookDetails, null);
+    }
+
+    /**
+     * Copies added by raising the amount are offered to the waitlist, as on any other restock.
+     */
+    @Transactional
+    public Book updateBook(Long id, Book bookDetails, Long expectedVersion) {
         Book existingBook = bookRepository.findById(id).orElse(null);
         if (existingBook != null) {
+            checkVersion(existingBook, expectedVersion);
             existingBook.setTitle(bookDetails.getTitle());
             existingBook.setAuthor(bookDetails.getAuthor());
+            if (existingBook.getTotalCopies() != null) {
+                existingBook.setTotalCopies(existingBook.getTotalCopies() + bookDetails.getAmount() - existingBook.getAmount());
+            }
+            boolean restocked = bookDetails.getAmount() > existingBook.getAmount();
             existingBook.setAmount(bookDetails.getAmount());
-            return bookRepository.save(existingBook);
+            Book savedBook = bookRepository.save(existingBook);
+            if (restocked) {
+                while (waitlistService.offerCopy(savedBook)) {
+                    // each call holds one copy for the next waiting member
+                }
+            }
+            eventPublisher.publishEvent(InventoryEvent.of(InventoryEvent.Type.UPDATED, savedBook.getId(),
+                    savedBook.getAmount() + branchStockRepository.sumByBookId(savedBook.getId())));
+            return savedBook;
         }
         return null;
     }
 
     @Transactional
     public boolean deleteBook(Long id) {
-        Book book = bookRepository.findById(id).orElse(null);
-        if (book != null) {
-            if (borrowedBookRepository.countByBookId(id) > 0) {
-                return false;
+        return deleteBook(id, null);
+    }
+
+    @Transactional
+    public boolean deleteBook(Long id, Long expectedVersion) {
+        branchStockRepository.deleteEmptyByBookIdIn(List.of(id));
+        int deleted = expectedVersion == null
+                ? bookRepository.deleteUnreferencedById(id)
+                : bookRepository.deleteUnreferencedByIdAndVersion(id, expectedVersion);
+        if (deleted == 0) {
+            if (expectedVersion != null) {
+                Long currentVersion = bookRepository.findVersionById(id);
+                if (currentVersion != null && !currentVersion.equals(expectedVersion)) {
+                    throw new PreconditionFailedException("Book " + id + " has been modified");
+                }
             }
-            bookRepository.deleteById(id);
-            return true;
+            return false;
+        }
+        onDeleted(id);
+        return true;
+    }
+
+    @Transactional
+    public BulkDeleteResult deleteBooks(Collection<Long> ids) {
+        List<Long> existingIds = bookRepository.findExistingIds(ids);
+        if (existingIds.isEmpty()) {
+            return new BulkDeleteResult(List.of(), List.of());
+        }
+        branchStockRepository.deleteEmptyByBookIdIn(existingIds);
+        bookRepository.deleteUnreferencedByIdIn(existingIds);
+        Set<Long> retainedIds = new HashSet<>(bookRepository.findExistingIds(existingIds));
+        List<Long> deletedIds = existingIds.stream()
+                .filter(id -> !retainedIds.contains(id))
+                .toList();
+        deletedIds.forEach(this::onDeleted);
+        return new BulkDeleteResult(deletedIds, List.copyOf(retainedIds));
+    }
+
+    private void onDeleted(Long id) {
+        versionCache.evict(Book.class, id);
+        eventPublisher.publishEvent(InventoryEvent.of(InventoryEvent.Type.DELETED, id, null));
+    }
+
+    private void checkVersion(Book book, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(book.getVersion())) {
+            throw new PreconditionFailedException("Book " + book.getId() + " has been modified");
         }
-        return false;
     }
 }
@@ -0,0 +1,101 @@
+package app.test.techtask.services;
+
+import app.test.techtask.cache.BookLabels;
+import app.test.techtask.data.BorrowRollup;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.repositories.BorrowRollupRepository;
+import app.test.techtask.stats.LongLongMap;
+import app.test.techtask.stats.RollupGranularity;
+import app.test.techtask.stats.StringDictionary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Range queries over the borrow rollups. Week and month buckets come from their compacted rows
+ * where those exist and are summed from day rows otherwise, so recent periods are available
+ * before compaction reaches them.
+ */
+@Service
+public class BorrowRollupService {
+
+    public enum GroupBy {
+        BOOK,
+        TITLE,
+        AUTHOR
+    }
+
+    private final BorrowRollupRepository borrowRollupRepository;
+    private final BookRepository bookRepository;
+    private final BookLabels bookLabels;
+
+    public BorrowRollupService(BorrowRollupRepository borrowRollupRepository, BookRepository bookRepository,
+                               BookLabels bookLabels) {
+        this.borrowRollupRepository = borrowRollupRepository;
+        this.bookRepository = bookRepository;
+        this.bookLabels = bookLabels;
+    }
+
+    @Transactional(readOnly = true)
+    public List<BorrowVolume> getBorrowVolumes(RollupGranularity granularity, LocalDate from, LocalDate to,
+                                               GroupBy groupBy) {
+        LocalDate first = granularity.start(from);
+        LocalDate last = granularity.start(to);
+
+        Map<LocalDate, LongLongMap> buckets = new TreeMap<>();
+        if (granularity != RollupGranularity.DAY) {
+            for (BorrowRollup rollup : borrowRollupRepository.findByGranularityAndBucketStartBetween(granularity, first, last)) {
+                buckets.computeIfAbsent(rollup.getBucketStart(), start -> new LongLongMap())
+                        .addTo(rollup.getBookId(), rollup.getBorrows());
+            }
+        }
+        Set<LocalDate> compacted = new HashSet<>(buckets.keySet());
+        LocalDate lastDay = granularity.next(last).minusDays(1);
+        for (BorrowRollup rollup : borrowRollupRepository.findByGranularityAndBucketStartBetween(RollupGranularity.DAY, first, lastDay)) {
+            LocalDate start = granularity.start(rollup.getBucketStart());
+            if (!compacted.contains(start)) {
+                buckets.computeIfAbsent(start, key -> new LongLongMap())
+                        .addTo(rollup.getBookId(), rollup.getBorrows());
+            }
+        }
+
+        Set<Long> bookIds = new HashSet<>();
+        buckets.values().forEach(counts -> counts.forEach((bookId, borrows) -> bookIds.add(bookId)));
+        BookLabels.Lookup labels = bookLabels.loadMissing(bookIds, bookRepository::findAllById);
+
+        List<BorrowVolume> volumes = new ArrayList<>();
+        buckets.forEach((start, counts) -> {
+            LongLongMap grouped = new LongLongMap(counts.size());
+            counts.forEach((bookId, borrows) -> grouped.addTo(groupKey(groupBy, labels, bookId), borrows));
+            List<BorrowVolume> bucket = new ArrayList<>(grouped.size());
+            grouped.forEach((key, borrows) -> bucket.add(volume(groupBy, labels, start, key, borrows)));
+            bucket.sort(Comparator.comparingLong(BorrowVolume::borrows).reversed());
+            volumes.addAll(bucket);
+        });
+        return volumes;
+    }
+
+    /**
+     * Group key of a book: its id, its title and author ids packed into one {@code long}, or its
+     * author id. Unknown books share the key of {@link StringDictionary#NONE}.
+     */
+    private long groupKey(GroupBy groupBy, BookLabels.Lookup labels, long bookId) {
+        return switch (groupBy) {
+            case BOOK -> bookId;
+            case TITLE -> ((long) labels.titleId(bookId) << 32) | (labels.authorId(bookId) & 0xFFFFFFFFL);
+            case AUTHOR -> labels.authorId(bookId);
+        };
+    }
+
+    private BorrowVolume volume(GroupBy groupBy, BookLabels.Lookup labels, LocalDate start, long key, long borrows) {
+        return switch (groupBy) {
+            case BOOK -> new BorrowVolume(start, key,
+                    bookLabels.string(labels.titleId(key)), bookLabels.string(labels.authorId(key)), borrows);
+            case TITLE -> new BorrowVolume(start, null,
+                    bookLabels.string((int) (key >>> 32)), bookLabels.string((int) key), borrows);
+            case AUTHOR -> new BorrowVolume(start, null, null, bookLabels.string((int) key), borrows);
+        };
+    }
+}
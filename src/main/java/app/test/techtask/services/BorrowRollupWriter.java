@@ -0,0 +1,192 @@
+package app.test.techtask.services;
+
+import app.test.techtask.events.BackpressurePolicy;
+import app.test.techtask.events.DomainEvent;
+import app.test.techtask.events.DomainEventConsumer;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.repositories.BorrowRollupRepository;
+import app.test.techtask.stats.RollupGranularity;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the {@code borrow_rollups} table.
+ *
+ * Borrows are counted in memory per (day, book) and added to the day rows in JDBC batches, with
+ * a single upsert per row so that concurrent or retried flushes add up instead of colliding on
+ * the unique bucket key. PostgreSQL gets {@code INSERT ... ON CONFLICT DO UPDATE}; H2, which only
+ * knows {@code ON CONFLICT DO NOTHING}, gets the equivalent {@code MERGE}.
+ * Once a day, weeks and months that start before the day retention horizon are summed into
+ * week and month rows, after which the day rows before the horizon are deleted. A coarse bucket
+ * is written once, from complete day rows, so it never has to be merged again. Week and month
+ * rows are deleted after their own retention; month rows are kept forever unless it is set.
+ */
+@Service
+public class BorrowRollupWriter implements DomainEventConsumer {
+
+    static final String UPSERT_SQL = "INSERT INTO borrow_rollups (granularity, bucket_start, book_id, borrows)"
+            + " VALUES ('DAY', ?, ?, ?)"
+            + " ON CONFLICT (granularity, bucket_start, book_id) DO UPDATE SET borrows = borrow_rollups.borrows + EXCLUDED.borrows";
+    static final String MERGE_SQL = "MERGE INTO borrow_rollups r"
+            + " USING (VALUES (CAST(? AS DATE), CAST(? AS BIGINT), CAST(? AS BIGINT))) AS s (bucket_start, book_id, borrows)"
+            + " ON r.granularity = 'DAY' AND r.bucket_start = s.bucket_start AND r.book_id = s.book_id"
+            + " WHEN MATCHED THEN UPDATE SET borrows = r.borrows + s.borrows"
+            + " WHEN NOT MATCHED THEN INSERT (granularity, bucket_start, book_id, borrows)"
+            + " VALUES ('DAY', s.bucket_start, s.book_id, s.borrows)";
+    static final String COMPACT_SQL = "INSERT INTO borrow_rollups (granularity, bucket_start, book_id, borrows)"
+            + " SELECT ?, ?, book_id, SUM(borrows) FROM borrow_rollups"
+            + " WHERE granularity = 'DAY' AND bucket_start >= ? AND bucket_start < ? GROUP BY book_id";
+    static final String DELETE_SQL = "DELETE FROM borrow_rollups WHERE granularity = ? AND bucket_start < ?";
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowRollupWriter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BorrowRollupRepository borrowRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int dayRetentionDays;
+    private final int weekRetentionDays;
+    private final int monthRetentionDays;
+
+    private Map<DayBook, Long> pending = new HashMap<>();
+    private volatile String upsertSql;
+
+    @Autowired
+    public BorrowRollupWriter(JdbcTemplate jdbcTemplate,
+                              BorrowRollupRepository borrowRollupRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${library.rollups.day-retention-days:90}") int dayRetentionDays,
+                              @Value("${library.rollups.week-retention-days:730}") int weekRetentionDays,
+                              @Value("${library.rollups.month-retention-days:0}") int monthRetentionDays) {
+        this(jdbcTemplate, borrowRollupRepository, transactionManager, Clock.systemDefaultZone(),
+                dayRetentionDays, weekRetentionDays, monthRetentionDays);
+    }
+
+    BorrowRollupWriter(JdbcTemplate jdbcTemplate,
+                       BorrowRollupRepository borrowRollupRepository,
+                       PlatformTransactionManager transactionManager,
+                       Clock clock, int dayRetentionDays, int weekRetentionDays, int monthRetentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.borrowRollupRepository = borrowRollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.dayRetentionDays = Math.max(dayRetentionDays, 62);
+        this.weekRetentionDays = weekRetentionDays;
+        this.monthRetentionDays = monthRetentionDays;
+    }
+
+    @Override
+    public String consumerName() {
+        return "borrow-rollups";
+    }
+
+    @Override
+    public BackpressurePolicy backpressurePolicy() {
+        return BackpressurePolicy.BLOCK;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> batch) {
+        LocalDate today = LocalDate.now(clock);
+        synchronized (this) {
+            for (DomainEvent event : batch) {
+                if (event instanceof InventoryEvent inventoryEvent && inventoryEvent.type() == InventoryEvent.Type.BORROWED) {
+                    pending.merge(new DayBook(today, inventoryEvent.bookId()), 1L, Long::sum);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${library.rollups.flush-interval:PT5S}")
+    public void flush() {
+        Map<DayBook, Long> counts;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            counts = pending;
+            pending = new HashMap<>();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(counts));
+        } catch (DataAccessException e) {
+            log.warn("Could not flush {} borrow rollups, retrying on next flush", counts.size(), e);
+            synchronized (this) {
+                counts.forEach((key, count) -> pending.merge(key, count, Long::sum));
+            }
+        }
+    }
+
+    @Scheduled(cron = "${library.rollups.compaction-cron:0 30 1 * * *}")
+    public void compact() {
+        LocalDate horizon = LocalDate.now(clock).minusDays(dayRetentionDays);
+        LocalDate weekHorizon = LocalDate.now(clock).minusDays(weekRetentionDays);
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDate first = borrowRollupRepository.findMinBucketStart(RollupGranularity.DAY);
+            if (first != null) {
+                compactInto(RollupGranularity.WEEK, first, horizon);
+                compactInto(RollupGranularity.MONTH, first, horizon);
+                jdbcTemplate.update(DELETE_SQL, RollupGranularity.DAY.name(), Date.valueOf(horizon));
+            }
+            jdbcTemplate.update(DELETE_SQL, RollupGranularity.WEEK.name(),
+                    Date.valueOf(RollupGranularity.WEEK.start(weekHorizon)));
+            if (monthRetentionDays > 0) {
+                LocalDate monthHorizon = LocalDate.now(clock).minusDays(monthRetentionDays);
+                jdbcTemplate.update(DELETE_SQL, RollupGranularity.MONTH.name(),
+                        Date.valueOf(RollupGranularity.MONTH.start(monthHorizon)));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void write(Map<DayBook, Long> counts) {
+        List<Object[]> rows = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> rows.add(new Object[] {Date.valueOf(key.day()), key.bookId(), count}));
+        jdbcTemplate.batchUpdate(upsertSql(), rows);
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            sql = "H2".equals(product) ? MERGE_SQL : UPSERT_SQL;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+
+    private void compactInto(RollupGranularity granularity, LocalDate first, LocalDate horizon) {
+        for (LocalDate start = granularity.start(first); start.isBefore(horizon); start = granularity.next(start)) {
+            if (!borrowRollupRepository.existsByGranularityAndBucketStart(granularity, start)) {
+                jdbcTemplate.update(COMPACT_SQL, granularity.name(), Date.valueOf(start),
+                        Date.valueOf(start), Date.valueOf(granularity.next(start)));
+            }
+        }
+    }
+
+    private record DayBook(LocalDate day, Long bookId) {
+    }
+}
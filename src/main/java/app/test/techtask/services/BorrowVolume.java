@@ -0,0 +1,10 @@
+package app.test.techtask.services;
+
+import java.time.LocalDate;
+
+/**
+ * Borrows within one bucket. Depending on the grouping, {@code bookId} and {@code title} are
+ * {@code null}.
+ */
+public record BorrowVolume(LocalDate bucketStart, Long bookId, String title, String author, long borrows) {
+}
@@ -0,0 +1,10 @@
+package app.test.techtask.services;
+
+/**
+ * Copies of a book on the shelf of one branch.
+ *
+ * @param distanceKm great-circle distance from the requested location, {@code null} without one
+ *                   or when the branch has no coordinates
+ */
+public record BranchAvailability(Long branchId, String name, long copies, Double distanceKm) {
+}
@@ -0,0 +1,194 @@
+package app.test.techtask.services;
+
+import app.test.techtask.data.Book;
+import app.test.techtask.data.Branch;
+import app.test.techtask.data.BranchView;
+import app.test.techtask.events.BranchStockEvent;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.repositories.BranchRepository;
+import app.test.techtask.repositories.BranchStockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Branches and the copies on their shelves. Copies are moved between {@code books.amount}, the
+ * pool not assigned to any branch, and a branch with {@link #transfer}; borrows and returns at a
+ * branch go through {@link #takeCopy} and {@link #shelveCopy} so the book row is not written.
+ */
+@Service
+public class BranchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BranchService.class);
+
+    private final BranchRepository branchRepository;
+    private final BranchStockRepository branchStockRepository;
+    private final BookRepository bookRepository;
+    private final BranchStockIndex branchStockIndex;
+    private final WaitlistService waitlistService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public BranchService(BranchRepository branchRepository,
+                         BranchStockRepository branchStockRepository,
+                         BookRepository bookRepository,
+                         BranchStockIndex branchStockIndex,
+                         WaitlistService waitlistService,
+                         ApplicationEventPublisher eventPublisher,
+                         PlatformTransactionManager transactionManager) {
+        this.branchRepository = branchRepository;
+        this.branchStockRepository = branchStockRepository;
+        this.bookRepository = bookRepository;
+        this.branchStockIndex = branchStockIndex;
+        this.waitlistService = waitlistService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * @return the created branch, empty if a branch with the name exists
+     */
+    @Transactional
+    public Optional<Branch> createBranch(Branch branch) {
+        if (branchRepository.existsByName(branch.getName())) {
+            return Optional.empty();
+        }
+        Branch savedBranch = branchRepository.save(branch);
+        branchStockIndex.putBranch(BranchView.of(savedBranch));
+        return Optional.of(savedBranch);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Branch> getBranches() {
+        return branchRepository.findAll();
+    }
+
+    public BookBranches findBranches(Long bookId, Double latitude, Double longitude, int limit) {
+        return branchStockIndex.find(bookId, latitude, longitude, limit);
+    }
+
+    /**
+     * Moves copies from the unassigned pool to the branch, or back when {@code copies} is negative.
+     *
+     * @return copies on the branch shelf afterwards, empty if the branch or book does not exist or
+     * the source has fewer copies than requested
+     */
+    @Transactional
+    public Optional<Long> transfer(Long branchId, Long bookId, long copies) {
+        Optional<Book> bookOpt = bookRepository.findById(bookId);
+        if (!branchRepository.existsById(branchId) || bookOpt.isEmpty() || copies == 0) {
+            return Optional.empty();
+        }
+        Book book = bookOpt.get();
+        if (copies > 0) {
+            if (book.getAmount() < copies) {
+                return Optional.empty();
+            }
+            book.setAmount(book.getAmount() - copies);
+            bookRepository.save(book);
+            shelveCopies(branchId, book, copies);
+        } else {
+            if (branchStockRepository.addCopies(branchId, bookId, copies) == 0) {
+                return Optional.empty();
+            }
+            book.setAmount(book.getAmount() - copies);
+            bookRepository.save(book);
+            waitlistService.offerCopy(book);
+            publishStock(branchId, bookId);
+        }
+        eventPublisher.publishEvent(InventoryEvent.of(InventoryEvent.Type.UPDATED, bookId,
+                book.getAmount() + shelvedCopies(bookId)));
+        return Optional.ofNullable(branchStockRepository.findAmount(branchId, bookId));
+    }
+
+    /**
+     * @return copies of the book on the shelves of all branches, the part of its availability not
+     * in {@code books.amount}
+     */
+    @Transactional(readOnly = true)
+    public long shelvedCopies(Long bookId) {
+        return branchStockRepository.sumByBookId(bookId);
+    }
+
+    /**
+     * Takes one copy of the book off the branch shelf. Must be called in the borrowing transaction.
+     *
+     * @return {@code false} if the branch has no copy on the shelf
+     */
+    @Transactional
+    public boolean takeCopy(Long branchId, Long bookId) {
+        if (branchStockRepository.addCopies(branchId, bookId, -1) == 0) {
+            return false;
+        }
+        publishStock(branchId, bookId);
+        return true;
+    }
+
+    /**
+     * Puts one returned copy of the book on the branch shelf, unless a member is waiting for the
+     * book: then the copy is held for them, like a copy returned to the unassigned pool. Must be
+     * called in the returning transaction.
+     *
+     * @return {@code false} if the branch does not exist
+     */
+    @Transactional
+    public boolean shelveCopy(Long branchId, Book book) {
+        if (!branchRepository.existsById(branchId)) {
+            return false;
+        }
+        book.setAmount(book.getAmount() + 1);
+        if (waitlistService.offerCopy(book)) {
+            return true;
+        }
+        book.setAmount(book.getAmount() - 1);
+        return shelveCopies(branchId, book, 1);
+    }
+
+    private boolean shelveCopies(Long branchId, Book book, long copies) {
+        if (branchStockRepository.addCopies(branchId, book.getId(), copies) == 0) {
+            if (!branchRepository.existsById(branchId)) {
+                return false;
+            }
+            if (branchStockRepository.insertIfAbsent(branchId, book.getId(), copies) == 0) {
+                // a concurrent first return to the branch created the row meanwhile
+                branchStockRepository.addCopies(branchId, book.getId(), copies);
+            }
+        }
+        publishStock(branchId, book.getId());
+        return true;
+    }
+
+    private void publishStock(Long branchId, Long bookId) {
+        Long amount = branchStockRepository.findAmount(branchId, bookId);
+        eventPublisher.publishEvent(new BranchStockEvent(branchId, bookId, amount != null ? amount : 0));
+    }
+
+    /**
+     * Reloads {@link BranchStockIndex} at startup and then periodically.
+     */
+    @Scheduled(initialDelayString = "${library.branches.initial-delay:PT0S}",
+            fixedDelayString = "${library.branches.index-refresh:PT10M}")
+    public void refreshIndex() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<BranchView> branches = branchRepository.findAll().stream().map(BranchView::of).toList();
+                try (Stream<Object[]> stock = branchStockRepository.streamAllStocked()) {
+                    branchStockIndex.rebuild(branches, stock);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not reload the branch stock index, keeping the previous one", e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package app.test.techtask.services;
+
+import app.test.techtask.data.BranchView;
+import app.test.techtask.events.BackpressurePolicy;
+import app.test.techtask.events.BranchStockEvent;
+import app.test.techtask.events.DomainEvent;
+import app.test.techtask.events.DomainEventConsumer;
+import app.test.techtask.events.InventoryEvent;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory view of which branches have a book on the shelf, for answering availability
+ * lookups without touching the database.
+ *
+ * Per book the index keeps a small array of {@code (branchId, copies)} pairs for branches with
+ * copies. Arrays are never modified in place: a change builds a new array inside
+ * {@link ConcurrentHashMap#compute}, so lookups read without locking. Committed changes arrive as
+ * {@link BranchStockEvent}s carrying the new shelf count, and {@link #rebuild} replaces the whole
+ * index from the database, which also corrects any change that was seen out of order.
+ */
+@Service
+public class BranchStockIndex implements DomainEventConsumer {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final Map<Long, BranchView> branches = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<Long, long[]> shelves = new ConcurrentHashMap<>();
+
+    @Override
+    public String consumerName() {
+        return "branch-stock";
+    }
+
+    @Override
+    public BackpressurePolicy backpressurePolicy() {
+        return BackpressurePolicy.BLOCK;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> batch) {
+        for (DomainEvent event : batch) {
+            if (event instanceof BranchStockEvent stockEvent) {
+                set(stockEvent.branchId(), stockEvent.bookId(), stockEvent.amount());
+            } else if (event instanceof InventoryEvent inventoryEvent
+                    && inventoryEvent.type() == InventoryEvent.Type.DELETED) {
+                shelves.remove(inventoryEvent.bookId());
+            }
+        }
+    }
+
+    public void putBranch(BranchView branch) {
+        branches.put(branch.id(), branch);
+    }
+
+    public void set(long branchId, long bookId, long copies) {
+        set(shelves, branchId, bookId, copies);
+    }
+
+    /**
+     * Replaces the index with the given branches and {@code (branchId, bookId, copies)} rows.
+     */
+    public void rebuild(Collection<BranchView> allBranches, Stream<Object[]> stock) {
+        ConcurrentHashMap<Long, long[]> rebuilt = new ConcurrentHashMap<>();
+        stock.forEach(row -> set(rebuilt, (Long) row[0], (Long) row[1], ((Number) row[2]).longValue()));
+        allBranches.forEach(this::putBranch);
+        shelves = rebuilt;
+    }
+
+    /**
+     * Branches with the book on the shelf, nearest to {@code latitude, longitude} first when both
+     * are given, otherwise the ones with the most copies first.
+     */
+    public BookBranches find(Long bookId, Double latitude, Double longitude, int limit) {
+        long[] pairs = shelves.get(bookId);
+        if (pairs == null) {
+            return new BookBranches(bookId, 0, List.of());
+        }
+        boolean located = latitude != null && longitude != null;
+        long copies = 0;
+        List<BranchAvailability> found = new ArrayList<>(pairs.length / 2);
+        for (int i = 0; i < pairs.length; i += 2) {
+            copies += pairs[i + 1];
+            BranchView branch = branches.get(pairs[i]);
+            Double distance = located && branch != null && branch.latitude() != null && branch.longitude() != null
+                    ? distanceKm(latitude, longitude, branch.latitude(), branch.longitude())
+                    : null;
+            found.add(new BranchAvailability(pairs[i], branch != null ? branch.name() : null, pairs[i + 1], distance));
+        }
+        found.sort(located
+                ? Comparator.comparing(BranchAvailability::distanceKm, Comparator.nullsLast(Comparator.naturalOrder()))
+                : Comparator.comparingLong(BranchAvailability::copies).reversed());
+        return new BookBranches(bookId, copies, found.size() > limit ? found.subList(0, limit) : found);
+    }
+
+    private static void set(ConcurrentHashMap<Long, long[]> shelves, long branchId, long bookId, long copies) {
+        shelves.compute(bookId, (id, pairs) -> with(pairs, branchId, copies));
+    }
+
+    /**
+     * Copy of {@code pairs} with the copies of the branch replaced, the branch removed when it has
+     * none left, or {@code null} when no branch has copies.
+     */
+    static long[] with(long[] pairs, long branchId, long copies) {
+        int length = pairs == null ? 0 : pairs.length;
+        int at = -1;
+        for (int i = 0; i < length; i += 2) {
+            if (pairs[i] == branchId) {
+                at = i;
+                break;
+            }
+        }
+        if (copies <= 0) {
+            if (at < 0) {
+                return pairs;
+            }
+            if (length == 2) {
+                return null;
+            }
+            long[] shrunk = new long[length - 2];
+            System.arraycopy(pairs, 0, shrunk, 0, at);
+            System.arraycopy(pairs, at + 2, shrunk, at, length - at - 2);
+            return shrunk;
+        }
+        long[] updated;
+        if (at < 0) {
+            updated = new long[length + 2];
+            if (length > 0) {
+                System.arraycopy(pairs, 0, updated, 0, length);
+            }
+            at = length;
+        } else {
+            updated = pairs.clone();
+        }
+        updated[at] = branchId;
+        updated[at + 1] = copies;
+        return updated;
+    }
+
+    static double distanceKm(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        double latitudeDelta = Math.toRadians(toLatitude - fromLatitude);
+        double longitudeDelta = Math.toRadians(toLongitude - fromLongitude);
+        double a = Math.sin(latitudeDelta / 2) * Math.sin(latitudeDelta / 2)
+                + Math.cos(Math.toRadians(fromLatitude)) * Math.cos(Math.toRadians(toLatitude))
+                * Math.sin(longitudeDelta / 2) * Math.sin(longitudeDelta / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+}
@@ -0,0 +1,9 @@
+package app.test.techtask.services;
+
+import java.util.List;
+
+/**
+ * @param results one result per requested adjustment, in request order
+ */
+public record BulkAdjustmentResult(int applied, int rejected, List<StockAdjustmentResult> results) {
+}
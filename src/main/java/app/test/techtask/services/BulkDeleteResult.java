@@ -0,0 +1,9 @@
+package app.test.techtask.services;
+
+import java.util.List;
+
+/**
+ * @param retainedIds ids that still exist because they are referenced by loans or reservations
+ */
+public record BulkDeleteResult(List<Long> deletedIds, List<Long> retainedIds) {
+}
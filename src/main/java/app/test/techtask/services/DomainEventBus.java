@@ -0,0 +1,57 @@
+package app.test.techtask.services;
+
+import app.test.techtask.events.DomainEvent;
+import app.test.techtask.events.DomainEventConsumer;
+import app.test.techtask.events.EventRing;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Moves committed {@link DomainEvent}s off the request thread: the after-commit listener only
+ * publishes into an {@link EventRing}, and every {@link DomainEventConsumer} bean handles them
+ * on its own thread. Publishing never waits, so a slow consumer cannot hold up a request that has
+ * already committed; see {@link EventRing} for what happens when one falls behind.
+ */
+@Service
+public class DomainEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(DomainEventBus.class);
+
+    private final EventRing<DomainEvent> ring;
+    private final Duration shutdownTimeout;
+
+    public DomainEventBus(List<DomainEventConsumer> consumers,
+                          @Value("${library.events.ring-size:8192}") int ringSize,
+                          @Value("${library.events.max-batch:256}") int maxBatch,
+                          @Value("${library.events.overflow-size:65536}") int overflowSize,
+                          @Value("${library.events.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+        this.ring = new EventRing<>("domain-events", ringSize, maxBatch, overflowSize);
+        for (DomainEventConsumer consumer : consumers) {
+            ring.addConsumer(consumer.consumerName(), consumer.backpressurePolicy(), consumer::onEvents);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDomainEvent(DomainEvent event) {
+        if (!ring.publish(event)) {
+            log.warn("Event bus is full or stopped, {} was not delivered to its consumers", event);
+        }
+    }
+
+    public EventRing.Stats getStats() {
+        return ring.getStats();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        ring.halt(shutdownTimeout);
+    }
+}
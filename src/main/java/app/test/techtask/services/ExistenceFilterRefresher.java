@@ -0,0 +1,58 @@
+package app.test.techtask.services;
+
+import app.test.techtask.cache.ExistenceFilters;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.repositories.MemberRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+/**
+ * Seeds {@link ExistenceFilters} once the application is up and rebuilds them periodically,
+ * which is the only way deleted books and members leave the filters.
+ */
+@Service
+public class ExistenceFilterRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(ExistenceFilterRefresher.class);
+
+    private final ExistenceFilters existenceFilters;
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ExistenceFilterRefresher(ExistenceFilters existenceFilters,
+                                    BookRepository bookRepository,
+                                    MemberRepository memberRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.existenceFilters = existenceFilters;
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Scheduled(initialDelayString = "${library.bloom.initial-delay:PT0S}",
+            fixedDelayString = "${library.bloom.rebuild-interval:PT5M}")
+    public void refresh() {
+        long started = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> existenceFilters.rebuild(seed -> {
+                try (Stream<Long> bookIds = bookRepository.streamAllIds()) {
+                    bookIds.forEach(seed::addBook);
+                }
+                try (Stream<Object[]> members = memberRepository.streamAllIdsAndNames()) {
+                    members.forEach(row -> seed.addMember((Long) row[0], (String) row[1]));
+                }
+            }));
+            log.debug("Rebuilt existence filters in {} ms", (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild existence filters, keeping the previous ones", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package app.test.techtask.services;
+
+/**
+ * A book whose {@code amount} does not match its copies minus open loans, held reservations and
+ * copies on branch shelves.
+ *
+ * @param totalCopies {@code null} if the book predates copy tracking
+ * @param expectedAmount copies that should be on the shelf, {@code null} if it cannot be derived
+ * @param repaired whether the book was corrected by this run
+ */
+public record InventoryDrift(Long bookId, long amount, Long totalCopies, long loans, long holds,
+                             long branchCopies, Long expectedAmount, boolean repaired) {
+}
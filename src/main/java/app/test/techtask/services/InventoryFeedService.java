@@ -0,0 +1,194 @@
+package app.test.techtask.services;
+
+import app.test.techtask.events.BackpressurePolicy;
+import app.test.techtask.events.DomainEvent;
+import app.test.techtask.events.DomainEventConsumer;
+import app.test.techtask.events.InventoryChange;
+import app.test.techtask.events.InventoryEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans committed {@link InventoryEvent}s out to server-sent event subscribers.
+ *
+ * Every change gets a sequence number and is kept in a bounded backlog, so a client that
+ * reconnects with {@code Last-Event-ID} receives exactly the changes it missed. Event ids are
+ * {@code <epoch>:<sequence>}; when the epoch differs (restart) or the backlog no longer reaches
+ * back far enough, the client gets a {@code reset} event and has to reload its mirror.
+ *
+ * All sequencing, backlog access and sends happen on a single dispatcher thread, which keeps
+ * slow subscribers from holding up the event bus and preserves ordering. The feed never drops
+ * events: sequence numbers are assigned after the ring, so a dropped event would leave no gap a
+ * resuming client could detect. Batches reach the dispatcher through a queue of at most
+ * {@code library.feed.dispatch-queue} batches. When subscribers are slow and it fills up, the bus
+ * thread waits for the dispatcher, which holds this consumer back in the ring rather than queueing
+ * without bound. A subscription that finds the queue full is refused and the client reconnects.
+ */
+@Service
+public class InventoryFeedService implements DomainEventConsumer {
+
+    static final String CHANGE_EVENT = "inventory";
+    static final String RESET_EVENT = "reset";
+
+    private final long epoch = System.currentTimeMillis();
+    private final InventoryChange[] backlog;
+    private final Duration emitterTimeout;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ThreadPoolExecutor dispatcher;
+
+    private long sequence;
+
+    public InventoryFeedService(@Value("${library.feed.backlog-size:10000}") int backlogSize,
+                                @Value("${library.feed.emitter-timeout:30m}") Duration emitterTimeout,
+                                @Value("${library.feed.dispatch-queue:64}") int dispatchQueue) {
+        this.backlog = new InventoryChange[backlogSize];
+        this.emitterTimeout = emitterTimeout;
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(dispatchQueue), runnable -> {
+                    Thread thread = new Thread(runnable, "inventory-feed");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (task, executor) -> {
+                    if (executor.isShutdown()) {
+                        return;
+                    }
+                    try {
+                        executor.getQueue().put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        this.dispatcher.prestartAllCoreThreads();
+    }
+
+    @Override
+    public String consumerName() {
+        return "inventory-feed";
+    }
+
+    @Override
+    public BackpressurePolicy backpressurePolicy() {
+        return BackpressurePolicy.BLOCK;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> batch) {
+        List<InventoryEvent> events = batch.stream()
+                .filter(InventoryEvent.class::isInstance)
+                .map(InventoryEvent.class::cast)
+                .toList();
+        if (!events.isEmpty()) {
+            dispatcher.execute(() -> events.forEach(this::publish));
+        }
+    }
+
+    public void onInventoryEvent(InventoryEvent event) {
+        dispatcher.execute(() -> publish(event));
+    }
+
+    public SseEmitter subscribe(Set<Long> bookIds, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        Subscription subscription = new Subscription(emitter,
+                bookIds == null || bookIds.isEmpty() ? null : Set.copyOf(bookIds));
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> subscriptions.remove(subscription));
+        boolean queued = !dispatcher.isShutdown() && dispatcher.getQueue().offer(() -> {
+            if (lastEventId == null || replay(subscription, lastEventId)) {
+                subscriptions.add(subscription);
+            }
+        });
+        if (!queued) {
+            emitter.completeWithError(new RejectedExecutionException("Inventory feed is busy"));
+        }
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscriptions.forEach(subscription -> subscription.emitter().complete());
+        subscriptions.clear();
+    }
+
+    private void publish(InventoryEvent event) {
+        sequence++;
+        InventoryChange change = new InventoryChange(sequence, event.type(), event.bookId(), event.amount(), Instant.now());
+        backlog[(int) (sequence % backlog.length)] = change;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.accepts(change)) {
+                send(subscription, change);
+            }
+        }
+    }
+
+    private boolean replay(Subscription subscription, String lastEventId) {
+        long lastSeen = parseSequence(lastEventId);
+        long oldestRetained = Math.max(1, sequence - backlog.length + 1);
+        if (lastSeen < 0 || lastSeen > sequence || lastSeen + 1 < oldestRetained) {
+            try {
+                subscription.emitter().send(SseEmitter.event().id(eventId(sequence)).name(RESET_EVENT).data("resync"));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                subscription.emitter().completeWithError(e);
+                return false;
+            }
+        }
+        for (long seq = lastSeen + 1; seq <= sequence; seq++) {
+            InventoryChange change = backlog[(int) (seq % backlog.length)];
+            if (subscription.accepts(change) && !send(subscription, change)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean send(Subscription subscription, InventoryChange change) {
+        try {
+            subscription.emitter().send(SseEmitter.event()
+                    .id(eventId(change.sequence()))
+                    .name(CHANGE_EVENT)
+                    .data(change));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            subscriptions.remove(subscription);
+            subscription.emitter().completeWithError(e);
+            return false;
+        }
+    }
+
+    private String eventId(long seq) {
+        return epoch + ":" + seq;
+    }
+
+    private long parseSequence(String lastEventId) {
+        int separator = lastEventId.indexOf(':');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(Long.toString(epoch))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private record Subscription(SseEmitter emitter, Set<Long> bookIds) {
+        boolean accepts(InventoryChange change) {
+            return bookIds == null || bookIds.contains(change.bookId());
+        }
+    }
+}
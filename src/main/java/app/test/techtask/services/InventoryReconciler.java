@@ -0,0 +1,355 @@
+package app.test.techtask.services;
+
+import app.test.techtask.data.Book;
+import app.test.techtask.data.Reservation;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.repositories.BorrowedBookRepository;
+import app.test.techtask.repositories.BranchStockRepository;
+import app.test.techtask.repositories.ReservationRepository;
+import app.test.techtask.stats.LongLongMap;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks {@code books.amount} against {@code total_copies} minus open loans, held reservations and
+ * copies on branch shelves without locking the tables.
+ *
+ * A run splits the book id space into ranges of {@code library.reconcile.range-size} ids that are
+ * checked in parallel on a bounded pool. Each range is read in one short transaction at repeatable
+ * read, so the book rows and the other counts come from the same snapshot. It is not marked
+ * read-only, so it runs on the primary: on a lagging replica, changes made since would show up as
+ * drift and be recounted for nothing.
+ * All workers share one pacing slot, keeping the run under {@code library.reconcile.rows-per-second}
+ * so it can run during opening hours. When repairing, every drifted book is recounted and fixed in
+ * its own repeatable read transaction; the book version turns a concurrent change of the book
+ * into a skipped repair instead of a wrong one. Borrows and returns at a branch move a copy
+ * between the branch shelf and a loan, which leaves the expected amount unchanged.
+ */
+@Service
+public class InventoryReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryReconciler.class);
+
+    private final BookRepository bookRepository;
+    private final BorrowedBookRepository borrowedBookRepository;
+    private final ReservationRepository reservationRepository;
+    private final BranchStockRepository branchStockRepository;
+    private final WaitlistService waitlistService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final Clock clock;
+    private final long rangeSize;
+    private final long nanosPerRow;
+    private final int maxSamples;
+    private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+    private final AtomicReference<Run> current = new AtomicReference<>();
+
+    @Autowired
+    public InventoryReconciler(BookRepository bookRepository,
+                               BorrowedBookRepository borrowedBookRepository,
+                               ReservationRepository reservationRepository,
+                               BranchStockRepository branchStockRepository,
+                               WaitlistService waitlistService,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${library.reconcile.range-size:5000}") long rangeSize,
+                               @Value("${library.reconcile.parallelism:2}") int parallelism,
+                               @Value("${library.reconcile.rows-per-second:20000}") int rowsPerSecond,
+                               @Value("${library.reconcile.max-samples:1000}") int maxSamples) {
+        this(bookRepository, borrowedBookRepository, reservationRepository, branchStockRepository, waitlistService,
+                eventPublisher, transactionManager, Clock.systemUTC(), rangeSize, parallelism, rowsPerSecond, maxSamples);
+    }
+
+    InventoryReconciler(BookRepository bookRepository,
+                        BorrowedBookRepository borrowedBookRepository,
+                        ReservationRepository reservationRepository,
+                        BranchStockRepository branchStockRepository,
+                        WaitlistService waitlistService,
+                        ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager,
+                        Clock clock, long rangeSize, int parallelism, int rowsPerSecond, int maxSamples) {
+        this.bookRepository = bookRepository;
+        this.borrowedBookRepository = borrowedBookRepository;
+        this.reservationRepository = reservationRepository;
+        this.branchStockRepository = branchStockRepository;
+        this.waitlistService = waitlistService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.clock = clock;
+        this.rangeSize = rangeSize;
+        this.nanosPerRow = rowsPerSecond > 0 ? 1_000_000_000L / rowsPerSecond : 0;
+        this.maxSamples = maxSamples;
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "inventory-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a run in the background.
+     *
+     * @return the progress of the new run, empty if a run is already in progress
+     */
+    public Optional<ReconciliationProgress> start(boolean repair) {
+        Run previous = current.get();
+        if (previous != null && previous.state == ReconciliationProgress.State.RUNNING) {
+            return Optional.empty();
+        }
+        Run run = new Run(repair, Instant.now(clock));
+        if (!current.compareAndSet(previous, run)) {
+            return Optional.empty();
+        }
+        try {
+            List<long[]> ranges = splitRange(bookRepository.findMinId(), bookRepository.findMaxId());
+            run.rangesTotal = ranges.size();
+            log.info("Inventory reconciliation started over {} ranges{}", ranges.size(), repair ? ", repairing" : "");
+            CompletableFuture.allOf(ranges.stream()
+                            .map(range -> CompletableFuture.runAsync(() -> checkRange(run, range[0], range[1]), workers))
+                            .toArray(CompletableFuture[]::new))
+                    .whenComplete((ignored, failure) -> finish(run, failure));
+        } catch (RuntimeException e) {
+            finish(run, e);
+        }
+        return Optional.of(run.progress());
+    }
+
+    @Scheduled(cron = "${library.reconcile.cron:-}")
+    public void scheduledRun() {
+        start(false);
+    }
+
+    public Optional<ReconciliationProgress> getProgress() {
+        return Optional.ofNullable(current.get()).map(Run::progress);
+    }
+
+    /**
+     * Stops the run in progress once the ranges already being checked are done.
+     *
+     * @return the progress of the cancelled run, empty if nothing is running
+     */
+    public Optional<ReconciliationProgress> cancel() {
+        Run run = current.get();
+        if (run == null || run.state != ReconciliationProgress.State.RUNNING) {
+            return Optional.empty();
+        }
+        run.cancelled = true;
+        return Optional.of(run.progress());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private List<long[]> splitRange(Long minId, Long maxId) {
+        List<long[]> ranges = new ArrayList<>();
+        if (minId == null || maxId == null) {
+            return ranges;
+        }
+        for (long start = minId; start <= maxId; start += rangeSize) {
+            ranges.add(new long[]{start, Math.min(start + rangeSize, maxId + 1)});
+        }
+        return ranges;
+    }
+
+    private void checkRange(Run run, long from, long to) {
+        if (run.cancelled) {
+            return;
+        }
+        long started = System.nanoTime();
+        RangeCheck check = transactionTemplate.execute(status -> findDrift(run, from, to));
+        for (InventoryDrift found : check.drift()) {
+            boolean repaired = run.repair && repair(run, found.bookId());
+            if (found.expectedAmount() != null || found.amount() < 0) {
+                run.drifted.incrementAndGet();
+                if (run.sampleCount.getAndIncrement() < maxSamples) {
+                    run.samples.add(new InventoryDrift(found.bookId(), found.amount(), found.totalCopies(),
+                            found.loans(), found.holds(), found.branchCopies(), found.expectedAmount(), repaired));
+                }
+            }
+        }
+        run.booksChecked.addAndGet(check.books());
+        run.rangesDone.incrementAndGet();
+        pace(check.books() + check.drift().size(), started);
+    }
+
+    /**
+     * Drifted books of a range; untracked books are returned too, with a {@code null} expected
+     * amount unless their amount is negative, so that repairing backfills their copies.
+     */
+    private RangeCheck findDrift(Run run, long from, long to) {
+        List<Object[]> stock = bookRepository.findStockInRange(from, to);
+        if (stock.isEmpty()) {
+            return new RangeCheck(0, List.of());
+        }
+        LongLongMap loans = counts(borrowedBookRepository.countLoansPerBookInRange(from, to));
+        LongLongMap holds = counts(reservationRepository.countPerBookInRange(from, to, Reservation.Status.HELD));
+        LongLongMap shelved = counts(branchStockRepository.sumPerBookInRange(from, to));
+        List<InventoryDrift> drift = new ArrayList<>();
+        for (Object[] row : stock) {
+            long bookId = (Long) row[0];
+            long amount = (Long) row[1];
+            Long totalCopies = (Long) row[2];
+            long bookLoans = loans.get(bookId, 0);
+            long bookHolds = holds.get(bookId, 0);
+            long branchCopies = shelved.get(bookId, 0);
+            if (totalCopies == null) {
+                run.untracked.incrementAndGet();
+                if (run.repair || amount < 0) {
+                    drift.add(new InventoryDrift(bookId, amount, null, bookLoans, bookHolds, branchCopies, null, false));
+                }
+                continue;
+            }
+            long expected = totalCopies - bookLoans - bookHolds - branchCopies;
+            if (amount != expected || amount < 0) {
+                drift.add(new InventoryDrift(bookId, amount, totalCopies, bookLoans, bookHolds, branchCopies,
+                        expected, false));
+            }
+        }
+        return new RangeCheck(stock.size(), drift);
+    }
+
+    private static LongLongMap counts(List<Object[]> rows) {
+        LongLongMap counts = new LongLongMap(rows.size());
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Recounts the book and sets its amount to its copies minus what is out or on branch shelves.
+     * Copies are raised to cover those, and backfilled from the current amount for untracked books.
+     */
+    private boolean repair(Run run, Long bookId) {
+        try {
+            boolean repaired = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                Book book = bookRepository.findById(bookId).orElse(null);
+                if (book == null) {
+                    return false;
+                }
+                long shelved = branchStockRepository.sumByBookId(bookId);
+                long out = borrowedBookRepository.countByBookId(bookId)
+                        + reservationRepository.countByBookIdAndStatus(bookId, Reservation.Status.HELD)
+                        + shelved;
+                long totalCopies = book.getTotalCopies() == null
+                        ? Math.max(book.getAmount(), 0) + out
+                        : Math.max(book.getTotalCopies(), out);
+                long amount = totalCopies - out;
+                if (Objects.equals(book.getTotalCopies(), totalCopies) && book.getAmount() == amount) {
+                    return false;
+                }
+                boolean freed = amount > book.getAmount();
+                book.setTotalCopies(totalCopies);
+                book.setAmount(amount);
+                bookRepository.save(book);
+                if (freed) {
+                    waitlistService.offerCopy(book);
+                }
+                eventPublisher.publishEvent(InventoryEvent.of(InventoryEvent.Type.UPDATED, bookId,
+                        book.getAmount() + shelved));
+                return true;
+            }));
+            if (repaired) {
+                run.repaired.incrementAndGet();
+            }
+            return repaired;
+        } catch (ConcurrencyFailureException e) {
+            run.conflicts.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Reserves the time the rows cost at the configured rate in the slot shared by all workers,
+     * and sleeps until that time has passed.
+     */
+    private void pace(long rows, long startedNanos) {
+        if (nanosPerRow == 0 || rows == 0) {
+            return;
+        }
+        long cost = rows * nanosPerRow;
+        long until = nextSlot.updateAndGet(slot -> Math.max(slot, startedNanos) + cost);
+        long wait = until - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void finish(Run run, Throwable failure) {
+        run.finishedAt = Instant.now(clock);
+        if (failure != null) {
+            run.state = ReconciliationProgress.State.FAILED;
+            log.warn("Inventory reconciliation failed", failure);
+            return;
+        }
+        run.state = run.cancelled ? ReconciliationProgress.State.CANCELLED : ReconciliationProgress.State.COMPLETED;
+        log.info("Inventory reconciliation {} after {} books: {} drifted, {} untracked, {} repaired, {} conflicts",
+                run.state, run.booksChecked, run.drifted, run.untracked, run.repaired, run.conflicts);
+    }
+
+    private record RangeCheck(int books, List<InventoryDrift> drift) {
+    }
+
+    private static final class Run {
+        private final boolean repair;
+        private final Instant startedAt;
+        private final AtomicInteger rangesDone = new AtomicInteger();
+        private final AtomicLong booksChecked = new AtomicLong();
+        private final AtomicLong drifted = new AtomicLong();
+        private final AtomicLong untracked = new AtomicLong();
+        private final AtomicLong repaired = new AtomicLong();
+        private final AtomicLong conflicts = new AtomicLong();
+        private final AtomicInteger sampleCount = new AtomicInteger();
+        private final Queue<InventoryDrift> samples = new ConcurrentLinkedQueue<>();
+        private volatile int rangesTotal;
+        private volatile boolean cancelled;
+        private volatile Instant finishedAt;
+        private volatile ReconciliationProgress.State state = ReconciliationProgress.State.RUNNING;
+
+        private Run(boolean repair, Instant startedAt) {
+            this.repair = repair;
+            this.startedAt = startedAt;
+        }
+
+        private ReconciliationProgress progress() {
+            return new ReconciliationProgress(state, repair, startedAt, finishedAt, rangesTotal, rangesDone.get(),
+                    booksChecked.get(), drifted.get(), untracked.get(), repaired.get(), conflicts.get(),
+                    List.copyOf(samples));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package app.test.techtask.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Creates the monthly {@code loan_history} partitions ahead of time when the table was set up
+ * as a PostgreSQL partitioned table. Does nothing on other databases or on a plain table.
+ */
+@Service
+public class LoanHistoryPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanHistoryPartitionManager.class);
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+
+    public LoanHistoryPartitionManager(JdbcTemplate jdbcTemplate,
+                                       @Value("${library.history.partition-months-ahead:2}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${library.history.partition-cron:0 0 3 * * *}")
+    public void ensurePartitions() {
+        if (!isPartitioned()) {
+            return;
+        }
+        YearMonth month = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++, month = month.plusMonths(1)) {
+            LocalDate from = month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1);
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS loan_history_" + SUFFIX.format(month)
+                        + " PARTITION OF loan_history FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            } catch (DataAccessException e) {
+                log.warn("Could not create loan_history partition for {}", month, e);
+            }
+        }
+    }
+
+    private boolean isPartitioned() {
+        try {
+            Integer count = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM pg_partitioned_table WHERE partrelid = to_regclass('loan_history')",
+                    Integer.class);
+            return count != null && count > 0;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package app.test.techtask.services;
+
+import app.test.techtask.data.LoanView;
+import app.test.techtask.repositories.LoanHistoryRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Queries over archived loans. Every query is bounded by a {@code borrowed_date} range, so on a
+ * partitioned table PostgreSQL only scans the partitions overlapping it.
+ */
+@Service
+public class LoanHistoryService {
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    private final LoanHistoryRepository loanHistoryRepository;
+
+    public LoanHistoryService(LoanHistoryRepository loanHistoryRepository) {
+        this.loanHistoryRepository = loanHistoryRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public List<LoanView> getMemberHistory(Long memberId, LocalDate from, LocalDate to, int page, int size) {
+        return loanHistoryRepository.findByMemberIdAndBorrowedDateBetweenOrderByBorrowedDateDescIdDesc(
+                memberId, from, to, pageRequest(page, size));
+    }
+
+    @Transactional(readOnly = true)
+    public List<LoanView> getBookHistory(Long bookId, LocalDate from, LocalDate to, int page, int size) {
+        return loanHistoryRepository.findByBookIdAndBorrowedDateBetweenOrderByBorrowedDateDescIdDesc(
+                bookId, from, to, pageRequest(page, size));
+    }
+
+    @Transactional(readOnly = true)
+    public List<LoanView> getHistory(LocalDate from, LocalDate to, int page, int size) {
+        return loanHistoryRepository.findByBorrowedDateBetweenOrderByBorrowedDateDescIdDesc(
+                from, to, pageRequest(page, size));
+    }
+
+    private PageRequest pageRequest(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+    }
+}
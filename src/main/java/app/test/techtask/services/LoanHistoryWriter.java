@@ -0,0 +1,186 @@
+package app.test.techtask.services;
+
+import app.test.techtask.events.BackpressurePolicy;
+import app.test.techtask.events.DomainEvent;
+import app.test.techtask.events.DomainEventConsumer;
+import app.test.techtask.events.LoanClosedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers closed loans and appends them to {@code loan_history} with JDBC batch inserts, off the
+ * return request path. When the buffer is full the event bus thread flushes it itself.
+ *
+ * A batch that fails stays at the head and is retried first, after a backoff that doubles up to
+ * {@code library.history.max-retry-backoff}; nothing is written in between. While the database is
+ * down the buffer fills up, and loans that no longer fit are counted and logged as dropped.
+ * Loans still buffered when the process dies are lost; they are only history.
+ */
+@Service
+public class LoanHistoryWriter implements DomainEventConsumer {
+
+    static final String INSERT_SQL =
+            "INSERT INTO loan_history (member_id, book_id, borrowed_date, returned_date) VALUES (?, ?, ?, ?)";
+
+    private static final Logger log = LoggerFactory.getLogger(LoanHistoryWriter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final Clock clock;
+    private final BlockingQueue<LoanClosedEvent> pending;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final List<LoanClosedEvent> failed = new ArrayList<>();
+    private Duration backoff = Duration.ZERO;
+    private Instant retryAt = Instant.MIN;
+    private long droppedLogged;
+
+    @Autowired
+    public LoanHistoryWriter(JdbcTemplate jdbcTemplate,
+                             @Value("${library.history.batch-size:500}") int batchSize,
+                             @Value("${library.history.buffer-capacity:50000}") int bufferCapacity,
+                             @Value("${library.history.retry-backoff:PT1S}") Duration retryBackoff,
+                             @Value("${library.history.max-retry-backoff:PT1M}") Duration maxRetryBackoff) {
+        this(jdbcTemplate, batchSize, bufferCapacity, retryBackoff, maxRetryBackoff, Clock.systemUTC());
+    }
+
+    LoanHistoryWriter(JdbcTemplate jdbcTemplate, int batchSize, int bufferCapacity,
+                      Duration retryBackoff, Duration maxRetryBackoff, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.clock = clock;
+        this.pending = new ArrayBlockingQueue<>(bufferCapacity);
+    }
+
+    @Override
+    public String consumerName() {
+        return "loan-history";
+    }
+
+    @Override
+    public BackpressurePolicy backpressurePolicy() {
+        return BackpressurePolicy.BLOCK;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> batch) {
+        for (DomainEvent event : batch) {
+            if (event instanceof LoanClosedEvent loanClosedEvent) {
+                onLoanClosed(loanClosedEvent);
+            }
+        }
+    }
+
+    public void onLoanClosed(LoanClosedEvent event) {
+        if (pending.offer(event)) {
+            return;
+        }
+        flush();
+        if (!pending.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the buffered loans, unless a failed batch is still waiting out its backoff.
+     */
+    @Scheduled(fixedDelayString = "${library.history.flush-interval:PT1S}")
+    public void flush() {
+        flush(false);
+    }
+
+    private void flush(boolean ignoreBackoff) {
+        flushLock.lock();
+        try {
+            logDropped();
+            if (!ignoreBackoff && clock.instant().isBefore(retryAt)) {
+                return;
+            }
+            if (!failed.isEmpty() && !write(failed)) {
+                return;
+            }
+            List<LoanClosedEvent> batch = new ArrayList<>(batchSize);
+            while (pending.drainTo(batch, batchSize) > 0) {
+                if (!write(batch)) {
+                    failed.addAll(batch);
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private boolean write(List<LoanClosedEvent> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (statement, loan) -> {
+                statement.setLong(1, loan.memberId());
+                statement.setLong(2, loan.bookId());
+                statement.setDate(3, Date.valueOf(loan.borrowedDate()));
+                statement.setDate(4, Date.valueOf(loan.returnedDate()));
+            });
+        } catch (DataAccessException e) {
+            backoff = backoff.isZero() ? retryBackoff : min(backoff.multipliedBy(2), maxRetryBackoff);
+            retryAt = clock.instant().plus(backoff);
+            log.warn("Could not archive {} loans, retrying in {}", batch.size(), backoff, e);
+            return false;
+        }
+        batch.clear();
+        backoff = Duration.ZERO;
+        retryAt = Instant.MIN;
+        return true;
+    }
+
+    private void logDropped() {
+        long total = dropped.get();
+        if (total > droppedLogged) {
+            log.warn("Loan history buffer is full, dropped {} loans ({} in total)", total - droppedLogged, total);
+            droppedLogged = total;
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    public int pendingCount() {
+        flushLock.lock();
+        try {
+            return pending.size() + failed.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush(true);
+    }
+}
@@ -1,18 +1,26 @@
 package app.test.techtask.services;
 
+import app.test.techtask.cache.BookLabels;
+import app.test.techtask.cache.EntityVersionCache;
 import app.test.techtask.data.Book;
+import app.test.techtask.data.BookView;
 import app.test.techtask.data.BorrowedBook;
 import app.test.techtask.data.Member;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.events.LoanClosedEvent;
 import app.test.techtask.repositories.BookRepository;
 import app.test.techtask.repositories.BorrowedBookRepository;
 import app.test.techtask.repositories.MemberRepository;
+import app.test.techtask.resilience.GuardedRead;
+import app.test.techtask.resilience.GuardedWrite;
+import app.test.techtask.stats.IntLongMap;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class MemberService {
@@ -23,27 +31,52 @@ public class MemberService {
     private final MemberRepository memberRepository;
     private final BookRepository bookRepository;
     private final BorrowedBookRepository borrowedBookRepository;
+    private final EntityVersionCache versionCache;
+    private final BookLabels bookLabels;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WaitlistService waitlistService;
+    private final BranchService branchService;
 
     public MemberService(MemberRepository memberRepository,
                          BookRepository bookRepository,
-                         BorrowedBookRepository borrowedBookRepository) {
+                         BorrowedBookRepository borrowedBookRepository,
+                         EntityVersionCache versionCache,
+                         BookLabels bookLabels,
+                         ApplicationEventPublisher eventPublisher,
+                         WaitlistService waitlistService,
+                         BranchService branchService) {
         this.memberRepository = memberRepository;
         this.bookRepository = bookRepository;
         this.borrowedBookRepository = borrowedBookRepository;
+        this.versionCache = versionCache;
+        this.bookLabels = bookLabels;
+        this.eventPublisher = eventPublisher;
+        this.waitlistService = waitlistService;
+        this.branchService = branchService;
     }
 
     public Member createMember(Member member) {
         return memberRepository.save(member);
     }
 
+    @GuardedRead
+    @Transactional(readOnly = true, timeoutString = "${library.db.read-timeout:2}")
     public Optional<Member> getMember(Long id) {
         return memberRepository.findById(id);
     }
 
+    public Long getCachedVersion(Long id) {
+        return versionCache.get(Member.class, id);
+    }
+
     public Member updateMember(Long id, Member updatedMember) {
+        return updateMember(id, updatedMember, null);
+    }
+
+    public Member updateMember(Long id, Member updatedMember, Long expectedVersion) {
         if (memberRepository.existsById(id)) {
+            checkVersion(id, updatedMember.getVersion(), expectedVersion);
             updatedMember.setId(id);
-            System.out.println(updatedMember);
             return memberRepository.save(updatedMember);
         }
         return null;
@@ -51,18 +84,43 @@ public class MemberService {
 
     @Transactional
     public boolean deleteMember(Long id) {
-        Optional<Member> memberOpt = memberRepository.findById(id);
-        if (memberOpt.isPresent()) {
-            if (borrowedBookRepository.countByMemberId(id) > 0) {
-                return false;
+        return deleteMember(id, null);
+    }
+
+    @Transactional
+    public boolean deleteMember(Long id, Long expectedVersion) {
+        waitlistService.cancelWaiting(List.of(id));
+        int deleted = expectedVersion == null
+                ? memberRepository.deleteUnreferencedById(id)
+                : memberRepository.deleteUnreferencedByIdAndVersion(id, expectedVersion);
+        if (deleted == 0) {
+            if (expectedVersion != null) {
+                checkVersion(id, memberRepository.findVersionById(id), expectedVersion);
             }
-            memberRepository.deleteById(id);
-            return true;
+            return false;
         }
-        return false;
+        versionCache.evict(Member.class, id);
+        return true;
     }
 
     @Transactional
+    public BulkDeleteResult deleteMembers(Collection<Long> ids) {
+        List<Long> existingIds = memberRepository.findExistingIds(ids);
+        if (existingIds.isEmpty()) {
+            return new BulkDeleteResult(List.of(), List.of());
+        }
+        waitlistService.cancelWaiting(existingIds);
+        memberRepository.deleteUnreferencedByIdIn(existingIds);
+        Set<Long> retainedIds = new HashSet<>(memberRepository.findExistingIds(existingIds));
+        List<Long> deletedIds = existingIds.stream()
+                .filter(id -> !retainedIds.contains(id))
+                .toList();
+        deletedIds.forEach(id -> versionCache.evict(Member.class, id));
+        return new BulkDeleteResult(deletedIds, List.copyOf(retainedIds));
+    }
+
+    @GuardedWrite
+    @Transactional(timeoutString = "${library.db.write-timeout:5}")
     public boolean borrowBook(Long memberId, Long bookId) {
         Optional<Member> memberOpt = memberRepository.findById(memberId);
         Optional<Book> bookOpt = bookRepository.findById(bookId);
@@ -75,25 +133,60 @@ public class MemberService {
                 return false;
             }
 
-            if (book.getAmount() <= 0) {
-                return false;
+            boolean heldForMember = waitlistService.claimHold(memberId, bookId);
+            if (!heldForMember) {
+                if (book.getAmount() <= 0) {
+                    return false;
+                }
+                book.setAmount(book.getAmount() - 1);
+                bookRepository.save(book);
             }
 
-            book.setAmount(book.getAmount() - 1);
-            bookRepository.save(book);
-
             BorrowedBook borrowedBook = new BorrowedBook();
             borrowedBook.setBook(book);
             borrowedBook.setMember(member);
             borrowedBook.setBorrowedDate(LocalDate.now());
             borrowedBookRepository.save(borrowedBook);
 
+            eventPublisher.publishEvent(new InventoryEvent(InventoryEvent.Type.BORROWED, bookId, memberId, availableCopies(book)));
             return true;
         }
         return false;
     }
 
-    @Transactional
+    /**
+     * Borrows a copy from the shelf of the branch, or from the unassigned pool when {@code branchId}
+     * is {@code null}. A copy held for the member from the waitlist is claimed first, wherever the
+     * member picks it up; otherwise a branch borrow only updates that branch's stock row.
+     */
+    @GuardedWrite
+    @Transactional(timeoutString = "${library.db.write-timeout:5}")
+    public boolean borrowBook(Long memberId, Long bookId, Long branchId) {
+        if (branchId == null) {
+            return borrowBook(memberId, bookId);
+        }
+        Optional<Member> memberOpt = memberRepository.findById(memberId);
+        Optional<Book> bookOpt = bookRepository.findById(bookId);
+        if (memberOpt.isEmpty() || bookOpt.isEmpty()
+                || borrowedBookRepository.countByMemberId(memberId) >= borrowLimit) {
+            return false;
+        }
+        if (!waitlistService.claimHold(memberId, bookId) && !branchService.takeCopy(branchId, bookId)) {
+            return false;
+        }
+
+        BorrowedBook borrowedBook = new BorrowedBook();
+        borrowedBook.setBook(bookOpt.get());
+        borrowedBook.setMember(memberOpt.get());
+        borrowedBook.setBorrowedDate(LocalDate.now());
+        borrowedBookRepository.save(borrowedBook);
+
+        eventPublisher.publishEvent(new InventoryEvent(InventoryEvent.Type.BORROWED, bookId, memberId, availableCopies(bookOpt.get())));
+        return true;
+    }
+
+    @GuardedWrite
+    @Transactional(timeoutString = "${library.db.write-timeout:5}")
     public boolean returnBook(Long memberId, Long bookId) {
         Optional<BorrowedBook> borrowedBookOpt = borrowedBookRepository.findByMemberIdAndBookId(memberId, bookId);
 
@@ -105,35 +198,86 @@ public class MemberService {
             bookRepository.save(book);
 
             borrowedBookRepository.delete(borrowedBook);
+            waitlistService.offerCopy(book);
 
+            eventPublisher.publishEvent(new InventoryEvent(InventoryEvent.Type.RETURNED, bookId, memberId, availableCopies(book)));
+            eventPublisher.publishEvent(new LoanClosedEvent(memberId, bookId, borrowedBook.getBorrowedDate(), LocalDate.now()));
             return true;
         }
         return false;
     }
 
-    public List<Book> getBooksBorrowedByMemberName(String memberName) {
-        List<BorrowedBook> borrowedBooks = borrowedBookRepository.findByMemberMemberName(memberName);
-        return borrowedBooks.stream()
-                .map(BorrowedBook::getBook)
-                .collect(Collectors.toList());
+    /**
+     * Returns the copy to the shelf of the branch, or to the unassigned pool when {@code branchId}
+     * is {@code null}, whichever branch it was borrowed from. Either way the copy is first offered
+     * to the waitlist.
+     */
+    @GuardedWrite
+    @Transactional(timeoutString = "${library.db.write-timeout:5}")
+    public boolean returnBook(Long memberId, Long bookId, Long branchId) {
+        if (branchId == null) {
+            return returnBook(memberId, bookId);
+        }
+        Optional<BorrowedBook> borrowedBookOpt = borrowedBookRepository.findByMemberIdAndBookId(memberId, bookId);
+        if (borrowedBookOpt.isEmpty()) {
+            return false;
+        }
+        BorrowedBook borrowedBook = borrowedBookOpt.get();
+        Book book = borrowedBook.getBook();
+        if (!branchService.shelveCopy(branchId, book)) {
+            return false;
+        }
+        borrowedBookRepository.delete(borrowedBook);
+
+        eventPublisher.publishEvent(new InventoryEvent(InventoryEvent.Type.RETURNED, bookId, memberId, availableCopies(book)));
+        eventPublisher.publishEvent(new LoanClosedEvent(memberId, bookId, borrowedBook.getBorrowedDate(), LocalDate.now()));
+        return true;
+    }
+
+    private long availableCopies(Book book) {
+        return book.getAmount() + branchService.shelvedCopies(book.getId());
+    }
+
+    @GuardedRead
+    @Transactional(readOnly = true, timeoutString = "${library.db.read-timeout:2}")
+    public List<BookView> getBooksBorrowedByMemberName(String memberName) {
+        return borrowedBookRepository.findBookViewsByMemberName(memberName);
     }
 
+    @GuardedRead
+    @Transactional(readOnly = true, timeoutString = "${library.db.read-timeout:2}")
     public Set<String> getDistinctBorrowedBookNames() {
-        List<BorrowedBook> borrowedBooks = borrowedBookRepository.findAll();
-        return borrowedBooks.stream()
-                .map(borrowedBook -> borrowedBook.getBook().getTitle())
-                .collect(Collectors.toSet());
+        Set<String> titles = new HashSet<>();
+        countBorrowedTitles().forEach((titleId, count) -> titles.add(bookLabels.string(titleId)));
+        return titles;
     }
 
+    @GuardedRead
+    @Transactional(readOnly = true, timeoutString = "${library.db.read-timeout:2}")
     public Map<String, Long> getBorrowedBookNamesWithCount() {
-        List<BorrowedBook> borrowedBooks = borrowedBookRepository.findAll();
-        Map<String, Long> bookCounts = new HashMap<>();
+        IntLongMap titleCounts = countBorrowedTitles();
+        Map<String, Long> bookCounts = new HashMap<>(titleCounts.size() * 2);
+        titleCounts.forEach((titleId, count) -> bookCounts.put(bookLabels.string(titleId), count));
+        return bookCounts;
+    }
 
-        for (BorrowedBook borrowedBook : borrowedBooks) {
-            String bookTitle = borrowedBook.getBook().getTitle();
-            bookCounts.put(bookTitle, bookCounts.getOrDefault(bookTitle, 0L) + 1);
+    /**
+     * Current loans per title, keyed by {@link BookLabels} dictionary id. The database counts
+     * per book and returns the current title with each count, so only one row per borrowed book
+     * crosses the wire and a label another instance or a rolled-back update left stale is never used.
+     */
+    private IntLongMap countBorrowedTitles() {
+        List<Object[]> perBook = borrowedBookRepository.countLoansPerBook();
+        IntLongMap titleCounts = new IntLongMap(perBook.size());
+        for (Object[] row : perBook) {
+            titleCounts.addTo(bookLabels.intern((String) row[1]), (Long) row[2]);
         }
+        return titleCounts;
+    }
 
-        return bookCounts;
+    private void checkVersion(Long id, Long currentVersion, Long expectedVersion) {
+        if (expectedVersion != null && currentVersion != null && !expectedVersion.equals(currentVersion)) {
+            throw new PreconditionFailedException("Member " + id + " has been modified");
+        }
     }
 }
@@ -0,0 +1,239 @@
+package app.test.techtask.services;
+
+import app.test.techtask.data.Member;
+import app.test.techtask.data.OverdueLoan;
+import app.test.techtask.data.OverdueScan;
+import app.test.techtask.data.OverdueScanRange;
+import app.test.techtask.data.OverdueTally;
+import app.test.techtask.repositories.BorrowedBookRepository;
+import app.test.techtask.repositories.MemberRepository;
+import app.test.techtask.repositories.OverdueScanRangeRepository;
+import app.test.techtask.repositories.OverdueScanRepository;
+import app.test.techtask.repositories.OverdueTallyRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Finds loans older than the loan period without ever loading {@code borrowed_books} as a whole.
+ *
+ * A scan splits the overdue borrow dates into ranges that are walked in parallel on a bounded
+ * pool, each in keyset-paginated chunks over the {@code (borrowed_date, id)} index. Every chunk
+ * adds to per-member tallies and advances its range checkpoint in one transaction, so a scan
+ * interrupted by a restart resumes where it stopped without counting anything twice.
+ * Scans run on that pool, not on the scheduler thread that starts them.
+ * The summary of the last completed scan is kept in memory for {@code GET /members/overdue}.
+ */
+@Service
+public class OverdueScanner {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueScanner.class);
+
+    private final BorrowedBookRepository borrowedBookRepository;
+    private final MemberRepository memberRepository;
+    private final OverdueScanRepository scanRepository;
+    private final OverdueScanRangeRepository rangeRepository;
+    private final OverdueTallyRepository tallyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final Clock clock;
+    private final int loanDays;
+    private final int chunkSize;
+    private final int rangeCount;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile OverdueSummary summary;
+
+    @Autowired
+    public OverdueScanner(BorrowedBookRepository borrowedBookRepository,
+                          MemberRepository memberRepository,
+                          OverdueScanRepository scanRepository,
+                          OverdueScanRangeRepository rangeRepository,
+                          OverdueTallyRepository tallyRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${library.overdue.loan-days:14}") int loanDays,
+                          @Value("${library.overdue.chunk-size:1000}") int chunkSize,
+                          @Value("${library.overdue.parallelism:4}") int parallelism) {
+        this(borrowedBookRepository, memberRepository, scanRepository, rangeRepository, tallyRepository,
+                transactionManager, Clock.systemDefaultZone(), loanDays, chunkSize, parallelism);
+    }
+
+    OverdueScanner(BorrowedBookRepository borrowedBookRepository,
+                   MemberRepository memberRepository,
+                   OverdueScanRepository scanRepository,
+                   OverdueScanRangeRepository rangeRepository,
+                   OverdueTallyRepository tallyRepository,
+                   PlatformTransactionManager transactionManager,
+                   Clock clock, int loanDays, int chunkSize, int parallelism) {
+        this.borrowedBookRepository = borrowedBookRepository;
+        this.memberRepository = memberRepository;
+        this.scanRepository = scanRepository;
+        this.rangeRepository = rangeRepository;
+        this.tallyRepository = tallyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.loanDays = loanDays;
+        this.chunkSize = chunkSize;
+        this.rangeCount = parallelism * 2;
+        this.workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "overdue-scan");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public OverdueSummary getSummary() {
+        return summary;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLastSummary() {
+        scanRepository.findFirstByFinishedAtIsNotNullOrderByIdDesc().ifPresent(scan -> summary = summarize(scan));
+    }
+
+    @Scheduled(cron = "${library.overdue.scan-cron:0 0 * * * *}")
+    public void scan() {
+        start();
+    }
+
+    /**
+     * Starts a scan on the scanner's own threads, or resumes the unfinished one, and returns
+     * without waiting for it.
+     *
+     * @return completes when the scan is done or has failed; already complete if a scan is running
+     */
+    public CompletableFuture<Void> start() {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return CompletableFuture
+                    .supplyAsync(() -> scanRepository.findFirstByFinishedAtIsNullOrderByIdDesc()
+                            .orElseGet(this::startScan), workers)
+                    .thenCompose(scan -> CompletableFuture.allOf(rangeRepository.findByScanIdAndDoneFalse(scan.getId())
+                                    .stream()
+                                    .map(range -> CompletableFuture.runAsync(() -> scanRange(range), workers))
+                                    .toArray(CompletableFuture[]::new))
+                            .thenRun(() -> finish(scan)))
+                    .whenComplete((ignored, failure) -> {
+                        if (failure != null) {
+                            log.warn("Overdue scan failed, resuming from its checkpoints on the next run", failure);
+                        }
+                        running.set(false);
+                    })
+                    .exceptionally(failure -> null);
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private OverdueScan startScan() {
+        LocalDate cutoff = LocalDate.now(clock).minusDays(loanDays);
+        LocalDate first = borrowedBookRepository.findMinBorrowedDate();
+        return transactionTemplate.execute(status -> {
+            OverdueScan scan = scanRepository.save(new OverdueScan(cutoff, Instant.now(clock)));
+            if (first != null && first.isBefore(cutoff)) {
+                rangeRepository.saveAll(splitRange(scan.getId(), first, cutoff));
+            }
+            return scan;
+        });
+    }
+
+    private void finish(OverdueScan scan) {
+        transactionTemplate.executeWithoutResult(status -> {
+            scan.setFinishedAt(Instant.now(clock));
+            scanRepository.save(scan);
+            tallyRepository.deleteOlderThan(scan.getId());
+            rangeRepository.deleteOlderThan(scan.getId());
+            scanRepository.deleteOlderThan(scan.getId());
+        });
+        summary = summarize(scan);
+        log.info("Overdue scan {} found {} overdue loans of {} members",
+                scan.getId(), summary.totalLoans(), summary.totalMembers());
+    }
+
+    private List<OverdueScanRange> splitRange(Long scanId, LocalDate from, LocalDate to) {
+        long days = ChronoUnit.DAYS.between(from, to);
+        long step = Math.max(1, (days + rangeCount - 1) / rangeCount);
+        List<OverdueScanRange> ranges = new ArrayList<>();
+        for (LocalDate start = from; start.isBefore(to); start = start.plusDays(step)) {
+            LocalDate end = start.plusDays(step).isBefore(to) ? start.plusDays(step) : to;
+            ranges.add(new OverdueScanRange(scanId, start, end));
+        }
+        return ranges;
+    }
+
+    private void scanRange(OverdueScanRange range) {
+        boolean done = false;
+        while (!done && !Thread.currentThread().isInterrupted()) {
+            done = Boolean.TRUE.equals(transactionTemplate.execute(status -> processChunk(range)));
+        }
+    }
+
+    private boolean processChunk(OverdueScanRange range) {
+        List<OverdueLoan> loans = borrowedBookRepository.findLoanPage(range.getFromDate(), range.getToDate(),
+                range.getLastDate(), range.getLastId(), PageRequest.of(0, chunkSize));
+        if (!loans.isEmpty()) {
+            Map<Long, OverdueTally> tallies = tallyRepository
+                    .findByRangeIdAndMemberIdIn(range.getId(), loans.stream().map(OverdueLoan::memberId).collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(OverdueTally::getMemberId, Function.identity()));
+            for (OverdueLoan loan : loans) {
+                OverdueTally tally = tallies.computeIfAbsent(loan.memberId(),
+                        memberId -> new OverdueTally(range.getScanId(), range.getId(), memberId, loan.borrowedDate()));
+                tally.setOverdueLoans(tally.getOverdueLoans() + 1);
+                if (loan.borrowedDate().isBefore(tally.getOldestBorrowedDate())) {
+                    tally.setOldestBorrowedDate(loan.borrowedDate());
+                }
+            }
+            tallyRepository.saveAll(tallies.values());
+            OverdueLoan last = loans.get(loans.size() - 1);
+            range.setLastDate(last.borrowedDate());
+            range.setLastId(last.loanId());
+        }
+        range.setDone(loans.size() < chunkSize);
+        rangeRepository.save(range);
+        return range.isDone();
+    }
+
+    private OverdueSummary summarize(OverdueScan scan) {
+        List<Object[]> rows = tallyRepository.sumByMember(scan.getId());
+        Map<Long, String> names = memberRepository
+                .findAllById(rows.stream().map(row -> (Long) row[0]).toList()).stream()
+                .collect(Collectors.toMap(Member::getId, Member::getMemberName));
+        List<OverdueSummary.OverdueMember> members = rows.stream()
+                .map(row -> new OverdueSummary.OverdueMember((Long) row[0], names.get((Long) row[0]),
+                        ((Number) row[1]).longValue(), (LocalDate) row[2]))
+                .sorted(Comparator.comparingLong(OverdueSummary.OverdueMember::overdueLoans).reversed()
+                        .thenComparing(OverdueSummary.OverdueMember::oldestBorrowedDate))
+                .toList();
+        long totalLoans = members.stream().mapToLong(OverdueSummary.OverdueMember::overdueLoans).sum();
+        return new OverdueSummary(scan.getId(), scan.getCutoffDate(), scan.getFinishedAt(),
+                members.size(), totalLoans, members);
+    }
+}
@@ -0,0 +1,21 @@
+package app.test.techtask.services;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Result of the last completed overdue scan, members with the most overdue loans first.
+ */
+public record OverdueSummary(Long scanId, LocalDate cutoffDate, Instant finishedAt, int totalMembers,
+                             long totalLoans, List<OverdueMember> members) {
+
+    public record OverdueMember(Long memberId, String memberName, long overdueLoans, LocalDate oldestBorrowedDate) {
+    }
+
+    public OverdueSummary limit(int limit) {
+        return members.size() <= limit
+                ? this
+                : new OverdueSummary(scanId, cutoffDate, finishedAt, totalMembers, totalLoans, members.subList(0, limit));
+    }
+}
@@ -0,0 +1,19 @@
+package app.test.techtask.services;
+
+import app.test.techtask.stats.TumblingWindow;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @param errorBound upper bound on how much any reported count overestimates the true count
+ */
+public record PopularBooksReport(TumblingWindow window, Instant windowStart, Instant windowEnd,
+                                 long totalBorrows, long errorBound, List<PopularBook> books) {
+
+    /**
+     * @param maxError how much {@code borrows} may overestimate the true number of borrows
+     */
+    public record PopularBook(Long bookId, String title, String author, long borrows, long maxError) {
+    }
+}
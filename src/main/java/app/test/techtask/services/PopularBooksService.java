@@ -0,0 +1,119 @@
+package app.test.techtask.services;
+
+import app.test.techtask.cache.BookLabels;
+import app.test.techtask.events.BackpressurePolicy;
+import app.test.techtask.events.DomainEvent;
+import app.test.techtask.events.DomainEventConsumer;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.stats.SpaceSavingSketch;
+import app.test.techtask.stats.TumblingWindow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the most borrowed books per tumbling window with one fixed-size Space-Saving sketch
+ * per window, so memory stays bounded no matter how many loans are made.
+ */
+@Service
+public class PopularBooksService implements DomainEventConsumer {
+
+    private final BookRepository bookRepository;
+    private final BookLabels bookLabels;
+    private final Map<TumblingWindow, WindowSketch> sketches = new EnumMap<>(TumblingWindow.class);
+
+    public PopularBooksService(BookRepository bookRepository,
+                               BookLabels bookLabels,
+                               @Value("${library.popular.capacity:1000}") int capacity) {
+        this.bookRepository = bookRepository;
+        this.bookLabels = bookLabels;
+        for (TumblingWindow window : TumblingWindow.values()) {
+            sketches.put(window, new WindowSketch(window, capacity));
+        }
+    }
+
+    @Override
+    public String consumerName() {
+        return "popular-books";
+    }
+
+    @Override
+    public BackpressurePolicy backpressurePolicy() {
+        return BackpressurePolicy.DROP;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> batch) {
+        for (DomainEvent event : batch) {
+            if (event instanceof InventoryEvent inventoryEvent) {
+                onInventoryEvent(inventoryEvent);
+            }
+        }
+    }
+
+    public void onInventoryEvent(InventoryEvent event) {
+        if (event.type() == InventoryEvent.Type.BORROWED) {
+            record(event.bookId(), Instant.now());
+        }
+    }
+
+    public PopularBooksReport getPopularBooks(TumblingWindow window, int limit) {
+        return getPopularBooks(window, limit, Instant.now());
+    }
+
+    void record(long bookId, Instant now) {
+        sketches.values().forEach(sketch -> sketch.offer(bookId, now));
+    }
+
+    PopularBooksReport getPopularBooks(TumblingWindow window, int limit, Instant now) {
+        WindowSketch.Snapshot snapshot = sketches.get(window).snapshot(limit, now);
+        List<Long> bookIds = snapshot.top().stream().map(SpaceSavingSketch.Counter::item).toList();
+        BookLabels.Lookup labels = bookLabels.loadMissing(bookIds, bookRepository::findAllById);
+
+        List<PopularBooksReport.PopularBook> popular = snapshot.top().stream()
+                .map(counter -> new PopularBooksReport.PopularBook(counter.item(),
+                        bookLabels.string(labels.titleId(counter.item())),
+                        bookLabels.string(labels.authorId(counter.item())),
+                        counter.count(), counter.error()))
+                .toList();
+        return new PopularBooksReport(window, window.start(now), window.end(now),
+                snapshot.total(), snapshot.errorBound(), popular);
+    }
+
+    private static final class WindowSketch {
+        private final TumblingWindow window;
+        private final SpaceSavingSketch sketch;
+        private Instant start = Instant.EPOCH;
+
+        private WindowSketch(TumblingWindow window, int capacity) {
+            this.window = window;
+            this.sketch = new SpaceSavingSketch(capacity);
+        }
+
+        synchronized void offer(long bookId, Instant now) {
+            roll(now);
+            sketch.offer(bookId);
+        }
+
+        synchronized Snapshot snapshot(int limit, Instant now) {
+            roll(now);
+            return new Snapshot(sketch.top(limit), sketch.total(), sketch.errorBound());
+        }
+
+        private void roll(Instant now) {
+            Instant current = window.start(now);
+            if (!current.equals(start)) {
+                sketch.clear();
+                start = current;
+            }
+        }
+
+        record Snapshot(List<SpaceSavingSketch.Counter> top, long total, long errorBound) {
+        }
+    }
+}
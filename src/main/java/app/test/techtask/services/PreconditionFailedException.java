@@ -0,0 +1,7 @@
+package app.test.techtask.services;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
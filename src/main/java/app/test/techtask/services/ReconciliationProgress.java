@@ -0,0 +1,23 @@
+package app.test.techtask.services;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress of the current or last inventory reconciliation run.
+ *
+ * @param untracked books without {@code total_copies}, backfilled when repairing
+ * @param conflicts repairs skipped because the book changed concurrently, left for the next run
+ * @param drift the first drifted books found, up to {@code library.reconcile.max-samples}
+ */
+public record ReconciliationProgress(State state, boolean repair, Instant startedAt, Instant finishedAt,
+                                     int rangesTotal, int rangesDone, long booksChecked, long drifted,
+                                     long untracked, long repaired, long conflicts, List<InventoryDrift> drift) {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+}
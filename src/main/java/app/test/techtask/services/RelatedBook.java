@@ -0,0 +1,9 @@
+package app.test.techtask.services;
+
+/**
+ * A book that was on loan together with the requested one.
+ *
+ * @param coBorrows number of times both books were held by the same member at once
+ */
+public record RelatedBook(Long bookId, long coBorrows) {
+}
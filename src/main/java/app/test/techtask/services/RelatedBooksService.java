@@ -0,0 +1,125 @@
+package app.test.techtask.services;
+
+import app.test.techtask.events.BackpressurePolicy;
+import app.test.techtask.events.DomainEvent;
+import app.test.techtask.events.DomainEventConsumer;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.repositories.BorrowedBookRepository;
+import app.test.techtask.stats.CoOccurrenceMatrix;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recommends books that are often borrowed together.
+ *
+ * Every borrow pairs the book with the other books the member currently holds in a
+ * {@link CoOccurrenceMatrix}, pruned to the strongest {@code top-k} neighbours per book. Lookups
+ * are served from memory only. The matrix is snapshotted to disk periodically and on shutdown,
+ * and restored from the snapshot at startup.
+ */
+@Service
+public class RelatedBooksService implements DomainEventConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(RelatedBooksService.class);
+
+    private final BorrowedBookRepository borrowedBookRepository;
+    private final Path snapshotFile;
+    private final int topK;
+    private final AtomicLong changes = new AtomicLong();
+
+    private volatile CoOccurrenceMatrix matrix;
+    private long snapshotChanges;
+
+    public RelatedBooksService(BorrowedBookRepository borrowedBookRepository,
+                               @Value("${library.related.snapshot-file:./data/related.snapshot}") String snapshotFile,
+                               @Value("${library.related.top-k:50}") int topK) {
+        this.borrowedBookRepository = borrowedBookRepository;
+        this.snapshotFile = Path.of(snapshotFile);
+        this.topK = topK;
+        this.matrix = new CoOccurrenceMatrix(topK);
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        CoOccurrenceMatrix restored = CoOccurrenceMatrix.readFrom(snapshotFile, topK);
+        if (restored == null) {
+            log.warn("Ignoring damaged related books snapshot {}", snapshotFile);
+            return;
+        }
+        matrix = restored;
+        log.info("Restored related books of {} books from {}", restored.bookCount(), snapshotFile);
+    }
+
+    @Override
+    public String consumerName() {
+        return "related-books";
+    }
+
+    @Override
+    public BackpressurePolicy backpressurePolicy() {
+        return BackpressurePolicy.DROP;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> batch) {
+        for (DomainEvent event : batch) {
+            if (event instanceof InventoryEvent inventoryEvent) {
+                onInventoryEvent(inventoryEvent);
+            }
+        }
+    }
+
+    public void onInventoryEvent(InventoryEvent event) {
+        if (event.type() == InventoryEvent.Type.BORROWED && event.memberId() != null) {
+            long bookId = event.bookId();
+            for (Long other : borrowedBookRepository.findBookIdsByMemberId(event.memberId())) {
+                if (other != bookId) {
+                    matrix.increment(bookId, other);
+                    changes.incrementAndGet();
+                }
+            }
+        } else if (event.type() == InventoryEvent.Type.DELETED) {
+            matrix.removeBook(event.bookId());
+            changes.incrementAndGet();
+        }
+    }
+
+    public List<RelatedBook> getRelated(Long bookId, int limit) {
+        return matrix.top(bookId, limit).stream()
+                .map(neighbour -> new RelatedBook(neighbour.bookId(), neighbour.count()))
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${library.related.snapshot-interval:PT5M}")
+    public synchronized void snapshot() throws IOException {
+        long current = changes.get();
+        if (current == snapshotChanges) {
+            return;
+        }
+        Path parent = snapshotFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        matrix.writeTo(snapshotFile);
+        snapshotChanges = current;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        snapshot();
+    }
+}
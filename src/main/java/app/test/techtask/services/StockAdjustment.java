@@ -0,0 +1,12 @@
+package app.test.techtask.services;
+
+/**
+ * One line of a bulk stock adjustment: either {@code delta} copies added to (or, negative,
+ * removed from) the available amount, or the available {@code amount} set outright.
+ */
+public record StockAdjustment(Long bookId, Long delta, Long amount) {
+
+    boolean isValid() {
+        return bookId != null && (delta == null) != (amount == null) && (amount == null || amount >= 0);
+    }
+}
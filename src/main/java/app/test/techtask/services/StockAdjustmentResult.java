@@ -0,0 +1,15 @@
+package app.test.techtask.services;
+
+/**
+ * @param amount available copies of the book after its chunk was applied, {@code null} if unknown
+ */
+public record StockAdjustmentResult(Long bookId, Status status, Long amount) {
+
+    public enum Status {
+        APPLIED,
+        NOT_FOUND,
+        INSUFFICIENT_COPIES,
+        INVALID,
+        FAILED
+    }
+}
@@ -0,0 +1,189 @@
+package app.test.techtask.services;
+
+import app.test.techtask.cache.EntityVersionCache;
+import app.test.techtask.data.Book;
+import app.test.techtask.data.Reservation;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.repositories.BranchStockRepository;
+import app.test.techtask.repositories.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies bulk stock adjustments, such as the nightly acquisitions feed.
+ *
+ * Adjustments are applied in chunks, each a single JDBC batch of conditional updates in its own
+ * transaction, so a large feed neither loads the books nor holds row locks for its whole length.
+ * An update that would leave a negative amount matches no row and is reported as
+ * {@link StockAdjustmentResult.Status#INSUFFICIENT_COPIES}. {@code total_copies} changes by the
+ * same number of copies as the amount, and stays {@code null} for books it is not tracked for.
+ * A chunk that fails is reported as {@link StockAdjustmentResult.Status#FAILED} and the
+ * remaining chunks are still applied.
+ */
+@Service
+public class StockAdjustmentService {
+
+    static final String ADJUST_SQL = "UPDATE books SET amount = COALESCE(?, amount) + ?,"
+            + " total_copies = total_copies + COALESCE(?, amount) + ? - amount, version = version + 1"
+            + " WHERE id = ? AND COALESCE(?, amount) + ? >= 0";
+
+    private static final Logger log = LoggerFactory.getLogger(StockAdjustmentService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookRepository bookRepository;
+    private final ReservationRepository reservationRepository;
+    private final BranchStockRepository branchStockRepository;
+    private final WaitlistService waitlistService;
+    private final EntityVersionCache versionCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public StockAdjustmentService(JdbcTemplate jdbcTemplate,
+                                  BookRepository bookRepository,
+                                  ReservationRepository reservationRepository,
+                                  BranchStockRepository branchStockRepository,
+                                  WaitlistService waitlistService,
+                                  EntityVersionCache versionCache,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${library.adjustments.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookRepository = bookRepository;
+        this.reservationRepository = reservationRepository;
+        this.branchStockRepository = branchStockRepository;
+        this.waitlistService = waitlistService;
+        this.versionCache = versionCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    public BulkAdjustmentResult adjust(List<StockAdjustment> adjustments) {
+        StockAdjustmentResult[] results = new StockAdjustmentResult[adjustments.size()];
+        List<Integer> chunk = new ArrayList<>(Math.min(chunkSize, adjustments.size()));
+        for (int i = 0; i < adjustments.size(); i++) {
+            StockAdjustment adjustment = adjustments.get(i);
+            if (!adjustment.isValid()) {
+                results[i] = new StockAdjustmentResult(adjustment.bookId(), StockAdjustmentResult.Status.INVALID, null);
+                continue;
+            }
+            chunk.add(i);
+            if (chunk.size() == chunkSize) {
+                applyChunk(adjustments, chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyChunk(adjustments, chunk, results);
+        }
+        int applied = (int) Arrays.stream(results)
+                .filter(result -> result.status() == StockAdjustmentResult.Status.APPLIED)
+                .count();
+        return new BulkAdjustmentResult(applied, results.length - applied, List.of(results));
+    }
+
+    private void applyChunk(List<StockAdjustment> adjustments, List<Integer> chunk, StockAdjustmentResult[] results) {
+        List<StockAdjustment> items = chunk.stream().map(adjustments::get).toList();
+        try {
+            List<StockAdjustmentResult> chunkResults = transactionTemplate.execute(status -> write(items));
+            for (int i = 0; i < chunk.size(); i++) {
+                results[chunk.get(i)] = chunkResults.get(i);
+            }
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Could not apply {} stock adjustments", items.size(), e);
+            for (int i = 0; i < chunk.size(); i++) {
+                results[chunk.get(i)] = new StockAdjustmentResult(items.get(i).bookId(),
+                        StockAdjustmentResult.Status.FAILED, null);
+            }
+        }
+    }
+
+    private List<StockAdjustmentResult> write(List<StockAdjustment> items) {
+        int[][] counts = jdbcTemplate.batchUpdate(ADJUST_SQL, items, items.size(), (statement, item) -> {
+            long delta = item.delta() != null ? item.delta() : 0;
+            for (int offset : new int[] {0, 2, 5}) {
+                if (item.amount() != null) {
+                    statement.setLong(offset + 1, item.amount());
+                } else {
+                    statement.setNull(offset + 1, Types.BIGINT);
+                }
+                statement.setLong(offset + 2, delta);
+            }
+            statement.setLong(5, item.bookId());
+        });
+
+        Set<Long> bookIds = new LinkedHashSet<>();
+        Set<Long> adjustedIds = new LinkedHashSet<>();
+        Set<Long> restockedIds = new LinkedHashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            StockAdjustment item = items.get(i);
+            bookIds.add(item.bookId());
+            if (counts[0][i] != 0) {
+                adjustedIds.add(item.bookId());
+                if (item.amount() != null || item.delta() > 0) {
+                    restockedIds.add(item.bookId());
+                }
+            }
+        }
+        if (!restockedIds.isEmpty()) {
+            reservationRepository.findBookIdsByStatus(restockedIds, Reservation.Status.WAITING)
+                    .forEach(this::offerCopies);
+        }
+        Map<Long, Long> amounts = new HashMap<>();
+        Map<Long, Long> versions = new HashMap<>();
+        if (!bookIds.isEmpty()) {
+            for (Object[] row : bookRepository.findStockByIdIn(bookIds)) {
+                amounts.put((Long) row[0], (Long) row[1]);
+                versions.put((Long) row[0], (Long) row[2]);
+            }
+        }
+        Map<Long, Long> shelved = new HashMap<>();
+        if (!adjustedIds.isEmpty()) {
+            for (Object[] row : branchStockRepository.sumPerBookIn(adjustedIds)) {
+                shelved.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        for (Long bookId : adjustedIds) {
+            versionCache.put(Book.class, bookId, versions.get(bookId));
+            eventPublisher.publishEvent(InventoryEvent.of(InventoryEvent.Type.UPDATED, bookId,
+                    amounts.get(bookId) + shelved.getOrDefault(bookId, 0L)));
+        }
+
+        List<StockAdjustmentResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Long bookId = items.get(i).bookId();
+            StockAdjustmentResult.Status status = counts[0][i] != 0 ? StockAdjustmentResult.Status.APPLIED
+                    : amounts.containsKey(bookId) ? StockAdjustmentResult.Status.INSUFFICIENT_COPIES
+                    : StockAdjustmentResult.Status.NOT_FOUND;
+            results.add(new StockAdjustmentResult(bookId, status, amounts.get(bookId)));
+        }
+        return results;
+    }
+
+    private void offerCopies(Long bookId) {
+        bookRepository.findById(bookId).ifPresent(book -> {
+            while (waitlistService.offerCopy(book)) {
+                // each call holds one copy for the next waiting member
+            }
+        });
+    }
+}
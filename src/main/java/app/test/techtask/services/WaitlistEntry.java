@@ -0,0 +1,11 @@
+package app.test.techtask.services;
+
+import app.test.techtask.data.Reservation;
+
+import java.time.LocalDateTime;
+
+/**
+ * @param position 1-based place in the queue, 0 when a copy is already held for the member
+ */
+public record WaitlistEntry(Long bookId, Long memberId, Reservation.Status status, long position, LocalDateTime heldUntil) {
+}
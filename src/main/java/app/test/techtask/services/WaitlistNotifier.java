@@ -0,0 +1,53 @@
+package app.test.techtask.services;
+
+import app.test.techtask.events.ReservationHeldEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Long-poll notifications for members waiting on a reserved copy.
+ */
+@Service
+public class WaitlistNotifier {
+
+    private final WaitlistService waitlistService;
+    private final Map<Long, Set<DeferredResult<List<WaitlistEntry>>>> waiting = new ConcurrentHashMap<>();
+
+    public WaitlistNotifier(WaitlistService waitlistService) {
+        this.waitlistService = waitlistService;
+    }
+
+    /**
+     * Completes as soon as a copy is held for the member, or with an empty list after {@code timeout}.
+     */
+    public DeferredResult<List<WaitlistEntry>> awaitHolds(Long memberId, Duration timeout) {
+        DeferredResult<List<WaitlistEntry>> result = new DeferredResult<>(timeout.toMillis(), List.of());
+        Set<DeferredResult<List<WaitlistEntry>>> results = waiting.computeIfAbsent(memberId, id -> ConcurrentHashMap.newKeySet());
+        results.add(result);
+        result.onCompletion(() -> results.remove(result));
+
+        // Registered before looking, so a hold committed in between is not missed.
+        List<WaitlistEntry> held = waitlistService.getHeldReservations(memberId);
+        if (!held.isEmpty()) {
+            result.setResult(held);
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationHeld(ReservationHeldEvent event) {
+        Set<DeferredResult<List<WaitlistEntry>>> results = waiting.get(event.memberId());
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+        List<WaitlistEntry> held = waitlistService.getHeldReservations(event.memberId());
+        results.forEach(result -> result.setResult(held));
+    }
+}
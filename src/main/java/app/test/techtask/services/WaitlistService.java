@@ -0,0 +1,181 @@
+package app.test.techtask.services;
+
+import app.test.techtask.data.Book;
+import app.test.techtask.data.Member;
+import app.test.techtask.data.Reservation;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.events.ReservationHeldEvent;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.repositories.BranchStockRepository;
+import app.test.techtask.repositories.MemberRepository;
+import app.test.techtask.repositories.ReservationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Per-book FIFO waitlist. When a copy comes back it is held for the first waiting member instead
+ * of going back on the shelf, so members wait for one notification instead of retrying borrows.
+ */
+@Service
+public class WaitlistService {
+
+    private final ReservationRepository reservationRepository;
+    private final MemberRepository memberRepository;
+    private final BookRepository bookRepository;
+    private final BranchStockRepository branchStockRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration holdDuration;
+
+    public WaitlistService(ReservationRepository reservationRepository,
+                           MemberRepository memberRepository,
+                           BookRepository bookRepository,
+                           BranchStockRepository branchStockRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${library.waitlist.hold-duration:3d}") Duration holdDuration) {
+        this.reservationRepository = reservationRepository;
+        this.memberRepository = memberRepository;
+        this.bookRepository = bookRepository;
+        this.branchStockRepository = branchStockRepository;
+        this.eventPublisher = eventPublisher;
+        this.holdDuration = holdDuration;
+    }
+
+    /**
+     * Puts the member on the waitlist of a book with no copy left, neither in the unassigned pool
+     * nor on any branch shelf.
+     */
+    @Transactional
+    public Optional<WaitlistEntry> reserve(Long memberId, Long bookId) {
+        Optional<Reservation> existing = reservationRepository.findByMemberIdAndBookId(memberId, bookId);
+        if (existing.isPresent()) {
+            return existing.map(this::toEntry);
+        }
+
+        Optional<Member> memberOpt = memberRepository.findById(memberId);
+        Optional<Book> bookOpt = bookRepository.findById(bookId);
+        if (memberOpt.isEmpty() || bookOpt.isEmpty() || bookOpt.get().getAmount() > 0
+                || branchStockRepository.sumByBookId(bookId) > 0) {
+            return Optional.empty();
+        }
+
+        Reservation reservation = new Reservation();
+        reservation.setMember(memberOpt.get());
+        reservation.setBook(bookOpt.get());
+        reservation.setStatus(Reservation.Status.WAITING);
+        reservation.setCreatedAt(LocalDateTime.now());
+        return Optional.of(toEntry(reservationRepository.save(reservation)));
+    }
+
+    @Transactional
+    public boolean cancel(Long memberId, Long bookId) {
+        Optional<Reservation> reservationOpt = reservationRepository.findByMemberIdAndBookId(memberId, bookId);
+        if (reservationOpt.isEmpty()) {
+            return false;
+        }
+        release(reservationOpt.get());
+        return true;
+    }
+
+    /**
+     * Takes members about to be deleted off the waitlists they are waiting on. Must be called in
+     * the deleting transaction.
+     */
+    @Transactional
+    public void cancelWaiting(Collection<Long> memberIds) {
+        reservationRepository.deleteByStatusAndMemberIdIn(memberIds, Reservation.Status.WAITING);
+    }
+
+    public List<WaitlistEntry> getReservations(Long memberId) {
+        return reservationRepository.findByMemberIdOrderByIdAsc(memberId).stream()
+                .map(this::toEntry)
+                .toList();
+    }
+
+    public List<WaitlistEntry> getHeldReservations(Long memberId) {
+        return reservationRepository.findByMemberIdAndStatus(memberId, Reservation.Status.HELD).stream()
+                .map(this::toEntry)
+                .toList();
+    }
+
+    /**
+     * Hands a copy that just became available to the first waiting member. Must be called in the
+     * transaction that put the copy back, after {@code book.amount} was incremented.
+     *
+     * @return {@code true} if the copy is now held and the amount was decremented again
+     */
+    @Transactional
+    public boolean offerCopy(Book book) {
+        if (book.getAmount() <= 0) {
+            return false;
+        }
+        Optional<Reservation> nextOpt = reservationRepository
+                .findFirstByBookIdAndStatusOrderByIdAsc(book.getId(), Reservation.Status.WAITING);
+        if (nextOpt.isEmpty()) {
+            return false;
+        }
+
+        Reservation next = nextOpt.get();
+        next.setStatus(Reservation.Status.HELD);
+        next.setHeldUntil(LocalDateTime.now().plus(holdDuration));
+        reservationRepository.save(next);
+
+        book.setAmount(book.getAmount() - 1);
+        bookRepository.save(book);
+
+        eventPublisher.publishEvent(new ReservationHeldEvent(next.getMember().getId(), book.getId(), next.getHeldUntil()));
+        return true;
+    }
+
+    /**
+     * Consumes the copy held for the member, if any. The held copy is already taken out of
+     * {@code book.amount}, so the caller must not decrement it again.
+     */
+    @Transactional
+    public boolean claimHold(Long memberId, Long bookId) {
+        Optional<Reservation> reservationOpt = reservationRepository.findByMemberIdAndBookId(memberId, bookId);
+        if (reservationOpt.isPresent() && reservationOpt.get().getStatus() == Reservation.Status.HELD) {
+            reservationRepository.delete(reservationOpt.get());
+            return true;
+        }
+        return false;
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${library.waitlist.expiry-check-interval:PT1M}")
+    public void expireHolds() {
+        reservationRepository.findByStatusAndHeldUntilBefore(Reservation.Status.HELD, LocalDateTime.now())
+                .forEach(this::release);
+    }
+
+    private void release(Reservation reservation) {
+        reservationRepository.delete(reservation);
+        if (reservation.getStatus() != Reservation.Status.HELD) {
+            return;
+        }
+        Book book = reservation.getBook();
+        book.setAmount(book.getAmount() + 1);
+        bookRepository.save(book);
+        if (!offerCopy(book)) {
+            eventPublisher.publishEvent(InventoryEvent.of(InventoryEvent.Type.UPDATED, book.getId(),
+                    book.getAmount() + branchStockRepository.sumByBookId(book.getId())));
+        }
+    }
+
+    private WaitlistEntry toEntry(Reservation reservation) {
+        Long bookId = reservation.getBook().getId();
+        long position = reservation.getStatus() == Reservation.Status.HELD
+                ? 0
+                : reservationRepository.countByBookIdAndStatusAndIdLessThan(bookId, Reservation.Status.WAITING, reservation.getId()) + 1;
+        return new WaitlistEntry(bookId, reservation.getMember().getId(), reservation.getStatus(), position,
+                reservation.getHeldUntil());
+    }
+}
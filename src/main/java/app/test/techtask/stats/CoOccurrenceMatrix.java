@@ -0,0 +1,242 @@
+package app.test.techtask.stats;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Symmetric sparse matrix of how often two books were on loan to the same member at once.
+ *
+ * Each book owns a row of {@link LongLongMap} neighbour counts. A row may grow to twice
+ * {@code topK} entries before it is pruned back to its {@code topK} strongest neighbours, which
+ * keeps memory linear in the number of books while the heavy pairs survive. Reads and writes
+ * are guarded by a read-write lock, so lookups never wait for each other.
+ */
+public class CoOccurrenceMatrix {
+
+    private static final int MAGIC = 0x4C435831;
+
+    private final int topK;
+    private final LongLongMap rowIndex = new LongLongMap(1024);
+    private final List<LongLongMap> rows = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CoOccurrenceMatrix(int topK) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK must be positive");
+        }
+        this.topK = topK;
+    }
+
+    public record Neighbour(long bookId, long count) {
+    }
+
+    /**
+     * Counts one more co-borrow of {@code a} and {@code b} in both rows. Pairs of a book with
+     * itself are ignored.
+     */
+    public void increment(long a, long b) {
+        if (a == b) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            add(row(a), b, 1);
+            add(row(b), a, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} neighbours of {@code bookId}, strongest first and ties broken by
+     * the lower book id.
+     */
+    public List<Neighbour> top(long bookId, int limit) {
+        lock.readLock().lock();
+        try {
+            int index = (int) rowIndex.get(bookId, -1);
+            if (index < 0 || limit <= 0) {
+                return List.of();
+            }
+            LongLongMap row = rows.get(index);
+            long[][] entries = sorted(row);
+            int count = Math.min(limit, entries[0].length);
+            List<Neighbour> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(new Neighbour(entries[0][i], entries[1][i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops {@code bookId} and every reference to it from the rows of its neighbours.
+     */
+    public void removeBook(long bookId) {
+        lock.writeLock().lock();
+        try {
+            int index = (int) rowIndex.get(bookId, -1);
+            if (index < 0) {
+                return;
+            }
+            LongLongMap row = rows.get(index);
+            row.forEach((neighbour, count) -> {
+                int other = (int) rowIndex.get(neighbour, -1);
+                if (other >= 0) {
+                    rows.get(other).remove(bookId);
+                }
+            });
+            row.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int bookCount() {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (LongLongMap row : rows) {
+                if (!row.isEmpty()) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes every row to a temporary file and atomically moves it to {@code target}.
+     */
+    public void writeTo(Path target) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try (OutputStream file = Files.newOutputStream(temp)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(rowIndex.size());
+            for (long bookId : rowIndex.keys()) {
+                long[][] entries = sorted(rows.get((int) rowIndex.get(bookId, -1)));
+                out.writeLong(bookId);
+                out.writeInt(entries[0].length);
+                for (int i = 0; i < entries[0].length; i++) {
+                    out.writeLong(entries[0][i]);
+                    out.writeLong(entries[1][i]);
+                }
+            }
+            out.flush();
+            new DataOutputStream(file).writeLong(checked.getChecksum().getValue());
+            file.flush();
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a matrix written by {@link #writeTo(Path)}, or returns {@code null} when the file is
+     * damaged. Rows larger than {@code topK} are pruned on load.
+     */
+    public static CoOccurrenceMatrix readFrom(Path source, int topK) throws IOException {
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(source))) {
+            CheckedInputStream checked = new CheckedInputStream(file, new CRC32C());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(topK);
+            int rowCount = in.readInt();
+            if (rowCount < 0) {
+                return null;
+            }
+            for (int i = 0; i < rowCount; i++) {
+                LongLongMap row = matrix.row(in.readLong());
+                int size = in.readInt();
+                if (size < 0) {
+                    return null;
+                }
+                for (int j = 0; j < size; j++) {
+                    row.put(in.readLong(), in.readLong());
+                }
+                if (row.size() > topK) {
+                    matrix.prune(row);
+                }
+            }
+            long expected = checked.getChecksum().getValue();
+            if (new DataInputStream(file).readLong() != expected) {
+                return null;
+            }
+            return matrix;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private LongLongMap row(long bookId) {
+        int index = (int) rowIndex.get(bookId, -1);
+        if (index >= 0) {
+            return rows.get(index);
+        }
+        LongLongMap row = new LongLongMap(topK);
+        rowIndex.put(bookId, rows.size());
+        rows.add(row);
+        return row;
+    }
+
+    private void add(LongLongMap row, long neighbour, long delta) {
+        row.addTo(neighbour, delta);
+        if (row.size() > topK * 2) {
+            prune(row);
+        }
+    }
+
+    private void prune(LongLongMap row) {
+        long[][] entries = sorted(row);
+        for (int i = topK; i < entries[0].length; i++) {
+            row.remove(entries[0][i]);
+        }
+    }
+
+    /**
+     * Returns the row as parallel {@code [ids, counts]} arrays ordered by count descending, then
+     * id ascending.
+     */
+    private static long[][] sorted(LongLongMap row) {
+        int size = row.size();
+        long[] ids = new long[size];
+        long[] counts = new long[size];
+        int[] cursor = new int[1];
+        row.forEach((neighbour, count) -> {
+            ids[cursor[0]] = neighbour;
+            counts[cursor[0]] = count;
+            cursor[0]++;
+        });
+        for (int i = 1; i < size; i++) {
+            long id = ids[i];
+            long count = counts[i];
+            int j = i - 1;
+            while (j >= 0 && (counts[j] < count || counts[j] == count && ids[j] > id)) {
+                ids[j + 1] = ids[j];
+                counts[j + 1] = counts[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            counts[j + 1] = count;
+        }
+        return new long[][]{ids, counts};
+    }
+}
@@ -0,0 +1,172 @@
+package app.test.techtask.stats;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code int} to {@code long} without boxing, for counters keyed
+ * by {@link StringDictionary} ids. Uses linear probing; entries are never removed one by one.
+ *
+ * Not thread-safe.
+ */
+public class IntLongMap {
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, long value);
+    }
+
+    private static final int EMPTY = 0;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public IntLongMap() {
+        this(8);
+    }
+
+    public IntLongMap(int expectedSize) {
+        allocate(LongLongMap.tableSize(expectedSize));
+    }
+
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return key == EMPTY ? hasZeroKey : slot(key) >= 0;
+    }
+
+    public long get(int key, long defaultValue) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int slot = slot(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    public void put(int key, long value) {
+        if (key == EMPTY) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int index = insertionIndex(key);
+        if (keys[index] == key) {
+            values[index] = value;
+        } else {
+            insertAt(index, key, value);
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the value of {@code key}, treating a missing key as 0, and returns
+     * the new value.
+     */
+    public long addTo(int key, long delta) {
+        if (key == EMPTY) {
+            zeroValue = hasZeroKey ? zeroValue + delta : delta;
+            hasZeroKey = true;
+            return zeroValue;
+        }
+        int index = insertionIndex(key);
+        if (keys[index] == key) {
+            return values[index] += delta;
+        }
+        insertAt(index, key, delta);
+        return delta;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (hasZeroKey) {
+            consumer.accept(EMPTY, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    public int[] keys() {
+        int[] result = new int[size()];
+        int cursor = 0;
+        if (hasZeroKey) {
+            result[cursor++] = EMPTY;
+        }
+        for (int key : keys) {
+            if (key != EMPTY) {
+                result[cursor++] = key;
+            }
+        }
+        return result;
+    }
+
+    private int slot(int key) {
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            int current = keys[index];
+            if (current == key) {
+                return index;
+            }
+            if (current == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    private int insertionIndex(int key) {
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void insertAt(int index, int key, long value) {
+        keys[index] = key;
+        values[index] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = insertionIndex(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
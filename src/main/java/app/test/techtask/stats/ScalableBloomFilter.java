@@ -0,0 +1,73 @@
+package app.test.techtask.stats;
+
+import java.util.Arrays;
+
+/**
+ * Bloom filter that keeps its false positive bound while growing past the size it was created
+ * for. Once the newest stage is full, a stage with twice the capacity and half the error rate is
+ * added; lookups check every stage. With the first stage at half the target rate, the rates sum
+ * to at most the target.
+ *
+ * Thread-safe: stages are published copy-on-write, adding a stage takes a lock.
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+
+    private final double firstRate;
+    private volatile BloomFilter[] stages;
+
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        this.firstRate = falsePositiveRate * (1 - TIGHTENING);
+        this.stages = new BloomFilter[]{new BloomFilter(initialCapacity, firstRate)};
+    }
+
+    public void put(long hash) {
+        BloomFilter[] current = stages;
+        for (int i = 0; i < current.length - 1; i++) {
+            if (current[i].mightContain(hash)) {
+                return;
+            }
+        }
+        BloomFilter last = current[current.length - 1];
+        if (last.isFull() && !last.mightContain(hash)) {
+            last = grow(current);
+        }
+        last.put(hash);
+    }
+
+    public boolean mightContain(long hash) {
+        for (BloomFilter stage : stages) {
+            if (stage.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int stageCount() {
+        return stages.length;
+    }
+
+    public long bitCount() {
+        long bits = 0;
+        for (BloomFilter stage : stages) {
+            bits += stage.bitCount();
+        }
+        return bits;
+    }
+
+    private synchronized BloomFilter grow(BloomFilter[] seen) {
+        BloomFilter[] current = stages;
+        BloomFilter last = current[current.length - 1];
+        if (current != seen || !last.isFull()) {
+            return last;
+        }
+        BloomFilter next = new BloomFilter(last.capacity() * GROWTH, firstRate * Math.pow(TIGHTENING, current.length));
+        BloomFilter[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = next;
+        stages = grown;
+        return next;
+    }
+}
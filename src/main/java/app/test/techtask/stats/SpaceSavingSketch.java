@@ -0,0 +1,139 @@
+package app.test.techtask.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitter sketch (Metwally et al.) over {@code long} items.
+ *
+ * Keeps at most {@code capacity} counters in an indexed min-heap. When an unseen item arrives
+ * and the sketch is full, it takes over the smallest counter and inherits its count as error.
+ * Every reported count overestimates the true count by at most its {@code error}, which is
+ * itself bounded by {@code total / capacity}. Any item occurring more than that is guaranteed
+ * to be tracked.
+ *
+ * Not thread-safe.
+ */
+public class SpaceSavingSketch {
+
+    private final int capacity;
+    private final long[] items;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<Long, Integer> slots;
+    private int size;
+    private long total;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.items = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.slots = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(long item) {
+        total++;
+        Integer slot = slots.get(item);
+        if (slot != null) {
+            counts[slot]++;
+            siftDown(slot);
+        } else if (size < capacity) {
+            items[size] = item;
+            counts[size] = 1;
+            errors[size] = 0;
+            slots.put(item, size);
+            siftUp(size++);
+        } else {
+            slots.remove(items[0]);
+            errors[0] = counts[0];
+            counts[0]++;
+            items[0] = item;
+            slots.put(item, 0);
+            siftDown(0);
+        }
+    }
+
+    public List<Counter> top(int n) {
+        List<Counter> counters = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            counters.add(new Counter(items[i], counts[i], errors[i]));
+        }
+        counters.sort(Comparator.comparingLong(Counter::count).reversed()
+                .thenComparingLong(Counter::error));
+        return counters.size() > n ? List.copyOf(counters.subList(0, n)) : counters;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Upper bound on the overestimate of any reported count.
+     */
+    public long errorBound() {
+        return size < capacity ? 0 : total / capacity;
+    }
+
+    public void clear() {
+        slots.clear();
+        size = 0;
+        total = 0;
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (counts[parent] <= counts[slot]) {
+                return;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int left = 2 * slot + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && counts[left + 1] < counts[left] ? left + 1 : left;
+            if (counts[slot] <= counts[smallest]) {
+                return;
+            }
+            swap(slot, smallest);
+            slot = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long item = items[a];
+        long count = counts[a];
+        long error = errors[a];
+        items[a] = items[b];
+        counts[a] = counts[b];
+        errors[a] = errors[b];
+        items[b] = item;
+        counts[b] = count;
+        errors[b] = error;
+        slots.put(items[a], a);
+        slots.put(items[b], b);
+    }
+
+    /**
+     * @param error how much {@code count} may overestimate the true count
+     */
+    public record Counter(long item, long count, long error) {
+    }
+}
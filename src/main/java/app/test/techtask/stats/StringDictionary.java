@@ -0,0 +1,140 @@
+package app.test.techtask.stats;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only dictionary that gives every distinct string a dense {@code int} id, starting at 0.
+ * Each string is kept once, so structures that store ids instead of strings share a single copy.
+ * Lookups go through an open-addressing table of ids, which costs a few bytes per entry instead
+ * of a map node and a boxed integer.
+ *
+ * Thread-safe: lookups share a read lock, new strings take the write lock.
+ */
+public class StringDictionary {
+
+    public static final int NONE = -1;
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private String[] strings;
+    private int[] table;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public StringDictionary() {
+        this(16);
+    }
+
+    public StringDictionary(int expectedSize) {
+        strings = new String[Math.max(expectedSize, 16)];
+        allocate(LongLongMap.tableSize(expectedSize));
+    }
+
+    /**
+     * Returns the id of {@code value}, adding it if it is not in the dictionary yet.
+     */
+    public int idOf(String value) {
+        Objects.requireNonNull(value, "value");
+        int id = find(value);
+        if (id != NONE) {
+            return id;
+        }
+        lock.writeLock().lock();
+        try {
+            int index = insertionIndex(value);
+            if (table[index] != 0) {
+                return table[index] - 1;
+            }
+            if (size == strings.length) {
+                strings = Arrays.copyOf(strings, size + (size >> 1));
+            }
+            id = size++;
+            strings[id] = value;
+            table[index] = id + 1;
+            if (size >= resizeAt) {
+                rehash(table.length * 2);
+            }
+            return id;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the id of {@code value}, or {@link #NONE} if it has never been added.
+     */
+    public int find(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        lock.readLock().lock();
+        try {
+            int slot = table[insertionIndex(value)];
+            return slot == 0 ? NONE : slot - 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the string with the given id, or {@code null} for {@link #NONE}.
+     */
+    public String get(int id) {
+        if (id == NONE) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (id < 0 || id >= size) {
+                throw new IllegalArgumentException("Unknown id " + id);
+            }
+            return strings[id];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int insertionIndex(String value) {
+        int index = hash(value) & mask;
+        for (int slot = table[index]; slot != 0 && !strings[slot - 1].equals(value); slot = table[index]) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash(int capacity) {
+        allocate(capacity);
+        for (int id = 0; id < size; id++) {
+            int index = hash(strings[id]) & mask;
+            while (table[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            table[index] = id + 1;
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(String value) {
+        int h = value.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,36 @@
+package app.test.techtask.stats;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Calendar-aligned tumbling windows in UTC. Weeks start on Monday.
+ */
+public enum TumblingWindow {
+    HOUR,
+    DAY,
+    WEEK;
+
+    public Instant start(Instant time) {
+        return switch (this) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case WEEK -> time.atZone(ZoneOffset.UTC).toLocalDate()
+                    .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                    .atStartOfDay(ZoneOffset.UTC)
+                    .toInstant();
+        };
+    }
+
+    public Instant end(Instant time) {
+        Instant start = start(time);
+        return switch (this) {
+            case HOUR -> start.plus(1, ChronoUnit.HOURS);
+            case DAY -> start.plus(1, ChronoUnit.DAYS);
+            case WEEK -> start.plus(7, ChronoUnit.DAYS);
+        };
+    }
+}
@@ -0,0 +1,20 @@
+-- Range-partitioned loan history for PostgreSQL.
+-- Run once before the first start; Hibernate and the baseline migration only create a plain table when
+-- loan_history is missing.
+-- Monthly partitions are created ahead of time by LoanHistoryPartitionManager, rows outside of them
+-- land in the default partition.
+
+CREATE TABLE IF NOT EXISTS loan_history (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    member_id     BIGINT NOT NULL,
+    book_id       BIGINT NOT NULL,
+    borrowed_date DATE   NOT NULL,
+    returned_date DATE   NOT NULL,
+    PRIMARY KEY (id, borrowed_date)
+) PARTITION BY RANGE (borrowed_date);
+
+CREATE INDEX IF NOT EXISTS idx_loan_history_member ON loan_history (member_id, borrowed_date);
+CREATE INDEX IF NOT EXISTS idx_loan_history_book ON loan_history (book_id, borrowed_date);
+CREATE INDEX IF NOT EXISTS idx_loan_history_borrowed_date ON loan_history (borrowed_date);
+
+CREATE TABLE IF NOT EXISTS loan_history_default PARTITION OF loan_history DEFAULT;
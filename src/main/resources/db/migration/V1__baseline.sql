@@ -0,0 +1,137 @@
+-- Full schema for PostgreSQL, applied by Flyway in the prod profile, where Hibernate does not touch the schema.
+-- Databases created by Hibernate before this migration existed only have books, members and borrowed_books;
+-- every statement is a no-op for what is already there, so the migration also brings those up to date.
+
+CREATE TABLE IF NOT EXISTS books (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version      BIGINT       NOT NULL DEFAULT 0,
+    amount       BIGINT       NOT NULL,
+    total_copies BIGINT,
+    author       VARCHAR(255) NOT NULL,
+    title        VARCHAR(255) NOT NULL
+);
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS total_copies BIGINT;
+
+CREATE TABLE IF NOT EXISTS members (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version         BIGINT       NOT NULL DEFAULT 0,
+    member_name     VARCHAR(255) NOT NULL,
+    membership_date DATE         NOT NULL
+);
+
+ALTER TABLE members ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS borrowed_books (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    book_id       BIGINT NOT NULL REFERENCES books,
+    member_id     BIGINT NOT NULL REFERENCES members,
+    borrowed_date DATE   NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_borrowed_books_borrowed_date ON borrowed_books (borrowed_date, id);
+CREATE INDEX IF NOT EXISTS idx_borrowed_books_book ON borrowed_books (book_id);
+
+-- Partitioning is left out of this migration: loan_history is created as a plain table. To partition it, run
+-- db/loan_history_partitioned.sql against an empty database before the first start, so this statement finds the
+-- table already there; an existing plain table is never converted.
+CREATE TABLE IF NOT EXISTS loan_history (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    member_id     BIGINT NOT NULL,
+    book_id       BIGINT NOT NULL,
+    borrowed_date DATE   NOT NULL,
+    returned_date DATE   NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_loan_history_member ON loan_history (member_id, borrowed_date);
+CREATE INDEX IF NOT EXISTS idx_loan_history_book ON loan_history (book_id, borrowed_date);
+CREATE INDEX IF NOT EXISTS idx_loan_history_borrowed_date ON loan_history (borrowed_date);
+
+CREATE TABLE IF NOT EXISTS reservations (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    member_id  BIGINT       NOT NULL REFERENCES members,
+    book_id    BIGINT       NOT NULL REFERENCES books,
+    status     VARCHAR(255) NOT NULL CHECK (status IN ('WAITING', 'HELD')),
+    created_at TIMESTAMP(6) NOT NULL,
+    held_until TIMESTAMP(6),
+    UNIQUE (member_id, book_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_reservations_book_status ON reservations (book_id, status, id);
+
+CREATE TABLE IF NOT EXISTS branches (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name      VARCHAR(255) NOT NULL UNIQUE,
+    latitude  FLOAT(53),
+    longitude FLOAT(53)
+);
+
+CREATE TABLE IF NOT EXISTS branch_stock (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    branch_id BIGINT NOT NULL REFERENCES branches,
+    book_id   BIGINT NOT NULL REFERENCES books,
+    amount    BIGINT NOT NULL,
+    UNIQUE (branch_id, book_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_branch_stock_book ON branch_stock (book_id);
+
+CREATE TABLE IF NOT EXISTS borrow_rollups (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    granularity  VARCHAR(8) NOT NULL CHECK (granularity IN ('DAY', 'WEEK', 'MONTH')),
+    bucket_start DATE       NOT NULL,
+    book_id      BIGINT     NOT NULL,
+    borrows      BIGINT     NOT NULL,
+    UNIQUE (granularity, bucket_start, book_id)
+);
+
+CREATE TABLE IF NOT EXISTS overdue_scans (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    cutoff_date DATE                        NOT NULL,
+    started_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    finished_at TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE TABLE IF NOT EXISTS overdue_scan_ranges (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    scan_id   BIGINT  NOT NULL,
+    from_date DATE    NOT NULL,
+    to_date   DATE    NOT NULL,
+    last_date DATE    NOT NULL,
+    last_id   BIGINT  NOT NULL,
+    done      BOOLEAN NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_overdue_scan_ranges_scan ON overdue_scan_ranges (scan_id);
+
+CREATE TABLE IF NOT EXISTS overdue_tallies (
+    id                   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    scan_id              BIGINT NOT NULL,
+    range_id             BIGINT NOT NULL,
+    member_id            BIGINT NOT NULL,
+    overdue_loans        BIGINT NOT NULL,
+    oldest_borrowed_date DATE   NOT NULL,
+    UNIQUE (range_id, member_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_overdue_tallies_scan ON overdue_tallies (scan_id);
+
+CREATE TABLE IF NOT EXISTS outbox_messages (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_type   VARCHAR(32)                 NOT NULL,
+    aggregate_id BIGINT                      NOT NULL,
+    payload      TEXT                        NOT NULL,
+    created_at   TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_records (
+    scoped_key   VARCHAR(512)                PRIMARY KEY,
+    status       INTEGER                     NOT NULL,
+    content_type VARCHAR(128),
+    etag         VARCHAR(128),
+    body         BYTEA                       NOT NULL,
+    expires_at   TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_records_expires_at ON idempotency_records (expires_at);
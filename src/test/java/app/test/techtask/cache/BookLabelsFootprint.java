@@ -0,0 +1,91 @@
+package app.test.techtask.cache;
+
+import app.test.techtask.data.Book;
+import app.test.techtask.stats.IntLongMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Retained heap of title and author labels for a large catalog, as per-book strings in a map
+ * versus {@link BookLabels}, and of a per-title loan count as {@code Map<String, Long>} versus
+ * {@link IntLongMap}. Strings are copied per book, the way rows come back from JDBC.
+ *
+ * Run with {@code mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-Xmx3g -cp %classpath app.test.techtask.cache.BookLabelsFootprint 3000000"}.
+ */
+public class BookLabelsFootprint {
+
+    private record Labels(String title, String author) {
+    }
+
+    public static void main(String[] args) {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 3_000_000;
+        int titles = books / 2;
+        int authors = Math.max(books / 15, 1);
+
+        long base = usedHeap();
+        Map<Long, Labels> strings = new HashMap<>();
+        for (int i = 0; i < books; i++) {
+            strings.put((long) i, new Labels(title(i % titles), author(i % authors)));
+        }
+        long stringsBytes = usedHeap() - base;
+        strings = null;
+
+        base = usedHeap();
+        BookLabels labels = new BookLabels(Integer.MAX_VALUE);
+        Book book = new Book();
+        for (int i = 0; i < books; i++) {
+            book.setId((long) i);
+            book.setTitle(title(i % titles));
+            book.setAuthor(author(i % authors));
+            labels.put(book);
+        }
+        long labelsBytes = usedHeap() - base;
+
+        base = usedHeap();
+        Map<String, Long> boxedCounts = new HashMap<>();
+        for (int i = 0; i < books; i++) {
+            boxedCounts.merge(title(i % titles), 1L, Long::sum);
+        }
+        long boxedBytes = usedHeap() - base;
+        int titleCount = boxedCounts.size();
+        boxedCounts = null;
+
+        base = usedHeap();
+        IntLongMap primitiveCounts = new IntLongMap();
+        for (int i = 0; i < books; i++) {
+            primitiveCounts.addTo(labels.titleId(i), 1);
+        }
+        long primitiveBytes = usedHeap() - base;
+
+        System.out.printf("%d books, %d titles, %d authors%n", books, titleCount, authors);
+        System.out.printf("labels   per-book strings %6d MB, dictionary %6d MB (%d strings)%n",
+                mb(stringsBytes), mb(labelsBytes), labels.dictionarySize());
+        System.out.printf("counts   Map<String, Long> %5d MB, IntLongMap %6d MB (%d keys)%n",
+                mb(boxedBytes), mb(primitiveBytes), primitiveCounts.size());
+        if (labels.size() != books) {
+            throw new IllegalStateException("lost labels");
+        }
+    }
+
+    private static String title(int i) {
+        return new String("Title" + Integer.toString(i, 26).replace('0', 'z'));
+    }
+
+    private static String author(int i) {
+        return new String("Author Number" + i);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long mb(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+}
@@ -0,0 +1,41 @@
+package app.test.techtask.cache;
+
+import app.test.techtask.data.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityVersionCacheTest {
+
+    @Test
+    void olderVersionDoesNotReplaceNewerOne() {
+        EntityVersionCache cache = new EntityVersionCache(100);
+
+        cache.put(Book.class, 1L, 5L);
+        cache.put(Book.class, 1L, 3L);
+
+        assertEquals(5L, cache.get(Book.class, 1L));
+        cache.put(Book.class, 1L, 6L);
+        assertEquals(6L, cache.get(Book.class, 1L));
+    }
+
+    @Test
+    void evictInsideTransactionTakesEffectAfterCommit() {
+        EntityVersionCache cache = new EntityVersionCache(100);
+        cache.put(Book.class, 1L, 5L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evict(Book.class, 1L);
+            assertEquals(5L, cache.get(Book.class, 1L));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(cache.get(Book.class, 1L));
+    }
+}
@@ -0,0 +1,97 @@
+package app.test.techtask.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExistenceFiltersTest {
+
+    @Test
+    void answersMaybeUntilFirstRebuild() {
+        ExistenceFilters filters = new ExistenceFilters(true, true, 0, 100, 0.01);
+
+        assertFalse(filters.isReady());
+        assertTrue(filters.mightHaveBook(42L));
+        assertTrue(filters.mightHaveMemberName("Nobody"));
+    }
+
+    @Test
+    void rebuildDropsDeletedAndKeepsCreatesMadeMeanwhile() {
+        ExistenceFilters filters = new ExistenceFilters(true, true, 0, 100, 0.01);
+        filters.rebuild(seed -> {
+            seed.addBook(1L);
+            seed.addBook(2L);
+            seed.addMember(1L, "Ann");
+        });
+        assertTrue(filters.mightHaveBook(2L));
+        filters.addBook(3L);
+
+        filters.rebuild(seed -> {
+            filters.addBook(4L);
+            filters.addMember(2L, "Bob");
+            seed.addBook(1L);
+            seed.addBook(5L);
+            seed.addMember(1L, "Ann");
+        });
+
+        assertTrue(filters.mightHaveBook(1L));
+        assertFalse(filters.mightHaveBook(2L));
+        assertTrue(filters.mightHaveBook(3L));
+        assertTrue(filters.mightHaveBook(4L));
+        assertTrue(filters.mightHaveMember(2L));
+        assertTrue(filters.mightHaveMemberName("Bob"));
+        assertFalse(filters.mightHaveMemberName("Cy"));
+    }
+
+    @Test
+    void failedRebuildKeepsPreviousFilters() {
+        ExistenceFilters filters = new ExistenceFilters(true, true, 0, 100, 0.01);
+        filters.rebuild(seed -> seed.addBook(1L));
+        filters.addBook(2L);
+
+        assertThrows(IllegalStateException.class, () -> filters.rebuild(seed -> {
+            throw new IllegalStateException("database down");
+        }));
+        filters.rebuild(seed -> {
+            seed.addBook(1L);
+            seed.addBook(3L);
+        });
+
+        assertTrue(filters.mightHaveBook(2L));
+    }
+
+    @Test
+    void idsAboveLastRebuildAreNotDefiniteMisses() {
+        ExistenceFilters filters = new ExistenceFilters(true, true, 0, 100, 0.01);
+        filters.rebuild(seed -> {
+            seed.addBook(1L);
+            seed.addBook(3L);
+            seed.addMember(2L, "Ann");
+        });
+
+        assertFalse(filters.mightHaveBook(2L));
+        assertTrue(filters.mightHaveBook(4L));
+        assertFalse(filters.mightHaveMember(1L));
+        assertTrue(filters.mightHaveMember(3L));
+    }
+
+    @Test
+    void idsJustBelowLastRebuildAreNotDefiniteMisses() {
+        ExistenceFilters filters = new ExistenceFilters(true, true, 10, 100, 0.01);
+        filters.rebuild(seed -> {
+            seed.addBook(1L);
+            seed.addBook(50L);
+        });
+
+        assertFalse(filters.mightHaveBook(30L));
+        assertTrue(filters.mightHaveBook(45L));
+    }
+
+    @Test
+    void namesAreOnlyCheckedOnASingleInstance() {
+        ExistenceFilters filters = new ExistenceFilters(true, false, 0, 100, 0.01);
+        filters.rebuild(seed -> seed.addMember(1L, "Ann"));
+
+        assertTrue(filters.mightHaveMemberName("Cy"));
+    }
+}
@@ -0,0 +1,83 @@
+package app.test.techtask.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaDataSourceConfigTest {
+
+    private DriverManagerDataSource primary;
+    private DriverManagerDataSource replica;
+    private ReplicaFallbackDataSource fallback;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        createSource(primary, "primary", 0);
+        createSource(replica, "replica", 0);
+        fallback = new ReplicaFallbackDataSource(replica, primary, "SELECT lag FROM source", Duration.ofSeconds(5));
+        DataSource routing = ReplicaDataSourceConfig.routingDataSource(primary, fallback);
+
+        jdbcTemplate = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertEquals("replica", readOnlyTransaction.execute(status -> source()));
+        assertEquals("primary", writeTransaction.execute(status -> source()));
+        assertEquals("primary", source());
+    }
+
+    @Test
+    void fallsBackToPrimaryWhileReplicaLags() {
+        new JdbcTemplate(replica).update("UPDATE source SET lag = 30");
+        fallback.checkHealth();
+
+        assertFalse(fallback.isReplicaHealthy());
+        assertEquals("primary", readOnlyTransaction.execute(status -> source()));
+
+        new JdbcTemplate(replica).update("UPDATE source SET lag = 1");
+        fallback.checkHealth();
+
+        assertTrue(fallback.isReplicaHealthy());
+        assertEquals("replica", readOnlyTransaction.execute(status -> source()));
+    }
+
+    @Test
+    void fallsBackToPrimaryWhenReplicaIsDown() {
+        replica.setUrl("jdbc:h2:mem:missing;IFEXISTS=TRUE");
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> source()));
+        assertFalse(fallback.isReplicaHealthy());
+    }
+
+    private String source() {
+        return jdbcTemplate.queryForObject("SELECT name FROM source", String.class);
+    }
+
+    private static DriverManagerDataSource database(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static void createSource(DataSource dataSource, String name, int lag) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE source (name VARCHAR(16), lag INT)");
+        template.update("INSERT INTO source VALUES (?, ?)", name, lag);
+    }
+}
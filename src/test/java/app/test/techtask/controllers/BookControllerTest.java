@@ -1,23 +1,38 @@
 package app.test.techtask.controllers;
 
+import app.test.techtask.cache.ExistenceFilters;
 import app.test.techtask.data.Book;
+import app.test.techtask.data.BookView;
 import app.test.techtask.services.BookService;
+import app.test.techtask.services.BulkAdjustmentResult;
+import app.test.techtask.services.BulkDeleteResult;
+import app.test.techtask.services.StockAdjustment;
+import app.test.techtask.services.StockAdjustmentResult;
+import app.test.techtask.services.StockAdjustmentService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -27,6 +42,12 @@ class BookControllerTest {
     @Mock
     private BookService bookService;
 
+    @Mock
+    private StockAdjustmentService stockAdjustmentService;
+
+    @Spy
+    private ExistenceFilters existenceFilters = new ExistenceFilters(true, true, 0, 100, 0.01);
+
     @InjectMocks
     private BookController bookController;
 
@@ -73,9 +94,35 @@ class BookControllerTest {
         verify(bookService, times(1)).getBookById(anyLong());
     }
 
+    @Test
+    void getBookById_DefiniteMissSkipsService() throws Exception {
+        existenceFilters.rebuild(seed -> {
+            seed.addBook(1L);
+            seed.addBook(3L);
+        });
+
+        mockMvc.perform(get("/books/{id}", 2))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(bookService);
+    }
+
+    @Test
+    void getBookById_Cbor() throws Exception {
+        when(bookService.getBookById(1L)).thenReturn(book);
+
+        byte[] body = mockMvc.perform(get("/books/{id}", 1).accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        BookView view = new ObjectMapper(new CBORFactory()).readValue(body, BookView.class);
+        assertEquals(new BookView(1L, 10L, "Test Author", "Test Title"), view);
+    }
+
     @Test
     void updateBook() throws Exception {
-        when(bookService.updateBook(anyLong(), any(Book.class))).thenReturn(book);
+        when(bookService.updateBook(anyLong(), any(Book.class), isNull())).thenReturn(book);
 
         mockMvc.perform(put("/books/{id}", 1L)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -86,26 +133,118 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.title").value("Test Title"))
                 .andExpect(jsonPath("$.amount").value(10));
 
-        verify(bookService, times(1)).updateBook(anyLong(), any(Book.class));
+        verify(bookService, times(1)).updateBook(anyLong(), any(Book.class), isNull());
     }
 
     @Test
     void deleteBook() throws Exception {
-        when(bookService.deleteBook(anyLong())).thenReturn(true);
+        when(bookService.deleteBook(anyLong(), isNull())).thenReturn(true);
 
         mockMvc.perform(delete("/books/{id}", 1L))
                 .andExpect(status().isNoContent());
 
-        verify(bookService, times(1)).deleteBook(anyLong());
+        verify(bookService, times(1)).deleteBook(anyLong(), isNull());
     }
 
     @Test
     void deleteBook_InvalidRequest() throws Exception {
-        when(bookService.deleteBook(anyLong())).thenReturn(false);
+        when(bookService.deleteBook(anyLong(), isNull())).thenReturn(false);
 
         mockMvc.perform(delete("/books/{id}", 1L))
                 .andExpect(status().isBadRequest());
 
-        verify(bookService, times(1)).deleteBook(anyLong());
+        verify(bookService, times(1)).deleteBook(anyLong(), isNull());
+    }
+
+    @Test
+    void getBookById_ReturnsETag() throws Exception {
+        book.setVersion(3L);
+        when(bookService.getBookById(anyLong())).thenReturn(book);
+
+        mockMvc.perform(get("/books/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3\""));
+    }
+
+    @Test
+    void getBookById_NotModifiedFromCachedVersion() throws Exception {
+        when(bookService.getCachedVersion(1L)).thenReturn(3L);
+
+        mockMvc.perform(get("/books/{id}", 1).header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1-3\""));
+
+        verify(bookService, never()).getBookById(anyLong());
+    }
+
+    @Test
+    void getBookById_StaleETagReturnsBody() throws Exception {
+        book.setVersion(4L);
+        when(bookService.getCachedVersion(1L)).thenReturn(4L);
+        when(bookService.getBookById(1L)).thenReturn(book);
+
+        mockMvc.perform(get("/books/{id}", 1).header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-4\""))
+                .andExpect(jsonPath("$.title").value("Test Title"));
+    }
+
+    @Test
+    void updateBook_PassesIfMatchVersion() throws Exception {
+        when(bookService.updateBook(eq(1L), any(Book.class), eq(3L))).thenReturn(book);
+
+        mockMvc.perform(put("/books/{id}", 1L)
+                        .header("If-Match", "\"1-3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(book)))
+                .andExpect(status().isOk());
+
+        verify(bookService, times(1)).updateBook(eq(1L), any(Book.class), eq(3L));
+    }
+
+    @Test
+    void deleteBook_ForeignETagNeverMatches() throws Exception {
+        when(bookService.deleteBook(1L, -1L)).thenReturn(false);
+
+        mockMvc.perform(delete("/books/{id}", 1L).header("If-Match", "\"2-3\""))
+                .andExpect(status().isBadRequest());
+
+        verify(bookService, times(1)).deleteBook(1L, -1L);
+    }
+
+    @Test
+    void deleteBooks() throws Exception {
+        when(bookService.deleteBooks(List.of(1L, 2L))).thenReturn(new BulkDeleteResult(List.of(1L), List.of(2L)));
+
+        mockMvc.perform(delete("/books").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deletedIds[0]").value(1))
+                .andExpect(jsonPath("$.retainedIds[0]").value(2));
+    }
+
+    @Test
+    void adjustStock() throws Exception {
+        List<StockAdjustment> adjustments = List.of(new StockAdjustment(1L, 5L, null), new StockAdjustment(2L, null, 3L));
+        when(stockAdjustmentService.adjust(adjustments)).thenReturn(new BulkAdjustmentResult(1, 1, List.of(
+                new StockAdjustmentResult(1L, StockAdjustmentResult.Status.APPLIED, 15L),
+                new StockAdjustmentResult(2L, StockAdjustmentResult.Status.NOT_FOUND, null))));
+
+        mockMvc.perform(post("/books/adjustments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(adjustments)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(1))
+                .andExpect(jsonPath("$.results[0].amount").value(15))
+                .andExpect(jsonPath("$.results[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    void adjustStock_Empty() throws Exception {
+        mockMvc.perform(post("/books/adjustments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(stockAdjustmentService);
     }
-}
\ No newline at end of file
+}
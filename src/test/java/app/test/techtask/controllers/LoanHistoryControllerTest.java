@@ -0,0 +1,80 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.data.LoanView;
+import app.test.techtask.services.LoanHistoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanHistoryControllerTest {
+
+    @Mock
+    private LoanHistoryService loanHistoryService;
+
+    @InjectMocks
+    private LoanHistoryController loanHistoryController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(loanHistoryController).build();
+    }
+
+    @Test
+    void getMemberHistory_DefaultsToLast90Days() throws Exception {
+        LoanView loan = new LoanView(1L, 1L, 2L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 15));
+        when(loanHistoryService.getMemberHistory(eq(1L), any(LocalDate.class), any(LocalDate.class), eq(0), eq(50)))
+                .thenReturn(List.of(loan));
+
+        mockMvc.perform(get("/members/{memberId}/history", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookId").value(2));
+
+        LocalDate today = LocalDate.now();
+        verify(loanHistoryService).getMemberHistory(1L, today.minusDays(90), today, 0, 50);
+    }
+
+    @Test
+    void getBookHistory_WithRange() throws Exception {
+        when(loanHistoryService.getBookHistory(anyLong(), any(), any(), anyInt(), anyInt())).thenReturn(List.of());
+
+        mockMvc.perform(get("/books/{bookId}/history", 2L)
+                        .param("from", "2024-01-01")
+                        .param("to", "2024-03-31")
+                        .param("size", "20"))
+                .andExpect(status().isOk());
+
+        verify(loanHistoryService).getBookHistory(2L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 31), 0, 20);
+    }
+
+    @Test
+    void getHistory_InvertedRange() throws Exception {
+        mockMvc.perform(get("/loans/history")
+                        .param("from", "2024-03-01")
+                        .param("to", "2024-01-01"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(loanHistoryService);
+    }
+
+    @Test
+    void getHistory_MissingRange() throws Exception {
+        mockMvc.perform(get("/loans/history"))
+                .andExpect(status().isBadRequest());
+    }
+}
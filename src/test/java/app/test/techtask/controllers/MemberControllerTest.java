@@ -1,5 +1,6 @@
 package app.test.techtask.controllers;
 
+import app.test.techtask.cache.ExistenceFilters;
 import app.test.techtask.data.Member;
 import app.test.techtask.services.MemberService;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
@@ -18,6 +20,7 @@ import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -29,6 +32,9 @@ class MemberControllerTest {
     @Mock
     private MemberService memberService;
 
+    @Spy
+    private ExistenceFilters existenceFilters = new ExistenceFilters(true, true, 0, 100, 0.01);
+
     @InjectMocks
     private MemberController memberController;
 
@@ -69,6 +75,19 @@ class MemberControllerTest {
         verify(memberService, times(1)).getMember(anyLong());
     }
 
+    @Test
+    void getMember_DefiniteMissSkipsService() throws Exception {
+        existenceFilters.rebuild(seed -> {
+            seed.addMember(1L, "Test Member");
+            seed.addMember(3L, "Other Member");
+        });
+
+        mockMvc.perform(get("/members/{id}", 2L))
+                .andExpect(status().isNotFound());
+
+        verifyNoInteractions(memberService);
+    }
+
     @Test
     void updateMember() throws Exception {
         // Arrange: створюємо мок об'єкта Member
@@ -77,7 +96,7 @@ class MemberControllerTest {
         updatedMember.setMemberName("Updated Member");
 
         when(memberService.getMember(anyLong())).thenReturn(Optional.of(updatedMember));
-        when(memberService.updateMember(anyLong(), any(Member.class))).thenReturn(updatedMember);
+        when(memberService.updateMember(anyLong(), any(Member.class), isNull())).thenReturn(updatedMember);
 
         // Act & Assert: виконання PUT запиту з параметрами
         mockMvc.perform(put("/members/{id}", 1L)
@@ -91,12 +110,12 @@ class MemberControllerTest {
 
     @Test
     void deleteMember() throws Exception {
-        when(memberService.deleteMember(anyLong())).thenReturn(true);
+        when(memberService.deleteMember(anyLong(), isNull())).thenReturn(true);
 
         mockMvc.perform(delete("/members/{id}", 1L))
                 .andExpect(status().isNoContent());
 
-        verify(memberService, times(1)).deleteMember(anyLong());
+        verify(memberService, times(1)).deleteMember(anyLong(), isNull());
     }
 
     @Test
@@ -133,6 +152,18 @@ class MemberControllerTest {
         verify(memberService, times(1)).getBooksBorrowedByMemberName(anyString());
     }
 
+    @Test
+    void getBooksBorrowedByMemberName_UnknownNameSkipsService() throws Exception {
+        existenceFilters.rebuild(seed -> seed.addMember(1L, "Test Member"));
+
+        mockMvc.perform(get("/members/books/borrowed")
+                        .param("memberName", "Nobody"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+
+        verifyNoInteractions(memberService);
+    }
+
     @Test
     void getBorrowedBookNamesWithCount() throws Exception {
         when(memberService.getBorrowedBookNamesWithCount()).thenReturn(Map.of("Book 1", 2L, "Book 2", 3L));
@@ -144,4 +175,24 @@ class MemberControllerTest {
 
         verify(memberService, times(1)).getBorrowedBookNamesWithCount();
     }
-}
\ No newline at end of file
+
+    @Test
+    void getMember_NotModified() throws Exception {
+        member.setVersion(2L);
+        when(memberService.getMember(1L)).thenReturn(Optional.of(member));
+
+        mockMvc.perform(get("/members/{id}", 1L).header("If-None-Match", "\"1-2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1-2\""));
+    }
+
+    @Test
+    void getMember_NotModifiedFromCachedVersion() throws Exception {
+        when(memberService.getCachedVersion(1L)).thenReturn(2L);
+
+        mockMvc.perform(get("/members/{id}", 1L).header("If-None-Match", "\"1-2\""))
+                .andExpect(status().isNotModified());
+
+        verify(memberService, never()).getMember(anyLong());
+    }
+}
@@ -0,0 +1,64 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.services.OverdueScanner;
+import app.test.techtask.services.OverdueSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueControllerTest {
+
+    @Mock
+    private OverdueScanner overdueScanner;
+
+    @InjectMocks
+    private OverdueController overdueController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(overdueController).build();
+    }
+
+    @Test
+    void getOverdueMembers() throws Exception {
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        when(overdueScanner.getSummary()).thenReturn(new OverdueSummary(3L, date, null, 2, 3, List.of(
+                new OverdueSummary.OverdueMember(1L, "Ann", 2, date),
+                new OverdueSummary.OverdueMember(2L, "Bob", 1, date))));
+
+        mockMvc.perform(get("/members/overdue").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalMembers").value(2))
+                .andExpect(jsonPath("$.members.length()").value(1))
+                .andExpect(jsonPath("$.members[0].memberName").value("Ann"));
+    }
+
+    @Test
+    void getOverdueMembers_NoScanYet() throws Exception {
+        when(overdueScanner.getSummary()).thenReturn(null);
+
+        mockMvc.perform(get("/members/overdue"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getOverdueMembers_InvalidLimit() throws Exception {
+        mockMvc.perform(get("/members/overdue").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+}
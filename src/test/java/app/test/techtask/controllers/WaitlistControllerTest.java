@@ -0,0 +1,89 @@
+package app.test.techtask.controllers;
+
+import app.test.techtask.data.Reservation;
+import app.test.techtask.services.WaitlistEntry;
+import app.test.techtask.services.WaitlistNotifier;
+import app.test.techtask.services.WaitlistService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class WaitlistControllerTest {
+
+    @Mock
+    private WaitlistService waitlistService;
+
+    @Mock
+    private WaitlistNotifier waitlistNotifier;
+
+    @InjectMocks
+    private WaitlistController waitlistController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(waitlistController).build();
+    }
+
+    @Test
+    void reserveBook() throws Exception {
+        when(waitlistService.reserve(1L, 2L))
+                .thenReturn(Optional.of(new WaitlistEntry(2L, 1L, Reservation.Status.WAITING, 3L, null)));
+
+        mockMvc.perform(post("/members/{memberId}/reserve/{bookId}", 1L, 2L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.position").value(3))
+                .andExpect(jsonPath("$.status").value("WAITING"));
+    }
+
+    @Test
+    void reserveBook_Rejected() throws Exception {
+        when(waitlistService.reserve(anyLong(), anyLong())).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/members/{memberId}/reserve/{bookId}", 1L, 2L))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void cancelReservation_NotFound() throws Exception {
+        when(waitlistService.cancel(1L, 2L)).thenReturn(false);
+
+        mockMvc.perform(delete("/members/{memberId}/reserve/{bookId}", 1L, 2L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void awaitNotifications() throws Exception {
+        DeferredResult<List<WaitlistEntry>> deferred = new DeferredResult<>();
+        deferred.setResult(List.of(new WaitlistEntry(2L, 1L, Reservation.Status.HELD, 0L, null)));
+        when(waitlistNotifier.awaitHolds(eq(1L), eq(Duration.ofSeconds(60)))).thenReturn(deferred);
+
+        MvcResult result = mockMvc.perform(get("/members/{memberId}/notifications", 1L).param("timeoutSeconds", "600"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookId").value(2))
+                .andExpect(jsonPath("$[0].status").value("HELD"));
+    }
+}
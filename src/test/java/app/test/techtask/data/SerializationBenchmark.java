@@ -0,0 +1,123 @@
+package app.test.techtask.data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization time of a 1000 book list as entities through plain Jackson versus view records
+ * with Blackbird, as JSON, CBOR and Smile. {@code main} first prints the bytes on the wire of
+ * each format, raw and gzipped.
+ *
+ * Run with {@code mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath app.test.techtask.data.SerializationBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final int BOOKS = 1000;
+
+    private List<Book> entities;
+    private List<BookView> views;
+    private List<LoanView> loans;
+    private ObjectMapper reflective;
+    private ObjectMapper json;
+    private ObjectMapper cbor;
+    private ObjectMapper smile;
+
+    @Setup
+    public void setUp() {
+        entities = new ArrayList<>(BOOKS);
+        views = new ArrayList<>(BOOKS);
+        loans = new ArrayList<>(BOOKS);
+        LocalDate day = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book("Author Number", "Title" + (char) ('a' + i % 26) + i, (long) (i % 20));
+            book.setId((long) i);
+            book.setVersion(3L);
+            entities.add(book);
+            views.add(BookView.of(book));
+            loans.add(new LoanView((long) i, (long) (i % 97), (long) i, day.plusDays(i % 365), day.plusDays(i % 365 + 14)));
+        }
+        reflective = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        json = withModules(new ObjectMapper());
+        cbor = withModules(new ObjectMapper(new CBORFactory()));
+        smile = withModules(new ObjectMapper(new SmileFactory()));
+    }
+
+    private static ObjectMapper withModules(ObjectMapper mapper) {
+        return mapper.registerModule(new JavaTimeModule())
+                .registerModule(new BlackbirdModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Benchmark
+    public byte[] entityJson() throws IOException {
+        return reflective.writeValueAsBytes(entities);
+    }
+
+    @Benchmark
+    public byte[] viewJson() throws IOException {
+        return json.writeValueAsBytes(views);
+    }
+
+    @Benchmark
+    public byte[] viewCbor() throws IOException {
+        return cbor.writeValueAsBytes(views);
+    }
+
+    @Benchmark
+    public byte[] viewSmile() throws IOException {
+        return smile.writeValueAsBytes(views);
+    }
+
+    @Benchmark
+    public byte[] loanJson() throws IOException {
+        return json.writeValueAsBytes(loans);
+    }
+
+    @Benchmark
+    public byte[] loanSmile() throws IOException {
+        return smile.writeValueAsBytes(loans);
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        SerializationBenchmark sizes = new SerializationBenchmark();
+        sizes.setUp();
+        printSize("books json", sizes.viewJson());
+        printSize("books cbor", sizes.viewCbor());
+        printSize("books smile", sizes.viewSmile());
+        printSize("loans json", sizes.loanJson());
+        printSize("loans smile", sizes.loanSmile());
+        new Runner(new OptionsBuilder().include(SerializationBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static void printSize(String name, byte[] body) throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(body);
+        }
+        System.out.printf("%-12s %8d bytes, %7d gzipped%n", name, body.length, gzipped.size());
+    }
+}
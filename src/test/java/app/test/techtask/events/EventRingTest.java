@@ -0,0 +1,125 @@
+package app.test.techtask.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventRingTest {
+
+    @Test
+    void blockingConsumer_ReceivesEveryEventOfEveryProducerInOrder() throws Exception {
+        EventRing<long[]> ring = new EventRing<>("test", 64, 16, 20_000);
+        List<long[]> received = new ArrayList<>();
+        ring.addConsumer("collector", BackpressurePolicy.BLOCK, received::addAll);
+
+        int producers = 4;
+        int perProducer = 5_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                for (long i = 0; i < perProducer; i++) {
+                    ring.publish(new long[] {producer, i});
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        ring.halt(Duration.ofSeconds(10));
+
+        assertEquals(producers * perProducer, received.size());
+        long[] expectedNext = new long[producers];
+        for (long[] event : received) {
+            assertEquals(expectedNext[(int) event[0]]++, event[1]);
+        }
+        EventRing.ConsumerStats stats = ring.getStats().consumers().get(0);
+        assertEquals(producers * perProducer, stats.processed());
+        assertEquals(0, stats.dropped());
+        assertEquals(0, stats.lag());
+        assertTrue(stats.largestBatch() <= 16);
+    }
+
+    @Test
+    void droppingConsumer_NeverHoldsProducersUp() throws Exception {
+        EventRing<Integer> ring = new EventRing<>("test", 8, 4, 8);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> received = new ArrayList<>();
+        ring.addConsumer("slow", BackpressurePolicy.DROP, batch -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.addAll(batch);
+        });
+
+        ring.publish(0);
+        Thread.sleep(50);
+        for (int i = 1; i < 100; i++) {
+            assertTrue(ring.publish(i));
+        }
+        release.countDown();
+        ring.halt(Duration.ofSeconds(10));
+
+        EventRing.ConsumerStats stats = ring.getStats().consumers().get(0);
+        assertEquals(100, ring.getStats().published());
+        assertEquals(100, stats.processed() + stats.dropped());
+        assertTrue(stats.dropped() > 0);
+        assertEquals(99, received.get(received.size() - 1));
+    }
+
+    @Test
+    void blockingConsumer_SpillsToOverflowInsteadOfHoldingProducersUp() throws Exception {
+        EventRing<Integer> ring = new EventRing<>("test", 8, 4, 16);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> received = new ArrayList<>();
+        ring.addConsumer("slow", BackpressurePolicy.BLOCK, batch -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.addAll(batch);
+        });
+
+        for (int i = 0; i < 24; i++) {
+            assertTrue(ring.publish(i));
+        }
+        assertFalse(ring.publish(24));
+        EventRing.Stats stats = ring.getStats();
+        assertEquals(1, stats.rejected());
+        assertTrue(stats.overflowSize() > 0);
+
+        release.countDown();
+        ring.halt(Duration.ofSeconds(10));
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, received);
+        assertEquals(0, ring.getStats().overflowSize());
+    }
+
+    @Test
+    void publish_RejectedAfterHalt() throws Exception {
+        EventRing<Integer> ring = new EventRing<>("test", 8, 4, 8);
+        ring.halt(Duration.ZERO);
+
+        assertFalse(ring.publish(1));
+    }
+
+    @Test
+    void constructor_RequiresPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new EventRing<Integer>("test", 10, 4, 8));
+    }
+}
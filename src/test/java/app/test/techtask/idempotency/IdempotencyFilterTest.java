@@ -0,0 +1,134 @@
+package app.test.techtask.idempotency;
+
+import app.test.techtask.cache.ExistenceFilters;
+import app.test.techtask.controllers.MemberController;
+import app.test.techtask.repositories.IdempotencyRecordRepository;
+import app.test.techtask.services.MemberService;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyFilterTest {
+
+    @Mock
+    private MemberService memberService;
+
+    @Mock
+    private IdempotencyRecordRepository recordRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyFilter filter = new IdempotencyFilter(recordRepository, Duration.ofHours(1), 1000, 4, false);
+        mockMvc = MockMvcBuilders.standaloneSetup(new MemberController(memberService, new ExistenceFilters(true, true, 0, 100, 0.01))).addFilters(filter).build();
+    }
+
+    @Test
+    void retryReturnsOriginalOutcomeWithoutBorrowingAgain() throws Exception {
+        when(memberService.borrowBook(1L, 2L)).thenReturn(true);
+
+        mockMvc.perform(post("/members/1/borrow/2").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        mockMvc.perform(post("/members/1/borrow/2").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(content().string("Book borrowed successfully"));
+
+        verify(memberService, times(1)).borrowBook(1L, 2L);
+        verifyNoInteractions(recordRepository);
+    }
+
+    @Test
+    void keyIsScopedToEndpoint() throws Exception {
+        when(memberService.borrowBook(1L, 2L)).thenReturn(true);
+        when(memberService.returnBook(1L, 2L)).thenReturn(true);
+
+        mockMvc.perform(post("/members/1/borrow/2").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k-2"));
+        mockMvc.perform(post("/members/1/return/2").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k-2"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Book returned successfully"));
+
+        verify(memberService).returnBook(1L, 2L);
+    }
+
+    @Test
+    void failedOutcomeIsReplayedButServerErrorIsNot() throws Exception {
+        when(memberService.borrowBook(1L, 2L)).thenReturn(false);
+        when(memberService.returnBook(1L, 2L)).thenThrow(new IllegalStateException("boom")).thenReturn(true);
+
+        mockMvc.perform(post("/members/1/borrow/2").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k-3"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/members/1/borrow/2").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k-3"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+        verify(memberService, times(1)).borrowBook(1L, 2L);
+
+        try {
+            mockMvc.perform(post("/members/1/return/2").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k-4"));
+        } catch (Exception expected) {
+            // the standalone setup has no handler for the exception
+        }
+        mockMvc.perform(post("/members/1/return/2").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k-4"))
+                .andExpect(status().isOk());
+        verify(memberService, times(2)).returnBook(1L, 2L);
+    }
+
+    @Test
+    void rateLimitedOutcomeIsNotReplayed() throws Exception {
+        when(memberService.borrowBook(1L, 2L)).thenReturn(true);
+        AtomicBoolean limited = new AtomicBoolean(true);
+        Filter rateLimit = (request, response, chain) -> {
+            if (limited.getAndSet(false)) {
+                ((HttpServletResponse) response).setStatus(429);
+            } else {
+                chain.doFilter(request, response);
+            }
+        };
+        MockMvc limitedMvc = MockMvcBuilders
+                .standaloneSetup(new MemberController(memberService, new ExistenceFilters(true, true, 0, 100, 0.01)))
+                .addFilters(new IdempotencyFilter(recordRepository, Duration.ofHours(1), 1000, 4, false), rateLimit)
+                .build();
+
+        limitedMvc.perform(post("/members/1/borrow/2").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k-5"))
+                .andExpect(status().isTooManyRequests());
+        limitedMvc.perform(post("/members/1/borrow/2").header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "k-5"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        verify(memberService).borrowBook(1L, 2L);
+    }
+
+    @Test
+    void keepsOnlyOutcomesOfTheRequestItself() {
+        assertTrue(IdempotencyFilter.isKept(200));
+        assertTrue(IdempotencyFilter.isKept(400));
+        assertFalse(IdempotencyFilter.isKept(409));
+        assertFalse(IdempotencyFilter.isKept(429));
+        assertFalse(IdempotencyFilter.isKept(503));
+    }
+
+    @Test
+    void rejectsOverlongKey() throws Exception {
+        mockMvc.perform(post("/members/1/borrow/2")
+                        .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "x".repeat(IdempotencyFilter.MAX_KEY_LENGTH + 1)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(memberService);
+    }
+}
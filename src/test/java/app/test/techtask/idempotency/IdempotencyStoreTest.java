@@ -0,0 +1,113 @@
+package app.test.techtask.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private static final StoredResponse OK = new StoredResponse(200, "text/plain", null, "done".getBytes());
+
+    @Test
+    void claimsOnceAndReturnsStoredOutcome() {
+        IdempotencyStore store = new IdempotencyStore(4, 100, 1_000);
+
+        assertNull(store.claim("a", 0));
+        IdempotencyStore.Slot inFlight = store.claim("a", 10);
+        assertNotNull(inFlight);
+        assertNull(inFlight.response());
+
+        store.complete("a", OK);
+
+        assertSame(OK, store.claim("a", 20).response());
+    }
+
+    @Test
+    void releasedAndExpiredKeysCanBeClaimedAgain() {
+        IdempotencyStore store = new IdempotencyStore(4, 100, 1_000);
+        store.claim("a", 0);
+        store.release("a");
+        assertNull(store.claim("a", 0));
+
+        store.claim("b", 0);
+        store.complete("b", OK);
+        store.release("b");
+        assertNotNull(store.claim("b", 999));
+        assertNull(store.claim("b", 1_000));
+    }
+
+    @Test
+    void releasedAndReplacedSlotsLeaveTheQueue() {
+        IdempotencyStore store = new IdempotencyStore(1, 100, 1_000);
+        for (int i = 0; i < 10; i++) {
+            store.claim("a", 0);
+            store.release("a");
+        }
+        store.claim("b", 0);
+        store.complete("b", OK);
+        store.claim("b", 1_000);
+
+        assertEquals(1, store.size());
+        assertEquals(1, store.queued());
+    }
+
+    @Test
+    void capacityBoundKeepsInFlightSlots() {
+        IdempotencyStore store = new IdempotencyStore(1, 2, 1_000);
+        store.claim("running", 0);
+        store.claim("done", 1);
+        store.complete("done", OK);
+        store.claim("new", 2);
+
+        assertEquals(2, store.size());
+        assertNull(store.claim("running", 3).response());
+        assertNull(store.claim("done", 3));
+    }
+
+    @Test
+    void purgesExpiredAndEvictsOldestOverCapacity() {
+        IdempotencyStore store = new IdempotencyStore(1, 3, 1_000);
+        for (int i = 0; i < 5; i++) {
+            store.claim("k" + i, i);
+            store.complete("k" + i, OK);
+        }
+
+        assertEquals(3, store.size());
+        assertNull(store.claim("k0", 10));
+        store.purgeExpired(1_003);
+        assertEquals(2, store.size());
+        store.purgeExpired(5_000);
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void onlyOneConcurrentClaimWins() throws InterruptedException {
+        IdempotencyStore store = new IdempotencyStore(16, 10_000, 60_000);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+        for (int i = 0; i < 64; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (store.claim("same", 0) == null) {
+                    winners.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, winners.get());
+    }
+}
@@ -0,0 +1,84 @@
+package app.test.techtask.outbox;
+
+import app.test.techtask.data.OutboxMessage;
+import app.test.techtask.repositories.OutboxMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final InMemoryOutboxSink sink = new InMemoryOutboxSink();
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        relay = new OutboxRelay(outboxMessageRepository, sink, transactionManager, 2, 10);
+    }
+
+    private static OutboxMessage message(long id) {
+        OutboxMessage message = new OutboxMessage("BORROWED", 1L, "{}", Instant.EPOCH);
+        message.setId(id);
+        return message;
+    }
+
+    @Test
+    void poll_DeliversAndDeletesBatchesUntilDrained() {
+        when(outboxMessageRepository.claimBatch(2))
+                .thenReturn(List.of(message(1), message(2)))
+                .thenReturn(List.of(message(3)));
+
+        relay.poll();
+
+        assertEquals(List.of(1L, 2L, 3L), sink.getDelivered().stream().map(OutboxMessage::getId).toList());
+        verify(outboxMessageRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(outboxMessageRepository).deleteAllByIdInBatch(List.of(3L));
+        verify(outboxMessageRepository, times(2)).claimBatch(2);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void poll_KeepsBatchWhenDeliveryFails() {
+        OutboxSink failingSink = messages -> {
+            throw new IllegalStateException("sink down");
+        };
+        relay = new OutboxRelay(outboxMessageRepository, failingSink, transactionManager, 2, 10);
+        when(outboxMessageRepository.claimBatch(2)).thenReturn(List.of(message(1)));
+
+        relay.poll();
+
+        verify(outboxMessageRepository, never()).deleteAllByIdInBatch(anyList());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void poll_NothingToDeliver() {
+        when(outboxMessageRepository.claimBatch(2)).thenReturn(List.of());
+
+        relay.poll();
+
+        verify(outboxMessageRepository, never()).deleteAllByIdInBatch(anyList());
+        assertEquals(0, sink.getDelivered().size());
+    }
+}
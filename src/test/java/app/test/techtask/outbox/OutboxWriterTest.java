@@ -0,0 +1,49 @@
+package app.test.techtask.outbox;
+
+import app.test.techtask.data.OutboxMessage;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.repositories.OutboxMessageRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxWriterTest {
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void onInventoryEvent_WritesLoanChanges() throws Exception {
+        OutboxWriter writer = new OutboxWriter(outboxMessageRepository, objectMapper);
+
+        writer.onInventoryEvent(new InventoryEvent(InventoryEvent.Type.RETURNED, 2L, 1L, 4L));
+
+        ArgumentCaptor<OutboxMessage> captor = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(outboxMessageRepository).save(captor.capture());
+        assertEquals("RETURNED", captor.getValue().getEventType());
+        assertEquals(1L, captor.getValue().getAggregateId());
+        JsonNode payload = objectMapper.readTree(captor.getValue().getPayload());
+        assertEquals(2L, payload.get("bookId").asLong());
+        assertEquals(4L, payload.get("available").asLong());
+    }
+
+    @Test
+    void onInventoryEvent_IgnoresStockChanges() {
+        OutboxWriter writer = new OutboxWriter(outboxMessageRepository, objectMapper);
+
+        writer.onInventoryEvent(InventoryEvent.of(InventoryEvent.Type.UPDATED, 2L, 4L));
+
+        verify(outboxMessageRepository, never()).save(any());
+    }
+}
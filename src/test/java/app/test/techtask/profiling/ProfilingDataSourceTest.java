@@ -0,0 +1,80 @@
+package app.test.techtask.profiling;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProfilingDataSourceTest {
+
+    @Mock
+    private DataSource target;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private Statement statement;
+
+    private SqlProfiler profiler;
+    private ProfilingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        profiler = new SqlProfiler(Duration.ofSeconds(1), 100, 16);
+        dataSource = new ProfilingDataSource(target, profiler);
+        when(target.getConnection()).thenReturn(connection);
+    }
+
+    @Test
+    void records_PreparedAndPlainStatements() throws SQLException {
+        when(connection.prepareStatement("update books set amount = ? where id = ?")).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+        when(connection.createStatement()).thenReturn(statement);
+
+        try (Connection profiled = dataSource.getConnection()) {
+            PreparedStatement update = profiled.prepareStatement("update books set amount = ? where id = ?");
+            update.setLong(1, 3);
+            assertEquals(1, update.executeUpdate());
+            update.executeUpdate();
+            profiled.createStatement().execute("create table loan_history_202401 (id bigint)");
+        }
+
+        SqlProfileReport report = profiler.report(10);
+        assertEquals(3, report.executions());
+        StatementProfile profile = report.statements().stream()
+                .filter(statement -> statement.sql().equals("update books set amount = ? where id = ?"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2, profile.count());
+        verify(preparedStatement).setLong(1, 3);
+        verify(connection).close();
+    }
+
+    @Test
+    void records_FailedStatementsAndRethrows() throws SQLException {
+        when(connection.prepareStatement("select 1")).thenReturn(preparedStatement);
+        SQLException failure = new SQLException("timeout");
+        when(preparedStatement.executeQuery()).thenThrow(failure);
+
+        Connection profiled = dataSource.getConnection();
+        PreparedStatement query = profiled.prepareStatement("select 1");
+
+        assertSame(failure, assertThrows(SQLException.class, query::executeQuery));
+        assertEquals(1, profiler.report(10).executions());
+        assertEquals(query, query);
+        assertNotEquals(preparedStatement, query);
+    }
+}
@@ -0,0 +1,116 @@
+package app.test.techtask.profiling;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost the profiler adds to every statement: recording a timing for a hot statement, and for
+ * statements spread over a realistic number of distinct statements and endpoints. The execute
+ * benchmarks run the same prepared statement on an in-memory H2 connection directly and through
+ * {@link ProfilingDataSource}, so their difference is the whole overhead of the proxies, the
+ * reflective calls and the recording.
+ *
+ * Run with {@code mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath app.test.techtask.profiling.SqlProfilerBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlProfilerBenchmark {
+
+    private static final int STATEMENTS = 200;
+    private static final int ENDPOINTS = 40;
+
+    private SqlProfiler profiler;
+    private String[] statements;
+    private String[] endpoints;
+
+    @Setup
+    public void setUp() {
+        profiler = new SqlProfiler(Duration.ofMillis(100), 1000, 256);
+        statements = new String[STATEMENTS];
+        for (int i = 0; i < STATEMENTS; i++) {
+            statements[i] = "select b1_0.id,b1_0.amount from books_" + (char) ('a' + i % 26) + i / 26
+                    + " b1_0 where b1_0.id=?";
+        }
+        endpoints = new String[ENDPOINTS];
+        for (int i = 0; i < ENDPOINTS; i++) {
+            endpoints[i] = "GET /endpoint" + i + "/{id}";
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void hotStatement() {
+        SqlProfiler.setEndpoint("GET /books/{id}");
+        profiler.record(statements[0], 250_000);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void spreadStatements() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SqlProfiler.setEndpoint(endpoints[random.nextInt(ENDPOINTS)]);
+        profiler.record(statements[random.nextInt(STATEMENTS)], random.nextLong(1_000_000));
+    }
+
+    @Benchmark
+    public boolean directExecute(Connections connections) throws SQLException {
+        return execute(connections.directQuery);
+    }
+
+    @Benchmark
+    public boolean profiledExecute(Connections connections) throws SQLException {
+        return execute(connections.profiledQuery);
+    }
+
+    private static boolean execute(PreparedStatement query) throws SQLException {
+        query.setLong(1, 42);
+        try (ResultSet rows = query.executeQuery()) {
+            return rows.next();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Connections {
+
+        private Connection direct;
+        private Connection profiled;
+        private PreparedStatement directQuery;
+        private PreparedStatement profiledQuery;
+
+        @Setup
+        public void setUp() throws SQLException {
+            DriverManagerDataSource target = new DriverManagerDataSource("jdbc:h2:mem:", "sa", "");
+            SqlProfiler profiler = new SqlProfiler(Duration.ofMillis(100), 1000, 256);
+            direct = target.getConnection();
+            profiled = new ProfilingDataSource(target, profiler).getConnection();
+            directQuery = direct.prepareStatement("select cast(? as bigint)");
+            profiledQuery = profiled.prepareStatement("select cast(? as bigint)");
+        }
+
+        @TearDown
+        public void tearDown() throws SQLException {
+            direct.close();
+            profiled.close();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SqlProfilerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
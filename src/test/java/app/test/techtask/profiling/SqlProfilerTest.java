@@ -0,0 +1,125 @@
+package app.test.techtask.profiling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlProfilerTest {
+
+    private static final long MS = 1_000_000;
+
+    private SqlProfiler profiler;
+
+    @BeforeEach
+    void setUp() {
+        profiler = new SqlProfiler(Clock.fixed(Instant.EPOCH, ZoneOffset.UTC), Duration.ofMillis(100), 3, 128);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlProfiler.clearEndpoint();
+    }
+
+    @Test
+    void normalize_RemovesValuesAndCollapsesInLists() {
+        assertEquals("select b.id from books b where b.title = ? and b.amount > ? and b.id in (...)",
+                SqlNormalizer.normalize("select b.id from books b\n  where b.title = 'It''s'  and b.amount > 10 "
+                        + "and b.id in (?, ?,?)"));
+        assertEquals("select b1_0.id from loan_history_202610 b1_0 where b1_0.id in (...)",
+                SqlNormalizer.normalize("select b1_0.id from loan_history_202610 b1_0 where b1_0.id in (1, 2, 3)"));
+    }
+
+    @Test
+    void record_AggregatesPerStatementAndEndpoint() {
+        SqlProfiler.setEndpoint("GET /books/{id}");
+        profiler.record("select * from books where id=?", 2 * MS);
+        profiler.record("select * from books where id=?", 4 * MS);
+        SqlProfiler.setEndpoint("POST /members/{memberId}/borrow/{bookId}");
+        profiler.record("select * from books  where id=?", 6 * MS);
+        profiler.record("update books set amount=? where id=?", 1 * MS);
+        SqlProfiler.clearEndpoint();
+        profiler.record("delete from books where id in (1, 2)", 3 * MS);
+
+        SqlProfileReport report = profiler.report(10);
+
+        assertEquals(5, report.executions());
+        StatementProfile select = report.statements().get(0);
+        assertEquals("select * from books where id=?", select.sql());
+        assertEquals(3, select.count());
+        assertEquals(12.0, select.totalMillis());
+        assertEquals(6.0, select.maxMillis());
+        assertEquals(6.0, select.p99Millis());
+        assertEquals(List.of("GET /books/{id}", "POST /members/{memberId}/borrow/{bookId}"),
+                select.endpoints().stream().map(EndpointProfile::endpoint).toList());
+        assertEquals(new EndpointProfile("POST /members/{memberId}/borrow/{bookId}", 2, 7.0, 6.0, 6.0),
+                report.endpoints().get(0));
+        assertEquals(SqlProfiler.NO_ENDPOINT, report.endpoints().get(2).endpoint());
+        assertEquals("delete from books where id in (...)", report.statements().get(1).sql());
+    }
+
+    @Test
+    void record_CountsStatementsBeyondLimitAsOther() {
+        for (int i = 0; i < 5; i++) {
+            profiler.record("select * from t" + "abcde".charAt(i), MS);
+        }
+
+        List<StatementProfile> statements = profiler.report(10).statements();
+
+        assertEquals(4, statements.size());
+        assertEquals(SqlProfiler.OTHER, statements.get(0).sql());
+        assertEquals(2, statements.get(0).count());
+    }
+
+    @Test
+    void record_KeepsRecentSlowQueriesWithoutValues() {
+        SqlProfiler.setEndpoint("GET /members/overdue");
+        profiler.record("select * from borrowed_books where due < '2024-01-01'", 150 * MS);
+        profiler.record("select * from books where id = 7", 99 * MS);
+        profiler.record("select * from members where name = 'Ann'", 300 * MS);
+
+        List<SlowQuery> slow = profiler.report(10).slowQueries();
+
+        assertEquals(2, slow.size());
+        assertEquals(new SlowQuery("select * from members where name = ?", "GET /members/overdue", 300.0, Instant.EPOCH),
+                slow.get(0));
+        assertEquals("select * from borrowed_books where due < ?", slow.get(1).sql());
+    }
+
+    @Test
+    void percentile_UsesRecentSamples() {
+        LatencyStats stats = new LatencyStats(128);
+        for (int i = 1; i <= 100; i++) {
+            stats.record(i);
+        }
+        assertEquals(99, stats.percentileNanos(0.99));
+        assertEquals(50, stats.percentileNanos(0.5));
+
+        for (int i = 0; i < 128; i++) {
+            stats.record(1000);
+        }
+        assertEquals(1000, stats.percentileNanos(0.01));
+        assertEquals(228, stats.count());
+        assertEquals(1000, stats.maxNanos());
+    }
+
+    @Test
+    void reset_DropsEverything() {
+        profiler.record("select 1", 200 * MS);
+
+        profiler.reset();
+
+        SqlProfileReport report = profiler.report(10);
+        assertEquals(0, report.executions());
+        assertTrue(report.statements().isEmpty());
+        assertTrue(report.endpoints().isEmpty());
+        assertTrue(report.slowQueries().isEmpty());
+    }
+}
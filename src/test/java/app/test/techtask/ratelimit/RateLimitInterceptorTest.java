@@ -0,0 +1,94 @@
+package app.test.techtask.ratelimit;
+
+import app.test.techtask.cache.ExistenceFilters;
+import app.test.techtask.controllers.MemberController;
+import app.test.techtask.data.Member;
+import app.test.techtask.services.MemberService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitInterceptorTest {
+
+    @Mock
+    private MemberService memberService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(0.001, 2, 0.001, 3, 0.001, 1, 1000, "X-Client-Id");
+        mockMvc = MockMvcBuilders.standaloneSetup(new MemberController(memberService, new ExistenceFilters(true, true, 0, 100, 0.01)))
+                .addInterceptors(interceptor)
+                .build();
+    }
+
+    @Test
+    void limitsBorrowsPerMember() throws Exception {
+        when(memberService.borrowBook(anyLong(), anyLong())).thenReturn(true);
+
+        mockMvc.perform(post("/members/1/borrow/1").header("X-Client-Id", "kiosk-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RateLimitInterceptor.LIMIT_HEADER, "2"))
+                .andExpect(header().string(RateLimitInterceptor.REMAINING_HEADER, "1"));
+        mockMvc.perform(post("/members/1/borrow/2").header("X-Client-Id", "kiosk-2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RateLimitInterceptor.REMAINING_HEADER, "0"));
+        mockMvc.perform(post("/members/1/return/1").header("X-Client-Id", "kiosk-3"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        mockMvc.perform(post("/members/2/borrow/1").header("X-Client-Id", "kiosk-3"))
+                .andExpect(status().isOk());
+        verify(memberService, times(3)).borrowBook(anyLong(), anyLong());
+        verify(memberService, never()).returnBook(anyLong(), anyLong());
+    }
+
+    @Test
+    void limitsLoansPerClient() throws Exception {
+        when(memberService.borrowBook(anyLong(), anyLong())).thenReturn(true);
+
+        for (long member = 1; member <= 3; member++) {
+            mockMvc.perform(post("/members/" + member + "/borrow/1").header("X-Client-Id", "script"))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(post("/members/4/borrow/1").header("X-Client-Id", "script"))
+                .andExpect(status().isTooManyRequests());
+        mockMvc.perform(post("/members/4/borrow/1").header("X-Client-Id", "kiosk"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RateLimitInterceptor.REMAINING_HEADER, "1"));
+    }
+
+    @Test
+    void limitsOtherWritesButNotReads() throws Exception {
+        Member member = new Member("Test Member", null);
+        member.setId(1L);
+        when(memberService.createMember(any(Member.class))).thenReturn(member);
+        when(memberService.getMember(1L)).thenReturn(Optional.of(member));
+
+        mockMvc.perform(post("/members").contentType(MediaType.APPLICATION_JSON).content("{\"memberName\":\"Test Member\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/members").contentType(MediaType.APPLICATION_JSON).content("{\"memberName\":\"Test Member\"}"))
+                .andExpect(status().isTooManyRequests());
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/members/1"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(RateLimitInterceptor.LIMIT_HEADER));
+        }
+    }
+}
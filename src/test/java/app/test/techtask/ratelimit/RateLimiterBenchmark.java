@@ -0,0 +1,54 @@
+package app.test.techtask.ratelimit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one rate limit check, for a single hot key and for keys spread over many members.
+ *
+ * Run with {@code mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath app.test.techtask.ratelimit.RateLimiterBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    private RateLimiter limiter;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        limiter = new RateLimiter(1_000_000, 1_000_000, 16, 100_000);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = Integer.toString(i);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public TokenBucket.Decision hotKey() {
+        return limiter.tryTake("kiosk", System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public TokenBucket.Decision spreadKeys() {
+        return limiter.tryTake(keys[ThreadLocalRandom.current().nextInt(KEYS)], System.nanoTime());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RateLimiterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
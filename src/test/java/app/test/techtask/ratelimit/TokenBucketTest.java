@@ -0,0 +1,104 @@
+package app.test.techtask.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void allowsBurstThenRefillsAtRate() {
+        TokenBucket bucket = new TokenBucket(2, 3, 0);
+
+        assertEquals(2, bucket.tryTake(0).remaining());
+        assertEquals(1, bucket.tryTake(0).remaining());
+        assertEquals(0, bucket.tryTake(0).remaining());
+
+        TokenBucket.Decision denied = bucket.tryTake(0);
+        assertFalse(denied.allowed());
+        assertEquals(SECOND / 2, denied.retryAfterNanos());
+        assertEquals(3 * SECOND / 2, denied.resetNanos());
+
+        assertTrue(bucket.tryTake(SECOND / 2).allowed());
+        assertFalse(bucket.tryTake(SECOND / 2).allowed());
+    }
+
+    @Test
+    void becomesIdleOnceFull() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+        bucket.tryTake(0);
+        bucket.tryTake(0);
+
+        assertFalse(bucket.isIdle(SECOND / 10));
+        assertTrue(bucket.isIdle(SECOND / 5));
+    }
+
+    @Test
+    void neverGrantsMoreThanBurstUnderContention() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(0.001, 100, 0);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            pool.execute(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (bucket.tryTake(0).allowed()) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+    }
+
+    @Test
+    void limiterEvictsIdleBuckets() {
+        RateLimiter limiter = new RateLimiter(1, 2, 4, 1000);
+        limiter.tryTake("a", 0);
+        limiter.tryTake("b", SECOND);
+
+        limiter.evictIdle(SECOND);
+
+        assertEquals(1, limiter.size());
+        limiter.evictIdle(2 * SECOND);
+        assertEquals(0, limiter.size());
+    }
+
+    @Test
+    void refundGivesBackOneToken() {
+        TokenBucket bucket = new TokenBucket(1, 2, 0);
+        bucket.tryTake(0);
+        bucket.tryTake(0);
+
+        bucket.refund(0);
+
+        assertTrue(bucket.tryTake(0).allowed());
+        assertFalse(bucket.tryTake(0).allowed());
+        bucket.refund(5 * SECOND);
+        assertTrue(bucket.isIdle(5 * SECOND));
+    }
+
+    @Test
+    void limiterSharesAnOverflowBucketWhenFull() {
+        RateLimiter limiter = new RateLimiter(1, 2, 1, 2);
+        limiter.tryTake("a", 0);
+        limiter.tryTake("b", 0);
+
+        assertTrue(limiter.tryTake("c", 0).allowed());
+        assertTrue(limiter.tryTake("d", 0).allowed());
+        assertFalse(limiter.tryTake("e", SECOND / 2).allowed());
+        assertEquals(2, limiter.size());
+
+        assertTrue(limiter.tryTake("f", 10 * SECOND).allowed());
+        assertEquals(1, limiter.size());
+    }
+}
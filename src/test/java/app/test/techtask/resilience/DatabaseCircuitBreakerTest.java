@@ -0,0 +1,89 @@
+package app.test.techtask.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseCircuitBreakerTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final DatabaseCircuitBreaker breaker = new DatabaseCircuitBreaker(3, Duration.ofSeconds(10), clock);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        failTimes(2);
+        breaker.tryAcquire();
+        breaker.onSuccess();
+        failTimes(2);
+
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, breaker.state());
+
+        failTimes(1);
+
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(Duration.ofSeconds(10), breaker.retryAfter());
+    }
+
+    @Test
+    void letsOneProbeThroughAfterOpenDuration() {
+        failTimes(3);
+        clock.advance(Duration.ofSeconds(10));
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(DatabaseCircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void reopensWhenProbeFails() {
+        failTimes(3);
+        clock.advance(Duration.ofSeconds(11));
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onFailure();
+
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    private void failTimes(int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+    }
+
+    static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
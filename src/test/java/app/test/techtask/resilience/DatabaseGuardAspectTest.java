@@ -0,0 +1,148 @@
+package app.test.techtask.resilience;
+
+import app.test.techtask.data.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseGuardAspectTest {
+
+    private final DatabaseCircuitBreakerTest.MutableClock clock = new DatabaseCircuitBreakerTest.MutableClock();
+    private final DatabaseCircuitBreaker breaker = new DatabaseCircuitBreaker(2, Duration.ofSeconds(10), clock);
+    private final List<Runnable> refreshes = new ArrayList<>();
+    private final Repository target = new Repository();
+    private Repository repository;
+    private ServletRequestAttributes attributes;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new DatabaseGuardAspect(breaker, new LastKnownGoodCache(100), refreshes::add, clock));
+        repository = factory.getProxy();
+        attributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(attributes);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void servesLastKnownGoodWhenDatabaseFails() {
+        assertEquals("title-1", repository.find(1L));
+        target.down = true;
+        clock.advance(Duration.ofSeconds(3));
+
+        assertEquals("title-1", repository.find(1L));
+        assertEquals(clock.instant().minusSeconds(3), StaleResponses.staleSince(attributes));
+        assertThrows(DatabaseUnavailableException.class, () -> repository.find(2L));
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void servedEntityChangesDoNotReachCachedValue() {
+        repository.findMember(1L).setMemberName("Rejected");
+        target.down = true;
+
+        Member stale = repository.findMember(1L);
+        assertEquals("member-1", stale.getMemberName());
+        stale.setMemberName("Rejected");
+        assertEquals("member-1", repository.findMember(1L).getMemberName());
+    }
+
+    @Test
+    void refreshesStaleValueInBackgroundOnceProbeIsAllowed() {
+        repository.find(1L);
+        target.down = true;
+        repository.find(1L);
+        assertThrows(DatabaseUnavailableException.class, () -> repository.find(3L));
+        int callsWhileOpen = target.calls;
+
+        assertEquals("title-1", repository.find(1L));
+        assertEquals(callsWhileOpen, target.calls);
+        assertEquals(1, refreshes.size());
+
+        target.down = false;
+        target.prefix = "new-";
+        clock.advance(Duration.ofSeconds(10));
+        refreshes.get(0).run();
+
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, breaker.state());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertEquals("new-1", repository.find(1L));
+        assertNull(StaleResponses.staleSince(RequestContextHolder.currentRequestAttributes()));
+    }
+
+    @Test
+    void writesFailFastWhileOpen() {
+        target.down = true;
+        assertThrows(DatabaseUnavailableException.class, () -> repository.save(1L));
+        assertThrows(DatabaseUnavailableException.class, () -> repository.save(1L));
+        int calls = target.calls;
+
+        DatabaseUnavailableException e = assertThrows(DatabaseUnavailableException.class, () -> repository.save(1L));
+
+        assertEquals(calls, target.calls);
+        assertEquals(Duration.ofSeconds(10), e.getRetryAfter());
+    }
+
+    @Test
+    void businessFailuresDoNotOpenBreaker() {
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalArgumentException.class, () -> repository.find(-1L));
+        }
+
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    static class Repository {
+        boolean down;
+        String prefix = "title-";
+        int calls;
+
+        @GuardedRead
+        public String find(Long id) {
+            calls++;
+            if (id < 0) {
+                throw new IllegalArgumentException("negative id");
+            }
+            if (down) {
+                throw new DataAccessResourceFailureException("connection refused");
+            }
+            return prefix + id;
+        }
+
+        @GuardedRead
+        public Member findMember(Long id) {
+            calls++;
+            if (down) {
+                throw new DataAccessResourceFailureException("connection refused");
+            }
+            Member member = new Member("member-" + id, LocalDate.of(2024, 1, 1));
+            member.setId(id);
+            return member;
+        }
+
+        @GuardedWrite
+        public boolean save(Long id) {
+            calls++;
+            if (down) {
+                throw new DataAccessResourceFailureException("connection refused");
+            }
+            return true;
+        }
+    }
+}
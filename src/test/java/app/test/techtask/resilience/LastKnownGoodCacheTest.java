@@ -0,0 +1,42 @@
+package app.test.techtask.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LastKnownGoodCacheTest {
+
+    private final LastKnownGoodCache cache = new LastKnownGoodCache(2);
+
+    @Test
+    void evictsLeastRecentlyUsedKeyWhenFull() {
+        cache.put("a", "A", Instant.EPOCH);
+        cache.put("b", "B", Instant.EPOCH);
+        cache.get("a");
+
+        cache.put("c", "C", Instant.EPOCH);
+
+        assertEquals("A", cache.get("a").value());
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c").value());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void emptyResultsAreNotKeptAndDropWhatWasCached() {
+        cache.put("book", Optional.of("Dune"), Instant.EPOCH);
+        cache.put("missing", Optional.empty(), Instant.EPOCH);
+        cache.put("loans", List.of(), Instant.EPOCH);
+
+        cache.put("book", Optional.empty(), Instant.EPOCH);
+
+        assertNull(cache.get("book"));
+        assertNull(cache.get("missing"));
+        assertNull(cache.get("loans"));
+        assertEquals(0, cache.size());
+    }
+}
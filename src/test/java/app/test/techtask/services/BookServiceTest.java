@@ -1,14 +1,19 @@
 package app.test.techtask.services;
 
+import app.test.techtask.cache.EntityVersionCache;
 import app.test.techtask.data.Book;
+import app.test.techtask.events.InventoryEvent;
 import app.test.techtask.repositories.BookRepository;
 import app.test.techtask.repositories.BorrowedBookRepository;
+import app.test.techtask.repositories.BranchStockRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +31,18 @@ class BookServiceTest {
     @Mock
     private BorrowedBookRepository borrowedBookRepository;
 
+    @Mock
+    private BranchStockRepository branchStockRepository;
+
+    @Mock
+    private EntityVersionCache versionCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WaitlistService waitlistService;
+
     @Test
     void saveBook_NewBook() {
         Book book = new Book("Author Name", "Title", 1L);
@@ -36,7 +53,9 @@ class BookServiceTest {
         Book savedBook = bookService.saveBook(book);
 
         assertEquals(book, savedBook);
+        assertEquals(1L, savedBook.getTotalCopies());
         verify(bookRepository, times(1)).save(book);
+        verify(eventPublisher).publishEvent(InventoryEvent.of(InventoryEvent.Type.ADDED, null, 1L));
     }
 
     @Test
@@ -50,10 +69,26 @@ class BookServiceTest {
         Book savedBook = bookService.saveBook(book);
 
         assertEquals(6L, existingBook.getAmount());
+        assertNull(existingBook.getTotalCopies());
         assertEquals(existingBook, savedBook);
         verify(bookRepository, times(1)).save(existingBook);
     }
 
+    @Test
+    void saveBook_ExistingBookWithTrackedCopies() {
+        Book book = new Book("Author Name", "Title", 1L);
+        Book existingBook = new Book("Author Name", "Title", 2L);
+        existingBook.setTotalCopies(5L);
+
+        when(bookRepository.findByTitleAndAuthor(book.getTitle(), book.getAuthor())).thenReturn(existingBook);
+        when(bookRepository.save(existingBook)).thenReturn(existingBook);
+
+        bookService.saveBook(book);
+
+        assertEquals(3L, existingBook.getAmount());
+        assertEquals(6L, existingBook.getTotalCopies());
+    }
+
     @Test
     void getBookById_BookExists() {
         Long bookId = 1L;
@@ -94,6 +129,20 @@ class BookServiceTest {
         verify(bookRepository, times(1)).save(existingBook);
     }
 
+    @Test
+    void updateBook_OffersAddedCopiesToWaitlist() {
+        Book existingBook = new Book("Author Name", "Title", 0L);
+        existingBook.setId(1L);
+
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existingBook));
+        when(bookRepository.save(existingBook)).thenReturn(existingBook);
+        when(waitlistService.offerCopy(existingBook)).thenReturn(true, true, false);
+
+        bookService.updateBook(1L, new Book("Author Name", "Title", 3L));
+
+        verify(waitlistService, times(3)).offerCopy(existingBook);
+    }
+
     @Test
     void updateBook_BookDoesNotExist() {
         Long bookId = 1L;
@@ -110,41 +159,85 @@ class BookServiceTest {
     @Test
     void deleteBook_BookExistsAndNotBorrowed() {
         Long bookId = 1L;
-        Book book = new Book("Author Name", "Title", 1L);
 
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
-        when(borrowedBookRepository.countByBookId(bookId)).thenReturn(0);
+        when(bookRepository.deleteUnreferencedById(bookId)).thenReturn(1);
 
         boolean result = bookService.deleteBook(bookId);
 
         assertTrue(result);
-        verify(bookRepository, times(1)).deleteById(bookId);
+        verify(bookRepository, times(1)).deleteUnreferencedById(bookId);
+        verify(versionCache).evict(Book.class, bookId);
+        verify(eventPublisher).publishEvent(InventoryEvent.of(InventoryEvent.Type.DELETED, bookId, null));
     }
 
     @Test
     void deleteBook_BookExistsAndIsBorrowed() {
         Long bookId = 1L;
-        Book book = new Book("Author Name", "Title", 1L);
 
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
-        when(borrowedBookRepository.countByBookId(bookId)).thenReturn(1);
+        when(bookRepository.deleteUnreferencedById(bookId)).thenReturn(0);
 
         boolean result = bookService.deleteBook(bookId);
 
         assertFalse(result);
-        verify(bookRepository, never()).deleteById(bookId);
+        verify(bookRepository, never()).findById(bookId);
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
     void deleteBook_BookDoesNotExist() {
         Long bookId = 1L;
 
-        when(bookRepository.findById(bookId)).thenReturn(Optional.empty());
+        when(bookRepository.deleteUnreferencedByIdAndVersion(bookId, 2L)).thenReturn(0);
+        when(bookRepository.findVersionById(bookId)).thenReturn(null);
 
-        boolean result = bookService.deleteBook(bookId);
+        boolean result = bookService.deleteBook(bookId, 2L);
 
         assertFalse(result);
-        verify(bookRepository, never()).deleteById(bookId);
+        verify(versionCache, never()).evict(Book.class, bookId);
+    }
+
+    @Test
+    void deleteBooks_ReportsRetainedIds() {
+        List<Long> ids = List.of(1L, 2L, 3L);
+
+        when(bookRepository.findExistingIds(ids)).thenReturn(List.of(1L, 2L));
+        when(bookRepository.findExistingIds(List.of(1L, 2L))).thenReturn(List.of(2L));
+
+        BulkDeleteResult result = bookService.deleteBooks(ids);
+
+        assertEquals(List.of(1L), result.deletedIds());
+        assertEquals(List.of(2L), result.retainedIds());
+        verify(bookRepository, times(1)).deleteUnreferencedByIdIn(List.of(1L, 2L));
+        verify(eventPublisher).publishEvent(InventoryEvent.of(InventoryEvent.Type.DELETED, 1L, null));
+    }
+
+    @Test
+    void updateBook_StaleVersion() {
+        Long bookId = 1L;
+        Book existingBook = new Book("Author Name", "Title", 1L);
+        existingBook.setVersion(4L);
+
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(existingBook));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> bookService.updateBook(bookId, new Book("New Author", "New Title", 2L), 3L));
+        verify(bookRepository, never()).save(any(Book.class));
     }
 
+    @Test
+    void deleteBook_StaleVersion() {
+        Long bookId = 1L;
+
+        when(bookRepository.deleteUnreferencedByIdAndVersion(bookId, 3L)).thenReturn(0);
+        when(bookRepository.findVersionById(bookId)).thenReturn(4L);
+
+        assertThrows(PreconditionFailedException.class, () -> bookService.deleteBook(bookId, 3L));
+    }
+
+    @Test
+    void getCachedVersion() {
+        when(versionCache.get(Book.class, 1L)).thenReturn(7L);
+
+        assertEquals(7L, bookService.getCachedVersion(1L));
+    }
 }
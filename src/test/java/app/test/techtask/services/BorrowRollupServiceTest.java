@@ -0,0 +1,83 @@
+package app.test.techtask.services;
+
+import app.test.techtask.cache.BookLabels;
+import app.test.techtask.data.Book;
+import app.test.techtask.data.BorrowRollup;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.repositories.BorrowRollupRepository;
+import app.test.techtask.stats.RollupGranularity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BorrowRollupServiceTest {
+
+    private static final LocalDate MAY = LocalDate.of(2024, 5, 1);
+    private static final LocalDate JUNE = LocalDate.of(2024, 6, 1);
+
+    @Mock
+    private BorrowRollupRepository borrowRollupRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Spy
+    private BookLabels bookLabels = new BookLabels(1000);
+
+    @InjectMocks
+    private BorrowRollupService borrowRollupService;
+
+    private static Book book(long id, String title, String author) {
+        Book book = new Book(author, title, 1L);
+        book.setId(id);
+        return book;
+    }
+
+    @Test
+    void getBorrowVolumes_PrefersCompactedBucketsOverDayRows() {
+        when(borrowRollupRepository.findByGranularityAndBucketStartBetween(RollupGranularity.MONTH, MAY, JUNE))
+                .thenReturn(List.of(new BorrowRollup(RollupGranularity.MONTH, MAY, 1L, 10)));
+        when(borrowRollupRepository.findByGranularityAndBucketStartBetween(RollupGranularity.DAY, MAY, LocalDate.of(2024, 6, 30)))
+                .thenReturn(List.of(
+                        new BorrowRollup(RollupGranularity.DAY, LocalDate.of(2024, 5, 31), 1L, 2),
+                        new BorrowRollup(RollupGranularity.DAY, LocalDate.of(2024, 6, 3), 1L, 3),
+                        new BorrowRollup(RollupGranularity.DAY, LocalDate.of(2024, 6, 4), 2L, 4)));
+        when(bookRepository.findAllById(anyCollection()))
+                .thenReturn(List.of(book(1L, "Dune", "Frank Herbert"), book(2L, "Emma", "Jane Austen")));
+
+        List<BorrowVolume> volumes = borrowRollupService.getBorrowVolumes(
+                RollupGranularity.MONTH, LocalDate.of(2024, 5, 15), LocalDate.of(2024, 6, 10), BorrowRollupService.GroupBy.BOOK);
+
+        assertEquals(List.of(
+                new BorrowVolume(MAY, 1L, "Dune", "Frank Herbert", 10),
+                new BorrowVolume(JUNE, 2L, "Emma", "Jane Austen", 4),
+                new BorrowVolume(JUNE, 1L, "Dune", "Frank Herbert", 3)), volumes);
+    }
+
+    @Test
+    void getBorrowVolumes_GroupsByAuthor() {
+        LocalDate day = LocalDate.of(2024, 6, 3);
+        when(borrowRollupRepository.findByGranularityAndBucketStartBetween(RollupGranularity.DAY, day, day))
+                .thenReturn(List.of(
+                        new BorrowRollup(RollupGranularity.DAY, day, 1L, 2),
+                        new BorrowRollup(RollupGranularity.DAY, day, 3L, 5)));
+        when(bookRepository.findAllById(anyCollection()))
+                .thenReturn(List.of(book(1L, "Dune", "Frank Herbert"), book(3L, "Children", "Frank Herbert")));
+
+        List<BorrowVolume> volumes = borrowRollupService.getBorrowVolumes(
+                RollupGranularity.DAY, day, day, BorrowRollupService.GroupBy.AUTHOR);
+
+        assertEquals(List.of(new BorrowVolume(day, null, null, "Frank Herbert", 7)), volumes);
+    }
+}
@@ -0,0 +1,117 @@
+package app.test.techtask.services;
+
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.repositories.BorrowRollupRepository;
+import app.test.techtask.stats.RollupGranularity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BorrowRollupWriterTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 12);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private BorrowRollupRepository borrowRollupRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BorrowRollupWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(TODAY.atTime(12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        writer = new BorrowRollupWriter(jdbcTemplate, borrowRollupRepository, transactionManager, clock, 90, 730, 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_UpsertsEveryDayRowInOneBatch() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        writer.onEvents(List.of(
+                new InventoryEvent(InventoryEvent.Type.BORROWED, 1L, 5L, 0L),
+                new InventoryEvent(InventoryEvent.Type.BORROWED, 1L, 6L, 0L),
+                new InventoryEvent(InventoryEvent.Type.RETURNED, 1L, 5L, 1L)));
+        writer.onEvents(List.of(new InventoryEvent(InventoryEvent.Type.BORROWED, 2L, 5L, 0L)));
+
+        writer.flush();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(BorrowRollupWriter.UPSERT_SQL), rows.capture());
+        List<Object[]> sorted = rows.getValue().stream()
+                .sorted(Comparator.comparingLong(row -> (Long) row[1]))
+                .toList();
+        assertArrayEquals(new Object[] {Date.valueOf(TODAY), 1L, 2L}, sorted.get(0));
+        assertArrayEquals(new Object[] {Date.valueOf(TODAY), 2L, 1L}, sorted.get(1));
+
+        writer.flush();
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_MergesOnH2() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("H2");
+        writer.onEvents(List.of(new InventoryEvent(InventoryEvent.Type.BORROWED, 1L, 5L, 0L)));
+
+        writer.flush();
+
+        verify(jdbcTemplate).batchUpdate(eq(BorrowRollupWriter.MERGE_SQL), anyList());
+    }
+
+    @Test
+    void compact_RollsPeriodsBeforeHorizonAndDropsOldDays() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        LocalDate horizon = TODAY.minusDays(90);
+        when(borrowRollupRepository.findMinBucketStart(RollupGranularity.DAY)).thenReturn(horizon.minusDays(10));
+        when(borrowRollupRepository.existsByGranularityAndBucketStart(any(), any())).thenReturn(false);
+
+        writer.compact();
+
+        LocalDate firstWeek = RollupGranularity.WEEK.start(horizon.minusDays(10));
+        verify(jdbcTemplate).update(BorrowRollupWriter.COMPACT_SQL, "WEEK", Date.valueOf(firstWeek),
+                Date.valueOf(firstWeek), Date.valueOf(firstWeek.plusWeeks(1)));
+        verify(jdbcTemplate).update(BorrowRollupWriter.COMPACT_SQL, "MONTH", Date.valueOf(LocalDate.of(2024, 3, 1)),
+                Date.valueOf(LocalDate.of(2024, 3, 1)), Date.valueOf(LocalDate.of(2024, 4, 1)));
+        verify(jdbcTemplate).update(BorrowRollupWriter.DELETE_SQL, "DAY", Date.valueOf(horizon));
+        verify(jdbcTemplate, times(2)).update(eq(BorrowRollupWriter.COMPACT_SQL), eq("WEEK"), any(), any(), any());
+        verify(jdbcTemplate, never()).update(eq(BorrowRollupWriter.DELETE_SQL), eq("MONTH"), any());
+    }
+
+    @Test
+    void compact_DropsMonthsPastTheirRetention() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        Clock clock = Clock.fixed(TODAY.atTime(12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        writer = new BorrowRollupWriter(jdbcTemplate, borrowRollupRepository, transactionManager, clock, 90, 730, 3650);
+
+        writer.compact();
+
+        verify(jdbcTemplate).update(BorrowRollupWriter.DELETE_SQL, "MONTH", Date.valueOf(LocalDate.of(2014, 6, 1)));
+    }
+}
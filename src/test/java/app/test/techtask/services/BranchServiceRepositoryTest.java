@@ -0,0 +1,160 @@
+package app.test.techtask.services;
+
+import app.test.techtask.cache.BookLabels;
+import app.test.techtask.cache.EntityVersionCache;
+import app.test.techtask.cache.ExistenceFilters;
+import app.test.techtask.data.Book;
+import app.test.techtask.data.Branch;
+import app.test.techtask.data.Member;
+import app.test.techtask.data.Reservation;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.repositories.BranchRepository;
+import app.test.techtask.repositories.BranchStockRepository;
+import app.test.techtask.repositories.MemberRepository;
+import app.test.techtask.repositories.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the branch stock statements against H2 in PostgreSQL mode, which also accepts the
+ * {@code ON CONFLICT} insert.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:branches;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({BranchService.class, BranchStockIndex.class, WaitlistService.class})
+class BranchServiceRepositoryTest {
+
+    @MockBean
+    private EntityVersionCache versionCache;
+    @MockBean
+    private ExistenceFilters existenceFilters;
+    @MockBean
+    private BookLabels bookLabels;
+
+    @Autowired
+    private BranchService branchService;
+    @Autowired
+    private WaitlistService waitlistService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BranchRepository branchRepository;
+    @Autowired
+    private BranchStockRepository branchStockRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private Book book;
+
+    private Branch branch;
+
+    @BeforeEach
+    void setUp() {
+        book = bookRepository.save(new Book("Frank Herbert", "Dune", 5L));
+        branch = branchRepository.save(new Branch("Center", 50.45, 30.52));
+    }
+
+    @Test
+    void transfer_MovesCopiesToTheShelfAndBack() {
+        assertEquals(Optional.of(3L), branchService.transfer(branch.getId(), book.getId(), 3));
+        assertEquals(2L, bookRepository.findById(book.getId()).orElseThrow().getAmount());
+
+        assertEquals(Optional.of(1L), branchService.transfer(branch.getId(), book.getId(), -2));
+        assertEquals(4L, bookRepository.findById(book.getId()).orElseThrow().getAmount());
+        assertEquals(5L, branchService.shelvedCopies(book.getId()) + book.getAmount());
+    }
+
+    @Test
+    void transfer_MoreThanAvailable() {
+        assertTrue(branchService.transfer(branch.getId(), book.getId(), 6).isEmpty());
+        branchService.transfer(branch.getId(), book.getId(), 1);
+
+        assertTrue(branchService.transfer(branch.getId(), book.getId(), -2).isEmpty());
+        assertEquals(1L, branchStockRepository.findAmount(branch.getId(), book.getId()));
+        assertEquals(4L, book.getAmount());
+    }
+
+    @Test
+    void takeCopy_StopsAtAnEmptyShelf() {
+        branchService.transfer(branch.getId(), book.getId(), 1);
+
+        assertTrue(branchService.takeCopy(branch.getId(), book.getId()));
+        assertFalse(branchService.takeCopy(branch.getId(), book.getId()));
+        assertEquals(0L, branchStockRepository.findAmount(branch.getId(), book.getId()));
+    }
+
+    @Test
+    void shelveCopy_CreatesTheRowOnTheFirstReturn() {
+        assertTrue(branchService.shelveCopy(branch.getId(), book));
+        assertTrue(branchService.shelveCopy(branch.getId(), book));
+
+        assertEquals(2L, branchStockRepository.findAmount(branch.getId(), book.getId()));
+        assertEquals(5L, book.getAmount());
+        assertFalse(branchService.shelveCopy(branch.getId() + 1, book));
+    }
+
+    @Test
+    void insertIfAbsent_LeavesAnExistingRowForTheCaller() {
+        assertEquals(1, branchStockRepository.insertIfAbsent(branch.getId(), book.getId(), 1));
+        assertEquals(0, branchStockRepository.insertIfAbsent(branch.getId(), book.getId(), 2));
+        // the losing first return adds its copies to the row created meanwhile
+        assertEquals(1, branchStockRepository.addCopies(branch.getId(), book.getId(), 2));
+
+        assertEquals(3L, branchStockRepository.findAmount(branch.getId(), book.getId()));
+        assertEquals(3L, branchStockRepository.sumByBookId(book.getId()));
+    }
+
+    @Test
+    void shelveCopy_HoldsTheCopyForAWaitingMember() {
+        branchService.transfer(branch.getId(), book.getId(), 5);
+        branchService.takeCopy(branch.getId(), book.getId());
+        Member member = memberRepository.save(new Member("John Doe", LocalDate.now()));
+
+        assertTrue(waitlistService.reserve(member.getId(), book.getId()).isEmpty());
+        for (int i = 0; i < 4; i++) {
+            branchService.takeCopy(branch.getId(), book.getId());
+        }
+        assertTrue(waitlistService.reserve(member.getId(), book.getId()).isPresent());
+
+        assertTrue(branchService.shelveCopy(branch.getId(), book));
+
+        assertEquals(0L, branchStockRepository.findAmount(branch.getId(), book.getId()));
+        assertEquals(0L, book.getAmount());
+        assertEquals(Reservation.Status.HELD,
+                reservationRepository.findByMemberIdAndBookId(member.getId(), book.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void deleteEmptyByBookIdIn_KeepsTheShelvesOfReferencedBooks() {
+        branchService.transfer(branch.getId(), book.getId(), 5);
+        for (int i = 0; i < 5; i++) {
+            branchService.takeCopy(branch.getId(), book.getId());
+        }
+        Member member = memberRepository.save(new Member("John Doe", LocalDate.now()));
+        waitlistService.reserve(member.getId(), book.getId());
+
+        assertEquals(0, branchStockRepository.deleteEmptyByBookIdIn(List.of(book.getId())));
+        assertEquals(0, bookRepository.deleteUnreferencedById(book.getId()));
+
+        waitlistService.cancelWaiting(List.of(member.getId()));
+        assertEquals(1, branchStockRepository.deleteEmptyByBookIdIn(List.of(book.getId())));
+        assertEquals(1, bookRepository.deleteUnreferencedById(book.getId()));
+        assertEquals(1, memberRepository.deleteUnreferencedById(member.getId()));
+    }
+}
@@ -0,0 +1,73 @@
+package app.test.techtask.services;
+
+import app.test.techtask.data.BranchView;
+import app.test.techtask.events.BranchStockEvent;
+import app.test.techtask.events.InventoryEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BranchStockIndexTest {
+
+    private BranchStockIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BranchStockIndex();
+        index.rebuild(List.of(
+                        new BranchView(1L, "Center", 50.45, 30.52),
+                        new BranchView(2L, "North", 50.52, 30.50),
+                        new BranchView(3L, "Mobile", null, null)),
+                Stream.of(new Object[]{1L, 10L, 1L}, new Object[]{2L, 10L, 3L}, new Object[]{3L, 10L, 2L}));
+    }
+
+    @Test
+    void find_MostCopiesFirstWithoutLocation() {
+        BookBranches branches = index.find(10L, null, null, 10);
+
+        assertEquals(6, branches.copies());
+        assertEquals(List.of(2L, 3L, 1L), branches.branches().stream().map(BranchAvailability::branchId).toList());
+        assertNull(branches.branches().get(0).distanceKm());
+    }
+
+    @Test
+    void find_NearestFirstWithLocation() {
+        BookBranches branches = index.find(10L, 50.53, 30.49, 2);
+
+        assertEquals(6, branches.copies());
+        assertEquals(List.of(2L, 1L), branches.branches().stream().map(BranchAvailability::branchId).toList());
+        assertEquals("North", branches.branches().get(0).name());
+        assertTrue(branches.branches().get(0).distanceKm() < 2);
+    }
+
+    @Test
+    void onEvents_AppliesShelfCounts() {
+        index.onEvents(List.of(
+                new BranchStockEvent(2L, 10L, 0),
+                new BranchStockEvent(1L, 10L, 4),
+                new BranchStockEvent(1L, 11L, 1)));
+
+        assertEquals(List.of(1L, 3L), index.find(10L, null, null, 10).branches().stream()
+                .map(BranchAvailability::branchId).toList());
+        assertEquals(6, index.find(10L, null, null, 10).copies());
+        assertEquals(1, index.find(11L, null, null, 10).copies());
+    }
+
+    @Test
+    void onEvents_DeletedBookLeavesIndex() {
+        index.onEvents(List.of(InventoryEvent.of(InventoryEvent.Type.DELETED, 10L, null)));
+
+        assertEquals(new BookBranches(10L, 0, List.of()), index.find(10L, null, null, 10));
+    }
+
+    @Test
+    void with_RemovesLastBranch() {
+        assertNull(BranchStockIndex.with(new long[]{1L, 2L}, 1L, 0));
+        assertArrayEquals(new long[]{3L, 1L}, BranchStockIndex.with(new long[]{1L, 2L, 3L, 1L}, 1L, 0));
+        assertArrayEquals(new long[]{1L, 5L}, BranchStockIndex.with(null, 1L, 5));
+    }
+}
@@ -0,0 +1,109 @@
+package app.test.techtask.services;
+
+import app.test.techtask.controllers.InventoryFeedController;
+import app.test.techtask.events.InventoryEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class InventoryFeedServiceTest {
+
+    private InventoryFeedService inventoryFeedService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        inventoryFeedService = new InventoryFeedService(4, Duration.ofSeconds(10), 16);
+        mockMvc = MockMvcBuilders.standaloneSetup(new InventoryFeedController(inventoryFeedService)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventoryFeedService.shutdown();
+    }
+
+    @Test
+    void streamsOnlySubscribedBooks() throws Exception {
+        MvcResult result = mockMvc.perform(get("/books/changes").param("bookIds", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        inventoryFeedService.onInventoryEvent(InventoryEvent.of(InventoryEvent.Type.UPDATED, 2L, 5L));
+        inventoryFeedService.onInventoryEvent(new InventoryEvent(InventoryEvent.Type.BORROWED, 1L, 7L, 3L));
+
+        String content = awaitContent(result, "\"bookId\":1");
+        assertTrue(content.contains("event:inventory"));
+        assertTrue(content.contains("\"type\":\"BORROWED\""));
+        assertFalse(content.contains("\"bookId\":2"));
+    }
+
+    @Test
+    void resumesFromLastEventId() throws Exception {
+        MvcResult first = mockMvc.perform(get("/books/changes")).andReturn();
+        inventoryFeedService.onInventoryEvent(InventoryEvent.of(InventoryEvent.Type.ADDED, 1L, 1L));
+        String lastEventId = lastEventId(awaitContent(first, "\"bookId\":1"));
+
+        inventoryFeedService.onInventoryEvent(InventoryEvent.of(InventoryEvent.Type.ADDED, 2L, 1L));
+        inventoryFeedService.onInventoryEvent(InventoryEvent.of(InventoryEvent.Type.ADDED, 3L, 1L));
+
+        MvcResult resumed = mockMvc.perform(get("/books/changes").header("Last-Event-ID", lastEventId)).andReturn();
+        String content = awaitContent(resumed, "\"bookId\":3");
+        assertTrue(content.contains("\"bookId\":2"));
+        assertFalse(content.contains("\"bookId\":1,"));
+    }
+
+    @Test
+    void sendsResetWhenBacklogNoLongerCoversLastEventId() throws Exception {
+        MvcResult first = mockMvc.perform(get("/books/changes")).andReturn();
+        inventoryFeedService.onInventoryEvent(InventoryEvent.of(InventoryEvent.Type.ADDED, 1L, 1L));
+        String lastEventId = lastEventId(awaitContent(first, "\"bookId\":1"));
+
+        for (long bookId = 2; bookId <= 8; bookId++) {
+            inventoryFeedService.onInventoryEvent(InventoryEvent.of(InventoryEvent.Type.ADDED, bookId, 1L));
+        }
+
+        MvcResult resumed = mockMvc.perform(get("/books/changes").header("Last-Event-ID", lastEventId)).andReturn();
+        String content = awaitContent(resumed, "event:reset");
+        assertFalse(content.contains("event:inventory"));
+    }
+
+    @Test
+    void unknownEpochTriggersReset() throws Exception {
+        MvcResult result = mockMvc.perform(get("/books/changes").header("Last-Event-ID", "1:42")).andReturn();
+
+        awaitContent(result, "event:reset");
+    }
+
+    private String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            content = result.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
+
+    private String lastEventId(String content) {
+        Matcher matcher = Pattern.compile("id:(\\S+)").matcher(content);
+        String id = null;
+        while (matcher.find()) {
+            id = matcher.group(1);
+        }
+        assertNotNull(id);
+        return id;
+    }
+}
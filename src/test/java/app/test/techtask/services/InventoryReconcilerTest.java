@@ -0,0 +1,218 @@
+package app.test.techtask.services;
+
+import app.test.techtask.data.Book;
+import app.test.techtask.data.Reservation;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.repositories.BorrowedBookRepository;
+import app.test.techtask.repositories.BranchStockRepository;
+import app.test.techtask.repositories.ReservationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryReconcilerTest {
+
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private BorrowedBookRepository borrowedBookRepository;
+    @Mock
+    private ReservationRepository reservationRepository;
+    @Mock
+    private BranchStockRepository branchStockRepository;
+    @Mock
+    private WaitlistService waitlistService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InventoryReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(Instant.EPOCH, ZoneOffset.UTC);
+        reconciler = new InventoryReconciler(bookRepository, borrowedBookRepository, reservationRepository,
+                branchStockRepository, waitlistService, eventPublisher, transactionManager, clock, 10, 2, 0, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reconciler.shutdown();
+    }
+
+    private ReconciliationProgress awaitFinished() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            ReconciliationProgress progress = reconciler.getProgress().orElseThrow();
+            if (progress.state() != ReconciliationProgress.State.RUNNING) {
+                return progress;
+            }
+            Thread.sleep(10);
+        }
+        return fail("reconciliation did not finish");
+    }
+
+    private void givenBookIds(long minId, long maxId) {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(bookRepository.findMinId()).thenReturn(minId);
+        when(bookRepository.findMaxId()).thenReturn(maxId);
+    }
+
+    private static Book book(long id, long amount, Long totalCopies) {
+        Book book = new Book("Author Name", "Title", amount);
+        book.setId(id);
+        book.setTotalCopies(totalCopies);
+        return book;
+    }
+
+    @Test
+    void start_ReportsDriftWithoutRepairing() throws InterruptedException {
+        givenBookIds(1L, 15L);
+        when(bookRepository.findStockInRange(1L, 11L)).thenReturn(List.of(
+                new Object[]{1L, 3L, 5L},
+                new Object[]{2L, 4L, 5L}));
+        when(bookRepository.findStockInRange(11L, 16L)).thenReturn(List.<Object[]>of(new Object[]{12L, 0L, 1L}));
+        when(branchStockRepository.sumPerBookInRange(anyLong(), anyLong())).thenReturn(List.of());
+        when(branchStockRepository.sumPerBookInRange(11L, 16L)).thenReturn(List.<Object[]>of(new Object[]{12L, 1L}));
+        when(borrowedBookRepository.countLoansPerBookInRange(1L, 11L))
+                .thenReturn(List.of(new Object[]{1L, 2L}, new Object[]{2L, 2L}));
+        when(reservationRepository.countPerBookInRange(1L, 11L, Reservation.Status.HELD))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, 1L}));
+
+        assertTrue(reconciler.start(false).isPresent());
+        ReconciliationProgress progress = awaitFinished();
+
+        assertEquals(ReconciliationProgress.State.COMPLETED, progress.state());
+        assertEquals(2, progress.rangesTotal());
+        assertEquals(2, progress.rangesDone());
+        assertEquals(3, progress.booksChecked());
+        assertEquals(1, progress.drifted());
+        assertEquals(List.of(new InventoryDrift(2L, 4L, 5L, 2L, 1L, 0L, 2L, false)), progress.drift());
+        verify(bookRepository, never()).save(any());
+    }
+
+    @Test
+    void start_RepairsDriftedBook() throws InterruptedException {
+        givenBookIds(1L, 10L);
+        Book book = book(2L, 4L, 5L);
+        when(bookRepository.findStockInRange(1L, 11L)).thenReturn(List.<Object[]>of(new Object[]{2L, 4L, 5L}));
+        when(borrowedBookRepository.countLoansPerBookInRange(1L, 11L)).thenReturn(List.<Object[]>of(new Object[]{2L, 2L}));
+        when(bookRepository.findById(2L)).thenReturn(Optional.of(book));
+        when(borrowedBookRepository.countByBookId(2L)).thenReturn(2);
+        when(reservationRepository.countByBookIdAndStatus(2L, Reservation.Status.HELD)).thenReturn(1L);
+
+        reconciler.start(true);
+        ReconciliationProgress progress = awaitFinished();
+
+        assertEquals(1, progress.repaired());
+        assertTrue(progress.drift().get(0).repaired());
+        assertEquals(2L, book.getAmount());
+        assertEquals(5L, book.getTotalCopies());
+        verify(bookRepository).save(book);
+        verify(eventPublisher).publishEvent(InventoryEvent.of(InventoryEvent.Type.UPDATED, 2L, 2L));
+    }
+
+    @Test
+    void start_RaisesCopiesToCoverOpenLoans() throws InterruptedException {
+        givenBookIds(1L, 10L);
+        Book book = book(3L, -1L, 2L);
+        when(bookRepository.findStockInRange(1L, 11L)).thenReturn(List.<Object[]>of(new Object[]{3L, -1L, 2L}));
+        when(borrowedBookRepository.countLoansPerBookInRange(1L, 11L)).thenReturn(List.<Object[]>of(new Object[]{3L, 3L}));
+        when(bookRepository.findById(3L)).thenReturn(Optional.of(book));
+        when(borrowedBookRepository.countByBookId(3L)).thenReturn(3);
+
+        reconciler.start(true);
+        awaitFinished();
+
+        assertEquals(0L, book.getAmount());
+        assertEquals(3L, book.getTotalCopies());
+        verify(waitlistService).offerCopy(book);
+    }
+
+    @Test
+    void start_BackfillsUntrackedBooksWhenRepairing() throws InterruptedException {
+        givenBookIds(1L, 10L);
+        Book book = book(4L, 2L, null);
+        when(bookRepository.findStockInRange(1L, 11L)).thenReturn(List.<Object[]>of(new Object[]{4L, 2L, null}));
+        when(bookRepository.findById(4L)).thenReturn(Optional.of(book));
+        when(borrowedBookRepository.countByBookId(4L)).thenReturn(1);
+
+        reconciler.start(true);
+        ReconciliationProgress progress = awaitFinished();
+
+        assertEquals(1, progress.untracked());
+        assertEquals(0, progress.drifted());
+        assertEquals(1, progress.repaired());
+        assertEquals(2L, book.getAmount());
+        assertEquals(3L, book.getTotalCopies());
+    }
+
+    @Test
+    void start_CountsConcurrentChangeAsConflict() throws InterruptedException {
+        givenBookIds(1L, 10L);
+        Book book = book(2L, 4L, 5L);
+        when(bookRepository.findStockInRange(1L, 11L)).thenReturn(List.<Object[]>of(new Object[]{2L, 4L, 5L}));
+        when(borrowedBookRepository.countLoansPerBookInRange(1L, 11L)).thenReturn(List.<Object[]>of(new Object[]{2L, 2L}));
+        when(bookRepository.findById(2L)).thenReturn(Optional.of(book));
+        when(borrowedBookRepository.countByBookId(2L)).thenReturn(2);
+        when(bookRepository.save(book)).thenThrow(new ObjectOptimisticLockingFailureException(Book.class, 2L));
+
+        reconciler.start(true);
+        ReconciliationProgress progress = awaitFinished();
+
+        assertEquals(1, progress.drifted());
+        assertEquals(0, progress.repaired());
+        assertEquals(1, progress.conflicts());
+        assertFalse(progress.drift().get(0).repaired());
+    }
+
+    @Test
+    void start_RejectedWhileRunning() throws InterruptedException {
+        givenBookIds(1L, 15L);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookRepository.findStockInRange(anyLong(), anyLong())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        assertTrue(reconciler.start(false).isPresent());
+        assertTrue(reconciler.start(false).isEmpty());
+        assertTrue(reconciler.cancel().isPresent());
+        release.countDown();
+
+        assertEquals(ReconciliationProgress.State.CANCELLED, awaitFinished().state());
+        assertTrue(reconciler.start(false).isPresent());
+    }
+
+    @Test
+    void start_EmptyCatalogCompletesImmediately() throws InterruptedException {
+        when(bookRepository.findMinId()).thenReturn(null);
+        when(bookRepository.findMaxId()).thenReturn(null);
+
+        reconciler.start(false);
+
+        assertEquals(ReconciliationProgress.State.COMPLETED, awaitFinished().state());
+        assertEquals(0, reconciler.getProgress().orElseThrow().rangesTotal());
+    }
+}
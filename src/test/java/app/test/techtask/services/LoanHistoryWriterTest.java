@@ -0,0 +1,144 @@
+package app.test.techtask.services;
+
+import app.test.techtask.events.LoanClosedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanHistoryWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final MutableClock clock = new MutableClock();
+
+    private static LoanClosedEvent loan(long memberId) {
+        return new LoanClosedEvent(memberId, 7L, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 15));
+    }
+
+    private LoanHistoryWriter writer(int batchSize, int bufferCapacity) {
+        return new LoanHistoryWriter(jdbcTemplate, batchSize, bufferCapacity,
+                Duration.ofSeconds(1), Duration.ofSeconds(4), clock);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_WritesInBatches() {
+        List<List<LoanClosedEvent>> batches = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(eq(LoanHistoryWriter.INSERT_SQL), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    batches.add(List.copyOf(invocation.<List<LoanClosedEvent>>getArgument(1)));
+                    return new int[0][];
+                });
+        LoanHistoryWriter writer = writer(2, 10);
+        writer.onLoanClosed(loan(1L));
+        writer.onLoanClosed(loan(2L));
+        writer.onLoanClosed(loan(3L));
+
+        writer.flush();
+
+        assertEquals(List.of(List.of(loan(1L), loan(2L)), List.of(loan(3L))), batches);
+        assertEquals(0, writer.pendingCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_RetriesFailedBatchFirstAfterBackoff() {
+        List<List<LoanClosedEvent>> batches = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(eq(LoanHistoryWriter.INSERT_SQL), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenAnswer(invocation -> {
+                    batches.add(List.copyOf(invocation.<List<LoanClosedEvent>>getArgument(1)));
+                    return new int[0][];
+                });
+        LoanHistoryWriter writer = writer(2, 10);
+        writer.onLoanClosed(loan(1L));
+        writer.onLoanClosed(loan(2L));
+        writer.flush();
+        writer.onLoanClosed(loan(3L));
+
+        writer.flush();
+        assertEquals(3, writer.pendingCount());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+
+        clock.advance(Duration.ofSeconds(1));
+        writer.flush();
+
+        assertEquals(List.of(List.of(loan(1L), loan(2L)), List.of(loan(3L))), batches);
+        assertEquals(0, writer.pendingCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onLoanClosed_DropsWhenBufferIsFullAndDatabaseIsDown() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        LoanHistoryWriter writer = writer(2, 2);
+        writer.onLoanClosed(loan(1L));
+        writer.onLoanClosed(loan(2L));
+        writer.flush();
+        writer.onLoanClosed(loan(3L));
+        writer.onLoanClosed(loan(4L));
+
+        writer.onLoanClosed(loan(5L));
+        writer.onLoanClosed(loan(6L));
+
+        assertEquals(4, writer.pendingCount());
+        assertEquals(2, writer.droppedCount());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void onLoanClosed_FlushesWhenBufferIsFull() {
+        LoanHistoryWriter writer = writer(10, 2);
+        writer.onLoanClosed(loan(1L));
+        writer.onLoanClosed(loan(2L));
+        writer.onLoanClosed(loan(3L));
+
+        assertEquals(1, writer.pendingCount());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package app.test.techtask.services;
+
+import app.test.techtask.TechTaskApplication;
+import app.test.techtask.data.Book;
+import app.test.techtask.data.Member;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Borrow and return latency through the services against whichever database the arguments
+ * select, to compare the PostgreSQL and kiosk modes on the same machine. Arguments are passed to
+ * Spring, so {@code --spring.profiles.active=kiosk --library.kiosk.data-dir=/tmp/kiosk} runs the
+ * embedded store and no profile runs the configured PostgreSQL.
+ *
+ * Run with {@code mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath app.test.techtask.services.LoanLatencyBenchmark --spring.profiles.active=kiosk"}.
+ */
+public class LoanLatencyBenchmark {
+
+    private static final int WARMUP = 2_000;
+    private static final int MEASURED = 5_000;
+
+    public static void main(String[] args) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TechTaskApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args)) {
+            MemberService memberService = context.getBean(MemberService.class);
+            BookService bookService = context.getBean(BookService.class);
+
+            Member member = memberService.createMember(new Member("Bench" + System.nanoTime(), LocalDate.now()));
+            Book book = bookService.saveBook(new Book("Bench Mark", "Latency", 10L));
+
+            loop(memberService, member.getId(), book.getId(), WARMUP, new long[WARMUP], new long[WARMUP]);
+            long[] borrows = new long[MEASURED];
+            long[] returns = new long[MEASURED];
+            loop(memberService, member.getId(), book.getId(), MEASURED, borrows, returns);
+
+            print("borrow", borrows);
+            print("return", returns);
+        }
+    }
+
+    private static void loop(MemberService memberService, Long memberId, Long bookId, int iterations,
+                             long[] borrows, long[] returns) {
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            if (!memberService.borrowBook(memberId, bookId)) {
+                throw new IllegalStateException("borrow failed");
+            }
+            long borrowed = System.nanoTime();
+            if (!memberService.returnBook(memberId, bookId)) {
+                throw new IllegalStateException("return failed");
+            }
+            returns[i] = System.nanoTime() - borrowed;
+            borrows[i] = borrowed - start;
+        }
+    }
+
+    private static void print(String operation, long[] nanos) {
+        Arrays.sort(nanos);
+        double mean = Arrays.stream(nanos).average().orElse(0);
+        System.out.printf("%s: mean %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us%n", operation,
+                mean / 1_000, nanos[nanos.length / 2] / 1_000.0,
+                nanos[(int) (nanos.length * 0.99)] / 1_000.0, nanos[nanos.length - 1] / 1_000.0);
+    }
+}
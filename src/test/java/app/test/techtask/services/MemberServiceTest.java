@@ -1,8 +1,13 @@
 package app.test.techtask.services;
 
+import app.test.techtask.cache.BookLabels;
+import app.test.techtask.cache.EntityVersionCache;
 import app.test.techtask.data.Book;
+import app.test.techtask.data.BookView;
 import app.test.techtask.data.BorrowedBook;
 import app.test.techtask.data.Member;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.events.LoanClosedEvent;
 import app.test.techtask.repositories.BookRepository;
 import app.test.techtask.repositories.BorrowedBookRepository;
 import app.test.techtask.repositories.MemberRepository;
@@ -10,7 +15,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
@@ -30,6 +37,21 @@ class MemberServiceTest {
     @Mock
     private BorrowedBookRepository borrowedBookRepository;
 
+    @Mock
+    private EntityVersionCache versionCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WaitlistService waitlistService;
+
+    @Mock
+    private BranchService branchService;
+
+    @Spy
+    private BookLabels bookLabels = new BookLabels(1000);
+
     @InjectMocks
     private MemberService memberService;
 
@@ -80,30 +102,45 @@ class MemberServiceTest {
 
     @Test
     void deleteMember_Success() {
-        Member member = new Member("John Doe", LocalDate.now());
-        member.setId(1L);
-
-        when(memberRepository.findById(1L)).thenReturn(Optional.of(member));
-        when(borrowedBookRepository.countByMemberId(1L)).thenReturn(0L);
+        when(memberRepository.deleteUnreferencedById(1L)).thenReturn(1);
 
         boolean deleted = memberService.deleteMember(1L);
 
         assertTrue(deleted);
-        verify(memberRepository, times(1)).deleteById(1L);
+        verify(waitlistService).cancelWaiting(List.of(1L));
+        verify(memberRepository, times(1)).deleteUnreferencedById(1L);
+        verify(versionCache).evict(Member.class, 1L);
     }
 
     @Test
     void deleteMember_WithBorrowedBooks() {
-        Member member = new Member("John Doe", LocalDate.now());
-        member.setId(1L);
-
-        when(memberRepository.findById(1L)).thenReturn(Optional.of(member));
-        when(borrowedBookRepository.countByMemberId(1L)).thenReturn(1L);
+        when(memberRepository.deleteUnreferencedById(1L)).thenReturn(0);
 
         boolean deleted = memberService.deleteMember(1L);
 
         assertFalse(deleted);
-        verify(memberRepository, never()).deleteById(1L);
+        verify(versionCache, never()).evict(Member.class, 1L);
+    }
+
+    @Test
+    void deleteMember_StaleVersion() {
+        when(memberRepository.deleteUnreferencedByIdAndVersion(1L, 1L)).thenReturn(0);
+        when(memberRepository.findVersionById(1L)).thenReturn(2L);
+
+        assertThrows(PreconditionFailedException.class, () -> memberService.deleteMember(1L, 1L));
+    }
+
+    @Test
+    void deleteMembers() {
+        List<Long> ids = List.of(1L, 2L);
+
+        when(memberRepository.findExistingIds(ids)).thenReturn(ids, List.of());
+
+        BulkDeleteResult result = memberService.deleteMembers(ids);
+
+        assertEquals(ids, result.deletedIds());
+        assertTrue(result.retainedIds().isEmpty());
+        verify(memberRepository, times(1)).deleteUnreferencedByIdIn(ids);
     }
 
     @Test
@@ -124,6 +161,7 @@ class MemberServiceTest {
         assertTrue(borrowed);
         verify(bookRepository, times(1)).save(book);
         verify(borrowedBookRepository, times(1)).save(any(BorrowedBook.class));
+        verify(eventPublisher).publishEvent(new InventoryEvent(InventoryEvent.Type.BORROWED, 1L, 1L, 9L));
     }
 
     @Test
@@ -156,6 +194,7 @@ class MemberServiceTest {
         BorrowedBook borrowedBook = new BorrowedBook();
         borrowedBook.setBook(book);
         borrowedBook.setMember(member);
+        borrowedBook.setBorrowedDate(LocalDate.of(2024, 1, 10));
 
         when(borrowedBookRepository.findByMemberIdAndBookId(1L, 1L)).thenReturn(Optional.of(borrowedBook));
 
@@ -164,6 +203,117 @@ class MemberServiceTest {
         assertTrue(returned);
         verify(bookRepository, times(1)).save(book);
         verify(borrowedBookRepository, times(1)).delete(borrowedBook);
+        verify(waitlistService).offerCopy(book);
+        verify(eventPublisher).publishEvent(new InventoryEvent(InventoryEvent.Type.RETURNED, 1L, 1L, 11L));
+        verify(eventPublisher).publishEvent(
+                new LoanClosedEvent(1L, 1L, LocalDate.of(2024, 1, 10), LocalDate.now()));
+    }
+
+    @Test
+    void borrowBook_FromBranchLeavesBookRowAlone() {
+        ReflectionTestUtils.setField(memberService, "borrowLimit", 10);
+        Member member = new Member("John Doe", LocalDate.now());
+        member.setId(1L);
+
+        Book book = new Book("Author Name", "Title", 10L);
+        book.setId(1L);
+
+        when(memberRepository.findById(1L)).thenReturn(Optional.of(member));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(borrowedBookRepository.countByMemberId(1L)).thenReturn(0L);
+        when(branchService.takeCopy(7L, 1L)).thenReturn(true);
+        when(branchService.shelvedCopies(1L)).thenReturn(4L);
+
+        boolean borrowed = memberService.borrowBook(1L, 1L, 7L);
+
+        assertTrue(borrowed);
+        assertEquals(10L, book.getAmount());
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(borrowedBookRepository, times(1)).save(any(BorrowedBook.class));
+        verify(eventPublisher).publishEvent(new InventoryEvent(InventoryEvent.Type.BORROWED, 1L, 1L, 14L));
+    }
+
+    @Test
+    void borrowBook_FromBranchClaimsHeldCopy() {
+        ReflectionTestUtils.setField(memberService, "borrowLimit", 10);
+        Member member = new Member("John Doe", LocalDate.now());
+        member.setId(1L);
+
+        Book book = new Book("Author Name", "Title", 0L);
+        book.setId(1L);
+
+        when(memberRepository.findById(1L)).thenReturn(Optional.of(member));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(borrowedBookRepository.countByMemberId(1L)).thenReturn(0L);
+        when(waitlistService.claimHold(1L, 1L)).thenReturn(true);
+
+        boolean borrowed = memberService.borrowBook(1L, 1L, 7L);
+
+        assertTrue(borrowed);
+        verify(branchService, never()).takeCopy(any(), any());
+        verify(borrowedBookRepository, times(1)).save(any(BorrowedBook.class));
+    }
+
+    @Test
+    void borrowBook_FromBranchWithoutCopies() {
+        ReflectionTestUtils.setField(memberService, "borrowLimit", 10);
+        Member member = new Member("John Doe", LocalDate.now());
+        member.setId(1L);
+
+        Book book = new Book("Author Name", "Title", 10L);
+        book.setId(1L);
+
+        when(memberRepository.findById(1L)).thenReturn(Optional.of(member));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(borrowedBookRepository.countByMemberId(1L)).thenReturn(0L);
+        when(branchService.takeCopy(7L, 1L)).thenReturn(false);
+
+        boolean borrowed = memberService.borrowBook(1L, 1L, 7L);
+
+        assertFalse(borrowed);
+        verify(borrowedBookRepository, never()).save(any(BorrowedBook.class));
+    }
+
+    @Test
+    void returnBook_ToBranch() {
+        Member member = new Member("John Doe", LocalDate.now());
+        member.setId(1L);
+
+        Book book = new Book("Author Name", "Title", 10L);
+        book.setId(1L);
+
+        BorrowedBook borrowedBook = new BorrowedBook();
+        borrowedBook.setBook(book);
+        borrowedBook.setMember(member);
+        borrowedBook.setBorrowedDate(LocalDate.of(2024, 1, 10));
+
+        when(borrowedBookRepository.findByMemberIdAndBookId(1L, 1L)).thenReturn(Optional.of(borrowedBook));
+        when(branchService.shelveCopy(7L, book)).thenReturn(true);
+
+        boolean returned = memberService.returnBook(1L, 1L, 7L);
+
+        assertTrue(returned);
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(borrowedBookRepository, times(1)).delete(borrowedBook);
+        verify(waitlistService, never()).offerCopy(any());
+        verify(eventPublisher).publishEvent(new InventoryEvent(InventoryEvent.Type.RETURNED, 1L, 1L, 10L));
+    }
+
+    @Test
+    void returnBook_ToUnknownBranch() {
+        Book book = new Book("Author Name", "Title", 10L);
+        book.setId(1L);
+
+        BorrowedBook borrowedBook = new BorrowedBook();
+        borrowedBook.setBook(book);
+
+        when(borrowedBookRepository.findByMemberIdAndBookId(1L, 1L)).thenReturn(Optional.of(borrowedBook));
+        when(branchService.shelveCopy(7L, book)).thenReturn(false);
+
+        boolean returned = memberService.returnBook(1L, 1L, 7L);
+
+        assertFalse(returned);
+        verify(borrowedBookRepository, never()).delete(any());
     }
 
     @Test
@@ -179,22 +329,13 @@ class MemberServiceTest {
 
     @Test
     void getBooksBorrowedByMemberName() {
-        Member member = new Member("John Doe", LocalDate.now());
-        Book book1 = new Book("Author Name", "Title 1", 10L);
-        Book book2 = new Book("Author Name", "Title 2", 5L);
-
-        BorrowedBook borrowedBook1 = new BorrowedBook();
-        borrowedBook1.setBook(book1);
-        borrowedBook1.setMember(member);
-
-        BorrowedBook borrowedBook2 = new BorrowedBook();
-        borrowedBook2.setBook(book2);
-        borrowedBook2.setMember(member);
+        BookView book1 = new BookView(1L, 10L, "Author Name", "Title 1");
+        BookView book2 = new BookView(2L, 5L, "Author Name", "Title 2");
 
-        when(borrowedBookRepository.findByMemberMemberName("John Doe"))
-                .thenReturn(Arrays.asList(borrowedBook1, borrowedBook2));
+        when(borrowedBookRepository.findBookViewsByMemberName("John Doe"))
+                .thenReturn(Arrays.asList(book1, book2));
 
-        List<Book> borrowedBooks = memberService.getBooksBorrowedByMemberName("John Doe");
+        List<BookView> borrowedBooks = memberService.getBooksBorrowedByMemberName("John Doe");
 
         assertEquals(2, borrowedBooks.size());
         assertTrue(borrowedBooks.contains(book1));
@@ -203,47 +344,93 @@ class MemberServiceTest {
 
     @Test
     void getDistinctBorrowedBookNames() {
-        Book book1 = new Book("Author Name", "Title 1", 10L);
-        Book book2 = new Book("Author Name", "Title 2", 5L);
-
-        BorrowedBook borrowedBook1 = new BorrowedBook();
-        borrowedBook1.setBook(book1);
-
-        BorrowedBook borrowedBook2 = new BorrowedBook();
-        borrowedBook2.setBook(book2);
-
-        BorrowedBook borrowedBook3 = new BorrowedBook();
-        borrowedBook3.setBook(book1);
-
-        when(borrowedBookRepository.findAll()).thenReturn(Arrays.asList(borrowedBook1, borrowedBook2, borrowedBook3));
+        when(borrowedBookRepository.countLoansPerBook()).thenReturn(List.of(
+                new Object[]{1L, "Title 1", 2L}, new Object[]{2L, "Title 2", 1L}, new Object[]{3L, "Title 1", 1L}));
 
         Set<String> distinctTitles = memberService.getDistinctBorrowedBookNames();
 
         assertEquals(2, distinctTitles.size());
         assertTrue(distinctTitles.contains("Title 1"));
         assertTrue(distinctTitles.contains("Title 2"));
+        verify(bookRepository, never()).findAllById(any());
     }
 
     @Test
     void getBorrowedBookNamesWithCount() {
-        Book book1 = new Book("Author Name", "Title 1", 10L);
-        Book book2 = new Book("Author Name", "Title 2", 5L);
+        when(borrowedBookRepository.countLoansPerBook()).thenReturn(List.of(
+                new Object[]{1L, "Title 1", 2L}, new Object[]{2L, "Title 2", 1L}, new Object[]{3L, "Title 1", 4L}));
 
-        BorrowedBook borrowedBook1 = new BorrowedBook();
-        borrowedBook1.setBook(book1);
+        Map<String, Long> bookCounts = memberService.getBorrowedBookNamesWithCount();
 
-        BorrowedBook borrowedBook2 = new BorrowedBook();
-        borrowedBook2.setBook(book2);
+        assertEquals(2, bookCounts.size());
+        assertEquals(6L, (long) bookCounts.get("Title 1"));
+        assertEquals(1L, (long) bookCounts.get("Title 2"));
+    }
 
-        BorrowedBook borrowedBook3 = new BorrowedBook();
-        borrowedBook3.setBook(book1);
+    @Test
+    void getBorrowedBookNamesWithCount_IgnoresStaleLabels() {
+        bookLabels.put(book(1L, "Old Title"));
+        when(borrowedBookRepository.countLoansPerBook()).thenReturn(List.<Object[]>of(new Object[]{1L, "New Title", 3L}));
 
-        when(borrowedBookRepository.findAll()).thenReturn(Arrays.asList(borrowedBook1, borrowedBook2, borrowedBook3));
+        assertEquals(Map.of("New Title", 3L), memberService.getBorrowedBookNamesWithCount());
+    }
 
-        Map<String, Long> bookCounts = memberService.getBorrowedBookNamesWithCount();
+    private static Book book(long id, String title) {
+        Book book = new Book("Author Name", title, 1L);
+        book.setId(id);
+        return book;
+    }
 
-        assertEquals(2, bookCounts.size());
-        assertEquals(2L, (long) bookCounts.get("Title 1"));
-        assertEquals(1L, (long) bookCounts.get("Title 2"));
+    @Test
+    void updateMember_StaleVersion() {
+        Member member = new Member("Jane Doe", LocalDate.now());
+        member.setVersion(2L);
+
+        when(memberRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () -> memberService.updateMember(1L, member, 1L));
+        verify(memberRepository, never()).save(any(Member.class));
+    }
+
+    @Test
+    void borrowBook_OutOfStock() {
+        ReflectionTestUtils.setField(memberService, "borrowLimit", 10);
+        Member member = new Member("John Doe", LocalDate.now());
+        member.setId(1L);
+
+        Book book = new Book("Author Name", "Title", 0L);
+        book.setId(1L);
+
+        when(memberRepository.findById(1L)).thenReturn(Optional.of(member));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(borrowedBookRepository.countByMemberId(1L)).thenReturn(0L);
+        when(waitlistService.claimHold(1L, 1L)).thenReturn(false);
+
+        boolean borrowed = memberService.borrowBook(1L, 1L);
+
+        assertFalse(borrowed);
+        verify(borrowedBookRepository, never()).save(any(BorrowedBook.class));
+    }
+
+    @Test
+    void borrowBook_ClaimsHeldCopy() {
+        ReflectionTestUtils.setField(memberService, "borrowLimit", 10);
+        Member member = new Member("John Doe", LocalDate.now());
+        member.setId(1L);
+
+        Book book = new Book("Author Name", "Title", 0L);
+        book.setId(1L);
+
+        when(memberRepository.findById(1L)).thenReturn(Optional.of(member));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(borrowedBookRepository.countByMemberId(1L)).thenReturn(0L);
+        when(waitlistService.claimHold(1L, 1L)).thenReturn(true);
+
+        boolean borrowed = memberService.borrowBook(1L, 1L);
+
+        assertTrue(borrowed);
+        assertEquals(0L, book.getAmount());
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(borrowedBookRepository, times(1)).save(any(BorrowedBook.class));
     }
 }
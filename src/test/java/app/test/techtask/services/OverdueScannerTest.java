@@ -0,0 +1,154 @@
+package app.test.techtask.services;
+
+import app.test.techtask.data.Member;
+import app.test.techtask.data.OverdueLoan;
+import app.test.techtask.data.OverdueScan;
+import app.test.techtask.data.OverdueScanRange;
+import app.test.techtask.data.OverdueTally;
+import app.test.techtask.repositories.BorrowedBookRepository;
+import app.test.techtask.repositories.MemberRepository;
+import app.test.techtask.repositories.OverdueScanRangeRepository;
+import app.test.techtask.repositories.OverdueScanRepository;
+import app.test.techtask.repositories.OverdueTallyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueScannerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 31);
+
+    @Mock
+    private BorrowedBookRepository borrowedBookRepository;
+    @Mock
+    private MemberRepository memberRepository;
+    @Mock
+    private OverdueScanRepository scanRepository;
+    @Mock
+    private OverdueScanRangeRepository rangeRepository;
+    @Mock
+    private OverdueTallyRepository tallyRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OverdueScanner scanner;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        Clock clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        scanner = new OverdueScanner(borrowedBookRepository, memberRepository, scanRepository, rangeRepository,
+                tallyRepository, transactionManager, clock, 14, 2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scanner.shutdown();
+    }
+
+    private static OverdueScan scan(long id) {
+        OverdueScan scan = new OverdueScan(TODAY.minusDays(14), Instant.EPOCH);
+        scan.setId(id);
+        return scan;
+    }
+
+    @Test
+    void scan_StartsNewScanSplitIntoRanges() {
+        when(scanRepository.findFirstByFinishedAtIsNullOrderByIdDesc()).thenReturn(Optional.empty());
+        when(borrowedBookRepository.findMinBorrowedDate()).thenReturn(TODAY.minusDays(30));
+        when(scanRepository.save(any(OverdueScan.class))).thenAnswer(invocation -> {
+            OverdueScan scan = invocation.getArgument(0);
+            scan.setId(1L);
+            return scan;
+        });
+        when(rangeRepository.findByScanIdAndDoneFalse(1L)).thenReturn(List.of());
+
+        scanner.start().join();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OverdueScanRange>> ranges = ArgumentCaptor.forClass(List.class);
+        verify(rangeRepository).saveAll(ranges.capture());
+        assertEquals(4, ranges.getValue().size());
+        assertEquals(TODAY.minusDays(30), ranges.getValue().get(0).getFromDate());
+        assertEquals(TODAY.minusDays(14), ranges.getValue().get(3).getToDate());
+        for (int i = 1; i < 4; i++) {
+            assertEquals(ranges.getValue().get(i - 1).getToDate(), ranges.getValue().get(i).getFromDate());
+        }
+    }
+
+    @Test
+    void scan_ResumesRangeFromCheckpointAndBuildsSummary() {
+        OverdueScan scan = scan(5L);
+        OverdueScanRange range = new OverdueScanRange(5L, TODAY.minusDays(40), TODAY.minusDays(14));
+        range.setId(9L);
+        range.setLastDate(TODAY.minusDays(35));
+        range.setLastId(100L);
+        when(scanRepository.findFirstByFinishedAtIsNullOrderByIdDesc()).thenReturn(Optional.of(scan));
+        when(rangeRepository.findByScanIdAndDoneFalse(5L)).thenReturn(List.of(range));
+        when(borrowedBookRepository.findLoanPage(eq(range.getFromDate()), eq(range.getToDate()),
+                eq(TODAY.minusDays(35)), eq(100L), any(Pageable.class)))
+                .thenReturn(List.of(new OverdueLoan(101L, 1L, 7L, TODAY.minusDays(35)),
+                        new OverdueLoan(102L, 2L, 7L, TODAY.minusDays(30))));
+        when(borrowedBookRepository.findLoanPage(eq(range.getFromDate()), eq(range.getToDate()),
+                eq(TODAY.minusDays(30)), eq(102L), any(Pageable.class)))
+                .thenReturn(List.of(new OverdueLoan(110L, 1L, 8L, TODAY.minusDays(20))));
+        when(tallyRepository.sumByMember(5L)).thenReturn(List.<Object[]>of(
+                new Object[] {1L, 2L, TODAY.minusDays(35)},
+                new Object[] {2L, 1L, TODAY.minusDays(30)}));
+        Member ann = new Member("Ann", TODAY);
+        ann.setId(1L);
+        when(memberRepository.findAllById(anyList())).thenReturn(List.of(ann));
+
+        scanner.start().join();
+
+        assertTrue(range.isDone());
+        assertEquals(110L, range.getLastId());
+        verify(rangeRepository, times(2)).save(range);
+        verify(tallyRepository, times(2)).saveAll(anyCollection());
+        assertNotNull(scan.getFinishedAt());
+        verify(tallyRepository).deleteOlderThan(5L);
+
+        OverdueSummary summary = scanner.getSummary();
+        assertEquals(3, summary.totalLoans());
+        assertEquals(2, summary.totalMembers());
+        assertEquals("Ann", summary.members().get(0).memberName());
+        assertEquals(1, summary.limit(1).members().size());
+    }
+
+    @Test
+    void scan_AddsToExistingTallyOfTheRange() {
+        OverdueScanRange range = new OverdueScanRange(5L, TODAY.minusDays(40), TODAY.minusDays(14));
+        range.setId(9L);
+        when(scanRepository.findFirstByFinishedAtIsNullOrderByIdDesc()).thenReturn(Optional.of(scan(5L)));
+        when(rangeRepository.findByScanIdAndDoneFalse(5L)).thenReturn(List.of(range));
+        when(borrowedBookRepository.findLoanPage(any(), any(), any(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(new OverdueLoan(3L, 1L, 7L, TODAY.minusDays(38))));
+        OverdueTally existing = new OverdueTally(5L, 9L, 1L, TODAY.minusDays(36));
+        existing.setOverdueLoans(4);
+        when(tallyRepository.findByRangeIdAndMemberIdIn(eq(9L), anyCollection())).thenReturn(List.of(existing));
+
+        scanner.start().join();
+
+        assertEquals(5, existing.getOverdueLoans());
+        assertEquals(TODAY.minusDays(38), existing.getOldestBorrowedDate());
+    }
+}
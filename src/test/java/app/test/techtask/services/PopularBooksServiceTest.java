@@ -0,0 +1,99 @@
+package app.test.techtask.services;
+
+import app.test.techtask.cache.BookLabels;
+import app.test.techtask.data.Book;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.stats.TumblingWindow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PopularBooksServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private PopularBooksService popularBooksService;
+
+    @BeforeEach
+    void setUp() {
+        popularBooksService = new PopularBooksService(bookRepository, new BookLabels(1000), 100);
+    }
+
+    @Test
+    void ranksBorrowedBooksWithTitles() {
+        Instant now = Instant.parse("2026-10-19T10:15:00Z");
+        Book book = new Book("Author Name", "Title", 1L);
+        book.setId(1L);
+        when(bookRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(book));
+
+        popularBooksService.record(1L, now);
+        popularBooksService.record(1L, now);
+        popularBooksService.record(2L, now);
+
+        PopularBooksReport report = popularBooksService.getPopularBooks(TumblingWindow.HOUR, 5, now);
+
+        assertEquals(3, report.totalBorrows());
+        assertEquals(Instant.parse("2026-10-19T10:00:00Z"), report.windowStart());
+        assertEquals(2, report.books().size());
+        assertEquals("Title", report.books().get(0).title());
+        assertEquals(2, report.books().get(0).borrows());
+        assertNull(report.books().get(1).title());
+    }
+
+    @Test
+    void resolvesBooksBeyondLabelCapacityAndAfterClear() {
+        Instant now = Instant.parse("2026-10-19T10:15:00Z");
+        BookLabels labels = new BookLabels(1);
+        popularBooksService = new PopularBooksService(bookRepository, labels, 100);
+        Book other = new Book("Author Name", "Other", 1L);
+        other.setId(9L);
+        labels.put(other);
+        Book book = new Book("Author Name", "Title", 1L);
+        book.setId(1L);
+        when(bookRepository.findAllById(List.of(1L))).thenReturn(List.of(book));
+        popularBooksService.record(1L, now);
+
+        assertEquals("Title", popularBooksService.getPopularBooks(TumblingWindow.HOUR, 5, now).books().get(0).title());
+
+        labels.clear();
+        labels.put(book);
+        assertEquals(1, labels.size());
+        assertEquals("Title", popularBooksService.getPopularBooks(TumblingWindow.HOUR, 5, now).books().get(0).title());
+        verify(bookRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void windowsTumbleIndependently() {
+        Instant monday = Instant.parse("2026-10-19T10:15:00Z");
+        when(bookRepository.findAllById(anyIterable())).thenReturn(List.of());
+
+        popularBooksService.record(1L, monday);
+        Instant nextHour = monday.plusSeconds(3600);
+
+        assertTrue(popularBooksService.getPopularBooks(TumblingWindow.HOUR, 5, nextHour).books().isEmpty());
+        assertEquals(1, popularBooksService.getPopularBooks(TumblingWindow.DAY, 5, nextHour).totalBorrows());
+        assertEquals(Instant.parse("2026-10-19T00:00:00Z"),
+                popularBooksService.getPopularBooks(TumblingWindow.WEEK, 5, nextHour).windowStart());
+    }
+
+    @Test
+    void ignoresNonBorrowEvents() {
+        popularBooksService.onInventoryEvent(new InventoryEvent(InventoryEvent.Type.RETURNED, 1L, 1L, 1L));
+
+        assertEquals(0, popularBooksService.getPopularBooks(TumblingWindow.DAY, 5).totalBorrows());
+        verifyNoInteractions(bookRepository);
+    }
+}
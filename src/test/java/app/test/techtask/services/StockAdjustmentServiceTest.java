@@ -0,0 +1,130 @@
+package app.test.techtask.services;
+
+import app.test.techtask.cache.EntityVersionCache;
+import app.test.techtask.data.Book;
+import app.test.techtask.data.Reservation;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.repositories.BranchStockRepository;
+import app.test.techtask.repositories.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockAdjustmentServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private ReservationRepository reservationRepository;
+    @Mock
+    private BranchStockRepository branchStockRepository;
+    @Mock
+    private WaitlistService waitlistService;
+    @Mock
+    private EntityVersionCache versionCache;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StockAdjustmentService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new StockAdjustmentService(jdbcTemplate, bookRepository, reservationRepository,
+                branchStockRepository, waitlistService, versionCache, eventPublisher, transactionManager, 3);
+    }
+
+    private static StockAdjustmentResult result(Long bookId, StockAdjustmentResult.Status status, Long amount) {
+        return new StockAdjustmentResult(bookId, status, amount);
+    }
+
+    @Test
+    void adjust_ReportsEachAdjustment() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(jdbcTemplate.batchUpdate(eq(StockAdjustmentService.ADJUST_SQL), anyCollection(), eq(3), any()))
+                .thenReturn(new int[][] {{1, 0, 0}});
+        when(bookRepository.findStockByIdIn(anyCollection()))
+                .thenReturn(List.of(new Object[]{1L, 7L, 3L}, new Object[]{2L, 1L, 0L}));
+        when(branchStockRepository.sumPerBookIn(Set.of(1L))).thenReturn(List.<Object[]>of(new Object[]{1L, 2L}));
+
+        BulkAdjustmentResult result = service.adjust(List.of(
+                new StockAdjustment(1L, -3L, null),
+                new StockAdjustment(2L, -5L, null),
+                new StockAdjustment(3L, null, 4L),
+                new StockAdjustment(4L, 1L, 4L)));
+
+        assertEquals(1, result.applied());
+        assertEquals(3, result.rejected());
+        assertEquals(List.of(
+                result(1L, StockAdjustmentResult.Status.APPLIED, 7L),
+                result(2L, StockAdjustmentResult.Status.INSUFFICIENT_COPIES, 1L),
+                result(3L, StockAdjustmentResult.Status.NOT_FOUND, null),
+                result(4L, StockAdjustmentResult.Status.INVALID, null)), result.results());
+        verify(versionCache).put(Book.class, 1L, 3L);
+        verify(eventPublisher).publishEvent(InventoryEvent.of(InventoryEvent.Type.UPDATED, 1L, 9L));
+        verifyNoMoreInteractions(eventPublisher);
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    void adjust_FailedChunkDoesNotStopLaterChunks() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(jdbcTemplate.batchUpdate(eq(StockAdjustmentService.ADJUST_SQL), anyCollection(), anyInt(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(new int[][] {{1}});
+        when(bookRepository.findStockByIdIn(anyCollection())).thenReturn(List.<Object[]>of(new Object[]{4L, 2L, 1L}));
+
+        BulkAdjustmentResult result = service.adjust(List.of(
+                new StockAdjustment(1L, 1L, null),
+                new StockAdjustment(2L, 1L, null),
+                new StockAdjustment(3L, 1L, null),
+                new StockAdjustment(4L, null, 2L)));
+
+        assertEquals(1, result.applied());
+        assertEquals(StockAdjustmentResult.Status.FAILED, result.results().get(0).status());
+        assertEquals(StockAdjustmentResult.Status.FAILED, result.results().get(2).status());
+        assertEquals(result(4L, StockAdjustmentResult.Status.APPLIED, 2L), result.results().get(3));
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(StockAdjustmentService.ADJUST_SQL), anyCollection(), anyInt(), any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void adjust_OffersRestockedCopiesToWaitlist() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(jdbcTemplate.batchUpdate(eq(StockAdjustmentService.ADJUST_SQL), anyCollection(), eq(1), any()))
+                .thenReturn(new int[][] {{1}});
+        Book book = new Book("Author Name", "Title", 2L);
+        book.setId(5L);
+        when(reservationRepository.findBookIdsByStatus(Set.of(5L), Reservation.Status.WAITING))
+                .thenReturn(List.of(5L));
+        when(bookRepository.findById(5L)).thenReturn(Optional.of(book));
+        when(waitlistService.offerCopy(book)).thenReturn(true, true, false);
+        when(bookRepository.findStockByIdIn(anyCollection())).thenReturn(List.<Object[]>of(new Object[]{5L, 0L, 4L}));
+
+        BulkAdjustmentResult result = service.adjust(List.of(new StockAdjustment(5L, 2L, null)));
+
+        assertEquals(result(5L, StockAdjustmentResult.Status.APPLIED, 0L), result.results().get(0));
+        verify(waitlistService, times(3)).offerCopy(book);
+        verify(eventPublisher).publishEvent(InventoryEvent.of(InventoryEvent.Type.UPDATED, 5L, 0L));
+    }
+}
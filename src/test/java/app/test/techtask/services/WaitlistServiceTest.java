@@ -0,0 +1,168 @@
+package app.test.techtask.services;
+
+import app.test.techtask.data.Book;
+import app.test.techtask.data.Member;
+import app.test.techtask.data.Reservation;
+import app.test.techtask.events.InventoryEvent;
+import app.test.techtask.events.ReservationHeldEvent;
+import app.test.techtask.repositories.BookRepository;
+import app.test.techtask.repositories.BranchStockRepository;
+import app.test.techtask.repositories.MemberRepository;
+import app.test.techtask.repositories.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WaitlistServiceTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private MemberRepository memberRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BranchStockRepository branchStockRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private WaitlistService waitlistService;
+
+    private Member member;
+
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        waitlistService = new WaitlistService(reservationRepository, memberRepository, bookRepository,
+                branchStockRepository, eventPublisher, Duration.ofDays(3));
+        member = new Member("John Doe", LocalDate.now());
+        member.setId(1L);
+        book = new Book("Author Name", "Title", 0L);
+        book.setId(2L);
+    }
+
+    @Test
+    void reserve_OutOfStockBook() {
+        when(reservationRepository.findByMemberIdAndBookId(1L, 2L)).thenReturn(Optional.empty());
+        when(memberRepository.findById(1L)).thenReturn(Optional.of(member));
+        when(bookRepository.findById(2L)).thenReturn(Optional.of(book));
+        when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> {
+            Reservation reservation = invocation.getArgument(0);
+            reservation.setId(10L);
+            return reservation;
+        });
+        when(reservationRepository.countByBookIdAndStatusAndIdLessThan(2L, Reservation.Status.WAITING, 10L)).thenReturn(2L);
+
+        Optional<WaitlistEntry> entry = waitlistService.reserve(1L, 2L);
+
+        assertTrue(entry.isPresent());
+        assertEquals(Reservation.Status.WAITING, entry.get().status());
+        assertEquals(3L, entry.get().position());
+    }
+
+    @Test
+    void reserve_AvailableBook() {
+        book.setAmount(1L);
+        when(reservationRepository.findByMemberIdAndBookId(1L, 2L)).thenReturn(Optional.empty());
+        when(memberRepository.findById(1L)).thenReturn(Optional.of(member));
+        when(bookRepository.findById(2L)).thenReturn(Optional.of(book));
+
+        assertTrue(waitlistService.reserve(1L, 2L).isEmpty());
+        verify(reservationRepository, never()).save(any(Reservation.class));
+    }
+
+    @Test
+    void reserve_BookOnBranchShelf() {
+        when(reservationRepository.findByMemberIdAndBookId(1L, 2L)).thenReturn(Optional.empty());
+        when(memberRepository.findById(1L)).thenReturn(Optional.of(member));
+        when(bookRepository.findById(2L)).thenReturn(Optional.of(book));
+        when(branchStockRepository.sumByBookId(2L)).thenReturn(1L);
+
+        assertTrue(waitlistService.reserve(1L, 2L).isEmpty());
+        verify(reservationRepository, never()).save(any(Reservation.class));
+    }
+
+    @Test
+    void offerCopy_HoldsCopyForFirstWaitingMember() {
+        book.setAmount(1L);
+        Reservation next = reservation(Reservation.Status.WAITING);
+        when(reservationRepository.findFirstByBookIdAndStatusOrderByIdAsc(2L, Reservation.Status.WAITING))
+                .thenReturn(Optional.of(next));
+
+        boolean held = waitlistService.offerCopy(book);
+
+        assertTrue(held);
+        assertEquals(0L, book.getAmount());
+        assertEquals(Reservation.Status.HELD, next.getStatus());
+        assertNotNull(next.getHeldUntil());
+        verify(eventPublisher).publishEvent(new ReservationHeldEvent(1L, 2L, next.getHeldUntil()));
+    }
+
+    @Test
+    void offerCopy_EmptyWaitlist() {
+        book.setAmount(1L);
+        when(reservationRepository.findFirstByBookIdAndStatusOrderByIdAsc(2L, Reservation.Status.WAITING))
+                .thenReturn(Optional.empty());
+
+        assertFalse(waitlistService.offerCopy(book));
+        assertEquals(1L, book.getAmount());
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
+    @Test
+    void claimHold_OnlyForHeldReservation() {
+        Reservation waiting = reservation(Reservation.Status.WAITING);
+        when(reservationRepository.findByMemberIdAndBookId(1L, 2L)).thenReturn(Optional.of(waiting));
+
+        assertFalse(waitlistService.claimHold(1L, 2L));
+
+        waiting.setStatus(Reservation.Status.HELD);
+        assertTrue(waitlistService.claimHold(1L, 2L));
+        verify(reservationRepository, times(1)).delete(waiting);
+    }
+
+    @Test
+    void expireHolds_ReturnsCopyToShelfWhenNobodyWaits() {
+        Reservation expired = reservation(Reservation.Status.HELD);
+        expired.setHeldUntil(LocalDateTime.now().minusHours(1));
+        when(reservationRepository.findByStatusAndHeldUntilBefore(eq(Reservation.Status.HELD), any(LocalDateTime.class)))
+                .thenReturn(List.of(expired));
+        when(reservationRepository.findFirstByBookIdAndStatusOrderByIdAsc(2L, Reservation.Status.WAITING))
+                .thenReturn(Optional.empty());
+
+        waitlistService.expireHolds();
+
+        assertEquals(1L, book.getAmount());
+        verify(reservationRepository).delete(expired);
+        verify(eventPublisher).publishEvent(InventoryEvent.of(InventoryEvent.Type.UPDATED, 2L, 1L));
+    }
+
+    private Reservation reservation(Reservation.Status status) {
+        Reservation reservation = new Reservation();
+        reservation.setId(10L);
+        reservation.setMember(member);
+        reservation.setBook(book);
+        reservation.setStatus(status);
+        reservation.setCreatedAt(LocalDateTime.now());
+        return reservation;
+    }
+}
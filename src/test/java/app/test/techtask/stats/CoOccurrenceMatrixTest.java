@@ -0,0 +1,84 @@
+package app.test.techtask.stats;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoOccurrenceMatrixTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void countsPairsSymmetrically() {
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(10);
+        matrix.increment(1, 2);
+        matrix.increment(2, 1);
+        matrix.increment(1, 3);
+        matrix.increment(1, 1);
+
+        assertEquals(List.of(new CoOccurrenceMatrix.Neighbour(2, 2), new CoOccurrenceMatrix.Neighbour(3, 1)),
+                matrix.top(1, 5));
+        assertEquals(List.of(new CoOccurrenceMatrix.Neighbour(1, 2)), matrix.top(2, 5));
+        assertEquals(List.of(), matrix.top(99, 5));
+    }
+
+    @Test
+    void prunesRowsToStrongestNeighbours() {
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(2);
+        for (int i = 0; i < 5; i++) {
+            matrix.increment(1, 100);
+        }
+        for (int i = 0; i < 3; i++) {
+            matrix.increment(1, 200);
+        }
+        for (long other = 300; other < 310; other++) {
+            matrix.increment(1, other);
+        }
+
+        List<CoOccurrenceMatrix.Neighbour> top = matrix.top(1, 10);
+
+        assertTrue(top.size() <= 4);
+        assertEquals(new CoOccurrenceMatrix.Neighbour(100, 5), top.get(0));
+        assertEquals(new CoOccurrenceMatrix.Neighbour(200, 3), top.get(1));
+    }
+
+    @Test
+    void removeBookDropsItFromNeighbours() {
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(10);
+        matrix.increment(1, 2);
+        matrix.increment(1, 3);
+
+        matrix.removeBook(2);
+
+        assertEquals(List.of(new CoOccurrenceMatrix.Neighbour(3, 1)), matrix.top(1, 5));
+        assertEquals(List.of(), matrix.top(2, 5));
+    }
+
+    @Test
+    void snapshotRoundTripsAndRejectsDamage() throws IOException {
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(10);
+        matrix.increment(1, 2);
+        matrix.increment(1, 2);
+        matrix.increment(2, 3);
+        Path file = dir.resolve("related.snapshot");
+
+        matrix.writeTo(file);
+        CoOccurrenceMatrix restored = CoOccurrenceMatrix.readFrom(file, 10);
+
+        assertNotNull(restored);
+        assertEquals(matrix.top(2, 5), restored.top(2, 5));
+        assertEquals(3, restored.bookCount());
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[10] ^= 0x7F;
+        Files.write(file, bytes);
+        assertNull(CoOccurrenceMatrix.readFrom(file, 10));
+    }
+}
@@ -0,0 +1,44 @@
+package app.test.techtask.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntLongMapTest {
+
+    @Test
+    void addsAndGetsIncludingZeroKey() {
+        IntLongMap map = new IntLongMap();
+
+        assertEquals(3, map.addTo(7, 3));
+        assertEquals(5, map.addTo(7, 2));
+        map.put(0, 11);
+
+        assertEquals(5, map.get(7, -1));
+        assertEquals(11, map.get(0, -1));
+        assertEquals(-1, map.get(8, -1));
+        assertEquals(2, map.size());
+        assertArrayEquals(new int[]{0, 7}, map.keys());
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        IntLongMap map = new IntLongMap(4);
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(50_000) - 100;
+            long delta = random.nextInt(10);
+            assertEquals((long) expected.merge(key, delta, Long::sum), map.addTo(key, delta));
+        }
+
+        assertEquals(expected.size(), map.size());
+        Map<Integer, Long> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+    }
+}
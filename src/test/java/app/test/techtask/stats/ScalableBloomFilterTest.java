@@ -0,0 +1,37 @@
+package app.test.techtask.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void neverForgetsAndKeepsFalsePositivesNearTargetWhileGrowing() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        for (long id = 0; id < 50_000; id++) {
+            filter.put(BloomFilter.hash(id));
+        }
+
+        assertTrue(filter.stageCount() > 1);
+        for (long id = 0; id < 50_000; id++) {
+            assertTrue(filter.mightContain(BloomFilter.hash(id)));
+        }
+        int falsePositives = 0;
+        for (long id = 1_000_000; id < 1_100_000; id++) {
+            if (filter.mightContain(BloomFilter.hash(id))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 1_500, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void hashesStringsByContent() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        filter.put(BloomFilter.hash("John"));
+
+        assertTrue(filter.mightContain(BloomFilter.hash(new StringBuilder("Jo").append("hn"))));
+        assertFalse(filter.mightContain(BloomFilter.hash("Jane")));
+    }
+}
@@ -0,0 +1,63 @@
+package app.test.techtask.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void exactWhileUnderCapacity() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(10);
+        for (int i = 0; i < 5; i++) {
+            sketch.offer(1);
+        }
+        sketch.offer(2);
+        sketch.offer(2);
+        sketch.offer(3);
+
+        List<SpaceSavingSketch.Counter> top = sketch.top(2);
+
+        assertEquals(List.of(new SpaceSavingSketch.Counter(1, 5, 0), new SpaceSavingSketch.Counter(2, 2, 0)), top);
+        assertEquals(8, sketch.total());
+        assertEquals(0, sketch.errorBound());
+    }
+
+    @Test
+    void findsHeavyHittersWithinErrorBound() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(20);
+        long[] trueCounts = new long[1000];
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long item = i % 4 == 0 ? random.nextInt(3) : 3 + random.nextInt(997);
+            trueCounts[(int) item]++;
+            sketch.offer(item);
+        }
+
+        List<SpaceSavingSketch.Counter> top = sketch.top(3);
+
+        assertEquals(3, top.size());
+        for (SpaceSavingSketch.Counter counter : top) {
+            assertTrue(counter.item() < 3, "unexpected heavy hitter " + counter.item());
+            assertTrue(counter.count() >= trueCounts[(int) counter.item()]);
+            assertTrue(counter.count() - counter.error() <= trueCounts[(int) counter.item()]);
+            assertTrue(counter.error() <= sketch.errorBound());
+        }
+    }
+
+    @Test
+    void clearResetsCounters() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.offer(1);
+        sketch.offer(2);
+        sketch.offer(3);
+
+        sketch.clear();
+
+        assertTrue(sketch.top(10).isEmpty());
+        assertEquals(0, sketch.total());
+    }
+}
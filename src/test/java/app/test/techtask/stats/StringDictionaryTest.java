@@ -0,0 +1,68 @@
+package app.test.techtask.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDictionaryTest {
+
+    @Test
+    void assignsDenseIdsOncePerString() {
+        StringDictionary dictionary = new StringDictionary(2);
+
+        assertEquals(0, dictionary.idOf("Dune"));
+        assertEquals(1, dictionary.idOf("Frank Herbert"));
+        assertEquals(0, dictionary.idOf(new String("Dune")));
+        assertEquals(StringDictionary.NONE, dictionary.find("Emma"));
+        assertEquals("Frank Herbert", dictionary.get(1));
+        assertNull(dictionary.get(StringDictionary.NONE));
+        assertEquals(2, dictionary.size());
+        assertThrows(IllegalArgumentException.class, () -> dictionary.get(2));
+    }
+
+    @Test
+    void keepsIdsStableAcrossGrowth() {
+        StringDictionary dictionary = new StringDictionary(4);
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i, dictionary.idOf("title-" + i));
+        }
+
+        for (int i = 0; i < 100_000; i += 997) {
+            assertEquals(i, dictionary.find("title-" + i));
+            assertEquals("title-" + i, dictionary.get(i));
+        }
+    }
+
+    @Test
+    void concurrentWritersAgreeOnIds() throws Exception {
+        StringDictionary dictionary = new StringDictionary();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    int[] ids = new int[10_000];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = dictionary.idOf("author-" + i);
+                    }
+                    return ids;
+                }));
+            }
+            int[] first = results.get(0).get();
+            for (Future<int[]> result : results) {
+                assertArrayEquals(first, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(10_000, dictionary.size());
+        assertEquals("author-42", dictionary.get(dictionary.find("author-42")));
+    }
+}